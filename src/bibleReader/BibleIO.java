@@ -2,16 +2,23 @@ package bibleReader;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
 
 import bibleReader.model.Bible;
 import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.MappedBible;
 import bibleReader.model.Reference;
 import bibleReader.model.Verse;
 import bibleReader.model.VerseList;
+import bibleReader.model.WordTokenizer;
 
 /**
  * A utility class that has useful methods to read/write Bibles and Verses.
@@ -44,6 +51,89 @@ public class BibleIO {
 		}
 	}
 
+	/**
+	 * Open a Bible that is saved in the mapped ("MBV") format. Unlike readBible,
+	 * this returns the Bible itself, since the verses stay in the file until they
+	 * are needed (see MappedBible).
+	 * 
+	 * @param bibleFile The file containing a Bible with .mbv extension.
+	 * @return The Bible in the file, or null if there was an error reading the
+	 *         file.
+	 */
+	public static Bible readMappedBible(File bibleFile) {
+		try {
+			return new MappedBible(bibleFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Get the concordance for a Bible that was read from a file. If there is an
+	 * index file next to the Bible file (the same name with ".idx" added) that was
+	 * made from the file as it is now, with positions and the ASCII tokenizer,
+	 * the concordance is loaded from it.
+	 * Otherwise it is built, and saved to the index file for next time.
+	 * 
+	 * @param bibleFile the file the Bible was read from.
+	 * @param bible     the Bible that was read from it.
+	 * @return the concordance for the Bible, with positions.
+	 */
+	public static Concordance readConcordance(File bibleFile, Bible bible) {
+		File indexFile = new File(bibleFile.getPath() + ".idx");
+		long fingerprint;
+		try {
+			fingerprint = fingerprint(bibleFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return new Concordance(bible, true, ForkJoinPool.commonPool());
+		}
+		if (indexFile.isFile()) {
+			try {
+				// An index made some other way (without positions, say) is rebuilt too.
+				Concordance concordance = Concordance.read(indexFile, fingerprint, WordTokenizer.ASCII, true);
+				if (concordance != null) {
+					return concordance;
+				}
+			} catch (IOException e) {
+				// A damaged index is just rebuilt.
+				e.printStackTrace();
+			}
+		}
+		Concordance concordance = new Concordance(bible, true, ForkJoinPool.commonPool());
+		try {
+			concordance.write(indexFile, fingerprint);
+		} catch (IOException e) {
+			// The concordance still works, it will just be built again next time.
+			e.printStackTrace();
+		}
+		return concordance;
+	}
+
+	/**
+	 * A fingerprint of the contents of a file: its length in the high 32 bits and
+	 * the CRC-32 of its bytes in the low 32 bits. If the file changes, its
+	 * fingerprint almost certainly does too.
+	 * 
+	 * @param file the file.
+	 * @return the fingerprint.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static long fingerprint(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		long length = 0;
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+				length += read;
+			}
+		}
+		return (length << 32) | crc.getValue();
+	}
+
 	/**
 	 * Read in a Bible that is saved in the "ATV" format. The format is described
 	 * below.
@@ -214,6 +304,21 @@ public class BibleIO {
 		writeVersesATV(file, description, verses);
 	}
 
+	/**
+	 * Write out the Bible in the mapped ("MBV") format so it can be opened with
+	 * readMappedBible.
+	 * 
+	 * @param file  The file that the Bible should be written to.
+	 * @param bible The Bible that will be written to the file.
+	 */
+	public static void writeBibleMBV(File file, Bible bible) {
+		try {
+			MappedBible.write(bible, file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Write out the given verses in the ATV format, using the description as the
 	 * first line of the file.
@@ -69,18 +69,18 @@ public class BibleReaderApp extends JFrame {
 
 		Bible kjv = new ArrayListBible(verses);
 
-		model.addBible(kjv);
+		model.addBible(kjv, BibleIO.readConcordance(kjvFile, kjv));
 
 		
 		File esvFile = new File("esv.atv");
 		VerseList esvVerse = BibleIO.readBible(esvFile);
 		Bible esv = new ArrayListBible(esvVerse);
-		model.addBible(esv);
+		model.addBible(esv, BibleIO.readConcordance(esvFile, esv));
 
 		File asvFile = new File("asv.xmv");
 		VerseList asvVerse = BibleIO.readBible(asvFile);
 		Bible asv = new ArrayListBible(asvVerse);
-		model.addBible(asv);
+		model.addBible(asv, BibleIO.readConcordance(asvFile, asv));
 
 		setupLookAndFeel();
 
@@ -117,7 +117,7 @@ public class BibleReaderApp extends JFrame {
 			}
 		});
 
-		FileNameExtensionFilter filter = new FileNameExtensionFilter("ATV & XMV Bibles", "atv", "xmv");
+		FileNameExtensionFilter filter = new FileNameExtensionFilter("ATV, XMV & MBV Bibles", "atv", "xmv", "mbv");
 		fileChooser = new JFileChooser();
 		fileChooser.setFileFilter(filter);
 		fileChooser.setAcceptAllFileFilterUsed(false);
@@ -129,12 +129,22 @@ public class BibleReaderApp extends JFrame {
 				int returnVal = fileChooser.showOpenDialog(getContentPane());
 
 				if (returnVal == JFileChooser.APPROVE_OPTION) {
-					VerseList bible = BibleIO.readBible(fileChooser.getSelectedFile());
+					File file = fileChooser.getSelectedFile();
+					Bible bible = null;
+					if (file.getName().toLowerCase().endsWith(".mbv")) {
+						// Mapped Bibles are read straight from the file, so there is nothing to build.
+						bible = BibleIO.readMappedBible(file);
+					} else {
+						VerseList verses = BibleIO.readBible(file);
+						if (verses != null) {
+							bible = new ArrayListBible(verses);
+						}
+					}
 					if (bible == null) {
 						JOptionPane.showMessageDialog(null, "An error occured while adding the bible",
 								"Failed to Add Bible", JOptionPane.ERROR_MESSAGE);
 					} else {
-						model.addBible(new ArrayListBible(bible));
+						model.addBible(bible, BibleIO.readConcordance(file, bible));
 						resultView.refreshResults();
 					}
 				} else if (returnVal == JFileChooser.ERROR_OPTION) {
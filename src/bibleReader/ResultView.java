@@ -7,6 +7,7 @@ import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import javax.swing.JButton;
 import javax.swing.JEditorPane;
@@ -19,6 +20,8 @@ import bibleReader.model.BibleReaderModel;
 import bibleReader.model.NavigableResults;
 import bibleReader.model.Reference;
 import bibleReader.model.ResultType;
+import bibleReader.model.Tokenizer;
+import bibleReader.model.WordTokenizer;
 
 /**
  * The display panel for the Bible Reader.
@@ -133,6 +136,11 @@ public class ResultView extends JPanel {
 			buttonsEnable();
 			displaySearchResults(navResults.currentResults());
 		} else {
+			String suggestion = model.getSuggestedSearch(input);
+			if (suggestion != null) {
+				statsLabel.setText(" There are no verses containing the word(s): " + input + ". Did you mean: "
+						+ suggestion + "?");
+			}
 			noResults();
 		}
 	}
@@ -286,12 +294,29 @@ public class ResultView extends JPanel {
 		pageCount.setText("Page " + navResults.getPageNumber() + " of " + navResults.getNumberPages());
 	}
 
-	private String boldSearch(ArrayList<String> words, String verse) {
-		String output = verse;
+	/*
+	 * Bold the words of the verse that are search words. The verse is split into words the same way the concordance
+	 * does it, in one pass, so the words that are bolded are the ones the search found.
+	 */
+	private String boldSearch(ArrayList<String> words, final String verse) {
+		final HashSet<String> searchWords = new HashSet<String>();
 		for (String word : words) {
-			output = output.replaceAll("(?i)(?<!\\w)" + word + "(?!\\w)", "<b>$0</b>");
+			searchWords.add(word.toLowerCase());
 		}
-		return output;
+		final StringBuilder output = new StringBuilder(verse.length() + 16);
+		// How much of the verse has been copied to output so far.
+		final int[] copied = { 0 };
+		WordTokenizer.ASCII.tokenize(verse, new Tokenizer.TokenHandler() {
+			@Override
+			public void token(char[] buffer, int length, int start, int end) {
+				if (searchWords.contains(new String(buffer, 0, length))) {
+					output.append(verse, copied[0], start).append("<b>").append(verse, start, end).append("</b>");
+					copied[0] = end;
+				}
+			}
+		});
+		output.append(verse, copied[0], verse.length());
+		return output.toString();
 	}
 
 	private String passageRange(ArrayList<Reference> references) {
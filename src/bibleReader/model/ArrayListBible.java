@@ -1,7 +1,8 @@
 package bibleReader.model;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Comparator;
 
 /**
  * A class that stores a version of the Bible.
@@ -13,15 +14,103 @@ import java.util.List;
 public class ArrayListBible implements Bible {
 
 	private VerseList verses;
+	private Versification versification;
+	// The trigrams of the verses (not counting the Dummy verse), or null if the Bible wasn't made with one.
+	private TrigramIndex trigrams;
+	// The lowercased text of the verses, for searching without an index. It is made the first time a phrase is
+	// searched for, and never if there is a TrigramIndex, which has its own.
+	private volatile FoldedText folded;
 
 	/**
-	 * Create a new Bible with the given verses.
+	 * Create a new Bible with the given verses. The verses are sorted by reference
+	 * (keeping repeated references in their original order) since the passage
+	 * methods depend on it.
 	 * 
 	 * @param verses All of the verses of this version of the Bible.
 	 */
 	public ArrayListBible(VerseList verses) {
-		this.verses = new VerseList(verses.getVersion(), verses.getDescription(), verses.copyVerses());
+		this(verses, false);
+	}
+
+	/**
+	 * Create a new Bible with the given verses, and, if asked for, a TrigramIndex
+	 * so that searching for a phrase only has to look at the verses that could
+	 * have it. The index takes some time and memory to build, so it is only worth
+	 * it for a Bible that will be searched a lot.
+	 * 
+	 * @param verses All of the verses of this version of the Bible.
+	 * @param trigramIndex whether to build a TrigramIndex for phrase searches.
+	 */
+	public ArrayListBible(VerseList verses, boolean trigramIndex) {
+		ArrayList<Verse> copy = new ArrayList<Verse>(verses.size());
+		for (Verse verse : verses) {
+			if (verse.getReference().getOrdinal() != Reference.INVALID_ORDINAL) {
+				copy.add(verse);
+			}
+		}
+		copy.sort(new Comparator<Verse>() {
+			@Override
+			public int compare(Verse v1, Verse v2) {
+				return v1.getReference().compareTo(v2.getReference());
+			}
+		});
+		this.verses = new VerseList(verses.getVersion(), verses.getDescription(), copy);
+		versification = Versification.of(copy);
 		this.verses.add(new Verse(BookOfBible.Dummy, 1, 1, ""));
+		if (trigramIndex) {
+			trigrams = new TrigramIndex(texts());
+		}
+	}
+
+	// The text of every verse but the Dummy one.
+	private String[] texts() {
+		String[] texts = new String[verses.size() - 1];
+		for (int i = 0; i < texts.length; i++) {
+			texts[i] = verses.get(i).getText();
+		}
+		return texts;
+	}
+
+	/**
+	 * @return whether this Bible was made with a TrigramIndex.
+	 */
+	public boolean hasTrigramIndex() {
+		return trigrams != null;
+	}
+
+	/*
+	 * The index of the verse with the given reference in the verses list, or -1 if
+	 * there isn't one. The Dummy verse at the end isn't part of the
+	 * versification, so it is handled here.
+	 */
+	private int indexOf(Reference ref) {
+		if (ref != null && ref.getBookOfBible() == BookOfBible.Dummy) {
+			return ref.equals(verses.get(verses.size() - 1).getReference()) ? verses.size() - 1 : -1;
+		}
+		return versification.indexOf(ref);
+	}
+
+	/*
+	 * The index of the first verse that comes at or after lastVerse, which is
+	 * where an exclusive range ending at lastVerse stops. This is the Dummy
+	 * verse at the end if every verse comes before lastVerse, and -1 if lastVerse
+	 * comes after the Dummy verse too.
+	 */
+	private int endIndex(Reference lastVerse) {
+		int end = indexOf(lastVerse);
+		if (end == -1 && lastVerse.compareTo(verses.get(verses.size() - 1).getReference()) < 0) {
+			end = versification.firstIndexFrom(lastVerse);
+		}
+		return end;
+	}
+
+	/*
+	 * A read-only view of the verses from start up to end. The verses list is
+	 * never changed after the constructor, so nothing needs to be copied.
+	 */
+	private VerseList versesBetween(String description, int start, int end) {
+		return VerseList.view(verses.getVersion(), description,
+				Collections.unmodifiableList(verses.subList(start, Math.max(start, end))));
 	}
 
 	@Override
@@ -41,12 +130,7 @@ public class ArrayListBible implements Bible {
 
 	@Override
 	public boolean isValid(Reference ref) {
-		for (Verse compare : verses) {
-			Reference compRef = compare.getReference();
-			if (compRef.equals(ref) && !compRef.getBook().equals("Dummy"))
-				return true;
-		}
-		return false;
+		return versification.isValid(ref);
 	}
 
 	@Override
@@ -59,22 +143,37 @@ public class ArrayListBible implements Bible {
 
 	@Override
 	public Verse getVerse(Reference r) {
-		for (Verse compare : verses) {
-			if (compare.getReference().equals(r))
-				return compare;
-		}
+		int index = indexOf(r);
+		if (index != -1)
+			return verses.get(index);
 		return null;
 	}
 
 	@Override
 	public Verse getVerse(BookOfBible book, int chapter, int verse) {
-		return getVerse(new Reference(book, chapter, verse));
+		return getVerse(Reference.of(book, chapter, verse));
 	}
 
 	@Override
 	public VerseList getAllVerses() {
-		List<Verse> cleanList = verses.subList(0, verses.size() - 1);
-		return new VerseList(verses.getVersion(), verses.getDescription(), cleanList);
+		return versesBetween(verses.getDescription(), 0, verses.size() - 1);
+	}
+
+	/*
+	 * The indexes of the verses that contain the phrase, ignoring case. The
+	 * phrase is not null or empty.
+	 */
+	private int[] indexesContaining(String phrase) {
+		if (trigrams != null) {
+			return trigrams.indexesContaining(phrase);
+		}
+		FoldedText text = folded;
+		if (text == null) {
+			// If two threads get here at the same time, they both make one, and one of them is kept.
+			text = FoldedText.of(texts());
+			folded = text;
+		}
+		return text.indexesContaining(phrase);
 	}
 
 	@Override
@@ -84,11 +183,8 @@ public class ArrayListBible implements Bible {
 			return versesContaining;
 		if (phrase.equals(""))
 			return versesContaining;
-		String phraseLower = phrase.toLowerCase();
-		for (Verse contains : verses) {
-			if (contains.getText().toLowerCase().indexOf(phraseLower) != -1) {
-				versesContaining.add(contains);
-			}
+		for (int i : indexesContaining(phrase)) {
+			versesContaining.add(verses.get(i));
 		}
 		return versesContaining;
 	}
@@ -100,15 +196,25 @@ public class ArrayListBible implements Bible {
 			return refsContaining;
 		if (phrase.equals(""))
 			return refsContaining;
-		String phraseLower = phrase.toLowerCase();
-		for (Verse contains : verses) {
-			if (contains.getText().toLowerCase().indexOf(phraseLower) != -1) {
-				refsContaining.add(contains.getReference());
-			}
+		for (int i : indexesContaining(phrase)) {
+			refsContaining.add(verses.get(i).getReference());
 		}
 		return refsContaining;
 	}
 
+	@Override
+	public IntReferenceList getOrdinalsContaining(String phrase) {
+		IntReferenceList ordinals = new IntReferenceList();
+		if (phrase == null)
+			return ordinals;
+		if (phrase.equals(""))
+			return ordinals;
+		for (int i : indexesContaining(phrase)) {
+			ordinals.add(verses.get(i).getReference());
+		}
+		return ordinals;
+	}
+
 	@Override
 	public VerseList getVerses(ArrayList<Reference> references) {
 		VerseList versesContainingRef = new VerseList(verses.getVersion(), "Arbitrary list of Verses");
@@ -118,51 +224,27 @@ public class ArrayListBible implements Bible {
 		return versesContainingRef;
 	}
 
-	// TODO Look the cleanliness of the next two. Do something else than the
-	// previous current.
 	@Override
 	public int getLastVerseNumber(BookOfBible book, int chapter) {
-		if (book != null) {
-			int searchIndex = verses.indexOfVerseWithReference(new Reference(book, chapter, 1));
-			if (searchIndex != -1) {
-				searchIndex++;
-				Reference current;
-				while (searchIndex < verses.size()) {
-					current = verses.get(searchIndex).getReference();
-					if (!current.getBook().equals(book.toString()) || current.getChapter() != chapter) {
-						return verses.get(searchIndex - 1).getReference().getVerse();
-					}
-					searchIndex++;
-				}
-			}
-		}
-		return -1;
+		return versification.getLastVerseNumber(book, chapter);
 	}
 
 	@Override
 	public int getLastChapterNumber(BookOfBible book) {
-		if (book != null) {
-			int searchIndex = verses.indexOfVerseWithReference(new Reference(book, 1, 1));
-			if (searchIndex != -1) {
-				searchIndex++;
-				while (searchIndex < verses.size()) {
-					if (!verses.get(searchIndex).getReference().getBook().equals(book.toString())) {
-						return verses.get(searchIndex - 1).getReference().getChapter();
-					}
-					searchIndex++;
-				}
-			}
-		}
+		return versification.getLastChapterNumber(book);
+	}
 
-		return -1;
+	@Override
+	public Versification getVersification() {
+		return versification;
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse) {
 		ArrayList<Reference> references = new ArrayList<Reference>();
-		if (firstVerse.compareTo(lastVerse) <= 0 || !lastVerse.equals(new Reference(BookOfBible.Dummy, 1, 1))) {
-			int start = verses.indexOfVerseWithReference(firstVerse);
-			int end = verses.indexOfVerseWithReference(lastVerse);
+		if (firstVerse.compareTo(lastVerse) <= 0 || !lastVerse.equals(Reference.of(BookOfBible.Dummy, 1, 1))) {
+			int start = indexOf(firstVerse);
+			int end = indexOf(lastVerse);
 			if (start != -1 && end != -1) {
 				for (int i = start; i <= end; i++) {
 					references.add(verses.get(i).getReference());
@@ -172,22 +254,28 @@ public class ArrayListBible implements Bible {
 		return references;
 	}
 
+	@Override
+	public IntReferenceList getOrdinalsInclusive(Reference firstVerse, Reference lastVerse) {
+		IntReferenceList ordinals = new IntReferenceList();
+		if (firstVerse.compareTo(lastVerse) <= 0 || !lastVerse.equals(Reference.of(BookOfBible.Dummy, 1, 1))) {
+			int start = indexOf(firstVerse);
+			int end = indexOf(lastVerse);
+			if (start != -1 && end != -1) {
+				for (int i = start; i <= end; i++) {
+					ordinals.add(verses.get(i).getReference());
+				}
+			}
+		}
+		return ordinals;
+	}
+
 	@Override
 	public ArrayList<Reference> getReferencesExclusive(Reference firstVerse, Reference lastVerse) {
 		ArrayList<Reference> references = new ArrayList<Reference>();
 		if (firstVerse.compareTo(lastVerse) <= 0
 				|| lastVerse.compareTo(verses.get(verses.size() - 1).getReference()) > 0) {
-			int start = verses.indexOfVerseWithReference(firstVerse);
-			int end = verses.indexOfVerseWithReference(lastVerse);
-			if (start != -1) {
-				int index = start;
-				while (index < verses.size() && end < 0) {
-					if (lastVerse.compareTo(verses.get(index).getReference()) < 0) {
-						end = index;
-					}
-					index++;
-				}
-			}
+			int start = indexOf(firstVerse);
+			int end = endIndex(lastVerse);
 			if (start != -1 && end != -1) {
 				for (int i = start; i < end; i++) {
 					references.add(verses.get(i).getReference());
@@ -201,7 +289,7 @@ public class ArrayListBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForBook(BookOfBible book) {
 		if (book != null) {
-			return getReferencesExclusive(new Reference(book, 1, 1), new Reference(BookOfBible.nextBook(book), 1, 1));
+			return getReferencesExclusive(Reference.of(book, 1, 1), Reference.of(BookOfBible.nextBook(book), 1, 1));
 		}
 		return new ArrayList<Reference>();
 
@@ -210,7 +298,7 @@ public class ArrayListBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForChapter(BookOfBible book, int chapter) {
 		if (book != null) {
-			return getReferencesExclusive(new Reference(book, chapter, 1), new Reference(book, chapter + 1, 1));
+			return getReferencesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
 		}
 		return new ArrayList<Reference>();
 	}
@@ -218,20 +306,20 @@ public class ArrayListBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForChapters(BookOfBible book, int chapter1, int chapter2) {
 		if (chapter1 <= chapter2 && book != null) {
-			return getReferencesExclusive(new Reference(book, chapter1, 1), new Reference(book, chapter2 + 1, 1));
+			return getReferencesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
 		}
 		return new ArrayList<Reference>();
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter, int verse1, int verse2) {
-		return getReferencesInclusive(new Reference(book, chapter, verse1), new Reference(book, chapter, verse2));
+		return getReferencesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter1, int verse1, int chapter2,
 			int verse2) {
-		return getReferencesInclusive(new Reference(book, chapter1, verse1), new Reference(book, chapter2, verse2));
+		return getReferencesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
 	}
 
 	// TODO Again, look to try and make things cleaner.
@@ -240,12 +328,10 @@ public class ArrayListBible implements Bible {
 		VerseList outVerses = new VerseList(this.getVersion(), firstVerse.toString() + " - " + lastVerse.toString());
 		if (firstVerse.compareTo(lastVerse) <= 0
 				|| lastVerse.compareTo(verses.get(verses.size() - 1).getReference()) > 0) {
-			int start = verses.indexOfVerseWithReference(firstVerse);
-			int end = verses.indexOfVerseWithReference(lastVerse);
+			int start = indexOf(firstVerse);
+			int end = indexOf(lastVerse);
 			if (start != -1 && end != -1) {
-				for (int i = start; i <= end; i++) {
-					outVerses.add(verses.get(i));
-				}
+				return versesBetween(outVerses.getDescription(), start, end + 1);
 			}
 		}
 		return outVerses;
@@ -256,21 +342,10 @@ public class ArrayListBible implements Bible {
 		VerseList outVerses = new VerseList(this.getVersion(), firstVerse.toString() + " - " + lastVerse.toString());
 		if (firstVerse.compareTo(lastVerse) <= 0
 				|| lastVerse.compareTo(verses.get(verses.size() - 1).getReference()) > 0) {
-			int start = verses.indexOfVerseWithReference(firstVerse);
-			int end = verses.indexOfVerseWithReference(lastVerse);
-			if (start != -1) {
-				int index = start;
-				while (index < verses.size() && end < 0) {
-					if (lastVerse.compareTo(verses.get(index).getReference()) < 0) {
-						end = index;
-					}
-					index++;
-				}
-			}
+			int start = indexOf(firstVerse);
+			int end = endIndex(lastVerse);
 			if (start != -1 && end != -1) {
-				for (int i = start; i < end; i++) {
-					outVerses.add(verses.get(i));
-				}
+				return versesBetween(outVerses.getDescription(), start, end);
 			}
 		}
 		return outVerses;
@@ -280,28 +355,28 @@ public class ArrayListBible implements Bible {
 	public VerseList getBook(BookOfBible book) {
 		if (book != null) {
 			BookOfBible next = BookOfBible.nextBook(book);
-			return getVersesExclusive(new Reference(book, 1, 1), new Reference(next, 1, 1));
+			return getVersesExclusive(Reference.of(book, 1, 1), Reference.of(next, 1, 1));
 		}
 		return new VerseList(this.getVersion(), "");
 	}
 
 	@Override
 	public VerseList getChapter(BookOfBible book, int chapter) {
-		return getVersesExclusive(new Reference(book, chapter, 1), new Reference(book, chapter + 1, 1));
+		return getVersesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
 	}
 
 	@Override
 	public VerseList getChapters(BookOfBible book, int chapter1, int chapter2) {
-		return getVersesExclusive(new Reference(book, chapter1, 1), new Reference(book, chapter2 + 1, 1));
+		return getVersesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
 	}
 
 	@Override
 	public VerseList getPassage(BookOfBible book, int chapter, int verse1, int verse2) {
-		return getVersesInclusive(new Reference(book, chapter, verse1), new Reference(book, chapter, verse2));
+		return getVersesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
 	}
 
 	@Override
 	public VerseList getPassage(BookOfBible book, int chapter1, int verse1, int chapter2, int verse2) {
-		return getVersesInclusive(new Reference(book, chapter1, verse1), new Reference(book, chapter2, verse2));
+		return getVersesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
 	}
 }
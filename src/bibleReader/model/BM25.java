@@ -0,0 +1,45 @@
+package bibleReader.model;
+
+/**
+ * The Okapi BM25 ranking function, used to order the results of a search so that the verses that are most about the
+ * words come first. A verse gets a score for each word of the search that it contains, and its score is the sum of
+ * those. The score for one word goes up with the number of times the word is in the verse, but less and less (how
+ * quickly it levels off is K1). It is higher for rare words (the inverse document frequency, idf) and for verses that
+ * are shorter than average (how much the length counts is B).
+ *
+ * @author Trevor Palmatier
+ */
+public final class BM25 {
+	/**
+	 * How quickly the score for a word levels off as it occurs more often in a verse.
+	 */
+	public static final double	K1	= 1.2;
+
+	/**
+	 * How much the length of a verse counts, from 0 (not at all) to 1.
+	 */
+	public static final double	B	= 0.75;
+
+	private BM25() {
+	}
+
+	/**
+	 * @param verses            the number of verses in the version.
+	 * @param documentFrequency the number of those verses that contain the word.
+	 * @return the inverse document frequency of the word. It is never negative, even for a word that is in almost
+	 *         every verse.
+	 */
+	public static double idf(int verses, int documentFrequency) {
+		return Math.log(1 + (verses - documentFrequency + 0.5) / (documentFrequency + 0.5));
+	}
+
+	/**
+	 * @param idf         the inverse document frequency of the word (see idf).
+	 * @param frequency   how many times the word occurs in the verse.
+	 * @param lengthRatio the number of words in the verse divided by the average number of words in a verse.
+	 * @return the score the word gives the verse. It is never more than idf * (K1 + 1).
+	 */
+	public static double score(double idf, int frequency, double lengthRatio) {
+		return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+	}
+}
@@ -105,6 +105,18 @@ public interface Bible {
 	 */
 	public abstract ArrayList<Reference> getReferencesContaining(String phrase);
 
+	/**
+	 * The same as getReferencesContaining, except that the references are
+	 * returned as packed ordinals (see Reference.getOrdinal()).
+	 * 
+	 * @param phrase
+	 *            the phrase to search for
+	 * @return a sorted IntReferenceList of the ordinals of all verses
+	 *         containing <i>phrase</i>. If there are no such verses, returns an
+	 *         empty list.
+	 */
+	public abstract IntReferenceList getOrdinalsContaining(String phrase);
+
 	/**
 	 * @param references
 	 *            a ArrayList<Reference> of references for which verses are being requested
@@ -137,6 +149,13 @@ public interface Bible {
 	 */
 	public abstract int getLastChapterNumber(BookOfBible book);
 
+	/**
+	 * @return the Versification of this Bible, which can answer questions
+	 *         about how many books, chapters, and verses it has without
+	 *         looking at the verses themselves.
+	 */
+	public abstract Versification getVersification();
+
 	// -------------------------------------------------------------------------------------------------
 	// Passage getters that return ArrayList<Reference>s.
 	/**
@@ -152,6 +171,20 @@ public interface Bible {
 	 */
 	public abstract ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse);
 
+	/**
+	 * The same as getReferencesInclusive, except that the references are
+	 * returned as packed ordinals (see Reference.getOrdinal()).
+	 * 
+	 * @param firstVerse
+	 *            the starting verse of the passage
+	 * @param lastVerse
+	 *            the final verse of the passage
+	 * @return a sorted IntReferenceList of the ordinals of all verses between
+	 *         firstVerse and lastVerse, inclusive of both; or an empty list if
+	 *         the range of verses is invalid in this Bible.
+	 */
+	public abstract IntReferenceList getOrdinalsInclusive(Reference firstVerse, Reference lastVerse);
+
 	/**
 	 * @param firstVerse
 	 *            the starting verse of the passage
@@ -12,6 +12,30 @@ public class BibleFactory {
 //		return new ArrayListBible(verses);
 		return new TreeMapBible(verses);
 	}
+
+	/**
+	 * Create a Bible using a specific implementation rather than the default one.
+	 * 
+	 * @param verses All of the verses of this version of the Bible.
+	 * @param implementation Which kind of Bible to create.
+	 * @return the new Bible.
+	 */
+	public static Bible createBible(VerseList verses, BibleImplementation implementation) {
+		switch (implementation) {
+		case ARRAY_LIST:
+			return new ArrayListBible(verses);
+		case COLUMNAR:
+			return new ColumnarBible(verses);
+		case COMPACT:
+			return new CompactBible(verses);
+		case IMMUTABLE:
+			return new ImmutableBible(verses);
+		case TREE_MAP:
+		default:
+			return new TreeMapBible(verses);
+		}
+	}
+
 	public static Concordance createConcordance(Bible bible) {
 		return new Concordance(bible);
 	}
@@ -0,0 +1,11 @@
+package bibleReader.model;
+
+/**
+ * The different ways a Bible can be stored. BibleFactory uses this to decide which class to create.
+ * It isn't clear where this belongs, so we will put it in its own file.
+ * 
+ * @author Trevor Palmatier
+ */
+public enum BibleImplementation {
+	ARRAY_LIST, TREE_MAP, COLUMNAR, COMPACT, IMMUTABLE
+}
@@ -1,9 +1,10 @@
 package bibleReader.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,6 +20,8 @@ public class BibleReaderModel implements MultiBibleModel {
 	private ArrayList<Bible> bibles;
 	private ArrayList<String> versions;
 	private ArrayList<Concordance> concordances;
+	// The words of every version, for word searches. Version i is bibles.get(i).
+	private MultiVersionConcordance allVersions;
 	private boolean versionsIsSorted;
 	public static final String number = "\\s*(\\d+)\\s*";
 	public static Pattern quote = Pattern.compile("\"([^\"]*\\w+[^\"]+)\"");
@@ -37,6 +40,7 @@ public class BibleReaderModel implements MultiBibleModel {
 		bibles = new ArrayList<Bible>();
 		versions = new ArrayList<String>();
 		concordances = new ArrayList<Concordance>();
+		allVersions = new MultiVersionConcordance();
 		versionsIsSorted = true;
 	}
 
@@ -58,10 +62,27 @@ public class BibleReaderModel implements MultiBibleModel {
 	@Override
 	public void addBible(Bible bible) {
 		if (bible != null) {
+			addBible(bible, new Concordance(bible, true, ForkJoinPool.commonPool()));
+		}
+	}
+
+	/**
+	 * Add a Bible whose concordance has already been made (loaded from an index
+	 * file, for instance), so it doesn't have to be built again.
+	 * 
+	 * @param bible       The bible you want to add to the model.
+	 * @param concordance The concordance for that Bible. It should have positions,
+	 *                    or searches for phrases will have to look at the text.
+	 * @throws IllegalStateException if the model already has
+	 *                               MultiVersionConcordance.MAX_VERSIONS Bibles.
+	 */
+	public void addBible(Bible bible, Concordance concordance) {
+		if (bible != null && concordance != null) {
+			allVersions.addVersion(concordance);
 			versionsIsSorted = false;
 			bibles.add(bible);
 			versions.add(bible.getVersion());
-			concordances.add(new Concordance(bible));
+			concordances.add(concordance);
 		}
 	}
 
@@ -76,11 +97,16 @@ public class BibleReaderModel implements MultiBibleModel {
 
 	@Override
 	public ArrayList<Reference> getReferencesContaining(String words) {
-		TreeSet<Reference> refsContaining = new TreeSet<Reference>();
-		for(int i = 0; i< bibles.size(); i++) {
-			refsContaining.addAll(bibles.get(i).getReferencesContaining(words));
+		return getOrdinalsContaining(words).toReferences();
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsContaining(String words) {
+		IntReferenceList ordinals = new IntReferenceList();
+		for (int i = 0; i < bibles.size(); i++) {
+			ordinals = IntReferenceList.union(ordinals, bibles.get(i).getOrdinalsContaining(words));
 		}
-		return new ArrayList<Reference>(refsContaining);
+		return ordinals;
 	}
 
 	@Override
@@ -154,10 +180,15 @@ public class BibleReaderModel implements MultiBibleModel {
 		return new ArrayList<Reference>();
 	}
 
+	@Override
+	public IntReferenceList getOrdinalsForPassage(String reference) {
+		return new IntReferenceList(getReferencesForPassage(reference));
+	}
+
 	@Override
 	public ArrayList<Reference> getVerseReferences(BookOfBible book, int chapter, int verse) {
 		ArrayList<Reference> reference = new ArrayList<Reference>();
-		Reference ref = new Reference(book, chapter, verse);
+		Reference ref = Reference.of(book, chapter, verse);
 		for (int i = 0; i < bibles.size(); i++) {
 			if (bibles.get(i).getVerse(ref) != null) {
 				reference.add(ref);
@@ -169,58 +200,70 @@ public class BibleReaderModel implements MultiBibleModel {
 
 	@Override
 	public ArrayList<Reference> getPassageReferences(Reference startVerse, Reference endVerse) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
-		for (int i=0; i<bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesInclusive(startVerse, endVerse));
+		ReferenceSet references = ReferenceSet.EMPTY;
+		for (int i = 0; i < bibles.size(); i++) {
+			references = ReferenceSet.union(references,
+					ReferenceSet.of(bibles.get(i).getReferencesInclusive(startVerse, endVerse)));
 		}
-		return new ArrayList<Reference>(references);
+		return references.toReferences();
 	}
 
 	@Override
 	public ArrayList<Reference> getBookReferences(BookOfBible book) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
-		for (int i=0; i<bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesForBook(book));
+		if (book == null) {
+			return new ArrayList<Reference>();
 		}
-		return new ArrayList<Reference>(references);
+		int first = Reference.toOrdinal(book, 0, 0);
+		return getReferencesBetween(first, first + Reference.BOOK_SPAN - 1);
 	}
 
 	@Override
 	public ArrayList<Reference> getChapterReferences(BookOfBible book, int chapter) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
-		for (int i=0; i<bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesForChapter(book, chapter));
-		}
-		ArrayList<Reference> result = new ArrayList<Reference>(references);
-		return result;
+		return getChapterReferences(book, chapter, chapter);
 	}
 
 	@Override
 	public ArrayList<Reference> getChapterReferences(BookOfBible book, int chapter1, int chapter2) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
+		if (book == null || chapter1 > chapter2 || chapter2 < 0 || chapter1 > Reference.MAX_FIELD) {
+			return new ArrayList<Reference>();
+		}
+		int first = Reference.toOrdinal(book, Math.max(chapter1, 0), 0);
+		int last = Reference.toOrdinal(book, Math.min(chapter2, Reference.MAX_FIELD), Reference.MAX_FIELD);
+		return getReferencesBetween(first, last);
+	}
+
+	/*
+	 * The references between the two ordinals (inclusive) that are in at least one version. Each version's verses are
+	 * already a ReferenceSet, so this is just cutting out the part that is wanted and ORing the versions together.
+	 */
+	private ArrayList<Reference> getReferencesBetween(int first, int last) {
+		ReferenceSet references = ReferenceSet.EMPTY;
 		for (int i = 0; i < bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesForChapters(book, chapter1, chapter2));
+			ReferenceSet verses = bibles.get(i).getVersification().getReferenceSet();
+			references = ReferenceSet.union(references, verses.restrictTo(first, last));
 		}
-		return new ArrayList<Reference>(references);
+		return references.toReferences();
 	}
 
 	@Override
 	public ArrayList<Reference> getPassageReferences(BookOfBible book, int chapter, int verse1, int verse2) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
+		ReferenceSet references = ReferenceSet.EMPTY;
 		for (int i = 0; i < bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesForPassage(book, chapter, verse1, verse2));
+			references = ReferenceSet.union(references,
+					ReferenceSet.of(bibles.get(i).getReferencesForPassage(book, chapter, verse1, verse2)));
 		}
-		return new ArrayList<Reference>(references);
+		return references.toReferences();
 	}
 
 	@Override
 	public ArrayList<Reference> getPassageReferences(BookOfBible book, int chapter1, int verse1, int chapter2,
 			int verse2) {
-		TreeSet<Reference> references = new TreeSet<Reference>();
+		ReferenceSet references = ReferenceSet.EMPTY;
 		for (int i = 0; i < bibles.size(); i++) {
-			references.addAll(bibles.get(i).getReferencesForPassage(book, chapter1, verse1, chapter2, verse2));
+			references = ReferenceSet.union(references,
+					ReferenceSet.of(bibles.get(i).getReferencesForPassage(book, chapter1, verse1, chapter2, verse2)));
 		}
-		return new ArrayList<Reference>(references);
+		return references.toReferences();
 	}
 
 	// ------------------------------------------------------------------
@@ -231,11 +274,7 @@ public class BibleReaderModel implements MultiBibleModel {
 		if (word != null) {
 			if (!word.equals("")) {
 				String wordClean = word.trim();
-				TreeSet<Reference> references = new TreeSet<Reference>();
-				for (Concordance concordance : concordances) {
-					references.addAll(concordance.getReferencesContaining(wordClean));
-				}
-				return new ArrayList<Reference>(references);
+				return allVersions.getOrdinalsContaining(wordClean, MultiVersionConcordance.ALL_VERSIONS).toReferences();
 			}
 		}
 		return new ArrayList<Reference>();
@@ -243,24 +282,228 @@ public class BibleReaderModel implements MultiBibleModel {
 
 	@Override
 	public ArrayList<Reference> getReferencesContainingAllWords(String words) {
+		return getOrdinalsContainingAllWords(words).toReferences();
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsContainingAllWords(String words) {
+		return getOrdinalsContainingAllWords(words, MultiVersionConcordance.ALL_VERSIONS);
+	}
+
+	/**
+	 * The same as getOrdinalsContainingAllWords, except that only the given
+	 * versions are searched. In both, a word with a '*' or '?' in it (like
+	 * "love*" or "bless?d") matches any word that fits the pattern. A '?' at the
+	 * end of a word is taken to be a question mark, not a wildcard.
+	 * 
+	 * @param words       a list of words separated by spaces.
+	 * @param versionMask the versions to search (see getVersionMask).
+	 * @return the sorted ordinals of the verses that contain all of the words in
+	 *         at least one of the versions.
+	 */
+	public IntReferenceList getOrdinalsContainingAllWords(String words, long versionMask) {
 		if (words != null) {
-			ArrayList<String> wordsList = cleanInput(words);
-			TreeSet<Reference> references = new TreeSet<Reference>();
-			for (Concordance concordance : concordances) {
-				references.addAll(concordance.getReferencesContainingAll(wordsList));
+			return allVersions.getOrdinalsContainingAll(cleanInput(words), versionMask);
+		}
+		return new IntReferenceList();
+	}
+
+	/**
+	 * The verses that best match the words, best first, instead of every verse that
+	 * contains them in order. Each version ranks the verses that contain all of the
+	 * words with BM25 (see Concordance.getTopOrdinals), and a verse's score is its
+	 * best score in any version. Only the top k of each version are kept, which is
+	 * enough, since a verse in the top k overall is in the top k of the version it
+	 * scores best in. Words are matched exactly ('*' and '?' aren't wildcards here).
+	 * 
+	 * @param words a list of words separated by spaces.
+	 * @param k     the most verses to return.
+	 * @return the ordinals of the best k verses, best first (so they aren't sorted
+	 *         the way the ordinals in an IntReferenceList are).
+	 */
+	public int[] getTopOrdinalsContainingAllWords(String words, int k) {
+		if (words == null || k <= 0) {
+			return new int[0];
+		}
+		ArrayList<String> wordsClean = cleanInput(words);
+		// Each version's best k, as parallel arrays, with a key for each one that sorts them by ordinal.
+		int count = 0;
+		int[] ordinals = new int[0];
+		double[] scores = new double[0];
+		for (Concordance concordance : concordances) {
+			TopK inVersion = concordance.getTopOrdinals(wordsClean, k, true);
+			int size = inVersion.size();
+			ordinals = Arrays.copyOf(ordinals, count + size);
+			scores = Arrays.copyOf(scores, count + size);
+			System.arraycopy(inVersion.getOrdinals(), 0, ordinals, count, size);
+			System.arraycopy(inVersion.getScores(), 0, scores, count, size);
+			count += size;
+		}
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = (long) ordinals[i] << 32 | i;
+		}
+		Arrays.sort(keys);
+
+		// Offer each verse once, with its best score.
+		TopK top = new TopK(k);
+		for (int i = 0; i < count;) {
+			int ordinal = ordinals[(int) keys[i]];
+			double score = scores[(int) keys[i]];
+			for (i++; i < count && ordinals[(int) keys[i]] == ordinal; i++) {
+				score = Math.max(score, scores[(int) keys[i]]);
+			}
+			top.offer(ordinal, score);
+		}
+		return top.getOrdinals();
+	}
+
+	/**
+	 * The same as getTopOrdinalsContainingAllWords, except that References are
+	 * returned.
+	 * 
+	 * @param words a list of words separated by spaces.
+	 * @param k     the most verses to return.
+	 * @return the references of the best k verses, best first.
+	 */
+	public ArrayList<Reference> getTopReferencesContainingAllWords(String words, int k) {
+		ArrayList<Reference> references = new ArrayList<Reference>();
+		for (int ordinal : getTopOrdinalsContainingAllWords(words, k)) {
+			references.add(Reference.fromOrdinal(ordinal));
+		}
+		return references;
+	}
+
+	/**
+	 * Search with AND, OR, NOT, NEAR, parentheses, and quoted phrases (see
+	 * QueryParser for the syntax), like: love NOT "love of money", or faith
+	 * NEAR/5 works. The search is run on the concordance of each version without
+	 * looking at the text of any verse, and a verse matches if it matches in at
+	 * least one version.
+	 * 
+	 * @param query the search.
+	 * @return the sorted ordinals of the verses that match.
+	 * @throws IllegalArgumentException if the search can't be parsed.
+	 * @throws IllegalStateException    if the search has a phrase or a NEAR and a
+	 *                                  version's concordance was made without
+	 *                                  positions.
+	 */
+	public IntReferenceList getOrdinalsMatchingQuery(String query) {
+		Query parsed = QueryParser.parse(query);
+		ReferenceSet results = ReferenceSet.EMPTY;
+		for (Concordance concordance : concordances) {
+			results = ReferenceSet.union(results, ReferenceSet.of(parsed.getOrdinals(concordance)));
+		}
+		return results.toIntReferenceList();
+	}
+
+	/**
+	 * The same as getOrdinalsMatchingQuery, except that References are returned.
+	 * 
+	 * @param query the search (see QueryParser).
+	 * @return the references of the verses that match, in order.
+	 * @throws IllegalArgumentException if the search can't be parsed.
+	 */
+	public ArrayList<Reference> getReferencesMatchingQuery(String query) {
+		return getOrdinalsMatchingQuery(query).toReferences();
+	}
+
+	/**
+	 * @param versions the abbreviations of some of the versions in the model.
+	 * @return the mask to pass to getOrdinalsContainingAllWords to search just
+	 *         those versions. Versions that aren't in the model are ignored.
+	 */
+	public long getVersionMask(String... versions) {
+		long mask = 0;
+		for (String version : versions) {
+			for (int i = 0; i < bibles.size(); i++) {
+				if (bibles.get(i).getVersion().equals(version)) {
+					mask |= 1L << i;
+				}
 			}
-			return new ArrayList<Reference>(references);
+		}
+		return mask;
+	}
+
+	/**
+	 * Like getReferencesContainingWord, but also finds the verses that contain a
+	 * word that is close to the given one, for when it was mistyped.
+	 * 
+	 * @param word     a single word.
+	 * @param maxEdits how many characters can be added, removed, or changed (0
+	 *                 to TermDictionary.MAX_EDITS).
+	 * @return the references of the verses that contain a word within maxEdits
+	 *         edits of the given one in at least one version.
+	 */
+	public ArrayList<Reference> getReferencesContainingSimilarWord(String word, int maxEdits) {
+		if (word != null && !word.trim().equals("")) {
+			return allVersions.getOrdinalsContainingSimilar(word.trim(), maxEdits, MultiVersionConcordance.ALL_VERSIONS)
+					.toReferences();
 		}
 		return new ArrayList<Reference>();
 	}
 
+	/**
+	 * @param word  a word that might be mistyped.
+	 * @param limit the most suggestions to return.
+	 * @return words from the versions that are close to the given one, with the
+	 *         ones in the most verses first (see
+	 *         MultiVersionConcordance.getSuggestions).
+	 */
+	public ArrayList<String> getSuggestions(String word, int limit) {
+		if (word != null && !word.trim().equals("")) {
+			return allVersions.getSuggestions(word.trim(), limit);
+		}
+		return new ArrayList<String>();
+	}
+
+	/**
+	 * For a search that found nothing: the same search with each word that isn't
+	 * in any version replaced by the best suggestion for it.
+	 * 
+	 * @param words the words that were searched for, separated by spaces.
+	 * @return the corrected search, or null if no word could be corrected.
+	 */
+	public String getSuggestedSearch(String words) {
+		if (words == null) {
+			return null;
+		}
+		StringBuilder suggested = new StringBuilder();
+		boolean changed = false;
+		for (String word : words.trim().split("\\s+")) {
+			// Only the word itself is corrected, so quotes, parentheses, and other punctuation around it are kept.
+			int start = 0;
+			int end = word.length();
+			while (start < end && !Character.isLetterOrDigit(word.charAt(start))) {
+				start++;
+			}
+			while (end > start && !Character.isLetterOrDigit(word.charAt(end - 1))) {
+				end--;
+			}
+			// The same as the word the search looks for. Operators (AND, NEAR/3) and wildcards are left alone.
+			String wordClean = cleanWord(word.substring(start, end));
+			if (wordClean.matches("[\\p{L}\\p{N}_]+") && !QueryParser.isOperator(word.substring(start, end))
+					&& !TermDictionary.isWildcard(word) && allVersions.getPostings(wordClean) == null) {
+				ArrayList<String> suggestions = allVersions.getSuggestions(wordClean, 1);
+				if (!suggestions.isEmpty()) {
+					word = word.substring(0, start) + suggestions.get(0) + word.substring(end);
+					changed = true;
+				}
+			}
+			if (suggested.length() > 0) {
+				suggested.append(' ');
+			}
+			suggested.append(word);
+		}
+		return changed ? suggested.toString() : null;
+	}
+
 	@Override
 	public ArrayList<Reference> getReferencesContainingAllWordsAndPhrases(String words) {
 		if (words != null) {
-			TreeSet<Reference> results = new TreeSet<Reference>();
-			ArrayList<Reference> references = getReferencesContainingAllWords(words);
+			IntReferenceList candidates = getOrdinalsContainingAllWords(words);
 
-			if (references.size() > 0) {
+			if (candidates.size() > 0) {
 				Matcher quoteMatcher = quote.matcher(words);
 				ArrayList<String> quotes = new ArrayList<String>();
 				while (quoteMatcher.find()) {
@@ -268,33 +511,48 @@ public class BibleReaderModel implements MultiBibleModel {
 				}
 
 				if (quotes.size() != 0) {
-					for (Reference reference : references) {
-						for (Bible bible : bibles) {
-							int phraseContained = 0;
-							for (String phrase : quotes) {
-								Pattern phrasePattern = Pattern.compile("\\b" + phrase.toLowerCase() + "\\b");
-								Verse verse = bible.getVerse(reference);
-								if(verse!=null) {
-									Matcher phraseMatcher = phrasePattern.matcher(verse.getText().toLowerCase());
-									if (phraseMatcher.find()) {
-										phraseContained++;
-									}
-								}
-							}
-							if (phraseContained == quotes.size()) {
-								results.add(reference);
+					// A verse counts if it contains every phrase in at least one version.
+					IntReferenceList results = new IntReferenceList();
+					for (int i = 0; i < bibles.size(); i++) {
+						IntReferenceList inBible = candidates;
+						for (String phrase : quotes) {
+							if (inBible.size() == 0) {
 								break;
 							}
+							inBible = getOrdinalsContainingPhrase(i, phrase, inBible);
 						}
+						results = IntReferenceList.union(results, inBible);
 					}
-					return new ArrayList<Reference>(results);
+					return results.toReferences();
 				}
-				return references;
+				return candidates.toReferences();
 			}
 		}
 		return new ArrayList<Reference>();
 	}
 
+	/*
+	 * Which of the candidates contain the phrase in the i-th Bible? A phrase that is just words separated by spaces is
+	 * found with the positions in the concordance. Anything else (punctuation, for instance) is matched against the
+	 * text of each candidate verse.
+	 */
+	private IntReferenceList getOrdinalsContainingPhrase(int i, String phrase, IntReferenceList candidates) {
+		Concordance concordance = concordances.get(i);
+		if (concordance.hasPositions() && Concordance.isIndexablePhrase(phrase)) {
+			return IntReferenceList.intersection(candidates, concordance.getOrdinalsContainingPhrase(phrase));
+		}
+		Bible bible = bibles.get(i);
+		Pattern phrasePattern = Pattern.compile("\\b" + phrase.toLowerCase() + "\\b");
+		IntReferenceList results = new IntReferenceList();
+		for (int j = 0; j < candidates.size(); j++) {
+			Verse verse = bible.getVerse(Reference.fromOrdinal(candidates.get(j)));
+			if (verse != null && phrasePattern.matcher(verse.getText().toLowerCase()).find()) {
+				results.add(candidates.get(j));
+			}
+		}
+		return results;
+	}
+
 	private ArrayList<String> cleanInput(String words) {
 		if (words != null) {
 			HashSet<String> wordsList = new HashSet<String>();
@@ -302,14 +560,18 @@ public class BibleReaderModel implements MultiBibleModel {
 			words = words.replaceAll("(\\s{2,})", " ");
 			String[] splitWords = words.trim().toLowerCase().split(" ");
 			for (String word : splitWords) {
-				word = word.replaceAll("('s|s|'|,|;|\\?|!|:|\\.|\\(|\\))", "");
-				wordsList.add(word);
+				wordsList.add(cleanWord(word));
 			}
 			return new ArrayList<String>(wordsList);
 		}
 		return new ArrayList<String>();
 	}
 
+	// Lowercase a word and take out its punctuation and 's, the way a search does.
+	private static String cleanWord(String word) {
+		return word.toLowerCase().replaceAll("('s|s|'|,|;|\\?(?!\\w)|!|:|\\.|\\(|\\))", "");
+	}
+
 	private String cleanPhrase(String phrase) {
 		phrase = phrase.replaceAll("\\s{2,}", " ");
 		phrase = phrase.trim();
@@ -0,0 +1,204 @@
+package bibleReader.model;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The text of every verse of a Bible as bytes, one verse after another, with an offset for where each one starts. The
+ * bytes are either Latin-1 (one byte per character, used when every character fits) or UTF-8. A String is only made
+ * when someone asks for the text of a verse.
+ *
+ * Searching for a phrase that is all ASCII is done on the bytes, folding A-Z to a-z as it goes, so no Strings are made
+ * at all. This gives the same answer as text.toLowerCase().contains(phrase.toLowerCase()) since ASCII letters are
+ * lowercased the same way no matter what is around them, and the bytes of a non-ASCII character (in either encoding)
+ * never equal an ASCII byte. The one catch is the few characters whose lowercase form has ASCII in it (the Kelvin
+ * sign and capital I with a dot). A verse with one of those that doesn't match on the bytes is checked again as a
+ * String. A phrase that isn't all ASCII is always searched for with Strings.
+ *
+ * @author Trevor Palmatier
+ */
+final class ByteText {
+	private final ByteBuffer	bytes;
+	private final IntBuffer		offsets;
+	private final Charset		charset;
+	private final boolean		utf8;
+
+	/**
+	 * @param bytes the text of all of the verses. Only absolute gets are used, so it can be shared between threads.
+	 * @param offsets the offsets of the verses. The text of verse i is bytes offsets[i] up to offsets[i + 1].
+	 * @param charset either StandardCharsets.ISO_8859_1 or StandardCharsets.UTF_8.
+	 */
+	ByteText(ByteBuffer bytes, IntBuffer offsets, Charset charset) {
+		this.bytes = bytes;
+		this.offsets = offsets;
+		this.charset = charset;
+		utf8 = !StandardCharsets.ISO_8859_1.equals(charset);
+	}
+
+	/**
+	 * Store the given texts as Latin-1 if every character fits and as UTF-8 if not.
+	 *
+	 * @param texts the text of each verse.
+	 * @return the texts as bytes.
+	 */
+	static ByteText of(String[] texts) {
+		Charset charset = StandardCharsets.ISO_8859_1;
+		for (String text : texts) {
+			if (!fitsLatin1(text)) {
+				charset = StandardCharsets.UTF_8;
+				break;
+			}
+		}
+		byte[][] encoded = new byte[texts.length][];
+		int[] offsets = new int[texts.length + 1];
+		for (int i = 0; i < texts.length; i++) {
+			encoded[i] = texts[i].getBytes(charset);
+			offsets[i + 1] = offsets[i] + encoded[i].length;
+		}
+		byte[] all = new byte[offsets[texts.length]];
+		for (int i = 0; i < texts.length; i++) {
+			System.arraycopy(encoded[i], 0, all, offsets[i], encoded[i].length);
+		}
+		return new ByteText(ByteBuffer.wrap(all), IntBuffer.wrap(offsets), charset);
+	}
+
+	private static boolean fitsLatin1(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the charset the text is stored in.
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return the number of bytes used by the text of all of the verses.
+	 */
+	int getByteCount() {
+		return offsets.get(offsets.limit() - 1);
+	}
+
+	/**
+	 * @param index the index of a verse.
+	 * @return the text of the verse.
+	 */
+	String get(int index) {
+		int start = offsets.get(index);
+		int length = offsets.get(index + 1) - start;
+		if (bytes.hasArray()) {
+			return new String(bytes.array(), bytes.arrayOffset() + start, length, charset);
+		}
+		byte[] copy = new byte[length];
+		ByteBuffer verse = bytes.duplicate();
+		verse.position(start);
+		verse.get(copy);
+		return new String(copy, charset);
+	}
+
+	/**
+	 * Find the verses that contain the phrase, ignoring case.
+	 *
+	 * @param phrase the phrase. It is not null or empty.
+	 * @return the indexes of the verses that contain it, in order.
+	 */
+	int[] indexesContaining(String phrase) {
+		String phraseLower = phrase.toLowerCase();
+		byte[] pattern = asciiBytes(phraseLower);
+		int count = offsets.limit() - 1;
+		int[] indexes = new int[16];
+		int found = 0;
+		for (int i = 0; i < count; i++) {
+			boolean matches;
+			if (pattern != null) {
+				matches = contains(i, pattern, phraseLower);
+			} else {
+				matches = get(i).toLowerCase().contains(phraseLower);
+			}
+			if (matches) {
+				if (found == indexes.length) {
+					indexes = Arrays.copyOf(indexes, found * 2);
+				}
+				indexes[found++] = i;
+			}
+		}
+		return Arrays.copyOf(indexes, found);
+	}
+
+	// The bytes of the phrase if it is all ASCII, or null if it isn't (or is empty).
+	private static byte[] asciiBytes(String phrase) {
+		if (phrase.isEmpty()) {
+			return null;
+		}
+		byte[] pattern = new byte[phrase.length()];
+		for (int i = 0; i < phrase.length(); i++) {
+			char c = phrase.charAt(i);
+			if (c >= 0x80) {
+				return null;
+			}
+			pattern[i] = (byte) c;
+		}
+		return pattern;
+	}
+
+	/*
+	 * Does verse index contain the pattern (the lowercase ASCII bytes of phraseLower), ignoring case?
+	 */
+	private boolean contains(int index, byte[] pattern, String phraseLower) {
+		int start = offsets.get(index);
+		int end = offsets.get(index + 1);
+		int last = end - pattern.length;
+		byte first = pattern[0];
+		boolean checkAsString = false;
+		for (int i = start; i < end; i++) {
+			byte b = bytes.get(i);
+			if (i <= last && fold(b) == first && matchesAt(i + 1, pattern)) {
+				return true;
+			}
+			if (utf8 && b < 0 && lowercasesToAscii(i, end)) {
+				checkAsString = true;
+			}
+		}
+		return checkAsString && get(index).toLowerCase().contains(phraseLower);
+	}
+
+	private boolean matchesAt(int position, byte[] pattern) {
+		for (int j = 1; j < pattern.length; j++) {
+			if (fold(bytes.get(position + j - 1)) != pattern[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte fold(byte b) {
+		if (b >= 'A' && b <= 'Z') {
+			return (byte) (b + ('a' - 'A'));
+		}
+		return b;
+	}
+
+	/*
+	 * Is there a UTF-8 character starting at i whose lowercase form has ASCII in it? That is U+0130 (C4 B0), which
+	 * becomes "i" followed by a combining dot, and U+212A (E2 84 AA), the Kelvin sign, which becomes "k".
+	 */
+	private boolean lowercasesToAscii(int i, int end) {
+		byte b = bytes.get(i);
+		if (b == (byte) 0xC4) {
+			return i + 1 < end && bytes.get(i + 1) == (byte) 0xB0;
+		}
+		if (b == (byte) 0xE2) {
+			return i + 2 < end && bytes.get(i + 1) == (byte) 0x84 && bytes.get(i + 2) == (byte) 0xAA;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,49 @@
+package bibleReader.model;
+
+/**
+ * A Bible that stores its verses in columns instead of as Verse objects or map entries. Every verse gets a dense index
+ * (0 for the first verse, 1 for the second, and so on). The text of all of the verses is kept in one String, and an
+ * int[] of offsets says where each verse starts. The reference of each verse is kept as a packed ordinal (see
+ * Reference.getOrdinal()).
+ *
+ * Everything except storing the text is done by IndexedBible.
+ *
+ * @author Trevor Palmatier
+ */
+public class ColumnarBible extends IndexedBible {
+
+	// The text of every verse, one after another. Verse i is text.substring(offsets[i], offsets[i + 1]).
+	private String			text;
+	private int[]			offsets;
+
+	/**
+	 * Create a new Bible with the given verses. The verses don't need to be in order. If the same reference occurs
+	 * more than once, the last one wins (just like TreeMapBible). Verses from the Dummy book, and verses whose
+	 * reference can't be packed into an ordinal, are not stored.
+	 *
+	 * @param verses All of the verses of this version of the Bible.
+	 */
+	public ColumnarBible(VerseList verses) {
+		version = verses.getVersion();
+		title = verses.getDescription();
+
+		Verse[] sorted = sortedVerses(verses);
+		int count = sorted.length;
+		int[] ordinals = new int[count];
+		offsets = new int[count + 1];
+		StringBuilder allText = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			ordinals[i] = sorted[i].getReference().getOrdinal();
+			offsets[i] = allText.length();
+			allText.append(sorted[i].getText());
+		}
+		offsets[count] = allText.length();
+		text = allText.toString();
+		versification = new Versification(ordinals);
+	}
+
+	@Override
+	protected String textAt(int index) {
+		return text.substring(offsets[index], offsets[index + 1]);
+	}
+}
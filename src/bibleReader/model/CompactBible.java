@@ -0,0 +1,48 @@
+package bibleReader.model;
+
+/**
+ * A Bible that keeps the text of all of its verses in one byte array (see ByteText) instead of a String per verse. The
+ * text is stored as Latin-1 if every character fits, which is one byte per character, and as UTF-8 if not. Strings
+ * are only made when the text of a verse is asked for, and searching for a phrase (getReferencesContaining and
+ * friends) is done on the bytes without making any Strings.
+ *
+ * This is the smallest of the in-memory Bibles: the text, an int of offset per verse, and the Versification.
+ *
+ * @author Trevor Palmatier
+ */
+public class CompactBible extends IndexedBible {
+
+	private ByteText	text;
+
+	/**
+	 * Create a new Bible with the given verses. The verses don't need to be in order. If the same reference occurs
+	 * more than once, the last one wins (just like TreeMapBible). Verses from the Dummy book, and verses whose
+	 * reference can't be packed into an ordinal, are not stored.
+	 *
+	 * @param verses All of the verses of this version of the Bible.
+	 */
+	public CompactBible(VerseList verses) {
+		version = verses.getVersion();
+		title = verses.getDescription();
+
+		Verse[] sorted = sortedVerses(verses);
+		int[] ordinals = new int[sorted.length];
+		String[] texts = new String[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			ordinals[i] = sorted[i].getReference().getOrdinal();
+			texts[i] = sorted[i].getText();
+		}
+		text = ByteText.of(texts);
+		versification = new Versification(ordinals);
+	}
+
+	@Override
+	protected String textAt(int index) {
+		return text.get(index);
+	}
+
+	@Override
+	protected int[] indexesContaining(String phrase) {
+		return text.indexesContaining(phrase);
+	}
+}
@@ -1,46 +1,593 @@
 package bibleReader.model;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Concordance is a class which implements a concordance for a Bible. In other
  * words, it allows the easy lookup of all references which contain a given
  * word.
  * 
+ * A concordance can be saved to a file with write and loaded again with read,
+ * which is much faster than building it. The file format (all numbers are
+ * big-endian ints unless noted):
+ * <ul>
+ * <li>INDEX_MAGIC, then INDEX_FORMAT_VERSION.</li>
+ * <li>The fingerprint (a long) of whatever the concordance was built from. read
+ * won't load a file whose fingerprint isn't the one it is given.</li>
+ * <li>The tokenizer, as a byte (0 for WordTokenizer.ASCII and 1 for
+ * WordTokenizer.UNICODE), and whether positions were recorded, as a byte (1 if
+ * they were).</li>
+ * <li>The number of words, and then for each word: its length as a short, its
+ * UTF-8 bytes, and its postings, with the number of times the word occurs in
+ * each verse (see PostingsList.write).</li>
+ * <li>If there are positions, the number of words with positions, and then for
+ * each word: its length as a short, its UTF-8 bytes, the number
+ * of bytes of positions, and those bytes.</li>
+ * <li>The number of verses, and then for each verse (in order): its ordinal and
+ * the number of words in it as a short.</li>
+ * </ul>
+ * 
  * @author Chuck Cusack, March 2013 (Provided the interface)
  * @author Trevor Palmatier, April 2020 (Provided the implementation details)
  */
 public class Concordance {
-	// Add fields here.  (I actually only needed one field.)
-	private HashMap<String, ArrayList<Reference>> concordance;
+	/**
+	 * The first four bytes of every concordance index file ("MBC1" in ASCII).
+	 */
+	public static final int INDEX_MAGIC = 0x4D424331;
 
 	/**
-	 * Construct a concordance for the given Bible.
+	 * The most words apart two words can be for getPostingsNear.
+	 */
+	public static final int MAX_NEAR_DISTANCE = 1000;
+
+	/**
+	 * The version of the index file format. It changes whenever the format, or the
+	 * way words are found, changes, so that old files are rebuilt.
+	 */
+	public static final int INDEX_FORMAT_VERSION = 5;
+
+	// The postings: for each word, the sorted ordinals (see Reference.getOrdinal()) of the verses that contain it, and
+	// how many times it occurs in each of them.
+	private HashMap<String, PostingsList> concordance;
+
+	// The positions of each word, or null if they weren't recorded. The words are the ones the tokenizer finds, the
+	// same ones that are in the postings. The position of the word with index i in its verse (counting from 0) is
+	// 2 * i, plus 1 if it comes right after a single space. So i says how many words apart two words are, and a phrase
+	// of words separated by single spaces occurs in a verse exactly when its first word has index i and the rest are
+	// at positions 2 * (i + 1) + 1, 2 * (i + 2) + 1, ...
+	//
+	// For each word the bytes have, for each verse that contains it (in order): the ordinal of the verse minus the
+	// ordinal of the one before, how many times the word occurs in it, and then the positions where it occurs, each
+	// minus the one before. These are all written as variable length ints (see PostingsList.writeVarInt).
+	private HashMap<String, byte[]> positions;
+
+	// Splits verses, and phrases, into words.
+	private Tokenizer tokenizer;
+
+	// The words of the concordance in order, for prefix and wildcard searches.
+	private TermDictionary terms;
+
+	// The ordinal of every verse that was indexed, in order, and the number of words in each (at most 65535), for
+	// ranking searches.
+	private int[] verseOrdinals;
+	private char[] verseLengths;
+	private double averageLength;
+	private int minLength;
+	private ReferenceSet allVerses;
+
+	// If there are positions: where each verse's words start if all of the words of the version were numbered in
+	// order, for finding words that are near each other in different verses. There is a gap of more than
+	// MAX_NEAR_DISTANCE before each book so that nothing is near anything in another book.
+	private int[] tokenStarts;
+
+	// Used by read.
+	private Concordance(HashMap<String, PostingsList> concordance, HashMap<String, byte[]> positions,
+			int[] verseOrdinals, char[] verseLengths, Tokenizer tokenizer) {
+		this.concordance = concordance;
+		this.positions = positions;
+		this.tokenizer = tokenizer;
+		terms = TermDictionary.of(concordance.keySet());
+		setVerseLengths(verseOrdinals, verseLengths);
+	}
+
+	private void setVerseLengths(int[] ordinals, char[] lengths) {
+		verseOrdinals = ordinals;
+		verseLengths = lengths;
+		allVerses = ReferenceSet.of(new IntReferenceList(ordinals, ordinals.length));
+		long total = 0;
+		minLength = lengths.length == 0 ? 0 : Character.MAX_VALUE;
+		for (char length : lengths) {
+			total += length;
+			minLength = Math.min(minLength, length);
+		}
+		averageLength = total == 0 ? 1 : (double) total / lengths.length;
+		if (positions == null) {
+			return;
+		}
+		tokenStarts = new int[lengths.length];
+		int start = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			if (i == 0 || Reference.bookIndexOf(ordinals[i]) != Reference.bookIndexOf(ordinals[i - 1])) {
+				start += MAX_NEAR_DISTANCE + 1;
+			}
+			tokenStarts[i] = start;
+			start += lengths[i];
+		}
+	}
+
+	/**
+	 * Construct a concordance for the given Bible, without positions.
 	 */
 	public Concordance(Bible bible) {
-		concordance = new HashMap<String, ArrayList<Reference>>();
+		this(bible, false);
+	}
+
+	/**
+	 * Construct a concordance for the given Bible.
+	 * 
+	 * @param bible          the Bible.
+	 * @param recordPositions if true, the position of every word in every verse is
+	 *                        recorded too, so that getOrdinalsContainingPhrase can
+	 *                        find phrases without looking at the text of any verses.
+	 */
+	public Concordance(Bible bible, boolean recordPositions) {
+		this(bible, recordPositions, null);
+	}
+
+	/**
+	 * Construct a concordance for the given Bible, indexing the books in parallel.
+	 * The verses are split up by book, each book is indexed on the pool, and then
+	 * the pieces are put back together in order. The result is exactly the same
+	 * as the concordance the other constructors make.
+	 * 
+	 * @param bible           the Bible.
+	 * @param recordPositions if true, the positions of the words are recorded too.
+	 * @param pool            the pool to index the books on, or null to index them
+	 *                        one after another on this thread.
+	 */
+	public Concordance(Bible bible, boolean recordPositions, ForkJoinPool pool) {
+		this(bible, recordPositions, pool, WordTokenizer.ASCII);
+	}
+
+	/**
+	 * Construct a concordance for the given Bible, splitting the verses into words
+	 * with the given tokenizer (WordTokenizer.UNICODE, for instance, for versions
+	 * that aren't in English).
+	 * 
+	 * @param bible           the Bible.
+	 * @param recordPositions if true, the positions of the words are recorded too.
+	 * @param pool            the pool to index the books on, or null to index them
+	 *                        one after another on this thread.
+	 * @param tokenizer       splits the verses into words. It is used by several
+	 *                        threads at once if pool isn't null.
+	 */
+	public Concordance(Bible bible, boolean recordPositions, ForkJoinPool pool, Tokenizer tokenizer) {
 		VerseList verses = bible.getAllVerses();
-		for (Verse verse : verses) {
-			Reference currentReference = verse.getReference();
-			for (String word : extractWords(verse.getText())) {
-				ArrayList<Reference> currentList = concordance.get(word);
-				if (currentList != null) {
-					if (!currentReference.equals(currentList.get(currentList.size() - 1))) {
-						currentList.add(currentReference);
-					}
+		Shard all;
+		if (pool == null) {
+			all = new Shard(tokenizer);
+			all.index(verses, 0, verses.size(), recordPositions);
+		} else {
+			all = pool.invoke(new ShardTask(verses, bookStarts(verses), 0, -1, recordPositions, tokenizer));
+		}
+		HashMap<String, IntReferenceList> lists = all.lists;
+		HashMap<String, IntReferenceList> frequencyLists = all.frequencyLists;
+
+		this.tokenizer = tokenizer;
+		concordance = new HashMap<String, PostingsList>(lists.size() * 2);
+		for (Map.Entry<String, IntReferenceList> entry : lists.entrySet()) {
+			concordance.put(entry.getKey(), PostingsList.of(entry.getValue(), frequencyLists.get(entry.getKey())));
+		}
+		if (recordPositions) {
+			positions = new HashMap<String, byte[]>(lists.size() * 2);
+			for (Map.Entry<String, IntReferenceList> entry : all.positionLists.entrySet()) {
+				String word = entry.getKey();
+				positions.put(word, compressPositions(lists.get(word), frequencyLists.get(word), entry.getValue()));
+			}
+		}
+		terms = TermDictionary.of(concordance.keySet());
+		char[] lengths = new char[all.verseLengths.size()];
+		for (int i = 0; i < lengths.length; i++) {
+			lengths[i] = (char) Math.min(all.verseLengths.get(i), Character.MAX_VALUE);
+		}
+		setVerseLengths(all.verseOrdinals.toArray(), lengths);
+	}
+
+	/**
+	 * Save this concordance to a file that read can load.
+	 * 
+	 * @param file        the file to write.
+	 * @param fingerprint identifies what the concordance was built from (see
+	 *                    BibleIO.fingerprint). It is stored in the file.
+	 * @throws IOException if the file can't be written.
+	 * @throws IllegalStateException if the concordance wasn't made with one of the
+	 *                               WordTokenizers, which are the only ones a file
+	 *                               can name.
+	 */
+	public void write(File file, long fingerprint) throws IOException {
+		if (tokenizer != WordTokenizer.ASCII && tokenizer != WordTokenizer.UNICODE) {
+			throw new IllegalStateException("Only a concordance made with a WordTokenizer can be saved.");
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(INDEX_FORMAT_VERSION);
+			out.writeLong(fingerprint);
+			out.writeByte(tokenizer == WordTokenizer.UNICODE ? 1 : 0);
+			out.writeBoolean(positions != null);
+			out.writeInt(concordance.size());
+			for (Map.Entry<String, PostingsList> entry : concordance.entrySet()) {
+				writeString(out, entry.getKey());
+				entry.getValue().write(out);
+			}
+			if (positions != null) {
+				out.writeInt(positions.size());
+				for (Map.Entry<String, byte[]> entry : positions.entrySet()) {
+					writeString(out, entry.getKey());
+					out.writeInt(entry.getValue().length);
+					out.write(entry.getValue());
+				}
+			}
+			out.writeInt(verseOrdinals.length);
+			for (int i = 0; i < verseOrdinals.length; i++) {
+				out.writeInt(verseOrdinals[i]);
+				out.writeChar(verseLengths[i]);
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Load a concordance saved by write, however it was made. The file is
+	 * memory-mapped while it is read, so this is mostly copying bytes. Every list
+	 * is decoded once to check it, so a damaged file is found here and not in the
+	 * middle of a search.
+	 * 
+	 * @param file        the file to read.
+	 * @param fingerprint the fingerprint of what the concordance should have been
+	 *                    built from.
+	 * @return the concordance, or null if the file was written with a different
+	 *         fingerprint (so it is out of date) or a different version of the
+	 *         format.
+	 * @throws IOException if the file can't be read or isn't a valid index file.
+	 */
+	public static Concordance read(File file, long fingerprint) throws IOException {
+		return read(file, fingerprint, null, false);
+	}
+
+	/**
+	 * Load a concordance saved by write, if it was made the given way.
+	 * 
+	 * @param file            the file to read.
+	 * @param fingerprint     the fingerprint of what the concordance should have
+	 *                        been built from.
+	 * @param tokenizer       the tokenizer it should have been made with, or null
+	 *                        to load it whatever tokenizer it was made with and
+	 *                        whether or not it has positions.
+	 * @param recordPositions whether it should have positions.
+	 * @return the concordance, or null if the file was written with a different
+	 *         fingerprint, tokenizer, or version of the format, or with(out)
+	 *         positions when they are (not) wanted.
+	 * @throws IOException if the file can't be read or isn't a valid index file.
+	 */
+	public static Concordance read(File file, long fingerprint, WordTokenizer tokenizer, boolean recordPositions)
+			throws IOException {
+		ByteBuffer buffer;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (buffer.getInt() != INDEX_MAGIC) {
+				throw new IOException(file + " is not a concordance index file.");
+			}
+			if (buffer.getInt() != INDEX_FORMAT_VERSION || buffer.getLong() != fingerprint) {
+				return null;
+			}
+			byte mode = buffer.get();
+			if (mode != 0 && mode != 1) {
+				throw new IllegalArgumentException("The file names a tokenizer that doesn't exist.");
+			}
+			WordTokenizer fileTokenizer = mode == 1 ? WordTokenizer.UNICODE : WordTokenizer.ASCII;
+			boolean hasPositions = buffer.get() != 0;
+			if (tokenizer != null && (tokenizer != fileTokenizer || hasPositions != recordPositions)) {
+				return null;
+			}
+			int words = PostingsList.checkedLength(buffer, buffer.getInt(), 2);
+			HashMap<String, PostingsList> concordance = new HashMap<String, PostingsList>(words * 2);
+			for (int i = 0; i < words; i++) {
+				String word = readString(buffer);
+				concordance.put(word, PostingsList.read(buffer));
+			}
+			HashMap<String, byte[]> positions = null;
+			if (hasPositions) {
+				// Every word has positions.
+				if (buffer.getInt() != concordance.size()) {
+					throw new IllegalArgumentException("The number of words with positions is wrong.");
+				}
+				positions = new HashMap<String, byte[]>(concordance.size() * 2);
+				for (int i = 0; i < concordance.size(); i++) {
+					String word = readString(buffer);
+					byte[] bytes = new byte[PostingsList.checkedLength(buffer, buffer.getInt(), 1)];
+					buffer.get(bytes);
+					checkPositions(bytes, concordance.get(word));
+					positions.put(word, bytes);
+				}
+				if (positions.size() != concordance.size()) {
+					throw new IllegalArgumentException("A word has positions twice.");
+				}
+			}
+			int verses = PostingsList.checkedLength(buffer, buffer.getInt(), 6);
+			int[] verseOrdinals = new int[verses];
+			char[] verseLengths = new char[verses];
+			for (int i = 0; i < verses; i++) {
+				verseOrdinals[i] = buffer.getInt();
+				verseLengths[i] = buffer.getChar();
+				if (verseOrdinals[i] < 0 || (i > 0 && verseOrdinals[i] <= verseOrdinals[i - 1])) {
+					throw new IllegalArgumentException("The verses are out of order.");
+				}
+			}
+			return new Concordance(concordance, positions, verseOrdinals, verseLengths, fileTokenizer);
+		} catch (RuntimeException e) {
+			// A truncated or corrupt file shows up as a BufferUnderflowException, IllegalArgumentException, etc.
+			throw new IOException(file + " is not a valid concordance index file.", e);
+		}
+	}
+
+	/*
+	 * Decode the positions of a word (see the positions field) and check that they are for the same verses as its
+	 * postings, with as many positions in each verse as the postings say it occurs there, in order.
+	 */
+	private static void checkPositions(byte[] bytes, PostingsList postings) {
+		if (postings == null) {
+			throw new IllegalArgumentException("A word has positions but isn't in the concordance.");
+		}
+		PostingsList.VarIntReader in = new PostingsList.VarIntReader(bytes);
+		PostingsList.Cursor cursor = postings.iterator();
+		int ordinal = 0;
+		while (in.hasMore()) {
+			ordinal += in.read();
+			int count = in.read();
+			if (cursor.next() != ordinal || count != cursor.frequency()) {
+				throw new IllegalArgumentException("The positions of a word don't match its postings.");
+			}
+			int position = 0;
+			for (int i = 0; i < count; i++) {
+				int gap = in.read();
+				position += gap;
+				if ((i > 0 && gap == 0) || position < 0) {
+					throw new IllegalArgumentException("The positions of a word aren't in order.");
+				}
+			}
+		}
+		if (cursor.next() != PostingsIterator.NO_MORE_ORDINALS) {
+			throw new IllegalArgumentException("The positions of a word are missing some verses.");
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * The index of the first verse of each book, plus the number of verses at the end.
+	 */
+	private static int[] bookStarts(VerseList verses) {
+		IntReferenceList starts = new IntReferenceList();
+		BookOfBible book = null;
+		for (int i = 0; i < verses.size(); i++) {
+			BookOfBible verseBook = verses.get(i).getReference().getBookOfBible();
+			if (i == 0 || verseBook != book) {
+				starts.add(i);
+				book = verseBook;
+			}
+		}
+		starts.add(verses.size());
+		return starts.toArray();
+	}
+
+	/*
+	 * The word and position lists for some of the verses, before they are compressed. frequencyLists has, for each word,
+	 * how many times it occurs in each verse of its list in lists, and positionLists (if positions are recorded) the
+	 * positions of the word in each of those verses, one verse after another. verseOrdinals and verseLengths have the
+	 * number of words in each verse.
+	 */
+	private static final class Shard implements Tokenizer.TokenHandler {
+		final HashMap<String, IntReferenceList>	lists			= new HashMap<String, IntReferenceList>();
+		final HashMap<String, IntReferenceList>	frequencyLists	= new HashMap<String, IntReferenceList>();
+		final HashMap<String, IntReferenceList>	positionLists	= new HashMap<String, IntReferenceList>();
+		final IntReferenceList					verseOrdinals	= new IntReferenceList();
+		final IntReferenceList					verseLengths	= new IntReferenceList();
+		private final Tokenizer					tokenizer;
+		private boolean							recordPositions;
+		// The verse being tokenized: its ordinal, its text, the number of words found in it so far, and where the last
+		// one ended (-1 before the first).
+		private int								ordinal;
+		private String							text;
+		private int								wordCount;
+		private int								previousEnd;
+
+		Shard(Tokenizer tokenizer) {
+			this.tokenizer = tokenizer;
+		}
+
+		// Index verses from index from up to (but not including) index to. They have to come after any already indexed.
+		void index(VerseList verses, int from, int to, boolean recordPositions) {
+			this.recordPositions = recordPositions;
+			for (int i = from; i < to; i++) {
+				Verse verse = verses.get(i);
+				ordinal = verse.getReference().getOrdinal();
+				if (ordinal == Reference.INVALID_ORDINAL) {
+					continue;
+				}
+				// Two verses with the same reference are counted as one, so the words of the second come after the
+				// words of the first.
+				int last = verseOrdinals.size() - 1;
+				boolean repeated = last >= 0 && verseOrdinals.get(last) == ordinal;
+				wordCount = repeated ? verseLengths.get(last) : 0;
+				text = verse.getText();
+				previousEnd = -1;
+				tokenizer.tokenize(text, this);
+				if (repeated) {
+					verseLengths.set(last, wordCount);
 				} else {
-					currentList = new ArrayList<Reference>();
-					currentList.add(currentReference);
-					concordance.put(word, currentList);
+					verseOrdinals.add(ordinal);
+					verseLengths.add(wordCount);
 				}
 			}
 		}
 
+		@Override
+		public void token(char[] buffer, int length, int start, int end) {
+			String word = new String(buffer, 0, length);
+			IntReferenceList currentList = lists.get(word);
+			IntReferenceList frequencies = frequencyLists.get(word);
+			if (currentList == null) {
+				currentList = new IntReferenceList(4);
+				lists.put(word, currentList);
+				frequencies = new IntReferenceList(4);
+				frequencyLists.put(word, frequencies);
+			}
+			// The verses come in order, so a verse that has the word more than once is always the last one.
+			int last = currentList.size() - 1;
+			if (last < 0 || currentList.get(last) != ordinal) {
+				currentList.add(ordinal);
+				frequencies.add(1);
+			} else {
+				frequencies.set(last, frequencies.get(last) + 1);
+			}
+			if (recordPositions) {
+				IntReferenceList wordPositions = positionLists.get(word);
+				if (wordPositions == null) {
+					wordPositions = new IntReferenceList(4);
+					positionLists.put(word, wordPositions);
+				}
+				wordPositions.add(2 * wordCount + (isAfterSingleSpace(text, previousEnd, start) ? 1 : 0));
+				previousEnd = end;
+			}
+			wordCount++;
+		}
+
+		// Add the lists of a shard whose verses all come after this one's.
+		Shard append(Shard later) {
+			appendLists(lists, later.lists);
+			appendLists(frequencyLists, later.frequencyLists);
+			appendLists(positionLists, later.positionLists);
+			verseOrdinals.addAll(later.verseOrdinals);
+			verseLengths.addAll(later.verseLengths);
+			return this;
+		}
+
+		private static void appendLists(HashMap<String, IntReferenceList> to, HashMap<String, IntReferenceList> from) {
+			for (Map.Entry<String, IntReferenceList> entry : from.entrySet()) {
+				IntReferenceList list = to.get(entry.getKey());
+				if (list == null) {
+					to.put(entry.getKey(), entry.getValue());
+				} else {
+					list.addAll(entry.getValue());
+				}
+			}
+		}
+	}
+
+	/*
+	 * Indexes books firstBook up to lastBook (not including it) of the verses by splitting them in half until there is
+	 * only one book, and then appending the halves in order.
+	 */
+	private static final class ShardTask extends RecursiveTask<Shard> {
+		private static final long	serialVersionUID	= 1L;
+
+		private final VerseList	verses;
+		private final int[]			bookStarts;
+		private final int			firstBook;
+		private final int			lastBook;
+		private final boolean		recordPositions;
+		private final Tokenizer		tokenizer;
+
+		// A lastBook of -1 means all of the books.
+		ShardTask(VerseList verses, int[] bookStarts, int firstBook, int lastBook, boolean recordPositions,
+				Tokenizer tokenizer) {
+			this.verses = verses;
+			this.bookStarts = bookStarts;
+			this.firstBook = firstBook;
+			this.lastBook = lastBook < 0 ? bookStarts.length - 1 : lastBook;
+			this.recordPositions = recordPositions;
+			this.tokenizer = tokenizer;
+		}
+
+		@Override
+		protected Shard compute() {
+			if (lastBook - firstBook <= 1) {
+				Shard shard = new Shard(tokenizer);
+				shard.index(verses, bookStarts[firstBook], bookStarts[lastBook], recordPositions);
+				return shard;
+			}
+			int middle = (firstBook + lastBook) >>> 1;
+			ShardTask first = new ShardTask(verses, bookStarts, firstBook, middle, recordPositions, tokenizer);
+			ShardTask second = new ShardTask(verses, bookStarts, middle, lastBook, recordPositions, tokenizer);
+			first.fork();
+			Shard secondShard = second.compute();
+			return first.join().append(secondShard);
+		}
+	}
+
+	/*
+	 * Turn the positions of a word into the bytes described at the positions field. ordinals and counts are the verses
+	 * the word is in and how many times it occurs in each, and positions has its positions in each of those verses.
+	 */
+	private static byte[] compressPositions(IntReferenceList ordinals, IntReferenceList counts,
+			IntReferenceList positions) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(positions.size() + 2 * ordinals.size() + 8);
+		int previousOrdinal = 0;
+		int next = 0;
+		for (int i = 0; i < ordinals.size(); i++) {
+			int ordinal = ordinals.get(i);
+			int count = counts.get(i);
+			PostingsList.writeVarInt(out, ordinal - previousOrdinal);
+			PostingsList.writeVarInt(out, count);
+			int previousPosition = 0;
+			for (int j = next; j < next + count; j++) {
+				PostingsList.writeVarInt(out, positions.get(j) - previousPosition);
+				previousPosition = positions.get(j);
+			}
+			previousOrdinal = ordinal;
+			next += count;
+		}
+		return out.toByteArray();
+	}
+
+	/*
+	 * Does the word that starts at start come right after a single space after the word that ended at previousEnd (-1
+	 * if there wasn't one)?
+	 */
+	private static boolean isAfterSingleSpace(String text, int previousEnd, int start) {
+		return previousEnd >= 0 && start - previousEnd == 1 && text.charAt(previousEnd) == ' ';
 	}
 
 	/**
@@ -52,10 +599,318 @@ public class Concordance {
 	 *         contain the word.
 	 */
 	public ArrayList<Reference> getReferencesContaining(String word) {
-		ArrayList<Reference> results = concordance.get(word.toLowerCase());
-		if (results != null)
-			return new ArrayList<Reference>(results);
-		return new ArrayList<Reference>();
+		return getOrdinalsContaining(word).toReferences();
+	}
+
+	/**
+	 * The same as getReferencesContaining, except that the references are returned as packed ordinals.
+	 * 
+	 * @param word a single word (no spaces, etc.)
+	 * @return the sorted ordinals of verses from this version that contain the word, or an empty list if no verses
+	 *         contain the word.
+	 */
+	public IntReferenceList getOrdinalsContaining(String word) {
+		PostingsList postings = concordance.get(word.toLowerCase());
+		if (postings != null)
+			return postings.toIntReferenceList();
+		return new IntReferenceList();
+	}
+
+	/**
+	 * @return all of the words in the concordance. The set can't be changed.
+	 */
+	public Set<String> getWords() {
+		return Collections.unmodifiableSet(concordance.keySet());
+	}
+
+	/**
+	 * @return all of the words in the concordance, in order.
+	 */
+	public TermDictionary getTerms() {
+		return terms;
+	}
+
+	/**
+	 * Find the verses that contain a word that matches a wildcard pattern, like
+	 * "love*" or "bless?d" (see TermDictionary.getTermsMatching). The postings of
+	 * the matching words are merged as the iterator is moved, not ahead of time.
+	 * 
+	 * @param pattern the pattern (case is ignored).
+	 * @return an iterator over the ordinals of the verses from this version that
+	 *         contain a word matching the pattern.
+	 */
+	public PostingsIterator getPostingsMatching(String pattern) {
+		ArrayList<PostingsIterator> iterators = new ArrayList<PostingsIterator>();
+		for (String word : terms.getTermsMatching(pattern.toLowerCase())) {
+			iterators.add(concordance.get(word).iterator());
+		}
+		if (iterators.size() == 1) {
+			return iterators.get(0);
+		}
+		return new UnionIterator(iterators);
+	}
+
+	/**
+	 * The same as getPostingsMatching, except that the ordinals are put in a list.
+	 * 
+	 * @param pattern the pattern (case is ignored).
+	 * @return the sorted ordinals of the verses from this version that contain a
+	 *         word matching the pattern.
+	 */
+	public IntReferenceList getOrdinalsMatching(String pattern) {
+		IntReferenceList results = new IntReferenceList();
+		PostingsIterator iterator = getPostingsMatching(pattern);
+		for (int ordinal = iterator.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = iterator.next()) {
+			results.add(ordinal);
+		}
+		return results;
+	}
+
+	/**
+	 * The compressed postings for a word.
+	 * 
+	 * @param word a single word (no spaces, etc.)
+	 * @return the postings of the verses from this version that contain the word
+	 *         (ignoring case), or null if no verses contain it.
+	 */
+	public PostingsList getPostings(String word) {
+		return concordance.get(word.toLowerCase());
+	}
+
+	/**
+	 * @return true if this concordance recorded the positions of the words, so that
+	 *         getOrdinalsContainingPhrase can be used.
+	 */
+	public boolean hasPositions() {
+		return positions != null;
+	}
+
+	/**
+	 * @return the tokenizer that split the verses into words.
+	 */
+	public Tokenizer getTokenizer() {
+		return tokenizer;
+	}
+
+	/**
+	 * Can getOrdinalsContainingPhrase answer a search for this phrase? It can if the
+	 * phrase is just words (letters, digits, and underscores) with one space
+	 * between each of them. Other phrases have to be checked against the text.
+	 * 
+	 * @param phrase a phrase.
+	 * @return true if getOrdinalsContainingPhrase can find it.
+	 */
+	public static boolean isIndexablePhrase(String phrase) {
+		if (phrase == null || phrase.isEmpty()) {
+			return false;
+		}
+		String lower = phrase.toLowerCase();
+		for (int i = 0; i < lower.length(); i++) {
+			char c = lower.charAt(i);
+			if (c == ' ') {
+				if (i == 0 || i == lower.length() - 1 || lower.charAt(i - 1) == ' ') {
+					return false;
+				}
+			} else if (!Character.isLetterOrDigit(c) && c != '_') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the verses that contain the phrase (ignoring case) using only the
+	 * positions of its words, without looking at the text of any verse. A verse
+	 * contains the phrase if it has the phrase's words in order, with a single
+	 * space between each of them. The phrase is split into words by the same
+	 * tokenizer as the verses, so the words are the ones getPostings finds (a
+	 * verse with "1,000 men" has the phrase "1000 men"). If the tokenizer splits
+	 * a word of the phrase in two (the ASCII one splits at an accented letter),
+	 * the two pieces only have to be next to each other.
+	 * 
+	 * @param phrase a phrase for which isIndexablePhrase is true.
+	 * @return the sorted ordinals of the verses that contain the phrase.
+	 * @throws IllegalStateException if the positions weren't recorded.
+	 * @throws IllegalArgumentException if the phrase isn't indexable.
+	 */
+	public IntReferenceList getOrdinalsContainingPhrase(String phrase) {
+		IntReferenceList results = new IntReferenceList();
+		PostingsIterator iterator = getPostingsContainingPhrase(phrase);
+		for (int ordinal = iterator.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = iterator.next()) {
+			results.add(ordinal);
+		}
+		return results;
+	}
+
+	/**
+	 * The same as getOrdinalsContainingPhrase, except that the verses are found
+	 * as the iterator is moved. Skipping ahead with skipTo doesn't check for the
+	 * phrase in the verses skipped over.
+	 * 
+	 * @param phrase a phrase for which isIndexablePhrase is true.
+	 * @return an iterator over the ordinals of the verses that contain the phrase.
+	 * @throws IllegalStateException if the positions weren't recorded.
+	 * @throws IllegalArgumentException if the phrase isn't indexable.
+	 */
+	public PostingsIterator getPostingsContainingPhrase(String phrase) {
+		if (positions == null) {
+			throw new IllegalStateException("This concordance was created without positions.");
+		}
+		if (!isIndexablePhrase(phrase)) {
+			throw new IllegalArgumentException("The phrase \"" + phrase + "\" can't be found with the index.");
+		}
+		final String lower = phrase.toLowerCase();
+		final ArrayList<String> words = new ArrayList<String>();
+		// For each word, 1 if it comes right after a single space and 0 if not, which is the low bit of its position.
+		final IntReferenceList spaces = new IntReferenceList();
+		tokenizer.tokenize(lower, new Tokenizer.TokenHandler() {
+			private int previousEnd = -1;
+
+			@Override
+			public void token(char[] buffer, int length, int start, int end) {
+				words.add(new String(buffer, 0, length));
+				spaces.add(isAfterSingleSpace(lower, previousEnd, start) ? 1 : 0);
+				previousEnd = end;
+			}
+		});
+		if (words.isEmpty()) {
+			return ReferenceSet.EMPTY.iterator();
+		}
+		PositionCursor[] cursors = new PositionCursor[words.size()];
+		for (int i = 0; i < words.size(); i++) {
+			byte[] data = positions.get(words.get(i));
+			if (data == null) {
+				return ReferenceSet.EMPTY.iterator();
+			}
+			cursors[i] = new PositionCursor(data);
+		}
+		return new PhraseIterator(cursors, spaces.toArray());
+	}
+
+	/*
+	 * The verses that have the words of the cursors next to each other, in order, with a single space before each word
+	 * that spaces says has one.
+	 */
+	private static final class PhraseIterator implements PostingsIterator {
+		private final PositionCursor[]	cursors;
+		private final int[]				spaces;
+		private int						current	= -1;
+
+		PhraseIterator(PositionCursor[] cursors, int[] spaces) {
+			this.cursors = cursors;
+			this.spaces = spaces;
+		}
+
+		@Override
+		public int ordinal() {
+			return current;
+		}
+
+		@Override
+		public int next() {
+			if (current == NO_MORE_ORDINALS) {
+				return current;
+			}
+			return cursors[0].next() ? find() : end();
+		}
+
+		@Override
+		public int skipTo(int target) {
+			if (current >= target) {
+				return current;
+			}
+			if (current == -1 && !cursors[0].next()) {
+				return end();
+			}
+			return cursors[0].skipTo(target) ? find() : end();
+		}
+
+		// Starting with the verse the first cursor is at, move to the first verse that has the phrase.
+		private int find() {
+			while (true) {
+				int ordinal = cursors[0].ordinal;
+				int furthest = ordinal;
+				for (int i = 1; i < cursors.length && furthest == ordinal; i++) {
+					if (!cursors[i].skipTo(ordinal)) {
+						return end();
+					}
+					furthest = cursors[i].ordinal;
+				}
+				if (furthest == ordinal && phraseStartsInVerse(cursors, spaces)) {
+					current = ordinal;
+					return current;
+				}
+				// No verse before the one a cursor stopped at can have all of the words.
+				if (!(furthest == ordinal ? cursors[0].next() : cursors[0].skipTo(furthest))) {
+					return end();
+				}
+			}
+		}
+
+		private int end() {
+			current = NO_MORE_ORDINALS;
+			return current;
+		}
+	}
+
+	/**
+	 * Find the verses where two words are near each other, using only the
+	 * positions of the words. Distances are counted in words (the ones the
+	 * tokenizer finds), so words that are next to each other are 1 apart,
+	 * whatever punctuation is between them.
+	 * 
+	 * The occurrences of the two words are merged in order, keeping a window of
+	 * the ones in the last distance words for each word. When an occurrence of
+	 * one word comes along while the other word's window isn't empty, the verses
+	 * of all of them are matches.
+	 * 
+	 * @param word1        a single word (ignoring case).
+	 * @param word2        another one (or the same one, to find verses where it
+	 *                     occurs twice close together).
+	 * @param distance     the most words apart they can be (1 to
+	 *                     MAX_NEAR_DISTANCE).
+	 * @param ordered      if true, word1 has to come before word2.
+	 * @param acrossVerses if true, the words can be in different verses of the
+	 *                     same book, and the verses of both are matches. Otherwise
+	 *                     they have to be in the same verse.
+	 * @return an iterator over the ordinals of the verses that match.
+	 * @throws IllegalStateException    if the positions weren't recorded.
+	 * @throws IllegalArgumentException if the distance is out of range.
+	 */
+	public PostingsIterator getPostingsNear(String word1, String word2, int distance, boolean ordered,
+			boolean acrossVerses) {
+		if (positions == null) {
+			throw new IllegalStateException("This concordance was created without positions.");
+		}
+		if (distance < 1 || distance > MAX_NEAR_DISTANCE) {
+			throw new IllegalArgumentException("The distance has to be from 1 to " + MAX_NEAR_DISTANCE + ".");
+		}
+		byte[] first = positions.get(word1.toLowerCase());
+		byte[] second = positions.get(word2.toLowerCase());
+		if (first == null || second == null) {
+			return ReferenceSet.EMPTY.iterator();
+		}
+		boolean same = word1.equalsIgnoreCase(word2);
+		return new ProximityIterator(new PositionCursor(first), same ? null : new PositionCursor(second), distance,
+				ordered, acrossVerses, verseOrdinals, verseLengths, tokenStarts);
+	}
+
+	/*
+	 * Every cursor is at the same verse. Is there an index p of the first word so that word i has index p + i, and
+	 * comes right after a single space if spaces[i] is 1, for every i?
+	 */
+	private static boolean phraseStartsInVerse(PositionCursor[] cursors, int[] spaces) {
+		for (int j = 0; j < cursors[0].count; j++) {
+			int p = cursors[0].positions[j] >>> 1;
+			boolean found = true;
+			for (int i = 1; i < cursors.length && found; i++) {
+				found = Arrays.binarySearch(cursors[i].positions, 0, cursors[i].count, 2 * (p + i) + spaces[i]) >= 0;
+			}
+			if (found) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -67,65 +922,142 @@ public class Concordance {
 	 *         empty list if
 	 */
 	public ArrayList<Reference> getReferencesContainingAll(ArrayList<String> words) {
+		return getOrdinalsContainingAll(words).toReferences();
+	}
+
+	/**
+	 * The same as getReferencesContainingAll, except that the references are returned as packed ordinals.
+	 * 
+	 * The postings are intersected without uncompressing them. Each verse of the shortest list is looked for in the
+	 * longer lists with skipTo, which uses their skip points, so a rare word paired with a very common one (like "the")
+	 * only decodes a few blocks of the common word's list.
+	 * 
+	 * @param words A list of words.
+	 * @return the sorted ordinals of all of the verses that contain all of the given words, or an empty list if there
+	 *         are none.
+	 */
+	public IntReferenceList getOrdinalsContainingAll(ArrayList<String> words) {
 		HashSet<String> wordsClean = new HashSet<String>();
 		for (String word : words) {
 			wordsClean.add(word.toLowerCase());
 		}
-		Iterator<String> itWords = wordsClean.iterator();
-		if (wordsClean.size() == 1) {
-			ArrayList<Reference> list = concordance.get(itWords.next());
-			if (list != null) {
-				return list;
-			}
-			return new ArrayList<Reference>();
+		if (wordsClean.isEmpty()) {
+			return new IntReferenceList();
 		}
-		ArrayList<ArrayList<Reference>> refLists = new ArrayList<ArrayList<Reference>>();
-		while (itWords.hasNext()) {
-			ArrayList<Reference> temp = concordance.get(itWords.next());
-			if (temp == null) {
-				return new ArrayList<Reference>();
+		PostingsList[] postings = new PostingsList[wordsClean.size()];
+		int p = 0;
+		for (String word : wordsClean) {
+			postings[p] = concordance.get(word);
+			if (postings[p] == null) {
+				return new IntReferenceList();
 			}
-			refLists.add(temp);
+			p++;
 		}
-		if (refLists.size() > 0) {
-			refLists.sort(new Comparator<ArrayList<Reference>>() {
-				@Override
-				public int compare(ArrayList<Reference> o1, ArrayList<Reference> o2) {
-					return o1.size() - o2.size();
-				}
-			});
-			ArrayList<Reference> results = new ArrayList<Reference>(refLists.get(0));
-			for (int i = 1; i < refLists.size(); i++) {
-				HashSet<Reference> compare = new HashSet<Reference>(refLists.get(i));
-				results.retainAll(compare);
+		Arrays.sort(postings, new Comparator<PostingsList>() {
+			@Override
+			public int compare(PostingsList o1, PostingsList o2) {
+				return o1.size() - o2.size();
 			}
+		});
 
-			return results;
+		PostingsIterator[] iterators = new PostingsIterator[postings.length];
+		for (int i = 0; i < postings.length; i++) {
+			iterators[i] = postings[i].iterator();
 		}
-
-		return new ArrayList<Reference>();
+		IntReferenceList results = new IntReferenceList();
+		int candidate = iterators[0].next();
+		while (candidate != PostingsIterator.NO_MORE_ORDINALS) {
+			int i = 1;
+			while (i < iterators.length && iterators[i].skipTo(candidate) == candidate) {
+				i++;
+			}
+			if (i == iterators.length) {
+				results.add(candidate);
+				candidate = iterators[0].next();
+			} else {
+				// iterators[i] went past the candidate, so nothing before where it stopped can be in all of them.
+				candidate = iterators[0].skipTo(iterators[i].ordinal());
+			}
+		}
+		return results;
 	}
 
+	/**
+	 * @return the number of verses that were indexed.
+	 */
+	public int getNumberOfVerses() {
+		return verseOrdinals.length;
+	}
 
+	/**
+	 * @return the average number of words in a verse (1 if there are no words at all).
+	 */
+	public double getAverageVerseLength() {
+		return averageLength;
+	}
 
-	public static ArrayList<String> extractWords(String text) {
-		text = text.toLowerCase();
-		// Removes a few HTML tags (relevant to ESV) and 's at end of words.
-		// Replaces them with space so words around them dont get squished
-		// together. Notice the two types of apostropheeach is used in a
-		// different version.
-		text = text.replaceAll("(<sup>[,\\w]*?</sup>|'s|s|&#\\w*;)", " ");
-
-		// Remove commas. This should help us match numbers better.
-		text = text.replaceAll(",", "");
+	/**
+	 * @return the number of words in the shortest verse (0 if there are no verses).
+	 */
+	public int getMinVerseLength() {
+		return minLength;
+	}
 
-		String[] words = text.split("\\W+");
+	/**
+	 * @param ordinal the ordinal of a verse.
+	 * @return the number of words in the verse, or 0 if it wasn't indexed.
+	 */
+	public int getVerseLength(int ordinal) {
+		int index = Arrays.binarySearch(verseOrdinals, ordinal);
+		return index >= 0 ? verseLengths[index] : 0;
+	}
 
-		ArrayList<String> toRet = new ArrayList<String>(Arrays.asList(words));
+	/**
+	 * @return an iterator over the ordinals of all of the verses that were
+	 *         indexed, even the ones without any words.
+	 */
+	public PostingsIterator getVersePostings() {
+		return allVerses.iterator();
+	}
 
-		toRet.remove("");
+	/**
+	 * @param word a single word (no spaces, etc.)
+	 * @return the number of verses that contain the word (ignoring case).
+	 */
+	public int getDocumentFrequency(String word) {
+		PostingsList postings = concordance.get(word.toLowerCase());
+		return postings == null ? 0 : postings.size();
+	}
 
-		return toRet;
+	/**
+	 * Find the k verses that best match the words, scored with BM25 (see the BM25 class). Only the best k are kept as
+	 * the verses are found (see TopK), and verses that can't make it are skipped (see RankedSearch), so a search for
+	 * common words doesn't sort, or even keep, all of its matches.
+	 * 
+	 * @param words      the words (ignoring case). Words that aren't in the concordance add nothing to a score.
+	 * @param k          the most verses to return.
+	 * @param requireAll whether a verse has to contain all of the words.
+	 * @return the best k verses and their scores.
+	 */
+	public TopK getTopOrdinals(Collection<String> words, int k, boolean requireAll) {
+		return RankedSearch.getTopOrdinals(this, words, k, requireAll);
+	}
 
+	/**
+	 * Split the text into the words the concordance indexes, lowercased, in the
+	 * order they occur (duplicates and all). See WordTokenizer for the rules.
+	 * 
+	 * @param text the text of a verse.
+	 * @return the words.
+	 */
+	public static ArrayList<String> extractWords(String text) {
+		final ArrayList<String> words = new ArrayList<String>();
+		WordTokenizer.ASCII.tokenize(text, new Tokenizer.TokenHandler() {
+			@Override
+			public void token(char[] buffer, int length, int start, int end) {
+				words.add(new String(buffer, 0, length));
+			}
+		});
+		return words;
 	}
 }
@@ -0,0 +1,53 @@
+package bibleReader.model;
+
+/**
+ * A PostingsIterator over the ordinals of one iterator that aren't in another one. Each ordinal of the first is looked
+ * for in the second with skipTo, so the second is only read as far as the first gets, and only where it needs to be.
+ *
+ * @author Trevor Palmatier
+ */
+public final class DifferenceIterator implements PostingsIterator {
+	private final PostingsIterator	include;
+	private final PostingsIterator	exclude;
+	private int						current	= -1;
+
+	/**
+	 * @param include the ordinals to return.
+	 * @param exclude the ordinals to leave out of them. Neither iterator should have been moved yet, and this one
+	 *            moves them from now on.
+	 */
+	public DifferenceIterator(PostingsIterator include, PostingsIterator exclude) {
+		this.include = include;
+		this.exclude = exclude;
+	}
+
+	@Override
+	public int ordinal() {
+		return current;
+	}
+
+	@Override
+	public int next() {
+		if (current == NO_MORE_ORDINALS) {
+			return current;
+		}
+		return settle(include.next());
+	}
+
+	@Override
+	public int skipTo(int target) {
+		if (current >= target) {
+			return current;
+		}
+		return settle(include.skipTo(target));
+	}
+
+	// Starting with the given ordinal of include, move to the first one that isn't in exclude.
+	private int settle(int ordinal) {
+		while (ordinal != NO_MORE_ORDINALS && exclude.skipTo(ordinal) == ordinal) {
+			ordinal = include.next();
+		}
+		current = ordinal;
+		return current;
+	}
+}
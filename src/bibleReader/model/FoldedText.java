@@ -0,0 +1,199 @@
+package bibleReader.model;
+
+import java.util.Arrays;
+
+/**
+ * The lowercased text of every verse of a Bible, one after another in a single byte array, with the offset where each
+ * verse starts. Searching for a phrase is one pass over the bytes with Boyer-Moore-Horspool, and the verse a match is
+ * in is found with a binary search of the offsets, so no Strings are made and nothing is lowercased while searching.
+ *
+ * Each verse is lowercased with toLowerCase() when it is stored, and the phrase is lowercased the same way when it is
+ * searched for, so a verse matches exactly when text.toLowerCase().contains(phrase.toLowerCase()). The characters are
+ * stored one at a time as UTF-8 (surrogates are written on their own, which UTF-8 proper doesn't allow). That way every
+ * character has its own bytes, the first byte of a character is never a byte from the middle of one, and the bytes of
+ * the phrase only match where its characters do. After each verse there is a 0xFF byte, which isn't the byte of any
+ * character, so a match never runs from one verse into the next.
+ *
+ * Unlike ByteText, which is how CompactBible stores its text, this is a second copy of the text that is only used for
+ * searching. A FoldedText can't be changed once it is made, so it can be shared between threads.
+ *
+ * @author Trevor Palmatier
+ */
+final class FoldedText {
+	private static final byte	SEPARATOR	= (byte) 0xFF;
+	private static final int[]	NONE		= new int[0];
+
+	private final byte[]		bytes;
+	// Verse i is bytes starts[i] up to (not including) its separator at starts[i + 1] - 1.
+	private final int[]			starts;
+
+	private FoldedText(byte[] bytes, int[] starts) {
+		this.bytes = bytes;
+		this.starts = starts;
+	}
+
+	/**
+	 * @param texts the text of each verse.
+	 * @return the texts, lowercased.
+	 * @throws IllegalArgumentException if the texts are too long to fit in one array.
+	 */
+	static FoldedText of(String[] texts) {
+		String[] lowered = new String[texts.length];
+		for (int i = 0; i < texts.length; i++) {
+			lowered[i] = texts[i].toLowerCase();
+		}
+		return ofLowered(lowered);
+	}
+
+	/**
+	 * @param lowered the text of each verse, already lowercased with toLowerCase().
+	 * @return the texts.
+	 * @throws IllegalArgumentException if the texts are too long to fit in one array.
+	 */
+	static FoldedText ofLowered(String[] lowered) {
+		int[] starts = new int[lowered.length + 1];
+		long length = 0;
+		for (int i = 0; i < lowered.length; i++) {
+			starts[i] = (int) length;
+			length += encodedLength(lowered[i]) + 1;
+			if (length > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("The text is too long to search as one array.");
+			}
+		}
+		starts[lowered.length] = (int) length;
+		byte[] bytes = new byte[(int) length];
+		for (int i = 0; i < lowered.length; i++) {
+			int end = encode(lowered[i], bytes, starts[i]);
+			bytes[end] = SEPARATOR;
+		}
+		return new FoldedText(bytes, starts);
+	}
+
+	private static int encodedLength(String text) {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			length += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+		}
+		return length;
+	}
+
+	// Write the characters of the text starting at offset, and return the offset after the last byte.
+	private static int encode(String text, byte[] bytes, int offset) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				bytes[offset++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[offset++] = (byte) (0xC0 | c >> 6);
+				bytes[offset++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				bytes[offset++] = (byte) (0xE0 | c >> 12);
+				bytes[offset++] = (byte) (0x80 | c >> 6 & 0x3F);
+				bytes[offset++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return offset;
+	}
+
+	/**
+	 * @return the number of verses.
+	 */
+	int size() {
+		return starts.length - 1;
+	}
+
+	/**
+	 * Find the verses that contain the phrase, ignoring case.
+	 *
+	 * @param phrase the phrase. It is not null or empty.
+	 * @return the indexes of the verses that contain it, in order.
+	 */
+	int[] indexesContaining(String phrase) {
+		Pattern pattern = new Pattern(phrase);
+		int[] indexes = new int[16];
+		int count = 0;
+		int verse = 0;
+		int position = pattern.find(bytes, 0, bytes.length);
+		while (position >= 0) {
+			verse = verseOf(position, verse);
+			if (count == indexes.length) {
+				indexes = Arrays.copyOf(indexes, count * 2);
+			}
+			indexes[count++] = verse;
+			// Only whether a verse matches is wanted, so the search goes on from the start of the next one.
+			position = pattern.find(bytes, starts[verse + 1], bytes.length);
+		}
+		return Arrays.copyOf(indexes, count);
+	}
+
+	/**
+	 * Find which of the given verses contain the phrase, ignoring case.
+	 *
+	 * @param phrase     the phrase. It is not null or empty.
+	 * @param candidates the indexes of the verses to look in, in order. This moves it to the end.
+	 * @return the indexes of the candidates that contain it, in order.
+	 */
+	int[] indexesContaining(String phrase, PostingsIterator candidates) {
+		Pattern pattern = new Pattern(phrase);
+		int[] indexes = NONE;
+		int count = 0;
+		for (int i = candidates.next(); i != PostingsIterator.NO_MORE_ORDINALS; i = candidates.next()) {
+			if (pattern.find(bytes, starts[i], starts[i + 1] - 1) >= 0) {
+				if (count == indexes.length) {
+					indexes = Arrays.copyOf(indexes, Math.max(16, count * 2));
+				}
+				indexes[count++] = i;
+			}
+		}
+		return Arrays.copyOf(indexes, count);
+	}
+
+	// The index of the verse with the byte at position, which is at least the index of the verse from.
+	private int verseOf(int position, int from) {
+		int found = Arrays.binarySearch(starts, from, starts.length, position);
+		return found >= 0 ? found : -found - 2;
+	}
+
+	/*
+	 * A phrase lowercased and encoded, with the Boyer-Moore-Horspool shift for each byte: how far the pattern can move
+	 * when that byte is under its last byte and there isn't a match.
+	 */
+	private static final class Pattern {
+		private final byte[]	bytes;
+		private final int[]		shift	= new int[256];
+
+		Pattern(String phrase) {
+			String lowered = phrase.toLowerCase();
+			bytes = new byte[encodedLength(lowered)];
+			encode(lowered, bytes, 0);
+			int m = bytes.length;
+			Arrays.fill(shift, m);
+			for (int i = 0; i < m - 1; i++) {
+				shift[bytes[i] & 0xFF] = m - 1 - i;
+			}
+		}
+
+		// The first position from start where the pattern is in text, ending at or before end, or -1 if there isn't
+		// one.
+		int find(byte[] text, int start, int end) {
+			int m = bytes.length;
+			byte last = bytes[m - 1];
+			int position = start;
+			while (position <= end - m) {
+				byte b = text[position + m - 1];
+				if (b == last) {
+					int i = m - 2;
+					while (i >= 0 && text[position + i] == bytes[i]) {
+						i--;
+					}
+					if (i < 0) {
+						return position;
+					}
+				}
+				position += shift[b & 0xFF];
+			}
+			return -1;
+		}
+	}
+}
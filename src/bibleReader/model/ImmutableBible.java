@@ -0,0 +1,195 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+
+/**
+ * A Bible that can't be changed once it has been created, so any number of threads can read from it at the same time
+ * without any locking. This is the one to use when searches are done on a thread pool instead of the Swing thread.
+ *
+ * The verses are copied when the Bible is created, so changing the VerseList it was created from afterwards doesn't
+ * change it. The copy is a CompactBible that is only reachable through a final field, so once the constructor
+ * returns every thread sees all of it. Nothing ever writes to it again. Every method returns a new VerseList or
+ * ArrayList, so a thread that changes a result only changes its own copy.
+ *
+ * @author Trevor Palmatier
+ */
+public final class ImmutableBible implements Bible {
+
+	private final IndexedBible bible;
+
+	/**
+	 * Create a new Bible with the given verses. The verses don't need to be in order. If the same reference occurs
+	 * more than once, the last one wins (just like TreeMapBible). Verses from the Dummy book, and verses whose
+	 * reference can't be packed into an ordinal, are not stored.
+	 *
+	 * @param verses All of the verses of this version of the Bible.
+	 */
+	public ImmutableBible(VerseList verses) {
+		bible = new CompactBible(verses);
+	}
+
+	/**
+	 * Make an immutable copy of a Bible. If it is already an ImmutableBible, it is returned since there is no need to
+	 * copy it.
+	 *
+	 * @param bible the Bible to copy.
+	 * @return an ImmutableBible with the same verses.
+	 */
+	public static ImmutableBible copyOf(Bible bible) {
+		if (bible instanceof ImmutableBible) {
+			return (ImmutableBible) bible;
+		}
+		return new ImmutableBible(bible.getAllVerses());
+	}
+
+	@Override
+	public int getNumberOfVerses() {
+		return bible.getNumberOfVerses();
+	}
+
+	@Override
+	public VerseList getAllVerses() {
+		return bible.getAllVerses();
+	}
+
+	@Override
+	public String getVersion() {
+		return bible.getVersion();
+	}
+
+	@Override
+	public String getTitle() {
+		return bible.getTitle();
+	}
+
+	@Override
+	public boolean isValid(Reference ref) {
+		return bible.isValid(ref);
+	}
+
+	@Override
+	public String getVerseText(Reference r) {
+		return bible.getVerseText(r);
+	}
+
+	@Override
+	public Verse getVerse(Reference r) {
+		return bible.getVerse(r);
+	}
+
+	@Override
+	public Verse getVerse(BookOfBible book, int chapter, int verse) {
+		return bible.getVerse(book, chapter, verse);
+	}
+
+	@Override
+	public VerseList getVersesContaining(String phrase) {
+		return bible.getVersesContaining(phrase);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesContaining(String phrase) {
+		return bible.getReferencesContaining(phrase);
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsContaining(String phrase) {
+		return bible.getOrdinalsContaining(phrase);
+	}
+
+	@Override
+	public VerseList getVerses(ArrayList<Reference> references) {
+		return bible.getVerses(references);
+	}
+
+	@Override
+	public int getLastVerseNumber(BookOfBible book, int chapter) {
+		return bible.getLastVerseNumber(book, chapter);
+	}
+
+	@Override
+	public int getLastChapterNumber(BookOfBible book) {
+		return bible.getLastChapterNumber(book);
+	}
+
+	@Override
+	public Versification getVersification() {
+		return bible.getVersification();
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse) {
+		return bible.getReferencesInclusive(firstVerse, lastVerse);
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsInclusive(Reference firstVerse, Reference lastVerse) {
+		return bible.getOrdinalsInclusive(firstVerse, lastVerse);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesExclusive(Reference firstVerse, Reference lastVerse) {
+		return bible.getReferencesExclusive(firstVerse, lastVerse);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForBook(BookOfBible book) {
+		return bible.getReferencesForBook(book);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForChapter(BookOfBible book, int chapter) {
+		return bible.getReferencesForChapter(book, chapter);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForChapters(BookOfBible book, int chapter1, int chapter2) {
+		return bible.getReferencesForChapters(book, chapter1, chapter2);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter, int verse1, int verse2) {
+		return bible.getReferencesForPassage(book, chapter, verse1, verse2);
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter1, int verse1, int chapter2,
+			int verse2) {
+		return bible.getReferencesForPassage(book, chapter1, verse1, chapter2, verse2);
+	}
+
+	@Override
+	public VerseList getVersesInclusive(Reference firstVerse, Reference lastVerse) {
+		return bible.getVersesInclusive(firstVerse, lastVerse);
+	}
+
+	@Override
+	public VerseList getVersesExclusive(Reference firstVerse, Reference lastVerse) {
+		return bible.getVersesExclusive(firstVerse, lastVerse);
+	}
+
+	@Override
+	public VerseList getBook(BookOfBible book) {
+		return bible.getBook(book);
+	}
+
+	@Override
+	public VerseList getChapter(BookOfBible book, int chapter) {
+		return bible.getChapter(book, chapter);
+	}
+
+	@Override
+	public VerseList getChapters(BookOfBible book, int chapter1, int chapter2) {
+		return bible.getChapters(book, chapter1, chapter2);
+	}
+
+	@Override
+	public VerseList getPassage(BookOfBible book, int chapter, int verse1, int verse2) {
+		return bible.getPassage(book, chapter, verse1, verse2);
+	}
+
+	@Override
+	public VerseList getPassage(BookOfBible book, int chapter1, int verse1, int chapter2, int verse2) {
+		return bible.getPassage(book, chapter1, verse1, chapter2, verse2);
+	}
+}
@@ -0,0 +1,345 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * The parts of a Bible that only depend on giving every verse a dense index (0 for the first verse, 1 for the second,
+ * and so on). The Versification says which verse has which index and where each book and chapter start, so finding a
+ * verse, chapter, or book is a few array reads instead of a tree walk or a search of the whole list. Subclasses decide
+ * how the text of each verse is stored, and only have to say how to get the text of verse i.
+ *
+ * Subclasses must set version, title, and versification in their constructors.
+ *
+ * @author Trevor Palmatier
+ */
+public abstract class IndexedBible implements Bible {
+
+	protected String			version;
+	protected String			title;
+
+	// Which verse has which index, and where each book and chapter start.
+	protected Versification		versification;
+
+	// The lowercased text of the verses, made the first time indexesContaining is used.
+	private volatile FoldedText	folded;
+
+	/**
+	 * Get the verses that should be stored, sorted by reference with repeats removed. If the same reference occurs
+	 * more than once, the last one wins (just like TreeMapBible). Verses from the Dummy book, and verses whose
+	 * reference can't be packed into an ordinal, are left out. The sort is stable, so keeping the last of a run of
+	 * equal references keeps the one that came last in the original list.
+	 *
+	 * @param verses the verses of a Bible, in any order.
+	 * @return the verses to store, in order.
+	 */
+	protected static Verse[] sortedVerses(VerseList verses) {
+		ArrayList<Verse> usable = new ArrayList<Verse>(verses.size());
+		for (Verse verse : verses) {
+			if (verse != null && verse.getText() != null) {
+				Reference ref = verse.getReference();
+				if (ref.getBookOfBible() != BookOfBible.Dummy && ref.getOrdinal() != Reference.INVALID_ORDINAL) {
+					usable.add(verse);
+				}
+			}
+		}
+		usable.sort(new Comparator<Verse>() {
+			@Override
+			public int compare(Verse v1, Verse v2) {
+				return Integer.compare(v1.getReference().getOrdinal(), v2.getReference().getOrdinal());
+			}
+		});
+		ArrayList<Verse> unique = new ArrayList<Verse>(usable.size());
+		for (int i = 0; i < usable.size(); i++) {
+			if (i + 1 < usable.size() && usable.get(i).sameReference(usable.get(i + 1))) {
+				continue;
+			}
+			unique.add(usable.get(i));
+		}
+		return unique.toArray(new Verse[unique.size()]);
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Helper methods.
+
+	/**
+	 * @param index the index of a verse (see Versification).
+	 * @return the text of the verse.
+	 */
+	protected abstract String textAt(int index);
+
+	private Reference referenceAt(int index) {
+		return versification.getReference(index);
+	}
+
+	private Verse verseAt(int index) {
+		return new Verse(referenceAt(index), textAt(index));
+	}
+
+	private ArrayList<Reference> referencesBetween(int start, int end) {
+		ArrayList<Reference> references = new ArrayList<Reference>(Math.max(end - start, 0));
+		for (int i = start; i < end; i++) {
+			references.add(referenceAt(i));
+		}
+		return references;
+	}
+
+	// A read-only view of the verses from start up to end. The Verse objects are only made if someone asks for them.
+	private VerseList versesBetween(String description, int start, int end) {
+		return VerseList.view(version, description, new VerseView(versification, start, end) {
+			@Override
+			protected String textAt(int index) {
+				return IndexedBible.this.textAt(index);
+			}
+		});
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// The Bible interface.
+
+	@Override
+	public int getNumberOfVerses() {
+		return versification.getNumberOfVerses();
+	}
+
+	@Override
+	public VerseList getAllVerses() {
+		return versesBetween(title, 0, versification.getNumberOfVerses());
+	}
+
+	@Override
+	public String getVersion() {
+		return version;
+	}
+
+	@Override
+	public String getTitle() {
+		return title;
+	}
+
+	@Override
+	public boolean isValid(Reference ref) {
+		return versification.isValid(ref);
+	}
+
+	@Override
+	public String getVerseText(Reference r) {
+		if (r != null) {
+			int index = versification.indexOf(r.getOrdinal());
+			if (index != -1) {
+				return textAt(index);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Verse getVerse(Reference r) {
+		if (r != null) {
+			int index = versification.indexOf(r.getOrdinal());
+			if (index != -1) {
+				return verseAt(index);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Verse getVerse(BookOfBible book, int chapter, int verse) {
+		int index = versification.indexOf(Reference.toOrdinal(book, chapter, verse));
+		if (index != -1) {
+			return verseAt(index);
+		}
+		return null;
+	}
+
+	@Override
+	public VerseList getVersesContaining(String phrase) {
+		VerseList versesContaining = new VerseList(version, title);
+		if (phrase == null || phrase.equals("")) {
+			return versesContaining;
+		}
+		for (int i : indexesContaining(phrase)) {
+			versesContaining.add(verseAt(i));
+		}
+		return versesContaining;
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesContaining(String phrase) {
+		return getOrdinalsContaining(phrase).toReferences();
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsContaining(String phrase) {
+		IntReferenceList results = new IntReferenceList();
+		if (phrase == null || phrase.equals("")) {
+			return results;
+		}
+		for (int i : indexesContaining(phrase)) {
+			results.add(versification.getOrdinal(i));
+		}
+		return results;
+	}
+
+	/**
+	 * Find the verses that contain the phrase, ignoring case. The first search lowercases the text of every verse into
+	 * a FoldedText, which the searches after it use. Subclasses that can search the text they store without making a
+	 * String for every verse should override this.
+	 *
+	 * @param phrase the phrase to search for. It is not null or empty.
+	 * @return the indexes of the verses that contain the phrase, in order.
+	 */
+	protected int[] indexesContaining(String phrase) {
+		FoldedText text = folded;
+		if (text == null) {
+			// If two threads get here at the same time, they both make one, and one of them is kept.
+			String[] texts = new String[versification.getNumberOfVerses()];
+			for (int i = 0; i < texts.length; i++) {
+				texts[i] = textAt(i);
+			}
+			text = FoldedText.of(texts);
+			folded = text;
+		}
+		return text.indexesContaining(phrase);
+	}
+
+	@Override
+	public VerseList getVerses(ArrayList<Reference> references) {
+		VerseList versesContainingRef = new VerseList(version, "Arbitrary list of Verses");
+		for (Reference ref : references) {
+			versesContainingRef.add(getVerse(ref));
+		}
+		return versesContainingRef;
+	}
+
+	@Override
+	public int getLastVerseNumber(BookOfBible book, int chapter) {
+		return versification.getLastVerseNumber(book, chapter);
+	}
+
+	@Override
+	public int getLastChapterNumber(BookOfBible book) {
+		return versification.getLastChapterNumber(book);
+	}
+
+	@Override
+	public Versification getVersification() {
+		return versification;
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse) {
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return new ArrayList<Reference>();
+		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return referencesBetween(start, versification.firstIndexAfter(lastVerse));
+	}
+
+	@Override
+	public IntReferenceList getOrdinalsInclusive(Reference firstVerse, Reference lastVerse) {
+		IntReferenceList results = new IntReferenceList();
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return results;
+		}
+		int end = versification.firstIndexAfter(lastVerse);
+		for (int i = versification.firstIndexFrom(firstVerse); i < end; i++) {
+			results.add(versification.getOrdinal(i));
+		}
+		return results;
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesExclusive(Reference firstVerse, Reference lastVerse) {
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return new ArrayList<Reference>();
+		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return referencesBetween(start, versification.firstIndexFrom(lastVerse));
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForBook(BookOfBible book) {
+		if (book != null) {
+			return getReferencesExclusive(Reference.of(book, 1, 1), Reference.of(BookOfBible.nextBook(book), 1, 1));
+		}
+		return new ArrayList<Reference>();
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForChapter(BookOfBible book, int chapter) {
+		if (book != null) {
+			return getReferencesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
+		}
+		return new ArrayList<Reference>();
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForChapters(BookOfBible book, int chapter1, int chapter2) {
+		if (chapter1 <= chapter2 && book != null) {
+			return getReferencesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
+		}
+		return new ArrayList<Reference>();
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter, int verse1, int verse2) {
+		return getReferencesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
+	}
+
+	@Override
+	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter1, int verse1, int chapter2,
+			int verse2) {
+		return getReferencesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
+	}
+
+	@Override
+	public VerseList getVersesInclusive(Reference firstVerse, Reference lastVerse) {
+		String description = firstVerse + "-" + lastVerse;
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return new VerseList(version, description);
+		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return versesBetween(description, start, versification.firstIndexAfter(lastVerse));
+	}
+
+	@Override
+	public VerseList getVersesExclusive(Reference firstVerse, Reference lastVerse) {
+		String description = firstVerse + "-" + lastVerse;
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return new VerseList(version, description);
+		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return versesBetween(description, start, versification.firstIndexFrom(lastVerse));
+	}
+
+	@Override
+	public VerseList getBook(BookOfBible book) {
+		if (book != null) {
+			BookOfBible next = BookOfBible.nextBook(book);
+			return getVersesExclusive(Reference.of(book, 1, 1), Reference.of(next, 1, 1));
+		}
+		return new VerseList(version, "");
+	}
+
+	@Override
+	public VerseList getChapter(BookOfBible book, int chapter) {
+		return getVersesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
+	}
+
+	@Override
+	public VerseList getChapters(BookOfBible book, int chapter1, int chapter2) {
+		return getVersesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
+	}
+
+	@Override
+	public VerseList getPassage(BookOfBible book, int chapter, int verse1, int verse2) {
+		return getVersesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
+	}
+
+	@Override
+	public VerseList getPassage(BookOfBible book, int chapter1, int verse1, int chapter2, int verse2) {
+		return getVersesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
+	}
+}
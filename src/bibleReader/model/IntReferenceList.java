@@ -0,0 +1,277 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable list of reference ordinals (see Reference.getOrdinal()). It does the same job as an ArrayList<Reference>
+ * but stores plain ints, so a list of a few thousand results is one array instead of a few thousand objects, and
+ * comparing two entries is just comparing two ints.
+ *
+ * Lists returned by the model methods are sorted and have no duplicates. The union and intersection methods assume
+ * their arguments are sorted.
+ *
+ * @author Trevor Palmatier
+ */
+public class IntReferenceList {
+	private static final int	DEFAULT_CAPACITY	= 16;
+
+	private int[]				ordinals;
+	private int					size;
+
+	/**
+	 * Create an empty list.
+	 */
+	public IntReferenceList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create an empty list with room for the given number of ordinals.
+	 *
+	 * @param capacity the initial capacity.
+	 */
+	public IntReferenceList(int capacity) {
+		ordinals = new int[Math.max(capacity, 1)];
+		size = 0;
+	}
+
+	/**
+	 * Create a list holding the ordinals of the given references, in the same order.
+	 *
+	 * @param references the references to convert.
+	 */
+	public IntReferenceList(Collection<Reference> references) {
+		this(references.size());
+		for (Reference ref : references) {
+			add(ref);
+		}
+	}
+
+	/**
+	 * Create a list holding the first size ordinals of the given array, in the same order. The array is copied.
+	 *
+	 * @param ordinals the ordinals.
+	 * @param size how many of them to use.
+	 */
+	public IntReferenceList(int[] ordinals, int size) {
+		this.ordinals = Arrays.copyOf(ordinals, Math.max(size, 1));
+		this.size = size;
+	}
+
+	/**
+	 * Add an ordinal to the end of the list.
+	 *
+	 * @param ordinal the ordinal to add.
+	 */
+	public void add(int ordinal) {
+		if (size == ordinals.length) {
+			ordinals = Arrays.copyOf(ordinals, size * 2);
+		}
+		ordinals[size++] = ordinal;
+	}
+
+	/**
+	 * Add all of the ordinals of another list to the end of this one, in order.
+	 *
+	 * @param other the list whose ordinals are added.
+	 */
+	public void addAll(IntReferenceList other) {
+		if (size + other.size > ordinals.length) {
+			ordinals = Arrays.copyOf(ordinals, Math.max(size + other.size, size * 2));
+		}
+		System.arraycopy(other.ordinals, 0, ordinals, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Add the ordinal of the given reference to the end of the list. References that cannot be packed are skipped.
+	 *
+	 * @param reference the reference to add.
+	 */
+	public void add(Reference reference) {
+		if (reference != null) {
+			int ordinal = reference.getOrdinal();
+			if (ordinal != Reference.INVALID_ORDINAL) {
+				add(ordinal);
+			}
+		}
+	}
+
+	/**
+	 * @param index the position in the list.
+	 * @return the ordinal at the given position.
+	 */
+	public int get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return ordinals[index];
+	}
+
+	/**
+	 * Replace the ordinal at the given position.
+	 *
+	 * @param index   the position in the list.
+	 * @param ordinal the new ordinal.
+	 */
+	public void set(int index, int ordinal) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		ordinals[index] = ordinal;
+	}
+
+	/**
+	 * @param index the position in the list.
+	 * @return the Reference for the ordinal at the given position.
+	 */
+	public Reference getReference(int index) {
+		return Reference.fromOrdinal(get(index));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param ordinal the ordinal to look for.
+	 * @return true if and only if the ordinal is in this list. This assumes the list is sorted.
+	 */
+	public boolean contains(int ordinal) {
+		return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+	}
+
+	/**
+	 * Sort the list and remove any repeated ordinals.
+	 */
+	public void sortAndRemoveDuplicates() {
+		Arrays.sort(ordinals, 0, size);
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (kept == 0 || ordinals[kept - 1] != ordinals[i]) {
+				ordinals[kept++] = ordinals[i];
+			}
+		}
+		size = kept;
+	}
+
+	/**
+	 * @return a copy of the ordinals in this list.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(ordinals, size);
+	}
+
+	/**
+	 * @return an ArrayList<Reference> with one Reference for each ordinal in this list, in the same order.
+	 */
+	public ArrayList<Reference> toReferences() {
+		ArrayList<Reference> references = new ArrayList<Reference>(size);
+		for (int i = 0; i < size; i++) {
+			references.add(Reference.fromOrdinal(ordinals[i]));
+		}
+		return references;
+	}
+
+	/**
+	 * Merge two sorted lists. Repeated ordinals within either list are only kept once, so this also works for lists
+	 * taken from Bibles that have the same reference more than once.
+	 *
+	 * @param first a sorted list.
+	 * @param second a sorted list.
+	 * @return a sorted list, with no duplicates, of the ordinals that are in either list.
+	 */
+	public static IntReferenceList union(IntReferenceList first, IntReferenceList second) {
+		IntReferenceList result = new IntReferenceList(first.size + second.size);
+		int i = 0;
+		int j = 0;
+		while (i < first.size || j < second.size) {
+			int next;
+			if (j == second.size || (i < first.size && first.ordinals[i] <= second.ordinals[j])) {
+				next = first.ordinals[i++];
+			} else {
+				next = second.ordinals[j++];
+			}
+			result.addIfGreater(next);
+		}
+		return result;
+	}
+
+	/**
+	 * Intersect two sorted lists.
+	 *
+	 * @param first a sorted list.
+	 * @param second a sorted list.
+	 * @return a sorted list, with no duplicates, of the ordinals that are in both lists.
+	 */
+	public static IntReferenceList intersection(IntReferenceList first, IntReferenceList second) {
+		IntReferenceList result = new IntReferenceList(Math.min(first.size, second.size));
+		int i = 0;
+		int j = 0;
+		while (i < first.size && j < second.size) {
+			int a = first.ordinals[i];
+			int b = second.ordinals[j];
+			if (a < b) {
+				i++;
+			} else if (b < a) {
+				j++;
+			} else {
+				result.addIfGreater(a);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * Add the ordinal only if it is larger than the last one in the list. This is how the merges above keep their
+	 * results free of duplicates.
+	 */
+	private void addIfGreater(int ordinal) {
+		if (size == 0 || ordinals[size - 1] < ordinal) {
+			add(ordinal);
+		}
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof IntReferenceList) {
+			IntReferenceList list = (IntReferenceList) other;
+			if (size != list.size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				if (ordinals[i] != list.ordinals[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + ordinals[i];
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		return toReferences().toString();
+	}
+}
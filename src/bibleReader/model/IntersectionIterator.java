@@ -0,0 +1,76 @@
+package bibleReader.model;
+
+import java.util.Collection;
+
+/**
+ * A PostingsIterator over the ordinals that are in every one of several other iterators. The iterators take turns
+ * skipping to the largest ordinal any of them is at (leapfrogging), so a short list steps through a long one with
+ * skipTo instead of the long one being read from the front.
+ *
+ * The iterators are tried in the order they are given, so it is fastest if the one with the fewest ordinals is first.
+ *
+ * @author Trevor Palmatier
+ */
+public final class IntersectionIterator implements PostingsIterator {
+	private final PostingsIterator[]	iterators;
+	private int							current	= -1;
+
+	/**
+	 * @param iterators the iterators to intersect. None of them should have been moved yet, and this one moves them
+	 *            from now on. If there aren't any, neither are there any ordinals.
+	 */
+	public IntersectionIterator(Collection<? extends PostingsIterator> iterators) {
+		this.iterators = iterators.toArray(new PostingsIterator[iterators.size()]);
+	}
+
+	@Override
+	public int ordinal() {
+		return current;
+	}
+
+	@Override
+	public int next() {
+		if (current == NO_MORE_ORDINALS) {
+			return current;
+		}
+		return align(current + 1);
+	}
+
+	@Override
+	public int skipTo(int target) {
+		if (current >= target) {
+			return current;
+		}
+		return align(target);
+	}
+
+	// Move to the first ordinal that is at least target and in all of the iterators.
+	private int align(int target) {
+		if (iterators.length == 0) {
+			current = NO_MORE_ORDINALS;
+			return current;
+		}
+		int candidate = target;
+		// The number of iterators in a row (ending with the last one moved) that are at the candidate.
+		int agreeing = 0;
+		int i = 0;
+		while (true) {
+			int ordinal = iterators[i].skipTo(candidate);
+			if (ordinal == NO_MORE_ORDINALS) {
+				current = NO_MORE_ORDINALS;
+				return current;
+			}
+			if (ordinal == candidate) {
+				agreeing++;
+			} else {
+				candidate = ordinal;
+				agreeing = 1;
+			}
+			if (agreeing == iterators.length) {
+				current = candidate;
+				return current;
+			}
+			i = (i + 1) % iterators.length;
+		}
+	}
+}
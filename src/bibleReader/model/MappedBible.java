@@ -0,0 +1,178 @@
+package bibleReader.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Bible whose text stays in a file instead of on the heap. The file (written by MappedBible.write) is memory-mapped,
+ * and the text of a verse is only decoded when someone asks for it. Searches are done on the bytes (see ByteText). The
+ * operating system keeps the pages of the file that are being used in its page cache, so a version that is loaded but
+ * not being read costs very little memory, and several programs that have the same file open share the same pages.
+ *
+ * The only things kept on the heap are the version, the title, and the Versification (about 4 bytes per verse plus a
+ * small table per book).
+ *
+ * The file format (all numbers are big-endian ints unless noted):
+ * <ul>
+ * <li>MAGIC, then FORMAT_VERSION.</li>
+ * <li>The version and the title, each as a short length followed by that many bytes of UTF-8.</li>
+ * <li>The number of verses, n.</li>
+ * <li>n ordinals (see Reference.getOrdinal()), in order.</li>
+ * <li>n + 1 offsets. The text of verse i is bytes offsets[i] up to offsets[i + 1] of the text.</li>
+ * <li>The text of every verse, in UTF-8, one after another.</li>
+ * </ul>
+ *
+ * @author Trevor Palmatier
+ */
+public class MappedBible extends IndexedBible {
+
+	/**
+	 * The first four bytes of every mapped Bible file ("MBV1" in ASCII).
+	 */
+	public static final int	MAGIC			= 0x4D425631;
+
+	/**
+	 * The version of the file format. It will change if the format ever does.
+	 */
+	public static final int	FORMAT_VERSION	= 1;
+
+	// The mapped offsets and text.
+	private ByteText		text;
+
+	/**
+	 * Open a Bible that was written by MappedBible.write.
+	 *
+	 * @param file the file to open.
+	 * @throws IOException if the file can't be read or isn't a mapped Bible file.
+	 */
+	public MappedBible(File file) throws IOException {
+		ByteBuffer buffer;
+		// The mapping stays valid after the channel is closed.
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException(file + " is not a mapped Bible file.");
+			}
+			if (buffer.getInt() != FORMAT_VERSION) {
+				throw new IOException(file + " was written with a different version of the mapped Bible format.");
+			}
+			version = readString(buffer);
+			title = readString(buffer);
+			int count = buffer.getInt();
+			// The ordinals and offsets take 8 bytes per verse and 4 more, so a count that is more than that is wrong.
+			if (count < 0 || 8L * count + 4 > buffer.remaining()) {
+				throw new IOException(file + " has a number of verses that doesn't fit in the file.");
+			}
+
+			int[] ordinals = new int[count];
+			buffer.asIntBuffer().get(ordinals);
+			buffer.position(buffer.position() + 4 * count);
+			for (int i = 0; i < count; i++) {
+				if (Reference.fromOrdinal(ordinals[i]) == null || (i > 0 && ordinals[i] <= ordinals[i - 1])) {
+					throw new IOException(file + " has a reference that is out of order or not valid.");
+				}
+			}
+
+			ByteBuffer offsetBytes = buffer.slice();
+			offsetBytes.limit(4 * (count + 1));
+			IntBuffer offsets = offsetBytes.asIntBuffer();
+			buffer.position(buffer.position() + 4 * (count + 1));
+
+			ByteBuffer textBytes = buffer.slice();
+			if (offsets.get(0) < 0 || offsets.get(count) > textBytes.limit()) {
+				throw new IOException(file + " is shorter than it should be.");
+			}
+			for (int i = 0; i < count; i++) {
+				if (offsets.get(i) > offsets.get(i + 1)) {
+					throw new IOException(file + " has a verse whose text is out of order.");
+				}
+			}
+			text = new ByteText(textBytes, offsets, StandardCharsets.UTF_8);
+			versification = new Versification(ordinals);
+		} catch (RuntimeException e) {
+			// A truncated or corrupt file shows up as a BufferUnderflowException, IllegalArgumentException, etc.
+			throw new IOException(file + " is not a valid mapped Bible file.", e);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	protected String textAt(int index) {
+		return text.get(index);
+	}
+
+	@Override
+	protected int[] indexesContaining(String phrase) {
+		// Searching the mapped bytes directly means a search doesn't fill the heap with Strings.
+		return text.indexesContaining(phrase);
+	}
+
+	/**
+	 * Write a Bible to a file in the format that MappedBible reads. Verses from the Dummy book, and verses whose
+	 * reference can't be packed into an ordinal, are left out. If the same reference occurs more than once the last one
+	 * is kept.
+	 *
+	 * @param bible the Bible to write.
+	 * @param file the file to write it to.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(Bible bible, File file) throws IOException {
+		// ColumnarBible already sorts the verses and removes the ones that can't be stored.
+		IndexedBible indexed;
+		if (bible instanceof IndexedBible) {
+			indexed = (IndexedBible) bible;
+		} else {
+			indexed = new ColumnarBible(bible.getAllVerses());
+		}
+		Versification verses = indexed.getVersification();
+		int count = verses.getNumberOfVerses();
+		byte[][] texts = new byte[count][];
+		for (int i = 0; i < count; i++) {
+			texts[i] = indexed.textAt(i).getBytes(StandardCharsets.UTF_8);
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			writeString(out, indexed.getVersion());
+			writeString(out, indexed.getTitle());
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeInt(verses.getOrdinal(i));
+			}
+			int offset = 0;
+			for (int i = 0; i < count; i++) {
+				out.writeInt(offset);
+				offset += texts[i].length;
+			}
+			out.writeInt(offset);
+			for (int i = 0; i < count; i++) {
+				out.write(texts[i]);
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IOException("The version and title must be less than 64K long.");
+		}
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+}
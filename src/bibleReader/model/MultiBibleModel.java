@@ -61,6 +61,15 @@ public interface MultiBibleModel {
 	 */
 	public ArrayList<Reference> getReferencesContaining(String words);
 
+	/**
+	 * The same as getReferencesContaining, except that the references are returned
+	 * as packed ordinals (see Reference.getOrdinal()).
+	 * 
+	 * @param words The words to search for.
+	 * @return a sorted IntReferenceList containing the results, or an empty list.
+	 */
+	public IntReferenceList getOrdinalsContaining(String words);
+
 	/**
 	 * Returns a ArrayList<Reference> for all of the references that contain the
 	 * exact word 'word' (ignoring case) in any of the versions of the Bible that
@@ -95,6 +104,17 @@ public interface MultiBibleModel {
 	// New for Stage 11
 	public ArrayList<Reference> getReferencesContainingAllWords(String words);
 
+	/**
+	 * The same as getReferencesContainingAllWords, except that the references are
+	 * returned as packed ordinals (see Reference.getOrdinal()).
+	 * 
+	 * @param words a list of words separated by spaces.
+	 * @return a sorted IntReferenceList of all of the verses that contain all of
+	 *         the exact words from 'words' in any of the versions of the Bible
+	 *         currently stored in the model.
+	 */
+	public IntReferenceList getOrdinalsContainingAllWords(String words);
+
 	/**
 	 * Returns a ArrayList<Reference> for all of the references for verses that
 	 * contain all of the the exact words in the String 'words' (ignoring case) in
@@ -133,6 +153,17 @@ public interface MultiBibleModel {
 	 */
 	public ArrayList<Reference> getReferencesForPassage(String reference);
 
+	/**
+	 * The same as getReferencesForPassage, except that the references are returned
+	 * as packed ordinals (see Reference.getOrdinal()).
+	 * 
+	 * @param reference A string representation of the reference (e.g. "Genesis
+	 *                  1:2-3:4")
+	 * @return a sorted IntReferenceList of all of the verses for the given
+	 *         passage, or an empty list if the reference is invalid.
+	 */
+	public IntReferenceList getOrdinalsForPassage(String reference);
+
 	/**
 	 * Returns a list containing the single reference "book chapter:verse" (e.g.
 	 * John 3:16) if the reference occurs in any of the versions, or an empty list
@@ -0,0 +1,266 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * One concordance for every version in the model. For each word there is one list of the verses that have it in any
+ * version, and each entry says which versions those are (see VersionedPostingsList). Asking which verses have all of
+ * some words in any version (or in any of some of the versions) is one intersection, with the versions' masks ANDed
+ * together as it goes, instead of one intersection per version followed by merging the results. So adding versions
+ * makes the lists a little longer, but doesn't add more work per search.
+ *
+ * Versions are numbered from 0 in the order they are added, and there can be at most MAX_VERSIONS of them.
+ *
+ * A word with a '*' or '?' in it is a wildcard pattern (see TermDictionary.getTermsMatching), and matches a verse if
+ * any word that matches the pattern is in it.
+ *
+ * @author Trevor Palmatier
+ */
+public class MultiVersionConcordance {
+	/**
+	 * The most versions one MultiVersionConcordance can hold (one bit each in a long).
+	 */
+	public static final int						MAX_VERSIONS	= 64;
+
+	/**
+	 * A mask with every version in it.
+	 */
+	public static final long						ALL_VERSIONS	= -1L;
+
+	private HashMap<String, VersionedPostingsList>	postings;
+	private int										versionCount;
+	// The words in order, for wildcards. It is made when it is first needed after a version is added.
+	private TermDictionary							terms;
+
+	/**
+	 * Create a concordance without any versions.
+	 */
+	public MultiVersionConcordance() {
+		postings = new HashMap<String, VersionedPostingsList>();
+		versionCount = 0;
+	}
+
+	/**
+	 * Add the words of one more version.
+	 *
+	 * @param concordance the concordance of the version.
+	 * @return the number the version was given. Its bit in the masks is 1L << that number.
+	 * @throws IllegalStateException if there are already MAX_VERSIONS versions.
+	 */
+	public int addVersion(Concordance concordance) {
+		if (versionCount == MAX_VERSIONS) {
+			throw new IllegalStateException("A concordance can't have more than " + MAX_VERSIONS + " versions.");
+		}
+		int version = versionCount++;
+		for (String word : concordance.getWords()) {
+			postings.put(word, VersionedPostingsList.merge(postings.get(word), concordance.getPostings(word), version));
+		}
+		terms = null;
+		return version;
+	}
+
+	/**
+	 * @return the number of versions that have been added.
+	 */
+	public int getNumberOfVersions() {
+		return versionCount;
+	}
+
+	/**
+	 * @param word a single word (no spaces, etc.)
+	 * @return the postings of the word (ignoring case), or null if no version has it.
+	 */
+	public VersionedPostingsList getPostings(String word) {
+		return postings.get(word.toLowerCase());
+	}
+
+	/**
+	 * @return the words of every version, in order.
+	 */
+	public TermDictionary getTerms() {
+		if (terms == null) {
+			terms = TermDictionary.of(postings.keySet());
+		}
+		return terms;
+	}
+
+	/**
+	 * Find the verses that contain the word (ignoring case) in at least one of the given versions.
+	 *
+	 * @param word a single word (no spaces, etc.), or a wildcard pattern.
+	 * @param versionMask the versions to look in (bit v for version v), or ALL_VERSIONS.
+	 * @return the sorted ordinals of the verses.
+	 */
+	public IntReferenceList getOrdinalsContaining(String word, long versionMask) {
+		IntReferenceList results = new IntReferenceList();
+		VersionedPostingsIterator cursor = iterator(listsFor(word.toLowerCase()));
+		if (cursor != null) {
+			for (int ordinal = cursor.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = cursor.next()) {
+				if ((cursor.versions() & versionMask) != 0) {
+					results.add(ordinal);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Find the verses that contain, in at least one of the given versions, a word that is at most maxEdits edits from
+	 * the given one (see TermDictionary.getTermsWithin). This finds the verses a search was meant to find when the
+	 * word was mistyped.
+	 *
+	 * @param word a single word (no spaces, etc.)
+	 * @param maxEdits the most edits allowed, from 0 to TermDictionary.MAX_EDITS.
+	 * @param versionMask the versions to look in (bit v for version v), or ALL_VERSIONS.
+	 * @return the sorted ordinals of the verses.
+	 */
+	public IntReferenceList getOrdinalsContainingSimilar(String word, int maxEdits, long versionMask) {
+		ArrayList<VersionedPostingsList> lists = new ArrayList<VersionedPostingsList>();
+		for (String match : getTerms().getTermsWithin(word.toLowerCase(), maxEdits)) {
+			lists.add(postings.get(match));
+		}
+		IntReferenceList results = new IntReferenceList();
+		VersionedPostingsIterator cursor = iterator(lists);
+		if (cursor != null) {
+			for (int ordinal = cursor.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = cursor.next()) {
+				if ((cursor.versions() & versionMask) != 0) {
+					results.add(ordinal);
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Words to suggest in place of one that may be mistyped ("did you mean ..."). They are the words one edit away
+	 * from it, or two edits away if there aren't any that close, with the ones in the most verses first.
+	 *
+	 * @param word a word.
+	 * @param limit the most suggestions to return.
+	 * @return the suggestions, best first. The word itself is never suggested, and the list is empty if there is
+	 *         nothing close.
+	 */
+	public ArrayList<String> getSuggestions(String word, int limit) {
+		final String wordClean = word.toLowerCase();
+		ArrayList<String> suggestions = new ArrayList<String>();
+		for (int edits = 1; edits <= TermDictionary.MAX_EDITS && suggestions.isEmpty(); edits++) {
+			suggestions = getTerms().getTermsWithin(wordClean, edits);
+			suggestions.remove(wordClean);
+		}
+		Collections.sort(suggestions, new Comparator<String>() {
+			@Override
+			public int compare(String o1, String o2) {
+				int bySize = postings.get(o2).size() - postings.get(o1).size();
+				return bySize != 0 ? bySize : o1.compareTo(o2);
+			}
+		});
+		return new ArrayList<String>(suggestions.subList(0, Math.min(limit, suggestions.size())));
+	}
+
+	/*
+	 * The postings of a lower case word, or of every word that matches a pattern. The list is empty if there aren't
+	 * any.
+	 */
+	private ArrayList<VersionedPostingsList> listsFor(String word) {
+		ArrayList<VersionedPostingsList> lists = new ArrayList<VersionedPostingsList>();
+		if (!TermDictionary.isWildcard(word)) {
+			if (postings.containsKey(word)) {
+				lists.add(postings.get(word));
+			}
+		} else {
+			for (String match : getTerms().getTermsMatching(word)) {
+				lists.add(postings.get(match));
+			}
+		}
+		return lists;
+	}
+
+	private static int totalSize(ArrayList<VersionedPostingsList> lists) {
+		int total = 0;
+		for (VersionedPostingsList list : lists) {
+			total += list.size();
+		}
+		return total;
+	}
+
+	/*
+	 * An iterator over the union of some lists, or null if there aren't any lists.
+	 */
+	private static VersionedPostingsIterator iterator(ArrayList<VersionedPostingsList> lists) {
+		if (lists.isEmpty()) {
+			return null;
+		}
+		if (lists.size() == 1) {
+			return lists.get(0).iterator();
+		}
+		ArrayList<VersionedPostingsIterator> cursors = new ArrayList<VersionedPostingsIterator>(lists.size());
+		for (VersionedPostingsList list : lists) {
+			cursors.add(list.iterator());
+		}
+		return new UnionIterator(cursors);
+	}
+
+	/**
+	 * Find the verses for which one of the given versions has all of the words (ignoring case). The words all have to
+	 * be in the same version of the verse, just as if each version's Concordance had been searched on its own and the
+	 * results combined.
+	 *
+	 * @param words the words.
+	 * @param versionMask the versions to look in (bit v for version v), or ALL_VERSIONS.
+	 * @return the sorted ordinals of the verses, or an empty list if there are no words.
+	 */
+	public IntReferenceList getOrdinalsContainingAll(Collection<String> words, long versionMask) {
+		HashSet<String> wordsClean = new HashSet<String>();
+		for (String word : words) {
+			wordsClean.add(word.toLowerCase());
+		}
+		IntReferenceList results = new IntReferenceList();
+		if (wordsClean.isEmpty()) {
+			return results;
+		}
+		ArrayList<ArrayList<VersionedPostingsList>> perWord = new ArrayList<ArrayList<VersionedPostingsList>>();
+		for (String word : wordsClean) {
+			ArrayList<VersionedPostingsList> lists = listsFor(word);
+			if (lists.isEmpty()) {
+				return results;
+			}
+			perWord.add(lists);
+		}
+		// Start with the word with the fewest verses (for a pattern, the matching words' verses added up).
+		Collections.sort(perWord, new Comparator<ArrayList<VersionedPostingsList>>() {
+			@Override
+			public int compare(ArrayList<VersionedPostingsList> o1, ArrayList<VersionedPostingsList> o2) {
+				return totalSize(o1) - totalSize(o2);
+			}
+		});
+
+		VersionedPostingsIterator[] cursors = new VersionedPostingsIterator[perWord.size()];
+		for (int i = 0; i < cursors.length; i++) {
+			cursors[i] = iterator(perWord.get(i));
+		}
+		int candidate = cursors[0].next();
+		while (candidate != PostingsIterator.NO_MORE_ORDINALS) {
+			long mask = cursors[0].versions() & versionMask;
+			int i = 1;
+			while (i < cursors.length && mask != 0 && cursors[i].skipTo(candidate) == candidate) {
+				mask &= cursors[i].versions();
+				i++;
+			}
+			if (i == cursors.length || mask == 0) {
+				if (mask != 0) {
+					results.add(candidate);
+				}
+				candidate = cursors[0].next();
+			} else {
+				// cursors[i] went past the candidate, so nothing before where it stopped can be in all of them.
+				candidate = cursors[0].skipTo(cursors[i].ordinal());
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,80 @@
+package bibleReader.model;
+
+/**
+ * Reads the positions of one token of a Concordance a verse at a time. The positions of a token are, for each verse it
+ * is in, the gap from the ordinal of the verse before, the number of times it is in the verse, and the gaps between
+ * its positions, all as variable-length ints. Phrase and NEAR searches use one of these per word.
+ *
+ * @author Trevor Palmatier
+ */
+final class PositionCursor {
+	private final byte[]	data;
+	private int				offset;
+	int						ordinal;
+	int						count;
+	int[]					positions	= new int[4];
+
+	PositionCursor(byte[] data) {
+		this.data = data;
+	}
+
+	// Move to the next verse. Returns false if there isn't one.
+	boolean next() {
+		if (offset >= data.length) {
+			return false;
+		}
+		ordinal += readVarInt();
+		count = readVarInt();
+		readPositions();
+		return true;
+	}
+
+	// Move to the first verse whose ordinal is at least target. Returns false if there isn't one. The positions of
+	// the verses skipped over are passed over without being kept.
+	boolean skipTo(int target) {
+		if (ordinal >= target) {
+			return true;
+		}
+		while (offset < data.length) {
+			ordinal += readVarInt();
+			count = readVarInt();
+			if (ordinal >= target) {
+				readPositions();
+				return true;
+			}
+			for (int i = 0; i < count; i++) {
+				skipVarInt();
+			}
+		}
+		return false;
+	}
+
+	private void readPositions() {
+		if (count > positions.length) {
+			positions = new int[Math.max(count, positions.length * 2)];
+		}
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			position += readVarInt();
+			positions[i] = position;
+		}
+	}
+
+	private void skipVarInt() {
+		while (data[offset++] < 0) {
+			// The high bit is set on every byte but the last.
+		}
+	}
+
+	private int readVarInt() {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = data[offset++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+}
@@ -0,0 +1,39 @@
+package bibleReader.model;
+
+/**
+ * Walks through a sorted list of reference ordinals (see Reference.getOrdinal()) from the front to the back. It can
+ * step to the next ordinal, or skip ahead to the first ordinal that is at least some target, which is what makes
+ * intersecting lists fast: a short list can skip through a long one without looking at most of it.
+ *
+ * An iterator starts before the first ordinal, so next (or skipTo) has to be called before ordinal means anything.
+ *
+ * @author Trevor Palmatier
+ */
+public interface PostingsIterator {
+	/**
+	 * What next, skipTo, and ordinal return once the end of the list has been reached. It is bigger than every ordinal.
+	 */
+	public static final int NO_MORE_ORDINALS = Integer.MAX_VALUE;
+
+	/**
+	 * @return the ordinal the iterator is at, -1 if next and skipTo haven't been called yet, or NO_MORE_ORDINALS if
+	 *         the end has been reached.
+	 */
+	public int ordinal();
+
+	/**
+	 * Move to the next ordinal.
+	 *
+	 * @return the next ordinal, or NO_MORE_ORDINALS if there aren't any more.
+	 */
+	public int next();
+
+	/**
+	 * Move forward to the first ordinal that is at least target. If the iterator is already at an ordinal that is at
+	 * least target, it doesn't move.
+	 *
+	 * @param target the ordinal to skip to.
+	 * @return the first ordinal that is at least target, or NO_MORE_ORDINALS if there isn't one.
+	 */
+	public int skipTo(int target);
+}
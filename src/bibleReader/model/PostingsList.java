@@ -0,0 +1,372 @@
+package bibleReader.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A sorted list of reference ordinals (see Reference.getOrdinal()), compressed. Each ordinal is stored as the
+ * difference from the one before it, written as a variable length int: 7 bits per byte, with the high bit set on every
+ * byte but the last. Verses that contain the same word tend to be close together, so most entries take one or two
+ * bytes instead of the four an int takes.
+ *
+ * The list can only be read from the front with a PostingsIterator. So that skipTo doesn't have to decode everything
+ * it skips over, every SKIP_INTERVAL entries the list remembers where that block of entries starts in the bytes and
+ * the ordinal just before it. skipTo does a binary search of those to find the block to start decoding from.
+ *
+ * A list can also have the number of times the word occurs in each verse (its term frequency, for ranking searches).
+ * Each frequency is written as a variable length int right after the ordinal it goes with.
+ *
+ * A PostingsList can't be changed once it is made, so it can be shared between threads (each with its own iterator).
+ *
+ * @author Trevor Palmatier
+ */
+public final class PostingsList {
+	/**
+	 * How many entries there are between the skip points. Lists shorter than this don't have any.
+	 */
+	static final int			SKIP_INTERVAL	= 64;
+
+	private static final int[]	NONE			= new int[0];
+
+	private final byte[]		data;
+	private final int			size;
+	// Whether there is a frequency after each ordinal, and the largest of them (1 if there aren't any).
+	private final boolean		hasFrequencies;
+	private final int			maxFrequency;
+	// For block b (entries b * SKIP_INTERVAL and up): the ordinal before the block (0 for the first block) and the
+	// offset of the block's first byte.
+	private final int[]			skipOrdinals;
+	private final int[]			skipOffsets;
+
+	private PostingsList(byte[] data, int size, boolean hasFrequencies, int maxFrequency, int[] skipOrdinals,
+			int[] skipOffsets) {
+		this.data = data;
+		this.size = size;
+		this.hasFrequencies = hasFrequencies;
+		this.maxFrequency = maxFrequency;
+		this.skipOrdinals = skipOrdinals;
+		this.skipOffsets = skipOffsets;
+	}
+
+	/**
+	 * Compress the ordinals in the given list.
+	 *
+	 * @param ordinals the ordinals. They must be sorted, with no duplicates, and none of them can be negative.
+	 * @return the compressed list.
+	 * @throws IllegalArgumentException if the ordinals aren't sorted or one is negative.
+	 */
+	public static PostingsList of(IntReferenceList ordinals) {
+		return of(ordinals, null);
+	}
+
+	/**
+	 * Compress the ordinals in the given list, along with how many times the word occurs in each of those verses.
+	 *
+	 * @param ordinals    the ordinals. They must be sorted, with no duplicates, and none of them can be negative.
+	 * @param frequencies the frequency for each ordinal (at the same index), or null to not store any.
+	 * @return the compressed list.
+	 * @throws IllegalArgumentException if the ordinals aren't sorted or one is negative, or if the frequencies aren't
+	 *             the same size as the ordinals or one isn't positive.
+	 */
+	public static PostingsList of(IntReferenceList ordinals, IntReferenceList frequencies) {
+		if (frequencies != null && frequencies.size() != ordinals.size()) {
+			throw new IllegalArgumentException("There must be one frequency for each ordinal.");
+		}
+		int count = ordinals.size();
+		int blocks = count > SKIP_INTERVAL ? (count + SKIP_INTERVAL - 1) / SKIP_INTERVAL : 0;
+		int[] skipOrdinals = blocks == 0 ? NONE : new int[blocks];
+		int[] skipOffsets = blocks == 0 ? NONE : new int[blocks];
+		ByteArrayOutputStream out = new ByteArrayOutputStream(count + 8);
+		int previous = 0;
+		int maxFrequency = 1;
+		for (int i = 0; i < count; i++) {
+			int ordinal = ordinals.get(i);
+			if (ordinal < 0 || (i > 0 && ordinal <= previous)) {
+				throw new IllegalArgumentException("The ordinals must be sorted, distinct, and not negative.");
+			}
+			if (blocks != 0 && i % SKIP_INTERVAL == 0) {
+				skipOrdinals[i / SKIP_INTERVAL] = previous;
+				skipOffsets[i / SKIP_INTERVAL] = out.size();
+			}
+			writeVarInt(out, ordinal - previous);
+			if (frequencies != null) {
+				int frequency = frequencies.get(i);
+				if (frequency <= 0) {
+					throw new IllegalArgumentException("The frequencies must be positive.");
+				}
+				writeVarInt(out, frequency);
+				maxFrequency = Math.max(maxFrequency, frequency);
+			}
+			previous = ordinal;
+		}
+		return new PostingsList(out.toByteArray(), count, frequencies != null, maxFrequency, skipOrdinals,
+				skipOffsets);
+	}
+
+	/**
+	 * Write value (which must not be negative) as a variable length int: 7 bits at a time, low bits first, with the
+	 * high bit set on every byte but the last.
+	 */
+	static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Write the list (the size, whether it has frequencies as a byte, the largest frequency, the bytes, and the skip
+	 * points) so that read can read it back.
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeBoolean(hasFrequencies);
+		out.writeInt(maxFrequency);
+		out.writeInt(data.length);
+		out.write(data);
+		out.writeInt(skipOrdinals.length);
+		for (int i = 0; i < skipOrdinals.length; i++) {
+			out.writeInt(skipOrdinals[i]);
+			out.writeInt(skipOffsets[i]);
+		}
+	}
+
+	/**
+	 * Read a list written by write, starting at the buffer's position. The whole list is decoded once to check it, so
+	 * that a damaged list is found now instead of when it is searched.
+	 *
+	 * @throws IllegalArgumentException if the buffer doesn't hold a valid list.
+	 */
+	static PostingsList read(ByteBuffer buffer) {
+		int size = buffer.getInt();
+		boolean hasFrequencies = buffer.get() != 0;
+		int maxFrequency = buffer.getInt();
+		if (maxFrequency <= 0) {
+			throw new IllegalArgumentException("The postings list has a frequency that isn't positive.");
+		}
+		byte[] data = new byte[checkedLength(buffer, buffer.getInt(), 1)];
+		buffer.get(data);
+		int blocks = checkedLength(buffer, buffer.getInt(), 8);
+		if (size < 0 || blocks != (size > SKIP_INTERVAL ? (size + SKIP_INTERVAL - 1) / SKIP_INTERVAL : 0)) {
+			throw new IllegalArgumentException("The postings list has the wrong number of skip points.");
+		}
+		int[] skipOrdinals = blocks == 0 ? NONE : new int[blocks];
+		int[] skipOffsets = blocks == 0 ? NONE : new int[blocks];
+		for (int i = 0; i < blocks; i++) {
+			skipOrdinals[i] = buffer.getInt();
+			skipOffsets[i] = buffer.getInt();
+			if (skipOffsets[i] < 0 || skipOffsets[i] >= data.length) {
+				throw new IllegalArgumentException("The postings list has a skip point outside of its bytes.");
+			}
+		}
+		PostingsList list = new PostingsList(data, size, hasFrequencies, maxFrequency, skipOrdinals, skipOffsets);
+		list.check();
+		return list;
+	}
+
+	// Decode every entry, and check that the ordinals are sorted, the frequencies are in range, the skip points are
+	// where the blocks start, and there are no bytes left over.
+	private void check() {
+		VarIntReader in = new VarIntReader(data);
+		int ordinal = 0;
+		for (int i = 0; i < size; i++) {
+			int block = i / SKIP_INTERVAL;
+			if (i % SKIP_INTERVAL == 0 && block < skipOffsets.length
+					&& (skipOffsets[block] != in.offset() || skipOrdinals[block] != ordinal)) {
+				throw new IllegalArgumentException("The postings list has a skip point that isn't where its block is.");
+			}
+			int gap = in.read();
+			ordinal += gap;
+			if ((i > 0 && gap == 0) || ordinal < 0) {
+				throw new IllegalArgumentException("The postings list isn't sorted.");
+			}
+			if (hasFrequencies) {
+				int frequency = in.read();
+				if (frequency <= 0 || frequency > maxFrequency) {
+					throw new IllegalArgumentException("The postings list has a frequency that is out of range.");
+				}
+			}
+		}
+		if (in.hasMore()) {
+			throw new IllegalArgumentException("The postings list has bytes after its last entry.");
+		}
+	}
+
+	/**
+	 * Reads variable length ints (see writeVarInt) one after another, checking each one, for checking lists as they
+	 * are loaded. The iterators that are used for searching don't check anything.
+	 */
+	static final class VarIntReader {
+		private final byte[]	data;
+		private int				offset;
+
+		VarIntReader(byte[] data) {
+			this.data = data;
+		}
+
+		/**
+		 * @return the offset of the next byte.
+		 */
+		int offset() {
+			return offset;
+		}
+
+		/**
+		 * @return true if there are bytes left.
+		 */
+		boolean hasMore() {
+			return offset < data.length;
+		}
+
+		/**
+		 * @return the next int.
+		 * @throws IllegalArgumentException if it runs past the end of the bytes or doesn't fit in a (non-negative) int.
+		 */
+		int read() {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				if (offset >= data.length) {
+					throw new IllegalArgumentException("A number runs past the end of its list.");
+				}
+				byte b = data[offset++];
+				// The fifth byte holds bits 28 to 31, and bit 31 is the sign, so it can be at most 7.
+				if (shift == 28 && (b & 0xF8) != 0) {
+					throw new IllegalArgumentException("A number in a list is too big.");
+				}
+				value |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+		}
+	}
+
+	// Check that count things of the given size could fit in what is left of the buffer before making an array.
+	static int checkedLength(ByteBuffer buffer, int count, int size) {
+		if (count < 0 || (long) count * size > buffer.remaining()) {
+			throw new IllegalArgumentException("A length of " + count + " is more than is left.");
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of ordinals in the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the list has the number of times the word occurs in each verse.
+	 */
+	public boolean hasFrequencies() {
+		return hasFrequencies;
+	}
+
+	/**
+	 * @return the most times the word occurs in any one verse of the list, or 1 if the list has no frequencies.
+	 */
+	public int getMaxFrequency() {
+		return maxFrequency;
+	}
+
+	/**
+	 * @return the number of bytes the compressed ordinals and the skip points take.
+	 */
+	public int getByteCount() {
+		return data.length + 4 * (skipOrdinals.length + skipOffsets.length);
+	}
+
+	/**
+	 * @return an iterator that starts before the first ordinal.
+	 */
+	public Cursor iterator() {
+		return new Cursor();
+	}
+
+	/**
+	 * @return all of the ordinals, uncompressed.
+	 */
+	public IntReferenceList toIntReferenceList() {
+		IntReferenceList list = new IntReferenceList(size);
+		PostingsIterator iterator = iterator();
+		for (int ordinal = iterator.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = iterator.next()) {
+			list.add(ordinal);
+		}
+		return list;
+	}
+
+	/**
+	 * A PostingsIterator over the list that can also tell how many times the word occurs in the current verse.
+	 */
+	public final class Cursor implements PostingsIterator {
+		private int	offset;
+		private int	index;
+		private int	current		= -1;
+		private int	frequency	= 1;
+
+		private Cursor() {
+		}
+
+		@Override
+		public int ordinal() {
+			return current;
+		}
+
+		/**
+		 * @return how many times the word occurs in the current verse, or 1 if the list has no frequencies.
+		 */
+		public int frequency() {
+			return frequency;
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[offset++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		@Override
+		public int next() {
+			if (index >= size) {
+				current = NO_MORE_ORDINALS;
+				return current;
+			}
+			current = (index == 0 ? 0 : current) + readVarInt();
+			if (hasFrequencies) {
+				frequency = readVarInt();
+			}
+			index++;
+			return current;
+		}
+
+		@Override
+		public int skipTo(int target) {
+			if (current >= target) {
+				return current;
+			}
+			// Jump to the last block whose entries before it are all less than target, if that's ahead of here.
+			int block = Arrays.binarySearch(skipOrdinals, target);
+			block = block >= 0 ? block - 1 : -block - 2;
+			if (block >= 0 && block * SKIP_INTERVAL > index) {
+				index = block * SKIP_INTERVAL;
+				offset = skipOffsets[block];
+				current = skipOrdinals[block];
+			}
+			while (current < target) {
+				next();
+			}
+			return current;
+		}
+	}
+}
@@ -0,0 +1,327 @@
+package bibleReader.model;
+
+import java.util.Arrays;
+
+/**
+ * The verses where two words are near each other (see Concordance.getPostingsNear), found from the positions of the
+ * words without looking at the text. The occurrences of the two words are merged in the order they are in the text,
+ * keeping a window of the ones in the last distance tokens for each word. When an occurrence of one word comes along
+ * while the other word's window isn't empty, the verses of all of them are matches. If the second cursor is null, the
+ * matches are the verses where the first cursor's word occurs twice near itself.
+ *
+ * Matches can be found a little out of order (a verse in a window can be marked after a later verse was), so they are
+ * only returned once no verse before them can still be matched.
+ *
+ * @author Trevor Palmatier
+ */
+final class ProximityIterator implements PostingsIterator {
+	private final PositionCursor	first;
+	private final PositionCursor	second;
+	private final int				distance;
+	private final boolean			ordered;
+	private final boolean			acrossVerses;
+	// The verses of the concordance, the number of tokens in each one, and where their tokens start.
+	private final int[]				verseOrdinals;
+	private final char[]			verseLengths;
+	private final int[]				tokenStarts;
+	private final Window			firstWindow		= new Window();
+	private final Window			secondWindow	= new Window();
+	// The verses that have been found to match, but might not be next yet because an earlier verse still could.
+	private final Matches			matches			= new Matches();
+	// For each cursor: which of the positions of its verse is next, or -1 once it has run out, and where the tokens
+	// of its verse start (see tokenStarts).
+	private int						firstNext;
+	private int						secondNext;
+	private int						firstStart;
+	private int						secondStart;
+	// The verse the windows are for, if they can't go across verses.
+	private int						windowOrdinal	= -1;
+	private boolean					started;
+	private int						current			= -1;
+
+	/**
+	 * @param first         the positions of the first word.
+	 * @param second        the positions of the second word, or null to find the first word near itself.
+	 * @param distance      the most tokens apart the words can be.
+	 * @param ordered       if true, the first word has to come before the second.
+	 * @param acrossVerses  if true, the words can be in different verses of the same book.
+	 * @param verseOrdinals the ordinals of the verses of the concordance, in order.
+	 * @param verseLengths  the number of tokens in each of those verses.
+	 * @param tokenStarts   where the tokens of each of those verses start if all of the tokens of the version are
+	 *                      numbered in order, with a gap of more than distance before each book.
+	 */
+	ProximityIterator(PositionCursor first, PositionCursor second, int distance, boolean ordered,
+			boolean acrossVerses, int[] verseOrdinals, char[] verseLengths, int[] tokenStarts) {
+		this.first = first;
+		this.second = second;
+		this.distance = distance;
+		this.ordered = ordered;
+		this.acrossVerses = acrossVerses;
+		this.verseOrdinals = verseOrdinals;
+		this.verseLengths = verseLengths;
+		this.tokenStarts = tokenStarts;
+	}
+
+	@Override
+	public int ordinal() {
+		return current;
+	}
+
+	@Override
+	public int skipTo(int target) {
+		if (current >= target) {
+			return current;
+		}
+		start();
+		// Occurrences in the verses before from can't be near one in a verse from target on, so the cursors pass
+		// over them without reading their positions.
+		int from = acrossVerses ? firstVerseNear(target) : target;
+		if (firstNext >= 0 && first.ordinal < from) {
+			firstNext = first.skipTo(from) ? 0 : -1;
+			firstStart = tokenStart(first);
+		}
+		if (secondNext >= 0 && second.ordinal < from) {
+			secondNext = second.skipTo(from) ? 0 : -1;
+			secondStart = tokenStart(second);
+		}
+		matches.dropBefore(target);
+		return next();
+	}
+
+	// The ordinal of the first verse with a token no more than distance before the first token of the first verse
+	// from target on.
+	private int firstVerseNear(int target) {
+		int index = Arrays.binarySearch(verseOrdinals, target);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		if (index == verseOrdinals.length) {
+			return target;
+		}
+		int token = tokenStarts[index] - distance;
+		int low = 0;
+		int high = index;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (tokenStarts[middle] + verseLengths[middle] > token) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return verseOrdinals[low];
+	}
+
+	private void start() {
+		if (started) {
+			return;
+		}
+		started = true;
+		firstNext = moveToNextVerse(first);
+		firstStart = tokenStart(first);
+		if (second != null) {
+			secondNext = moveToNextVerse(second);
+			secondStart = tokenStart(second);
+		} else {
+			secondNext = -1;
+		}
+	}
+
+	@Override
+	public int next() {
+		if (current == NO_MORE_ORDINALS) {
+			return current;
+		}
+		start();
+		while (true) {
+			// A match before every verse that could still be matched can't have any more come before it. The verses in
+			// the windows could still be matched, unless there are no more occurrences to match them with.
+			boolean done = firstNext < 0 && secondNext < 0;
+			int bound = Math.min(firstNext < 0 ? NO_MORE_ORDINALS : first.ordinal,
+					secondNext < 0 ? NO_MORE_ORDINALS : second.ordinal);
+			if (!done && !firstWindow.isEmpty()) {
+				bound = Math.min(bound, firstWindow.oldestOrdinal());
+			}
+			if (!done && !secondWindow.isEmpty()) {
+				bound = Math.min(bound, secondWindow.oldestOrdinal());
+			}
+			if (!matches.isEmpty() && matches.first() < bound) {
+				current = matches.pollFirst();
+				return current;
+			}
+			if (done) {
+				current = NO_MORE_ORDINALS;
+				return current;
+			}
+			step();
+		}
+	}
+
+	// Take the next occurrence of either word, in the order they are in the text.
+	private void step() {
+		boolean isFirst = secondNext < 0 || (firstNext >= 0 && (first.ordinal < second.ordinal
+				|| (first.ordinal == second.ordinal && first.positions[firstNext] < second.positions[secondNext])));
+		PositionCursor cursor = isFirst ? first : second;
+		int ordinal = cursor.ordinal;
+		int index = cursor.positions[isFirst ? firstNext : secondNext] >>> 1;
+		int token = (acrossVerses ? (isFirst ? firstStart : secondStart) : 0) + index;
+		if (isFirst) {
+			if (++firstNext == first.count) {
+				firstNext = moveToNextVerse(first);
+				firstStart = tokenStart(first);
+			}
+		} else {
+			if (++secondNext == second.count) {
+				secondNext = moveToNextVerse(second);
+				secondStart = tokenStart(second);
+			}
+		}
+
+		if (!acrossVerses && ordinal != windowOrdinal) {
+			firstWindow.clear();
+			secondWindow.clear();
+			windowOrdinal = ordinal;
+		}
+		firstWindow.dropBefore(token - distance);
+		secondWindow.dropBefore(token - distance);
+		// With only one word, its window is the "other" window, and every occurrence is the second of a pair.
+		Window own = isFirst ? firstWindow : secondWindow;
+		Window other = second == null ? firstWindow : isFirst ? secondWindow : firstWindow;
+		boolean canMatch = second == null || !isFirst || !ordered;
+		if (canMatch && !other.isEmpty()) {
+			other.markAll(matches);
+			matches.add(ordinal);
+		}
+		own.add(token, ordinal);
+	}
+
+	private int moveToNextVerse(PositionCursor cursor) {
+		return cursor.next() ? 0 : -1;
+	}
+
+	private int tokenStart(PositionCursor cursor) {
+		if (!acrossVerses) {
+			return 0;
+		}
+		int index = Arrays.binarySearch(verseOrdinals, cursor.ordinal);
+		return index < 0 ? 0 : tokenStarts[index];
+	}
+
+	/*
+	 * The occurrences of one word in the last distance tokens, oldest first, with the ordinals of their verses.
+	 * Entries before marked have had their verses added to the matches already.
+	 */
+	private static final class Window {
+		private int[]	tokens		= new int[8];
+		private int[]	ordinals	= new int[8];
+		// Absolute indexes: the entries are start up to end, at index & (length - 1) in the arrays.
+		private int		start;
+		private int		end;
+		private int		marked;
+
+		boolean isEmpty() {
+			return start == end;
+		}
+
+		int oldestOrdinal() {
+			return ordinals[start & (ordinals.length - 1)];
+		}
+
+		void add(int token, int ordinal) {
+			if (end - start == tokens.length) {
+				int[] newTokens = new int[tokens.length * 2];
+				int[] newOrdinals = new int[tokens.length * 2];
+				for (int i = start; i < end; i++) {
+					newTokens[i & (newTokens.length - 1)] = tokens[i & (tokens.length - 1)];
+					newOrdinals[i & (newOrdinals.length - 1)] = ordinals[i & (ordinals.length - 1)];
+				}
+				tokens = newTokens;
+				ordinals = newOrdinals;
+			}
+			tokens[end & (tokens.length - 1)] = token;
+			ordinals[end & (ordinals.length - 1)] = ordinal;
+			end++;
+		}
+
+		// Drop the entries before the given token.
+		void dropBefore(int token) {
+			while (start < end && tokens[start & (tokens.length - 1)] < token) {
+				start++;
+			}
+			marked = Math.max(marked, start);
+		}
+
+		void clear() {
+			start = end;
+			marked = end;
+		}
+
+		// Add the verses of the entries that haven't been added yet to the matches.
+		void markAll(Matches matches) {
+			for (; marked < end; marked++) {
+				matches.add(ordinals[marked & (ordinals.length - 1)]);
+			}
+		}
+	}
+
+	/*
+	 * The verses that have been found to match but haven't been returned yet, sorted, with no duplicates. They are
+	 * nearly always added in order, and there are only a few at a time (the verses of the last distance tokens), so
+	 * one that isn't goes in by moving the ones after it over. Verses before the floor are left out.
+	 */
+	private static final class Matches {
+		private int[]	ordinals	= new int[8];
+		private int		start;
+		private int		end;
+		private int		floor;
+
+		boolean isEmpty() {
+			return start == end;
+		}
+
+		int first() {
+			return ordinals[start];
+		}
+
+		int pollFirst() {
+			int ordinal = ordinals[start++];
+			if (start == end) {
+				start = 0;
+				end = 0;
+			}
+			return ordinal;
+		}
+
+		void add(int ordinal) {
+			if (ordinal < floor) {
+				return;
+			}
+			int i = end;
+			while (i > start && ordinals[i - 1] > ordinal) {
+				i--;
+			}
+			if (i > start && ordinals[i - 1] == ordinal) {
+				return;
+			}
+			if (end == ordinals.length) {
+				int[] newOrdinals = start > 0 ? ordinals : new int[ordinals.length * 2];
+				System.arraycopy(ordinals, start, newOrdinals, 0, end - start);
+				ordinals = newOrdinals;
+				i -= start;
+				end -= start;
+				start = 0;
+			}
+			System.arraycopy(ordinals, i, ordinals, i + 1, end - i);
+			ordinals[i] = ordinal;
+			end++;
+		}
+
+		// Drop the verses before the given one, and leave them out from now on.
+		void dropBefore(int ordinal) {
+			floor = Math.max(floor, ordinal);
+			while (start < end && ordinals[start] < ordinal) {
+				start++;
+			}
+		}
+	}
+}
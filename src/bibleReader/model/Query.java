@@ -0,0 +1,275 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed search (see QueryParser): words, phrases, words near each other, and the ways they are put together with
+ * AND, OR, and NOT. A
+ * Query is turned into a tree of PostingsIterators over a concordance with iterator, so nothing is looked up until the
+ * iterator is moved, and an AND (or a NOT) only looks at the parts of its lists that it has to.
+ *
+ * A Query can't be changed once it is made, so the same one can be run against every version.
+ *
+ * @author Trevor Palmatier
+ */
+public abstract class Query {
+	private Query() {
+	}
+
+	/**
+	 * @param concordance the concordance of a version.
+	 * @return an iterator over the ordinals of the verses of that version that match this query.
+	 * @throws IllegalStateException if the query has a phrase or a Near and the concordance doesn't have positions.
+	 */
+	public abstract PostingsIterator iterator(Concordance concordance);
+
+	/**
+	 * @param concordance the concordance of a version.
+	 * @return the sorted ordinals of the verses of that version that match this query.
+	 * @throws IllegalStateException if the query has a phrase or a Near and the concordance doesn't have positions.
+	 */
+	public IntReferenceList getOrdinals(Concordance concordance) {
+		IntReferenceList results = new IntReferenceList();
+		PostingsIterator iterator = iterator(concordance);
+		for (int ordinal = iterator.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = iterator.next()) {
+			results.add(ordinal);
+		}
+		return results;
+	}
+
+	/**
+	 * A single word. It matches the verses that contain it, or, if it has a '*' or '?' in it, the verses that contain
+	 * a word that matches it (see TermDictionary.getTermsMatching).
+	 */
+	public static final class Term extends Query {
+		private final String word;
+
+		/**
+		 * @param word the word, lowercased.
+		 */
+		public Term(String word) {
+			this.word = word;
+		}
+
+		public String getWord() {
+			return word;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			if (TermDictionary.isWildcard(word)) {
+				return concordance.getPostingsMatching(word);
+			}
+			PostingsList postings = concordance.getPostings(word);
+			return postings == null ? ReferenceSet.EMPTY.iterator() : postings.iterator();
+		}
+
+		@Override
+		public String toString() {
+			return word;
+		}
+	}
+
+	/**
+	 * Words that have to be next to each other, in order (see Concordance.getPostingsContainingPhrase).
+	 */
+	public static final class Phrase extends Query {
+		private final String phrase;
+
+		/**
+		 * @param phrase the words, lowercased, with one space between each of them.
+		 */
+		public Phrase(String phrase) {
+			this.phrase = phrase;
+		}
+
+		public String getPhrase() {
+			return phrase;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			return concordance.getPostingsContainingPhrase(phrase);
+		}
+
+		@Override
+		public String toString() {
+			return "\"" + phrase + "\"";
+		}
+	}
+
+	/**
+	 * Two words that are at most some number of words apart (see Concordance.getPostingsNear).
+	 */
+	public static final class Near extends Query {
+		private final String	word1;
+		private final String	word2;
+		private final int		distance;
+		private final boolean	ordered;
+		private final boolean	acrossVerses;
+
+		/**
+		 * @param word1        a word, lowercased.
+		 * @param word2        another word, lowercased.
+		 * @param distance     the most words apart they can be (1 to Concordance.MAX_NEAR_DISTANCE).
+		 * @param ordered      if true, word1 has to come first.
+		 * @param acrossVerses if true, the words can be in neighboring verses.
+		 */
+		public Near(String word1, String word2, int distance, boolean ordered, boolean acrossVerses) {
+			this.word1 = word1;
+			this.word2 = word2;
+			this.distance = distance;
+			this.ordered = ordered;
+			this.acrossVerses = acrossVerses;
+		}
+
+		public String getWord1() {
+			return word1;
+		}
+
+		public String getWord2() {
+			return word2;
+		}
+
+		public int getDistance() {
+			return distance;
+		}
+
+		public boolean isOrdered() {
+			return ordered;
+		}
+
+		public boolean isAcrossVerses() {
+			return acrossVerses;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			return concordance.getPostingsNear(word1, word2, distance, ordered, acrossVerses);
+		}
+
+		@Override
+		public String toString() {
+			return "(" + word1 + " " + (acrossVerses ? "X" : "") + (ordered ? "O" : "") + "NEAR/" + distance + " "
+					+ word2 + ")";
+		}
+	}
+
+	/**
+	 * The verses that match all of the parts. The parts that are a Not are taken out of the verses that match the
+	 * rest, instead of finding all of the verses that don't match them first.
+	 */
+	public static final class And extends Query {
+		private final List<Query> parts;
+
+		/**
+		 * @param parts the queries that all have to match. There must be at least one.
+		 */
+		public And(Query... parts) {
+			this.parts = Collections.unmodifiableList(new ArrayList<Query>(Arrays.asList(parts)));
+		}
+
+		public List<Query> getParts() {
+			return parts;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			ArrayList<PostingsIterator> included = new ArrayList<PostingsIterator>();
+			ArrayList<PostingsIterator> excluded = new ArrayList<PostingsIterator>();
+			for (Query part : parts) {
+				if (part instanceof Not) {
+					excluded.add(((Not) part).getPart().iterator(concordance));
+				} else {
+					included.add(part.iterator(concordance));
+				}
+			}
+			PostingsIterator result = included.isEmpty() ? concordance.getVersePostings()
+					: included.size() == 1 ? included.get(0) : new IntersectionIterator(included);
+			if (excluded.isEmpty()) {
+				return result;
+			}
+			return new DifferenceIterator(result, excluded.size() == 1 ? excluded.get(0) : new UnionIterator(excluded));
+		}
+
+		@Override
+		public String toString() {
+			return join(parts, " AND ");
+		}
+	}
+
+	/**
+	 * The verses that match at least one of the parts.
+	 */
+	public static final class Or extends Query {
+		private final List<Query> parts;
+
+		/**
+		 * @param parts the queries, at least one of which has to match. There must be at least one.
+		 */
+		public Or(Query... parts) {
+			this.parts = Collections.unmodifiableList(new ArrayList<Query>(Arrays.asList(parts)));
+		}
+
+		public List<Query> getParts() {
+			return parts;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			ArrayList<PostingsIterator> iterators = new ArrayList<PostingsIterator>();
+			for (Query part : parts) {
+				iterators.add(part.iterator(concordance));
+			}
+			return iterators.size() == 1 ? iterators.get(0) : new UnionIterator(iterators);
+		}
+
+		@Override
+		public String toString() {
+			return join(parts, " OR ");
+		}
+	}
+
+	/**
+	 * The verses that don't match the part. On its own this goes through every verse of the version, so it is best
+	 * used as part of an And, which only looks for the part in the verses that match the rest.
+	 */
+	public static final class Not extends Query {
+		private final Query part;
+
+		/**
+		 * @param part the query that mustn't match.
+		 */
+		public Not(Query part) {
+			this.part = part;
+		}
+
+		public Query getPart() {
+			return part;
+		}
+
+		@Override
+		public PostingsIterator iterator(Concordance concordance) {
+			return new DifferenceIterator(concordance.getVersePostings(), part.iterator(concordance));
+		}
+
+		@Override
+		public String toString() {
+			return "NOT " + part;
+		}
+	}
+
+	private static String join(List<Query> parts, String separator) {
+		StringBuilder result = new StringBuilder("(");
+		for (int i = 0; i < parts.size(); i++) {
+			if (i > 0) {
+				result.append(separator);
+			}
+			result.append(parts.get(i));
+		}
+		return result.append(')').toString();
+	}
+}
@@ -0,0 +1,196 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a search like <code>(faith OR hope) AND love NOT "love of money"</code> into a Query. The syntax:
+ * <ul>
+ * <li>A word matches the verses that contain it. Case is ignored, and punctuation is removed the same way it is for
+ * other word searches, so "LORD's" is "lord". A word with a '*' or '?' in it is a wildcard (a '?' at the end is just
+ * a question mark).</li>
+ * <li>Words in double quotes are a phrase, which matches the verses that have those words next to each other. A
+ * phrase can't have punctuation in the middle of it.</li>
+ * <li>a AND b matches the verses that match both. Two things next to each other with no operator between them are
+ * ANDed too, so "faith AND works" and "faith works" are the same.</li>
+ * <li>a OR b matches the verses that match either one.</li>
+ * <li>NOT a matches the verses that don't match a, so "love NOT money" is the verses with love but not money.</li>
+ * <li>a NEAR/k b matches the verses that have the words a and b at most k words apart (so "faith NEAR/5 works").
+ * a ONEAR/k b is the same, except that a has to come before b. With an X in front (XNEAR/k or XONEAR/k) the words
+ * can also be in neighboring verses, and the verses of both match. Only single words can be NEAR each other.</li>
+ * <li>Parentheses group things. Otherwise NEAR goes first, then NOT, then AND, then OR.</li>
+ * </ul>
+ * AND, OR, NOT, and NEAR have to be in capitals. In lowercase they are just words, since "and" and "not" are words people
+ * search for.
+ *
+ * @author Trevor Palmatier
+ */
+public final class QueryParser {
+	private static final Pattern	NEAR	= Pattern.compile("(X?)(O?)NEAR/(\\d{1,9})");
+
+	private final ArrayList<String>	tokens;
+	private int						next;
+
+	private QueryParser(ArrayList<String> tokens) {
+		this.tokens = tokens;
+	}
+
+	/**
+	 * @param query a search.
+	 * @return the search, parsed.
+	 * @throws IllegalArgumentException if the search is empty, has a quote or parenthesis that isn't closed, or has
+	 *             an operator without something on each side of it.
+	 */
+	public static Query parse(String query) {
+		if (query == null) {
+			throw new IllegalArgumentException("There is nothing to search for.");
+		}
+		QueryParser parser = new QueryParser(tokenize(query));
+		if (parser.tokens.isEmpty()) {
+			throw new IllegalArgumentException("There is nothing to search for.");
+		}
+		Query result = parser.parseOr();
+		if (parser.next < parser.tokens.size()) {
+			throw new IllegalArgumentException("Unexpected " + parser.tokens.get(parser.next) + ".");
+		}
+		return result;
+	}
+
+	/*
+	 * Split the query into parentheses, operators, phrases (which start with a quote), and cleaned up words. Words and
+	 * phrases that have nothing left once they are cleaned up are left out.
+	 */
+	private static ArrayList<String> tokenize(String query) {
+		ArrayList<String> tokens = new ArrayList<String>();
+		int i = 0;
+		while (i < query.length()) {
+			char c = query.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '(' || c == ')') {
+				tokens.add(String.valueOf(c));
+				i++;
+			} else if (c == '"') {
+				int end = query.indexOf('"', i + 1);
+				if (end < 0) {
+					throw new IllegalArgumentException("A quote isn't closed.");
+				}
+				String phrase = cleanPhrase(query.substring(i + 1, end));
+				if (!phrase.isEmpty()) {
+					tokens.add('"' + phrase);
+				}
+				i = end + 1;
+			} else {
+				int start = i;
+				while (i < query.length() && !Character.isWhitespace(query.charAt(i))
+						&& "()\"".indexOf(query.charAt(i)) < 0) {
+					i++;
+				}
+				String word = query.substring(start, i);
+				if (!isOperator(word)) {
+					word = cleanWord(word);
+				}
+				if (!word.isEmpty()) {
+					tokens.add(word);
+				}
+			}
+		}
+		return tokens;
+	}
+
+	// Used by BibleReaderModel too, to leave operators alone when it suggests a search.
+	static boolean isOperator(String token) {
+		return token.equals("AND") || token.equals("OR") || token.equals("NOT") || NEAR.matcher(token).matches();
+	}
+
+	private static String cleanWord(String word) {
+		return word.toLowerCase().replaceAll("('s|\u2019s|'|\u2019|,|;|\\?(?!\\w)|!|:|\\.)", "");
+	}
+
+	// Lowercase the phrase, take the punctuation off of its ends, and put one space between its words.
+	private static String cleanPhrase(String phrase) {
+		String clean = phrase.toLowerCase().replaceAll("^[^\\p{L}\\p{N}_]+|[^\\p{L}\\p{N}_]+$", "");
+		clean = clean.replaceAll("\\s+", " ");
+		if (!clean.isEmpty() && !Concordance.isIndexablePhrase(clean)) {
+			throw new IllegalArgumentException("The phrase \"" + phrase + "\" can only have spaces between its words.");
+		}
+		return clean;
+	}
+
+	// or := and ("OR" and)*
+	private Query parseOr() {
+		ArrayList<Query> parts = new ArrayList<Query>();
+		parts.add(parseAnd());
+		while (peekIs("OR")) {
+			next++;
+			parts.add(parseAnd());
+		}
+		return parts.size() == 1 ? parts.get(0) : new Query.Or(parts.toArray(new Query[parts.size()]));
+	}
+
+	// and := unary (["AND"] unary)*
+	private Query parseAnd() {
+		ArrayList<Query> parts = new ArrayList<Query>();
+		parts.add(parseUnary());
+		while (next < tokens.size() && !peekIs("OR") && !peekIs(")")) {
+			if (peekIs("AND")) {
+				next++;
+			}
+			parts.add(parseUnary());
+		}
+		return parts.size() == 1 ? parts.get(0) : new Query.And(parts.toArray(new Query[parts.size()]));
+	}
+
+	// unary := "NOT" unary | "(" or ")" | phrase | word [NEAR word]
+	private Query parseUnary() {
+		if (next >= tokens.size()) {
+			throw new IllegalArgumentException("The search ends with " + tokens.get(tokens.size() - 1) + ".");
+		}
+		String token = tokens.get(next++);
+		if (token.equals("NOT")) {
+			return new Query.Not(parseUnary());
+		}
+		if (token.equals("(")) {
+			Query inside = parseOr();
+			if (!peekIs(")")) {
+				throw new IllegalArgumentException("A parenthesis isn't closed.");
+			}
+			next++;
+			return inside;
+		}
+		if (token.equals(")") || isOperator(token)) {
+			throw new IllegalArgumentException("Unexpected " + token + ".");
+		}
+		if (token.charAt(0) == '"') {
+			String phrase = token.substring(1);
+			return phrase.indexOf(' ') < 0 ? new Query.Term(phrase) : new Query.Phrase(phrase);
+		}
+		if (next < tokens.size()) {
+			Matcher near = NEAR.matcher(tokens.get(next));
+			if (near.matches()) {
+				next++;
+				return parseNear(token, near);
+			}
+		}
+		return new Query.Term(token);
+	}
+
+	private Query parseNear(String word1, Matcher near) {
+		String word2 = next < tokens.size() ? tokens.get(next++) : "";
+		if (word2.isEmpty() || word2.charAt(0) == '"' || word2.equals("(") || word2.equals(")") || isOperator(word2)
+				|| TermDictionary.isWildcard(word1) || TermDictionary.isWildcard(word2)) {
+			throw new IllegalArgumentException(near.group() + " has to be between two words.");
+		}
+		int distance = Integer.parseInt(near.group(3));
+		if (distance < 1 || distance > Concordance.MAX_NEAR_DISTANCE) {
+			throw new IllegalArgumentException(
+					"The distance for " + near.group() + " has to be from 1 to " + Concordance.MAX_NEAR_DISTANCE + ".");
+		}
+		return new Query.Near(word1, word2, distance, !near.group(2).isEmpty(), !near.group(1).isEmpty());
+	}
+
+	private boolean peekIs(String token) {
+		return next < tokens.size() && tokens.get(next).equals(token);
+	}
+}
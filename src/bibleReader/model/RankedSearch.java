@@ -0,0 +1,168 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+
+/**
+ * Ranked searches of a Concordance: finds the k verses that best match some words, scored with BM25, keeping only the
+ * best k in a TopK as the verses are found. The postings and verse lengths are read through the concordance's public
+ * methods.
+ *
+ * If every word is required, only the verses that contain all of them are scored. They are found by intersecting the
+ * postings the same way Concordance.getOrdinalsContainingAll does, and the search stops early once even a verse with
+ * the best possible score for every word couldn't make it into the top k.
+ *
+ * Otherwise a verse only has to contain one of the words, and the search uses MaxScore to skip verses that can't make
+ * it: the words are ordered by the most they can add to a score, and once the top k are full, the words whose best
+ * possible scores added together can't beat the worst of them are only looked up (with skipTo) in the verses that the
+ * other words find, instead of being read through.
+ *
+ * @author Trevor Palmatier
+ */
+final class RankedSearch {
+	private RankedSearch() {
+	}
+
+	/**
+	 * @param concordance the concordance to search.
+	 * @param words       the words (ignoring case). Words that aren't in the concordance add nothing to a score.
+	 * @param k           the most verses to return.
+	 * @param requireAll  whether a verse has to contain all of the words.
+	 * @return the best k verses and their scores.
+	 */
+	static TopK getTopOrdinals(Concordance concordance, Collection<String> words, int k, boolean requireAll) {
+		TopK top = new TopK(k);
+		HashSet<String> wordsClean = new HashSet<String>();
+		for (String word : words) {
+			wordsClean.add(word.toLowerCase());
+		}
+		int verses = concordance.getNumberOfVerses();
+		double minLengthRatio = concordance.getMinVerseLength() / concordance.getAverageVerseLength();
+		ArrayList<ScoredTerm> found = new ArrayList<ScoredTerm>();
+		for (String word : wordsClean) {
+			PostingsList postings = concordance.getPostings(word);
+			if (postings != null) {
+				found.add(new ScoredTerm(postings, verses, minLengthRatio));
+			} else if (requireAll) {
+				return top;
+			}
+		}
+		if (k == 0 || found.isEmpty()) {
+			return top;
+		}
+		ScoredTerm[] terms = found.toArray(new ScoredTerm[found.size()]);
+		if (requireAll) {
+			collectAll(concordance, terms, top);
+		} else {
+			collectAny(concordance, terms, top);
+		}
+		return top;
+	}
+
+	/*
+	 * The postings of one word of a ranked search, along with its idf and the most it can add to the score of a verse.
+	 */
+	private static final class ScoredTerm {
+		final PostingsList			postings;
+		final PostingsList.Cursor	cursor;
+		final double				idf;
+		final double				maxScore;
+
+		ScoredTerm(PostingsList postings, int verses, double minLengthRatio) {
+			this.postings = postings;
+			cursor = postings.iterator();
+			idf = BM25.idf(verses, postings.size());
+			maxScore = BM25.score(idf, postings.getMaxFrequency(), minLengthRatio);
+		}
+
+		// The score for the verse the cursor is at.
+		double score(double lengthRatio) {
+			return BM25.score(idf, cursor.frequency(), lengthRatio);
+		}
+	}
+
+	private static void collectAll(Concordance concordance, ScoredTerm[] terms, TopK top) {
+		Arrays.sort(terms, new Comparator<ScoredTerm>() {
+			@Override
+			public int compare(ScoredTerm o1, ScoredTerm o2) {
+				return o1.postings.size() - o2.postings.size();
+			}
+		});
+		double average = concordance.getAverageVerseLength();
+		double bound = 0;
+		for (ScoredTerm term : terms) {
+			bound += term.maxScore;
+		}
+		int candidate = terms[0].cursor.next();
+		while (candidate != PostingsIterator.NO_MORE_ORDINALS && bound > top.threshold()) {
+			int i = 1;
+			while (i < terms.length && terms[i].cursor.skipTo(candidate) == candidate) {
+				i++;
+			}
+			if (i == terms.length) {
+				double lengthRatio = concordance.getVerseLength(candidate) / average;
+				double score = 0;
+				for (ScoredTerm term : terms) {
+					score += term.score(lengthRatio);
+				}
+				top.offer(candidate, score);
+				candidate = terms[0].cursor.next();
+			} else {
+				candidate = terms[0].cursor.skipTo(terms[i].cursor.ordinal());
+			}
+		}
+	}
+
+	private static void collectAny(Concordance concordance, ScoredTerm[] terms, TopK top) {
+		Arrays.sort(terms, new Comparator<ScoredTerm>() {
+			@Override
+			public int compare(ScoredTerm o1, ScoredTerm o2) {
+				return Double.compare(o1.maxScore, o2.maxScore);
+			}
+		});
+		double average = concordance.getAverageVerseLength();
+		// upTo[i] is the most that terms 0 to i can add to a score together.
+		double[] upTo = new double[terms.length];
+		double sum = 0;
+		for (int i = 0; i < terms.length; i++) {
+			sum += terms[i].maxScore;
+			upTo[i] = sum;
+			terms[i].cursor.next();
+		}
+		// Only verses that one of the terms from essential on contains can make it into the top k.
+		int essential = 0;
+		while (true) {
+			while (essential < terms.length && upTo[essential] <= top.threshold()) {
+				essential++;
+			}
+			if (essential == terms.length) {
+				return;
+			}
+			int candidate = PostingsIterator.NO_MORE_ORDINALS;
+			for (int i = essential; i < terms.length; i++) {
+				candidate = Math.min(candidate, terms[i].cursor.ordinal());
+			}
+			if (candidate == PostingsIterator.NO_MORE_ORDINALS) {
+				return;
+			}
+			double lengthRatio = concordance.getVerseLength(candidate) / average;
+			double score = 0;
+			for (int i = essential; i < terms.length; i++) {
+				if (terms[i].cursor.ordinal() == candidate) {
+					score += terms[i].score(lengthRatio);
+					terms[i].cursor.next();
+				}
+			}
+			// Add in the other terms, the ones that can add the most first, until the rest can't make a difference.
+			for (int i = essential - 1; i >= 0 && score + upTo[i] > top.threshold(); i--) {
+				if (terms[i].cursor.skipTo(candidate) == candidate) {
+					score += terms[i].score(lengthRatio);
+				}
+			}
+			top.offer(candidate, score);
+		}
+	}
+}
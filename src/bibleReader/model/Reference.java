@@ -6,9 +6,53 @@ package bibleReader.model;
  * @author Charles Cusack, implemented February 2, 2013.
  */
 public class Reference implements Comparable<Reference> {
-	private BookOfBible	book;
-	private int			chapter;
-	private int			verse;
+	/*
+	 * A Reference can also be packed into a single int, which we call its ordinal. The book's position in BookOfBible
+	 * takes the high bits and the chapter and verse take 8 bits each, so comparing two ordinals as ints gives the same
+	 * answer as compareTo. No book has more than 150 chapters and no chapter has more than 176 verses, so 8 bits is
+	 * plenty.
+	 */
+	private static final int	FIELD_BITS		= 8;
+	private static final int	FIELD_MASK		= (1 << FIELD_BITS) - 1;
+
+	/**
+	 * The value returned by the ordinal methods when a reference cannot be packed (e.g. the book is null or the chapter
+	 * or verse is out of range).
+	 */
+	public static final int		INVALID_ORDINAL	= -1;
+
+	/**
+	 * The largest chapter or verse number that can be packed into an ordinal.
+	 */
+	public static final int		MAX_FIELD		= FIELD_MASK;
+
+	/**
+	 * The number of ordinals each chapter has room for, one per verse number from 0 to MAX_FIELD. The ordinals of a
+	 * chapter are toOrdinal(book, chapter, 0) up to toOrdinal(book, chapter, 0) + CHAPTER_SPAN - 1.
+	 */
+	public static final int		CHAPTER_SPAN	= 1 << FIELD_BITS;
+
+	/**
+	 * The number of ordinals each book has room for. The ordinals of a book are toOrdinal(book, 0, 0) up to
+	 * toOrdinal(book, 0, 0) + BOOK_SPAN - 1.
+	 */
+	public static final int		BOOK_SPAN		= 1 << (2 * FIELD_BITS);
+
+	// values() makes a new array each time, so keep one around for decoding ordinals.
+	private static final BookOfBible[]	BOOKS	= BookOfBible.values();
+
+	/*
+	 * The canonical References, indexed by ordinal. The outer array has one slot per book and chapter
+	 * (ordinal >>> FIELD_BITS), and each row holds the verses of that chapter. Rows are created, and grown, the first
+	 * time one of their verses is asked for. Since every Bible we load asks for all of its references, in practice
+	 * this ends up holding one Reference per verse of the Bible, shared by every version and every search result.
+	 */
+	private static final Reference[][]	CANONICAL	= new Reference[BOOKS.length << FIELD_BITS][];
+
+	// Fields are final so canonical instances can be shared between threads without locking.
+	private final BookOfBible	book;
+	private final int			chapter;
+	private final int			verse;
 
 	/**
 	 * @param book
@@ -21,6 +65,63 @@ public class Reference implements Comparable<Reference> {
 		this.verse = verse;
 	}
 
+	/**
+	 * Return the canonical Reference for the given book, chapter, and verse. Calling this twice with the same
+	 * arguments returns the same object, so there is no need to allocate a new Reference for every lookup or search
+	 * result. If the arguments cannot be packed into an ordinal, a new Reference is returned instead.
+	 * 
+	 * @param book The book of the Bible
+	 * @param chapter The chapter number
+	 * @param verse The verse number
+	 * @return the canonical Reference for "book chapter:verse".
+	 */
+	public static Reference of(BookOfBible book, int chapter, int verse) {
+		int ordinal = toOrdinal(book, chapter, verse);
+		if (ordinal == INVALID_ORDINAL) {
+			return new Reference(book, chapter, verse);
+		}
+		return ofOrdinal(ordinal);
+	}
+
+	/*
+	 * Look up the canonical Reference for a valid ordinal. The common case (it already exists) reads the table
+	 * without locking. A reader that races with intern() might see an old row or an empty slot, in which case it
+	 * falls through to intern() which checks again under the lock.
+	 */
+	private static Reference ofOrdinal(int ordinal) {
+		Reference[] row = CANONICAL[ordinal >>> FIELD_BITS];
+		int verseIndex = ordinal & FIELD_MASK;
+		if (row != null && verseIndex < row.length) {
+			Reference ref = row[verseIndex];
+			if (ref != null) {
+				return ref;
+			}
+		}
+		return intern(ordinal);
+	}
+
+	private static synchronized Reference intern(int ordinal) {
+		int rowIndex = ordinal >>> FIELD_BITS;
+		int verseIndex = ordinal & FIELD_MASK;
+		Reference[] row = CANONICAL[rowIndex];
+		if (row == null || verseIndex >= row.length) {
+			// Grow to the next power of two so a chapter is only copied a few times as it fills up.
+			int length = Math.max(Integer.highestOneBit(verseIndex) << 1, 32);
+			Reference[] newRow = new Reference[Math.min(length, FIELD_MASK + 1)];
+			if (row != null) {
+				System.arraycopy(row, 0, newRow, 0, row.length);
+			}
+			row = newRow;
+			CANONICAL[rowIndex] = row;
+		}
+		Reference ref = row[verseIndex];
+		if (ref == null) {
+			ref = new Reference(bookOf(ordinal), chapterOf(ordinal), verseOf(ordinal));
+			row[verseIndex] = ref;
+		}
+		return ref;
+	}
+
 	public String getBook() {
 		return book.toString();
 	}
@@ -37,6 +138,98 @@ public class Reference implements Comparable<Reference> {
 		return verse;
 	}
 
+	/**
+	 * @return the packed ordinal of this reference, or INVALID_ORDINAL if it cannot be packed.
+	 */
+	public int getOrdinal() {
+		return toOrdinal(book, chapter, verse);
+	}
+
+	/**
+	 * Pack a book, chapter, and verse into a single int. Ordinals sort in the same order as the references they came
+	 * from.
+	 * 
+	 * @param book The book of the Bible
+	 * @param chapter The chapter number
+	 * @param verse The verse number
+	 * @return the ordinal, or INVALID_ORDINAL if the book is null or the chapter or verse do not fit.
+	 */
+	public static int toOrdinal(BookOfBible book, int chapter, int verse) {
+		if (book == null || chapter < 0 || chapter > FIELD_MASK || verse < 0 || verse > FIELD_MASK) {
+			return INVALID_ORDINAL;
+		}
+		return (book.ordinal() << (2 * FIELD_BITS)) | (chapter << FIELD_BITS) | verse;
+	}
+
+	/**
+	 * @param ordinal an ordinal created by toOrdinal or getOrdinal.
+	 * @return the canonical Reference the ordinal was packed from, or null if it is not a valid ordinal.
+	 */
+	public static Reference fromOrdinal(int ordinal) {
+		if (bookOf(ordinal) == null) {
+			return null;
+		}
+		return ofOrdinal(ordinal);
+	}
+
+	/**
+	 * @param ordinal a packed ordinal.
+	 * @return the book of the ordinal, or null if it is not a valid ordinal.
+	 */
+	public static BookOfBible bookOf(int ordinal) {
+		if (ordinal < 0) {
+			return null;
+		}
+		int bookIndex = bookIndexOf(ordinal);
+		if (bookIndex >= BOOKS.length) {
+			return null;
+		}
+		return BOOKS[bookIndex];
+	}
+
+	/**
+	 * @param ordinal a packed ordinal.
+	 * @return the position in BookOfBible.values() of the book of the ordinal. Unlike bookOf, this doesn't check that
+	 *         there is such a book, so it can be used for ordinals just past the last book.
+	 */
+	public static int bookIndexOf(int ordinal) {
+		return ordinal >>> (2 * FIELD_BITS);
+	}
+
+	/**
+	 * @param ordinal a packed ordinal.
+	 * @return the book and chapter of the ordinal as one number. Two ordinals are in the same chapter exactly when
+	 *         these are equal, and they sort the same way the ordinals do.
+	 */
+	public static int chapterKeyOf(int ordinal) {
+		return ordinal >>> FIELD_BITS;
+	}
+
+	/**
+	 * @param chapterKey the book and chapter, as returned by chapterKeyOf.
+	 * @param verse the verse number, from 0 to MAX_FIELD.
+	 * @return the ordinal of that verse of the chapter.
+	 */
+	public static int ordinalOf(int chapterKey, int verse) {
+		return (chapterKey << FIELD_BITS) | verse;
+	}
+
+	/**
+	 * @param ordinal a packed ordinal.
+	 * @return the chapter number of the ordinal.
+	 */
+	public static int chapterOf(int ordinal) {
+		return (ordinal >>> FIELD_BITS) & FIELD_MASK;
+	}
+
+	/**
+	 * @param ordinal a packed ordinal.
+	 * @return the verse number of the ordinal.
+	 */
+	public static int verseOf(int ordinal) {
+		return ordinal & FIELD_MASK;
+	}
+
 	/*
 	 * This method should return the reference in the usual form (e.g. "Genesis 2:3").
 	 */
@@ -47,6 +240,9 @@ public class Reference implements Comparable<Reference> {
 
 	@Override
 	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
 		if (other instanceof Reference) {
 			Reference ref = (Reference) other;
 			return (book == ref.book && chapter == ref.chapter && verse == ref.verse);
@@ -54,9 +250,14 @@ public class Reference implements Comparable<Reference> {
 		return false;
 	}
 
+	/*
+	 * This is the ordinal (shifted so a null book still hashes differently from Genesis), so it is different for every
+	 * real reference and doesn't need to build the String from toString().
+	 */
 	@Override
 	public int hashCode() {
-		return toString().hashCode();
+		int bookHash = book == null ? 0 : book.ordinal() + 1;
+		return (bookHash << (2 * FIELD_BITS)) + (chapter << FIELD_BITS) + verse;
 	}
 	
 	@Override
@@ -0,0 +1,406 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An unchangeable set of reference ordinals (see Reference.getOrdinal()) stored as a bitmap. The ordinals are split
+ * into chunks of 256, one per chapter (the book and chapter are the high bits of an ordinal, and the verse is the low
+ * eight), and only chapters that have at least one verse in the set are stored. Each chapter is four longs, one bit
+ * per verse number.
+ *
+ * So a whole Bible is about 1,200 chapters of 32 bytes, and union, intersection, and difference are a loop over the
+ * chapters doing four ORs, ANDs, or AND NOTs each, instead of comparing references one at a time. Putting the results
+ * from several versions together is then a few thousand word operations no matter how many verses there are.
+ *
+ * @author Trevor Palmatier
+ */
+public final class ReferenceSet {
+	private static final int			WORDS_PER_CHUNK	= Reference.CHAPTER_SPAN / 64;
+	private static final int[]			NO_KEYS			= new int[0];
+	private static final long[]			NO_WORDS		= new long[0];
+
+	/**
+	 * The set with nothing in it.
+	 */
+	public static final ReferenceSet	EMPTY			= new ReferenceSet(NO_KEYS, NO_WORDS, 0);
+
+	// keys[k] is the book and chapter (Reference.chapterKeyOf) of chunk k, in increasing order. The verses of chunk k are the
+	// bits of words[4 * k] (verses 0 to 63) up to words[4 * k + 3] (verses 192 to 255). No chunk is all zeros.
+	private final int[]					keys;
+	private final long[]				words;
+	private final int					size;
+
+	private ReferenceSet(int[] keys, long[] words, int chunks) {
+		this.keys = chunks == keys.length ? keys : Arrays.copyOf(keys, chunks);
+		this.words = chunks * WORDS_PER_CHUNK == words.length ? words : Arrays.copyOf(words, chunks * WORDS_PER_CHUNK);
+		int count = 0;
+		for (long word : this.words) {
+			count += Long.bitCount(word);
+		}
+		size = count;
+	}
+
+	/**
+	 * @param ordinals the ordinals to put in the set. They don't need to be sorted, and repeats are only counted once.
+	 * @return a set with the given ordinals.
+	 * @throws IllegalArgumentException if one of the ordinals is negative (e.g. INVALID_ORDINAL).
+	 */
+	public static ReferenceSet of(IntReferenceList ordinals) {
+		return of(ordinals.toArray(), ordinals.size());
+	}
+
+	/**
+	 * @param references the references to put in the set. References that can't be packed into an ordinal are left
+	 *            out.
+	 * @return a set with the ordinals of the given references.
+	 */
+	public static ReferenceSet of(Collection<Reference> references) {
+		int[] ordinals = new int[references.size()];
+		int count = 0;
+		for (Reference ref : references) {
+			int ordinal = ref.getOrdinal();
+			if (ordinal != Reference.INVALID_ORDINAL) {
+				ordinals[count++] = ordinal;
+			}
+		}
+		return of(ordinals, count);
+	}
+
+	/*
+	 * Build a set from the first length entries of ordinals. The array is only read (and not kept) if they are in
+	 * order, which is the usual case, and is sorted in place if they aren't.
+	 */
+	static ReferenceSet of(int[] ordinals, int length) {
+		for (int i = 1; i < length; i++) {
+			if (ordinals[i] < ordinals[i - 1]) {
+				Arrays.sort(ordinals, 0, length);
+				break;
+			}
+		}
+		if (length > 0 && ordinals[0] < 0) {
+			throw new IllegalArgumentException("Not a valid ordinal: " + ordinals[0]);
+		}
+		int chunks = 0;
+		for (int i = 0; i < length; i++) {
+			if (i == 0 || Reference.chapterKeyOf(ordinals[i]) != Reference.chapterKeyOf(ordinals[i - 1])) {
+				chunks++;
+			}
+		}
+		int[] keys = new int[chunks];
+		long[] words = new long[chunks * WORDS_PER_CHUNK];
+		int k = -1;
+		for (int i = 0; i < length; i++) {
+			int key = Reference.chapterKeyOf(ordinals[i]);
+			if (k < 0 || keys[k] != key) {
+				keys[++k] = key;
+			}
+			int verse = Reference.verseOf(ordinals[i]);
+			words[k * WORDS_PER_CHUNK + (verse >>> 6)] |= 1L << verse;
+		}
+		return new ReferenceSet(keys, words, chunks);
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Set operations.
+
+	/**
+	 * @param first a set.
+	 * @param second another set.
+	 * @return the ordinals that are in either set.
+	 */
+	public static ReferenceSet union(ReferenceSet first, ReferenceSet second) {
+		if (first.keys.length == 0) {
+			return second;
+		}
+		if (second.keys.length == 0) {
+			return first;
+		}
+		int[] keys = new int[first.keys.length + second.keys.length];
+		long[] words = new long[keys.length * WORDS_PER_CHUNK];
+		int i = 0;
+		int j = 0;
+		int k = 0;
+		while (i < first.keys.length || j < second.keys.length) {
+			int a = i < first.keys.length ? first.keys[i] : Integer.MAX_VALUE;
+			int b = j < second.keys.length ? second.keys[j] : Integer.MAX_VALUE;
+			keys[k] = Math.min(a, b);
+			for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+				long word = 0;
+				if (a <= b) {
+					word |= first.words[i * WORDS_PER_CHUNK + w];
+				}
+				if (b <= a) {
+					word |= second.words[j * WORDS_PER_CHUNK + w];
+				}
+				words[k * WORDS_PER_CHUNK + w] = word;
+			}
+			if (a <= b) {
+				i++;
+			}
+			if (b <= a) {
+				j++;
+			}
+			k++;
+		}
+		return new ReferenceSet(keys, words, k);
+	}
+
+	/**
+	 * @param first a set.
+	 * @param second another set.
+	 * @return the ordinals that are in both sets.
+	 */
+	public static ReferenceSet intersection(ReferenceSet first, ReferenceSet second) {
+		return combine(first, second, false);
+	}
+
+	/**
+	 * @param first a set.
+	 * @param second another set.
+	 * @return the ordinals that are in first but not in second.
+	 */
+	public static ReferenceSet difference(ReferenceSet first, ReferenceSet second) {
+		if (first.keys.length == 0 || second.keys.length == 0) {
+			return first;
+		}
+		return combine(first, second, true);
+	}
+
+	/*
+	 * Go through the chunks of first, and either AND or AND NOT each one with the same chunk of second. A chunk of
+	 * first that second doesn't have is dropped when ANDing and kept when ANDing NOT.
+	 */
+	private static ReferenceSet combine(ReferenceSet first, ReferenceSet second, boolean not) {
+		int[] keys = new int[first.keys.length];
+		long[] words = new long[keys.length * WORDS_PER_CHUNK];
+		int k = 0;
+		int j = 0;
+		for (int i = 0; i < first.keys.length; i++) {
+			while (j < second.keys.length && second.keys[j] < first.keys[i]) {
+				j++;
+			}
+			boolean shared = j < second.keys.length && second.keys[j] == first.keys[i];
+			if (!shared && !not) {
+				continue;
+			}
+			long any = 0;
+			for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+				long word = first.words[i * WORDS_PER_CHUNK + w];
+				if (shared) {
+					long other = second.words[j * WORDS_PER_CHUNK + w];
+					word &= not ? ~other : other;
+				}
+				words[k * WORDS_PER_CHUNK + w] = word;
+				any |= word;
+			}
+			if (any != 0) {
+				keys[k++] = first.keys[i];
+			}
+		}
+		return new ReferenceSet(keys, words, k);
+	}
+
+	/**
+	 * @param first the smallest ordinal to keep.
+	 * @param last the largest ordinal to keep.
+	 * @return the ordinals of this set that are between first and last, inclusive of both. It is empty if first is
+	 *         bigger than last.
+	 */
+	public ReferenceSet restrictTo(int first, int last) {
+		if (first > last || last < 0 || keys.length == 0) {
+			return EMPTY;
+		}
+		int firstKey = Reference.chapterKeyOf(Math.max(first, 0));
+		int lastKey = Reference.chapterKeyOf(last);
+		int from = Arrays.binarySearch(keys, firstKey);
+		from = from >= 0 ? from : -from - 1;
+		int to = Arrays.binarySearch(keys, lastKey);
+		to = to >= 0 ? to + 1 : -to - 1;
+		if (from >= to) {
+			return EMPTY;
+		}
+		int[] newKeys = Arrays.copyOfRange(keys, from, to);
+		long[] newWords = Arrays.copyOfRange(words, from * WORDS_PER_CHUNK, to * WORDS_PER_CHUNK);
+		int chunks = newKeys.length;
+		// Only the chunks at the ends can have verses outside of the range.
+		if (newKeys[chunks - 1] == lastKey) {
+			maskChunk(newWords, chunks - 1, 0, Reference.verseOf(last));
+		}
+		if (newKeys[0] == firstKey && first > 0) {
+			maskChunk(newWords, 0, Reference.verseOf(first), Reference.MAX_FIELD);
+		}
+		if (isZero(newWords, chunks - 1)) {
+			chunks--;
+		}
+		if (chunks > 0 && isZero(newWords, 0)) {
+			newKeys = Arrays.copyOfRange(newKeys, 1, chunks);
+			newWords = Arrays.copyOfRange(newWords, WORDS_PER_CHUNK, chunks * WORDS_PER_CHUNK);
+			chunks--;
+		}
+		return new ReferenceSet(newKeys, newWords, chunks);
+	}
+
+	// Clear the bits of the chunk that are not from low to high (inclusive).
+	private static void maskChunk(long[] words, int chunk, int low, int high) {
+		for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+			int wordLow = Math.max(low - 64 * w, 0);
+			int wordHigh = Math.min(high - 64 * w, 63);
+			long mask = wordLow > wordHigh ? 0 : (-1L << wordLow) & (-1L >>> (63 - wordHigh));
+			words[chunk * WORDS_PER_CHUNK + w] &= mask;
+		}
+	}
+
+	private static boolean isZero(long[] words, int chunk) {
+		long any = 0;
+		for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+			any |= words[chunk * WORDS_PER_CHUNK + w];
+		}
+		return any == 0;
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Looking at the set.
+
+	/**
+	 * @return the number of ordinals in the set.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the set has no ordinals.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param ordinal an ordinal.
+	 * @return true if the ordinal is in the set.
+	 */
+	public boolean contains(int ordinal) {
+		if (ordinal < 0) {
+			return false;
+		}
+		int k = Arrays.binarySearch(keys, Reference.chapterKeyOf(ordinal));
+		if (k < 0) {
+			return false;
+		}
+		int verse = Reference.verseOf(ordinal);
+		return (words[k * WORDS_PER_CHUNK + (verse >>> 6)] & (1L << verse)) != 0;
+	}
+
+	/**
+	 * @param ref a reference.
+	 * @return true if the ordinal of the reference is in the set.
+	 */
+	public boolean contains(Reference ref) {
+		return contains(ref.getOrdinal());
+	}
+
+	/**
+	 * @return an iterator over the ordinals of the set, in increasing order.
+	 */
+	public PostingsIterator iterator() {
+		return new BitIterator();
+	}
+
+	/**
+	 * @return the ordinals of the set, in increasing order.
+	 */
+	public IntReferenceList toIntReferenceList() {
+		IntReferenceList list = new IntReferenceList(size);
+		PostingsIterator iterator = iterator();
+		for (int ordinal = iterator.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = iterator.next()) {
+			list.add(ordinal);
+		}
+		return list;
+	}
+
+	/**
+	 * @return the references of the set, in order.
+	 */
+	public ArrayList<Reference> toReferences() {
+		return toIntReferenceList().toReferences();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof ReferenceSet) {
+			ReferenceSet set = (ReferenceSet) other;
+			return Arrays.equals(keys, set.keys) && Arrays.equals(words, set.words);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(keys) + Arrays.hashCode(words);
+	}
+
+	@Override
+	public String toString() {
+		return toIntReferenceList().toString();
+	}
+
+	/*
+	 * Walks through the set bits a word at a time, using numberOfTrailingZeros to find the next one.
+	 */
+	private final class BitIterator implements PostingsIterator {
+		private int	chunk	= 0;
+		// The verse number of the current ordinal within its chunk.
+		private int	verse	= -1;
+		private int	current	= -1;
+
+		@Override
+		public int ordinal() {
+			return current;
+		}
+
+		@Override
+		public int next() {
+			if (current == NO_MORE_ORDINALS) {
+				return current;
+			}
+			return advance(verse + 1);
+		}
+
+		@Override
+		public int skipTo(int target) {
+			if (current >= target) {
+				return current;
+			}
+			int k = Arrays.binarySearch(keys, chunk, keys.length, Reference.chapterKeyOf(target));
+			if (k >= 0) {
+				chunk = k;
+				return advance(Reference.verseOf(target));
+			}
+			chunk = -k - 1;
+			return advance(0);
+		}
+
+		// Move to the first set bit at or after verse from of the current chunk.
+		private int advance(int from) {
+			while (chunk < keys.length) {
+				for (int w = from >>> 6; w < WORDS_PER_CHUNK; w++) {
+					long word = words[chunk * WORDS_PER_CHUNK + w];
+					if (w == from >>> 6) {
+						word &= -1L << (from & 63);
+					}
+					if (word != 0) {
+						verse = 64 * w + Long.numberOfTrailingZeros(word);
+						current = Reference.ordinalOf(keys[chunk], verse);
+						return current;
+					}
+				}
+				chunk++;
+				from = 0;
+			}
+			current = NO_MORE_ORDINALS;
+			return current;
+		}
+	}
+}
@@ -0,0 +1,408 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A suffix array over the lowercased text of every verse of a Bible, for counting and finding every place a string
+ * occurs, not just the verses it occurs in. The texts are put one after another with a separator after each verse, and
+ * the suffix array is the start of every suffix of that, sorted. The places a string occurs are then one run of the
+ * suffix array, which is found with two binary searches, so a search takes O(m log n) time for a string of length m
+ * and n characters of text.
+ *
+ * The suffix array is built with SA-IS (induced sorting, Nong, Zhang, and Chan), which takes linear time, and the
+ * longest common prefix of each pair of neighboring suffixes with Kasai's algorithm, which does too.
+ *
+ * Case is ignored the same way it is for Bible.getReferencesContaining: the text of each verse and the string searched
+ * for are lowercased with toLowerCase(), so a verse has an occurrence exactly when getReferencesContaining would find
+ * it. Offsets are into the lowercased text of the verse, which is the same as the original text unless a character
+ * changes length when it is lowercased (like capital I with a dot). The separators can't be in a string that is
+ * searched for, so an occurrence never runs from one verse into the next.
+ *
+ * A SuffixArray can't be changed once it is made, so it can be shared between threads.
+ *
+ * @author Trevor Palmatier
+ */
+public final class SuffixArray {
+	// Characters are stored as their value plus one, so that the separator (0) is smaller than all of them.
+	private static final int	SEPARATOR	= 0;
+	private static final int	UPPER		= Character.MAX_VALUE + 1;
+
+	private final String		version;
+	private final int[]			text;
+	// The verses, and where each one starts in text.
+	private final Reference[]	references;
+	private final int[]			starts;
+	private final int[]			suffixes;
+	// lcp[r] is the length of the common prefix of suffixes[r] and suffixes[r + 1], not counting past a separator.
+	private final int[]			lcp;
+
+	/**
+	 * An occurrence of a string: the verse it is in and where in the verse it starts.
+	 */
+	public static final class Occurrence {
+		private final Reference	reference;
+		private final int		offset;
+
+		/**
+		 * @param reference the verse.
+		 * @param offset    the index of the first character in the lowercased text of the verse.
+		 */
+		public Occurrence(Reference reference, int offset) {
+			this.reference = reference;
+			this.offset = offset;
+		}
+
+		public Reference getReference() {
+			return reference;
+		}
+
+		public int getOffset() {
+			return offset;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (other instanceof Occurrence) {
+				Occurrence o = (Occurrence) other;
+				return reference.equals(o.reference) && offset == o.offset;
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * reference.hashCode() + offset;
+		}
+
+		@Override
+		public String toString() {
+			return reference + " at " + offset;
+		}
+	}
+
+	/**
+	 * Build the suffix array for the given Bible.
+	 *
+	 * @param bible the Bible.
+	 * @throws IllegalArgumentException if the text of the Bible (with a separator after each verse) is too long to
+	 *             index with int offsets.
+	 */
+	public SuffixArray(Bible bible) {
+		version = bible.getVersion();
+		VerseList verses = bible.getAllVerses();
+		references = new Reference[verses.size()];
+		starts = new int[verses.size()];
+		String[] lowered = new String[verses.size()];
+		long length = 0;
+		for (int v = 0; v < verses.size(); v++) {
+			Verse verse = verses.get(v);
+			references[v] = verse.getReference();
+			lowered[v] = verse.getText().toLowerCase();
+			starts[v] = (int) length;
+			length += lowered[v].length() + 1;
+			if (length > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("The text of " + version + " is too long for a suffix array.");
+			}
+		}
+		text = new int[(int) length];
+		for (int v = 0; v < lowered.length; v++) {
+			for (int i = 0; i < lowered[v].length(); i++) {
+				text[starts[v] + i] = lowered[v].charAt(i) + 1;
+			}
+			text[starts[v] + lowered[v].length()] = SEPARATOR;
+		}
+		suffixes = sais(text, UPPER);
+		lcp = kasai(text, suffixes);
+	}
+
+	/*
+	 * The suffix array of s, whose values are from 0 to upper, by induced sorting. The LMS (leftmost S-type)
+	 * substrings are sorted by inducing from their first characters, named, and, if any names repeat, the suffix
+	 * array of the names is found recursively. The LMS suffixes in that order then induce the whole suffix array.
+	 */
+	private static int[] sais(int[] s, int upper) {
+		int n = s.length;
+		if (n == 0) {
+			return new int[0];
+		}
+		if (n == 1) {
+			return new int[] { 0 };
+		}
+		if (n == 2) {
+			return s[0] < s[1] ? new int[] { 0, 1 } : new int[] { 1, 0 };
+		}
+		int[] sa = new int[n];
+		// S-type (smaller than the suffix after it) or L-type, for each suffix.
+		boolean[] sType = new boolean[n];
+		for (int i = n - 2; i >= 0; i--) {
+			sType[i] = s[i] == s[i + 1] ? sType[i + 1] : s[i] < s[i + 1];
+		}
+		// Where the L-type and S-type suffixes starting with each character go in sa.
+		int[] sumL = new int[upper + 1];
+		int[] sumS = new int[upper + 1];
+		for (int i = 0; i < n; i++) {
+			if (!sType[i]) {
+				sumS[s[i]]++;
+			} else {
+				sumL[s[i] + 1]++;
+			}
+		}
+		for (int i = 0; i <= upper; i++) {
+			sumS[i] += sumL[i];
+			if (i < upper) {
+				sumL[i + 1] += sumS[i];
+			}
+		}
+
+		int[] lmsMap = new int[n + 1];
+		Arrays.fill(lmsMap, -1);
+		int m = 0;
+		for (int i = 1; i < n; i++) {
+			if (!sType[i - 1] && sType[i]) {
+				lmsMap[i] = m++;
+			}
+		}
+		int[] lms = new int[m];
+		for (int i = 1, j = 0; i < n; i++) {
+			if (!sType[i - 1] && sType[i]) {
+				lms[j++] = i;
+			}
+		}
+		int[] buffer = new int[upper + 1];
+		induce(s, sa, sType, sumL, sumS, buffer, lms);
+
+		if (m > 0) {
+			int[] sortedLms = new int[m];
+			for (int i = 0, j = 0; i < n; i++) {
+				if (lmsMap[sa[i]] != -1) {
+					sortedLms[j++] = sa[i];
+				}
+			}
+			// Name the LMS substrings, giving equal ones the same name.
+			int[] reduced = new int[m];
+			int names = 0;
+			reduced[lmsMap[sortedLms[0]]] = 0;
+			for (int i = 1; i < m; i++) {
+				int l = sortedLms[i - 1];
+				int r = sortedLms[i];
+				int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+				int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+				boolean same = true;
+				if (endL - l != endR - r) {
+					same = false;
+				} else {
+					while (l < endL && s[l] == s[r]) {
+						l++;
+						r++;
+					}
+					if (l == n || s[l] != s[r]) {
+						same = false;
+					}
+				}
+				if (!same) {
+					names++;
+				}
+				reduced[lmsMap[sortedLms[i]]] = names;
+			}
+			int[] reducedSa = sais(reduced, names);
+			for (int i = 0; i < m; i++) {
+				sortedLms[i] = lms[reducedSa[i]];
+			}
+			induce(s, sa, sType, sumL, sumS, buffer, sortedLms);
+		}
+		return sa;
+	}
+
+	// Put the LMS suffixes at the ends of their buckets, in the given order, and induce the L-type and then the S-type
+	// suffixes from them.
+	private static void induce(int[] s, int[] sa, boolean[] sType, int[] sumL, int[] sumS, int[] buffer, int[] lms) {
+		int n = s.length;
+		Arrays.fill(sa, -1);
+		System.arraycopy(sumS, 0, buffer, 0, sumS.length);
+		for (int d : lms) {
+			if (d != n) {
+				sa[buffer[s[d]]++] = d;
+			}
+		}
+		System.arraycopy(sumL, 0, buffer, 0, sumL.length);
+		sa[buffer[s[n - 1]]++] = n - 1;
+		for (int i = 0; i < n; i++) {
+			int v = sa[i];
+			if (v >= 1 && !sType[v - 1]) {
+				sa[buffer[s[v - 1]]++] = v - 1;
+			}
+		}
+		System.arraycopy(sumL, 0, buffer, 0, sumL.length);
+		for (int i = n - 1; i >= 0; i--) {
+			int v = sa[i];
+			if (v >= 1 && sType[v - 1]) {
+				sa[--buffer[s[v - 1] + 1]] = v - 1;
+			}
+		}
+	}
+
+	/*
+	 * Kasai's algorithm: going through the suffixes in text order, the common prefix with the suffix before it in sa
+	 * is at most one shorter than the last one, so the comparisons only ever move forward. The common prefix can run
+	 * past a separator (they are all equal), so what is stored stops at the end of the verse.
+	 */
+	private static int[] kasai(int[] s, int[] sa) {
+		int n = s.length;
+		int[] lcp = new int[Math.max(0, n - 1)];
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++) {
+			rank[sa[i]] = i;
+		}
+		int h = 0;
+		int separator = -1;
+		for (int i = 0; i < n; i++) {
+			if (separator < i) {
+				separator = i;
+				while (s[separator] != SEPARATOR) {
+					separator++;
+				}
+			}
+			if (h > 0) {
+				h--;
+			}
+			if (rank[i] == 0) {
+				continue;
+			}
+			int j = sa[rank[i] - 1];
+			while (j + h < n && i + h < n && s[j + h] == s[i + h]) {
+				h++;
+			}
+			lcp[rank[i] - 1] = Math.min(h, separator - i);
+		}
+		return lcp;
+	}
+
+	/**
+	 * @return the version of the Bible this is for.
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the number of suffixes, which is the number of characters of text plus one separator for each verse.
+	 */
+	public int size() {
+		return suffixes.length;
+	}
+
+	/**
+	 * @param rank the place of a suffix in sorted order, from 0 to size() - 2.
+	 * @return the number of characters the suffix and the one after it in sorted order start with in common, not
+	 *         counting past the end of a verse.
+	 */
+	public int getLongestCommonPrefix(int rank) {
+		return lcp[rank];
+	}
+
+	/**
+	 * @return the longest string that occurs more than once in the lowercased text (in one verse or in two), or ""
+	 *         if no character does.
+	 */
+	public String getLongestRepeat() {
+		int best = 0;
+		for (int r = 1; r < lcp.length; r++) {
+			if (lcp[r] > lcp[best]) {
+				best = r;
+			}
+		}
+		return lcp.length == 0 ? "" : textAt(suffixes[best], lcp[best]);
+	}
+
+	private String textAt(int start, int length) {
+		StringBuilder result = new StringBuilder(length);
+		for (int i = start; i < start + length; i++) {
+			result.append((char) (text[i] - 1));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @param substring a string.
+	 * @return the number of times it occurs in the text, ignoring case. Occurrences can overlap, so "aa" occurs twice
+	 *         in "aaa". It is 0 if the string is null or empty.
+	 */
+	public int count(String substring) {
+		int[] pattern = pattern(substring);
+		if (pattern == null) {
+			return 0;
+		}
+		return bound(pattern, false) - bound(pattern, true);
+	}
+
+	/**
+	 * @param substring a string.
+	 * @return everywhere it occurs in the text, ignoring case, in order by verse and then offset. It is empty if the
+	 *         string is null or empty.
+	 */
+	public ArrayList<Occurrence> occurrences(String substring) {
+		ArrayList<Occurrence> results = new ArrayList<Occurrence>();
+		int[] pattern = pattern(substring);
+		if (pattern == null) {
+			return results;
+		}
+		int first = bound(pattern, true);
+		int[] positions = Arrays.copyOfRange(suffixes, first, bound(pattern, false));
+		Arrays.sort(positions);
+		int verse = 0;
+		for (int position : positions) {
+			// The positions are sorted, so the verse only has to be searched for after the one before.
+			if (verse + 1 < starts.length && starts[verse + 1] <= position) {
+				int found = Arrays.binarySearch(starts, verse + 1, starts.length, position);
+				verse = found >= 0 ? found : -found - 2;
+			}
+			results.add(new Occurrence(references[verse], position - starts[verse]));
+		}
+		return results;
+	}
+
+	// The lowercased string as values in the text, or null if there is nothing to search for.
+	private static int[] pattern(String substring) {
+		if (substring == null || substring.isEmpty()) {
+			return null;
+		}
+		String lowered = substring.toLowerCase();
+		int[] pattern = new int[lowered.length()];
+		for (int i = 0; i < pattern.length; i++) {
+			pattern[i] = lowered.charAt(i) + 1;
+		}
+		return pattern;
+	}
+
+	// The rank of the first suffix that starts with the pattern or comes after it (if lower), or that comes after
+	// every suffix that starts with it (if not).
+	private int bound(int[] pattern, boolean lower) {
+		int low = 0;
+		int high = suffixes.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int compared = compare(suffixes[middle], pattern);
+			if (compared < 0 || (!lower && compared == 0)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Compare the suffix at start with the pattern, counting the suffix as equal if it starts with the pattern.
+	private int compare(int start, int[] pattern) {
+		for (int k = 0; k < pattern.length; k++) {
+			if (start + k == text.length) {
+				return -1;
+			}
+			int c = text[start + k];
+			if (c != pattern[k]) {
+				return c < pattern[k] ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+}
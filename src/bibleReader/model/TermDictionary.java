@@ -0,0 +1,452 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The words of a concordance in sorted order, so that every word starting with some prefix is one range of them. It is
+ * used to turn searches like "love*" and "bless?d" into the list of words they match without looking at every word.
+ *
+ * The words are front coded: they are stored in blocks of BLOCK_SIZE, the first word of each block in full, and each
+ * word after that as how many characters it shares with the word before it followed by the rest of it. Sorted words
+ * share a lot ("righteous", "righteously", "righteousness"), so this is much smaller than a String per word. Finding
+ * a word is a binary search over the first words of the blocks and then reading through at most one block.
+ *
+ * @author Trevor Palmatier
+ */
+public final class TermDictionary {
+	/**
+	 * How many words are in each block.
+	 */
+	public static final int				BLOCK_SIZE	= 16;
+
+	/**
+	 * The most edits getTermsWithin allows.
+	 */
+	public static final int				MAX_EDITS	= 2;
+
+	/**
+	 * The dictionary with no words.
+	 */
+	public static final TermDictionary	EMPTY		= of(new ArrayList<String>());
+
+	// The blocks, one after another. The first word of a block is its length and then its characters. Each word after
+	// that is the number of characters it shares with the word before it, the number it doesn't, and then those.
+	private final char[]				data;
+	// Where each block starts in data, and the first word of each block.
+	private final int[]					blockOffsets;
+	private final String[]				blockFirst;
+	private final int					size;
+	// Made the first time getTermsWithin is called.
+	private volatile Trie				trie;
+
+	private TermDictionary(char[] data, int[] blockOffsets, String[] blockFirst, int size) {
+		this.data = data;
+		this.blockOffsets = blockOffsets;
+		this.blockFirst = blockFirst;
+		this.size = size;
+	}
+
+	/**
+	 * @param terms the words. They don't have to be sorted, and repeats are only kept once. Words longer than 65535
+	 *            characters are not allowed.
+	 * @return a dictionary of the words.
+	 */
+	public static TermDictionary of(Collection<String> terms) {
+		String[] sorted = terms.toArray(new String[terms.size()]);
+		Arrays.sort(sorted);
+		int count = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (count == 0 || !sorted[count - 1].equals(sorted[i])) {
+				sorted[count++] = sorted[i];
+			}
+		}
+		int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int[] blockOffsets = new int[blocks];
+		String[] blockFirst = new String[blocks];
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			String term = sorted[i];
+			if (term.length() > Character.MAX_VALUE) {
+				throw new IllegalArgumentException("The word is too long: " + term.substring(0, 20) + "...");
+			}
+			if (i % BLOCK_SIZE == 0) {
+				blockOffsets[i / BLOCK_SIZE] = data.length();
+				blockFirst[i / BLOCK_SIZE] = term;
+				data.append((char) term.length()).append(term);
+			} else {
+				String previous = sorted[i - 1];
+				int shared = 0;
+				int limit = Math.min(previous.length(), term.length());
+				while (shared < limit && previous.charAt(shared) == term.charAt(shared)) {
+					shared++;
+				}
+				data.append((char) shared).append((char) (term.length() - shared)).append(term, shared, term.length());
+			}
+		}
+		char[] chars = new char[data.length()];
+		data.getChars(0, chars.length, chars, 0);
+		return new TermDictionary(chars, blockOffsets, blockFirst, count);
+	}
+
+	/**
+	 * @return the number of words.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index the index of a word, from 0 to size() - 1.
+	 * @return the word at that index.
+	 */
+	public String get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return readerAt(index).term();
+	}
+
+	// A reader at the word with the given index.
+	private Reader readerAt(int index) {
+		Reader reader = new Reader(index / BLOCK_SIZE);
+		for (int i = index % BLOCK_SIZE; i > 0; i--) {
+			reader.next();
+		}
+		return reader;
+	}
+
+	/**
+	 * @param term a word.
+	 * @return the index of the word, or (-(insertion point) - 1) if it isn't in the dictionary, the same as
+	 *         Arrays.binarySearch.
+	 */
+	public int indexOf(String term) {
+		int index = lowerBound(term);
+		if (index < size && get(index).equals(term)) {
+			return index;
+		}
+		return -index - 1;
+	}
+
+	/**
+	 * @param term a word.
+	 * @return the index of the first word that is at least term, or size() if there isn't one.
+	 */
+	public int lowerBound(String term) {
+		// The last block whose first word is less than term is the only one the answer can be in (or at the end of).
+		int block = Arrays.binarySearch(blockFirst, term);
+		if (block >= 0) {
+			return block * BLOCK_SIZE;
+		}
+		block = -block - 2;
+		if (block < 0) {
+			return 0;
+		}
+		Reader reader = new Reader(block);
+		int index = block * BLOCK_SIZE;
+		while (reader.compareTo(term) < 0) {
+			index++;
+			if (index == size || index % BLOCK_SIZE == 0) {
+				break;
+			}
+			reader.next();
+		}
+		return index;
+	}
+
+	/**
+	 * @param prefix the start of a word.
+	 * @return the words that start with the prefix, in order. Every word is returned if the prefix is empty.
+	 */
+	public ArrayList<String> getTermsWithPrefix(String prefix) {
+		return getTermsMatching(prefix + "*");
+	}
+
+	/**
+	 * Find the words that match a wildcard pattern. '*' matches any number of characters (including none) and '?'
+	 * matches exactly one. Every other character only matches itself, so the pattern should be lower case to match
+	 * the words of a Concordance.
+	 *
+	 * Only the range of words that start with the part of the pattern before the first wildcard is looked at, so a
+	 * pattern that starts with a wildcard has to check every word.
+	 *
+	 * @param pattern the pattern.
+	 * @return the words that match the pattern, in order.
+	 */
+	public ArrayList<String> getTermsMatching(String pattern) {
+		ArrayList<String> matches = new ArrayList<String>();
+		int literal = 0;
+		while (literal < pattern.length() && !isWildcardCharacter(pattern.charAt(literal))) {
+			literal++;
+		}
+		String prefix = pattern.substring(0, literal);
+		int index = lowerBound(prefix);
+		if (index == size) {
+			return matches;
+		}
+		Reader reader = readerAt(index);
+		while (true) {
+			String term = reader.term();
+			if (!term.startsWith(prefix)) {
+				break;
+			}
+			if (matches(pattern, literal, term, literal)) {
+				matches.add(term);
+			}
+			if (reader.index + 1 == size) {
+				break;
+			}
+			reader.next();
+		}
+		return matches;
+	}
+
+	/**
+	 * Find the words that are at most maxEdits edits away from term, where an edit is putting in, taking out, or
+	 * changing one character (the Levenshtein distance).
+	 *
+	 * The words are walked as a trie: the row of distances for a prefix is computed once and shared by every word that
+	 * starts with it, and as soon as every entry of the row for a prefix is more than maxEdits, no word starting with
+	 * that prefix can be close enough, so none of them are looked at. That is what a Levenshtein automaton does, and
+	 * most of the dictionary is skipped after two or three characters. The trie is made from the dictionary the first
+	 * time this is called.
+	 *
+	 * @param term the word to look for.
+	 * @param maxEdits the most edits allowed, from 0 to MAX_EDITS.
+	 * @return the words that are close enough, in order (including term itself if it is in the dictionary).
+	 * @throws IllegalArgumentException if maxEdits is negative or more than MAX_EDITS.
+	 */
+	public ArrayList<String> getTermsWithin(String term, int maxEdits) {
+		if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+			throw new IllegalArgumentException("The number of edits must be from 0 to " + MAX_EDITS + ": " + maxEdits);
+		}
+		Trie trie = this.trie;
+		if (trie == null) {
+			trie = new Trie();
+			this.trie = trie;
+		}
+		ArrayList<String> matches = new ArrayList<String>();
+		int m = term.length();
+		if (trie.emptyWord && m <= maxEdits) {
+			matches.add("");
+		}
+		// rows[d][j] is the distance between the first d characters of the current word and the first j of term. A
+		// row more than m + maxEdits deep is always more than maxEdits, so there is never a need for more rows.
+		int[][] rows = new int[m + maxEdits + 2][m + 1];
+		for (int j = 0; j <= m; j++) {
+			rows[0][j] = j;
+		}
+		char[] path = new char[m + maxEdits + 1];
+		// ends[d] is where the subtree of the node at depth d of the path ends.
+		int[] ends = new int[m + maxEdits + 2];
+		int depth = 0;
+		int node = 0;
+		while (node < trie.labels.length) {
+			while (depth > 0 && node >= ends[depth]) {
+				depth--;
+			}
+			// The node is a child of the last node of the path, so its row goes right below.
+			char c = trie.labels[node];
+			int[] above = rows[depth];
+			int[] row = rows[depth + 1];
+			row[0] = depth + 1;
+			int min = depth + 1;
+			for (int j = 1; j <= m; j++) {
+				int cost = term.charAt(j - 1) == c ? above[j - 1] : above[j - 1] + 1;
+				row[j] = Math.min(cost, Math.min(above[j], row[j - 1]) + 1);
+				min = Math.min(min, row[j]);
+			}
+			if (min > maxEdits) {
+				// No word under this node can be close enough.
+				node = trie.ends[node];
+				continue;
+			}
+			path[depth] = c;
+			depth++;
+			if (trie.isWord(node) && row[m] <= maxEdits) {
+				matches.add(new String(path, 0, depth));
+			}
+			ends[depth] = trie.ends[node];
+			node++;
+		}
+		return matches;
+	}
+
+	/*
+	 * The words as a trie, for getTermsWithin. The nodes are in preorder (the order of the words), so the children of a
+	 * node come right after it and each node only needs its character, where its subtree ends, and whether a word ends
+	 * there. It has one node for each character a word doesn't share with the word before it.
+	 */
+	private final class Trie {
+		private final char[]	labels;
+		private final int[]		ends;
+		private final long[]	words;
+		private final boolean	emptyWord;
+
+		Trie() {
+			int total = 0;
+			char[] labels = new char[data.length];
+			int[] ends = new int[data.length];
+			long[] words = new long[(data.length + 63) / 64];
+			boolean emptyWord = false;
+			int[] open = new int[16];
+			int openDepth = 0;
+			if (size > 0) {
+				Reader reader = new Reader(0);
+				int shared = 0;
+				while (true) {
+					// Close the nodes of the last word that this one doesn't share.
+					while (openDepth > shared) {
+						ends[open[--openDepth]] = total;
+					}
+					if (open.length < reader.length) {
+						open = Arrays.copyOf(open, Math.max(reader.length, 2 * open.length));
+					}
+					for (int d = shared; d < reader.length; d++) {
+						labels[total] = reader.buffer[d];
+						open[openDepth++] = total++;
+					}
+					if (reader.length == 0) {
+						emptyWord = true;
+					} else {
+						int last = open[openDepth - 1];
+						words[last >>> 6] |= 1L << last;
+					}
+					if (reader.index + 1 == size) {
+						break;
+					}
+					shared = reader.next();
+				}
+			}
+			while (openDepth > 0) {
+				ends[open[--openDepth]] = total;
+			}
+			this.labels = Arrays.copyOf(labels, total);
+			this.ends = Arrays.copyOf(ends, total);
+			this.words = Arrays.copyOf(words, (total + 63) / 64);
+			this.emptyWord = emptyWord;
+		}
+
+		boolean isWord(int node) {
+			return (words[node >>> 6] & (1L << node)) != 0;
+		}
+	}
+
+	/**
+	 * @param word a word from a search.
+	 * @return true if the word has a '*' or '?' in it, so it has to be looked up with getTermsMatching.
+	 */
+	public static boolean isWildcard(String word) {
+		return word.indexOf('*') >= 0 || word.indexOf('?') >= 0;
+	}
+
+	private static boolean isWildcardCharacter(char c) {
+		return c == '*' || c == '?';
+	}
+
+	/*
+	 * Does the rest of the term, from t on, match the rest of the pattern, from p on? When a '*' is followed by
+	 * something that doesn't match, it is tried again one character later, which only ever needs to go back to the
+	 * most recent '*'.
+	 */
+	private static boolean matches(String pattern, int p, String term, int t) {
+		int star = -1;
+		int starT = 0;
+		while (t < term.length()) {
+			if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == term.charAt(t))) {
+				p++;
+				t++;
+			} else if (p < pattern.length() && pattern.charAt(p) == '*') {
+				star = p++;
+				starT = t;
+			} else if (star >= 0) {
+				p = star + 1;
+				t = ++starT;
+			} else {
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*') {
+			p++;
+		}
+		return p == pattern.length();
+	}
+
+	/*
+	 * Reads the words one at a time, building each one in a buffer from the one before.
+	 */
+	private final class Reader {
+		private char[]	buffer	= new char[32];
+		private int		length;
+		private int		offset;
+		// The index of the current word.
+		private int		index;
+
+		Reader(int block) {
+			load(block);
+		}
+
+		/*
+		 * Move to the first word of a block.
+		 *
+		 * @return the number of characters the word shares with the one the reader was at.
+		 */
+		int load(int block) {
+			offset = blockOffsets[block];
+			int newLength = data[offset++];
+			ensureCapacity(newLength);
+			int shared = 0;
+			int limit = Math.min(length, newLength);
+			while (shared < limit && buffer[shared] == data[offset + shared]) {
+				shared++;
+			}
+			System.arraycopy(data, offset + shared, buffer, shared, newLength - shared);
+			length = newLength;
+			offset += newLength;
+			index = block * BLOCK_SIZE;
+			return shared;
+		}
+
+		/*
+		 * Move to the next word. There has to be one.
+		 *
+		 * @return the number of characters it shares with the one before it.
+		 */
+		int next() {
+			if ((index + 1) % BLOCK_SIZE == 0) {
+				return load((index + 1) / BLOCK_SIZE);
+			}
+			int shared = data[offset++];
+			int rest = data[offset++];
+			length = shared + rest;
+			ensureCapacity(length);
+			System.arraycopy(data, offset, buffer, shared, rest);
+			offset += rest;
+			index++;
+			return shared;
+		}
+
+		String term() {
+			return new String(buffer, 0, length);
+		}
+
+		// Compare the current word to term, the same way String.compareTo does.
+		int compareTo(String term) {
+			int limit = Math.min(length, term.length());
+			for (int i = 0; i < limit; i++) {
+				if (buffer[i] != term.charAt(i)) {
+					return buffer[i] - term.charAt(i);
+				}
+			}
+			return length - term.length();
+		}
+
+		private void ensureCapacity(int needed) {
+			if (buffer.length < needed) {
+				buffer = Arrays.copyOf(buffer, Math.max(needed, 2 * buffer.length));
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package bibleReader.model;
+
+/**
+ * Splits the text of a verse into the words that the concordance indexes. The words are handed to a TokenHandler one
+ * at a time, as they are found, so nothing has to be put into a list and no Strings have to be made unless the
+ * handler wants them.
+ *
+ * Implementations should not keep any state between calls, so that one Tokenizer can be used by several threads at
+ * once (the concordance is built in parallel).
+ *
+ * @author Trevor Palmatier
+ */
+public interface Tokenizer {
+
+	/**
+	 * Receives the tokens of a text.
+	 */
+	public interface TokenHandler {
+		/**
+		 * Called once for each token, in the order they occur in the text.
+		 *
+		 * @param buffer holds the token, lowercased, in buffer[0] up to buffer[length - 1]. The buffer is reused for
+		 *            the next token, so copy it if you need to keep it.
+		 * @param length the length of the token.
+		 * @param start the index in the text of the first character of the token.
+		 * @param end the index in the text just after the last character of the token. The text between start and end
+		 *            can have characters that aren't in the token (commas, for instance).
+		 */
+		public void token(char[] buffer, int length, int start, int end);
+	}
+
+	/**
+	 * Find the tokens of the text and give each one to the handler.
+	 *
+	 * @param text the text. It must not be null.
+	 * @param handler receives the tokens.
+	 */
+	public void tokenize(String text, TokenHandler handler);
+}
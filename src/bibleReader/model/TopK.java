@@ -0,0 +1,166 @@
+package bibleReader.model;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the k best scoring ordinals out of any number offered to it, without keeping (or sorting) the rest. The ones
+ * kept are in a heap with the worst of them at the top, so an ordinal that doesn't beat the worst one is turned away
+ * right away, and one that does takes its place in O(log k) time.
+ *
+ * An ordinal is better than another if its score is higher, or if the scores are the same and it comes first. So the
+ * result doesn't depend on the order the ordinals were offered in.
+ *
+ * @author Trevor Palmatier
+ */
+public final class TopK {
+	private final int		k;
+	private final int[]		ordinals;
+	private final double[]	scores;
+	private int				size;
+
+	/**
+	 * @param k the most ordinals to keep.
+	 * @throws IllegalArgumentException if k is negative.
+	 */
+	public TopK(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException("k can't be negative: " + k);
+		}
+		this.k = k;
+		ordinals = new int[k];
+		scores = new double[k];
+	}
+
+	/**
+	 * @return the most ordinals this keeps.
+	 */
+	public int capacity() {
+		return k;
+	}
+
+	/**
+	 * @return the number of ordinals kept so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if k ordinals are kept, so a new one has to beat the worst of them.
+	 */
+	public boolean isFull() {
+		return size == k;
+	}
+
+	/**
+	 * @return the score an ordinal has to beat to be kept: the lowest score kept if k of them are, or negative
+	 *         infinity if there is still room. (An ordinal with the same score is kept only if it comes before the
+	 *         worst one.)
+	 */
+	public double threshold() {
+		if (k == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+	}
+
+	/**
+	 * @param ordinal an ordinal.
+	 * @param score   its score.
+	 * @return true if it is one of the best k so far, so it was kept.
+	 */
+	public boolean offer(int ordinal, double score) {
+		if (size < k) {
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!worse(ordinal, score, ordinals[parent], scores[parent])) {
+					break;
+				}
+				ordinals[i] = ordinals[parent];
+				scores[i] = scores[parent];
+				i = parent;
+			}
+			ordinals[i] = ordinal;
+			scores[i] = score;
+			return true;
+		}
+		if (k == 0 || !worse(ordinals[0], scores[0], ordinal, score)) {
+			return false;
+		}
+		siftDown(ordinal, score, size);
+		return true;
+	}
+
+	// Is the first ordinal worse than the second?
+	private static boolean worse(int ordinal1, double score1, int ordinal2, double score2) {
+		return score1 < score2 || (score1 == score2 && ordinal1 > ordinal2);
+	}
+
+	// Put the ordinal at the top of the first count entries of the heap and move it down to where it belongs.
+	private void siftDown(int ordinal, double score, int count) {
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= count) {
+				break;
+			}
+			if (child + 1 < count && worse(ordinals[child + 1], scores[child + 1], ordinals[child], scores[child])) {
+				child++;
+			}
+			if (!worse(ordinals[child], scores[child], ordinal, score)) {
+				break;
+			}
+			ordinals[i] = ordinals[child];
+			scores[i] = scores[child];
+			i = child;
+		}
+		ordinals[i] = ordinal;
+		scores[i] = score;
+	}
+
+	/**
+	 * @return the ordinals kept, best first. (They are in the order of their scores, not sorted like the ordinals in
+	 *         an IntReferenceList.)
+	 */
+	public int[] getOrdinals() {
+		int[] sorted = new int[size];
+		sort(sorted, null);
+		return sorted;
+	}
+
+	/**
+	 * @return the scores of the ordinals kept, in the same order as getOrdinals.
+	 */
+	public double[] getScores() {
+		double[] sorted = new double[size];
+		sort(null, sorted);
+		return sorted;
+	}
+
+	// Heap sort a copy of the heap, taking the worst one off the top and putting it at the end each time.
+	private void sort(int[] sortedOrdinals, double[] sortedScores) {
+		TopK copy = new TopK(k);
+		System.arraycopy(ordinals, 0, copy.ordinals, 0, size);
+		System.arraycopy(scores, 0, copy.scores, 0, size);
+		for (int count = size; count > 0; count--) {
+			if (sortedOrdinals != null) {
+				sortedOrdinals[count - 1] = copy.ordinals[0];
+			}
+			if (sortedScores != null) {
+				sortedScores[count - 1] = copy.scores[0];
+			}
+			copy.siftDown(copy.ordinals[count - 1], copy.scores[count - 1], count - 1);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		int[] sorted = getOrdinals();
+		for (int i = 0; i < sorted.length; i++) {
+			result.append(i == 0 ? "" : ", ").append(Reference.fromOrdinal(sorted[i]));
+		}
+		return result.append("] ").append(Arrays.toString(getScores())).toString();
+	}
+}
@@ -2,8 +2,6 @@ package bibleReader.model;
 
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -18,27 +16,89 @@ public class TreeMapBible implements Bible {
 	private String						version;
 	private String title;
 	private TreeMap<Reference, String>	theVerses;
+	private Versification				versification;
+
+	// texts[i] is the text of verse i of the versification. It shares the Strings in the map, and lets
+	// getAllVerses and the passage methods return views instead of copying the map.
+	private String[]					texts;
+
+	// The trigrams of texts, or null if the Bible wasn't made with one.
+	private TrigramIndex				trigrams;
+	// The lowercased texts, for searching without an index. It is made the first time a phrase is searched for, and
+	// never if there is a TrigramIndex, which has its own.
+	private volatile FoldedText			folded;
 
 	// Or replace the above with:
 	// private TreeMap<Reference, Verse> theVerses;
 	// Add more fields as necessary.
 
 	/**
-	 * Create a new Bible with the given verses.
+	 * Create a new Bible with the given verses. Verses whose reference can't be
+	 * packed into an ordinal are left out (just like ArrayListBible), so every
+	 * verse of the Bible is in its Versification.
 	 * 
 	 * @param version the version of the Bible (e.g. ESV, KJV, ASV, NIV).
 	 * @param verses All of the verses of this version of the Bible.
 	 */
 	public TreeMapBible(VerseList verses) {
+		this(verses, false);
+	}
+
+	/**
+	 * Create a new Bible with the given verses, and, if asked for, a TrigramIndex
+	 * so that searching for a phrase only has to look at the verses that could
+	 * have it. The index takes some time and memory to build, so it is only worth
+	 * it for a Bible that will be searched a lot.
+	 * 
+	 * @param verses All of the verses of this version of the Bible.
+	 * @param trigramIndex whether to build a TrigramIndex for phrase searches.
+	 */
+	public TreeMapBible(VerseList verses, boolean trigramIndex) {
 		theVerses = new TreeMap<Reference, String>();
 		version = verses.getVersion();
 		title = verses.getDescription();
 
 		for (Verse verse : verses) {
-			theVerses.put(verse.getReference(), verse.getText());
+			if (verse.getReference().getOrdinal() != Reference.INVALID_ORDINAL) {
+				theVerses.put(verse.getReference(), verse.getText());
+			}
 		}
 
-		theVerses.put(new Reference(BookOfBible.Dummy, 1, 1), "");
+		theVerses.put(Reference.of(BookOfBible.Dummy, 1, 1), "");
+
+		// The keys are already sorted, so this just has to pack them.
+		IntReferenceList ordinals = new IntReferenceList(theVerses.size());
+		texts = new String[theVerses.size() - 1];
+		for (Map.Entry<Reference, String> element : theVerses.entrySet()) {
+			if (element.getKey().getBookOfBible() != BookOfBible.Dummy) {
+				texts[ordinals.size()] = element.getValue();
+				ordinals.add(element.getKey());
+			}
+		}
+		versification = new Versification(ordinals.toArray());
+		if (trigramIndex) {
+			trigrams = new TrigramIndex(texts);
+		}
+	}
+
+	/**
+	 * @return whether this Bible was made with a TrigramIndex.
+	 */
+	public boolean hasTrigramIndex() {
+		return trigrams != null;
+	}
+
+	/*
+	 * A read-only view of verses start up to end (see Versification). Nothing is
+	 * copied, and the Verse objects are only made if someone asks for them.
+	 */
+	private VerseList versesBetween(String description, int start, int end) {
+		return VerseList.view(version, description, new VerseView(versification, start, end) {
+			@Override
+			protected String textAt(int index) {
+				return texts[index];
+			}
+		});
 	}
 
 	@Override
@@ -48,17 +108,7 @@ public class TreeMapBible implements Bible {
 
 	@Override
 	public VerseList getAllVerses() {
-		VerseList allVerses = new VerseList(version, title);
-		Verse dummy = new Verse(new Reference(BookOfBible.Dummy, 1, 1), "");
-
-		Set<Map.Entry<Reference, String>> mySet = theVerses.entrySet();
-
-		for (Map.Entry<Reference, String> element : mySet) {
-			Verse aVerse = new Verse(element.getKey(), element.getValue());
-			if (!aVerse.equals(dummy))
-				allVerses.add(aVerse);
-		}
-		return allVerses;
+		return versesBetween(title, 0, versification.getNumberOfVerses());
 	}
 
 	@Override
@@ -73,12 +123,7 @@ public class TreeMapBible implements Bible {
 
 	@Override
 	public boolean isValid(Reference ref) {
-		if (ref != null) {
-			if (ref.getBookOfBible() != BookOfBible.Dummy) {
-				return theVerses.containsKey(ref);
-			}
-		}
-		return false;
+		return versification.isValid(ref);
 	}
 
 
@@ -106,25 +151,36 @@ public class TreeMapBible implements Bible {
 
 	@Override
 	public Verse getVerse(BookOfBible book, int chapter, int verse) {
-		Reference ref = new Reference(book, chapter, verse);
+		Reference ref = Reference.of(book, chapter, verse);
 		return getVerse(ref);
 	}
 
+	/*
+	 * The indexes of the verses that contain the phrase, ignoring case. The
+	 * phrase is not null or empty.
+	 */
+	private int[] indexesContaining(String phrase) {
+		if (trigrams != null) {
+			return trigrams.indexesContaining(phrase);
+		}
+		FoldedText text = folded;
+		if (text == null) {
+			// If two threads get here at the same time, they both make one, and one of them is kept.
+			text = FoldedText.of(texts);
+			folded = text;
+		}
+		return text.indexesContaining(phrase);
+	}
+
 	@Override
 	public VerseList getVersesContaining(String phrase) {
 		VerseList versesContaining = new VerseList(version, title);
-		Set<Map.Entry<Reference, String>> mySet = theVerses.entrySet();
-
 		if (phrase == null)
 			return versesContaining;
 		if (phrase.equals(""))
 			return versesContaining;
-		String phraseLower = phrase.toLowerCase();
-		for (Map.Entry<Reference, String> element : mySet) {
-			String verseText = element.getValue();
-			if (verseText.toLowerCase().contains(phraseLower)) {
-				versesContaining.add(new Verse(element.getKey(), verseText));
-			}
+		for (int i : indexesContaining(phrase)) {
+			versesContaining.add(new Verse(versification.getReference(i), texts[i]));
 		}
 		return versesContaining;
 	}
@@ -132,22 +188,29 @@ public class TreeMapBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesContaining(String phrase) {
 		ArrayList<Reference> refsContaining = new ArrayList<Reference>();
-		Set<Map.Entry<Reference, String>> mySet = theVerses.entrySet();
-
 		if (phrase == null)
 			return refsContaining;
 		if (phrase.equals(""))
 			return refsContaining;
-		String phraseLower = phrase.toLowerCase();
-		for (Map.Entry<Reference, String> element : mySet) {
-			String verseText = element.getValue();
-			if (verseText.toLowerCase().contains(phraseLower)) {
-				refsContaining.add(element.getKey());
-			}
+		for (int i : indexesContaining(phrase)) {
+			refsContaining.add(versification.getReference(i));
 		}
 		return refsContaining;
 	}
 
+	@Override
+	public IntReferenceList getOrdinalsContaining(String phrase) {
+		IntReferenceList ordinals = new IntReferenceList();
+		if (phrase == null)
+			return ordinals;
+		if (phrase.equals(""))
+			return ordinals;
+		for (int i : indexesContaining(phrase)) {
+			ordinals.add(versification.getOrdinal(i));
+		}
+		return ordinals;
+	}
+
 	@Override
 	public VerseList getVerses(ArrayList<Reference> references) {
 		VerseList versesContainingRef = new VerseList(version, "Arbitrary list of Verses");
@@ -159,69 +222,60 @@ public class TreeMapBible implements Bible {
 
 	@Override
 	public int getLastVerseNumber(BookOfBible book, int chapter) {
-		if (!isValid(new Reference(book, chapter, 1))) {
-			return -1;
-		}
-		Reference key = new Reference(book, chapter + 1, 1);
-		if (theVerses.get(key) != null) {
-			Reference last = theVerses.lowerKey(key);
-			return last.getVerse();
-		}
-		key = new Reference(BookOfBible.nextBook(book), 1, 1);
-		if (theVerses.get(key) != null) {
-			Reference last = theVerses.lowerKey(key);
-			return last.getVerse();
-		}
-		return -1;
+		return versification.getLastVerseNumber(book, chapter);
 	}
 
 	@Override
 	public int getLastChapterNumber(BookOfBible book) {
-		if (!isValid(new Reference(book, 1, 1))) {
-			return -1;
-		}
-		Reference key = new Reference(BookOfBible.nextBook(book), 1, 1);
-		if (theVerses.get(key) != null) {
-			Reference last = theVerses.lowerKey(key);
-			return last.getChapter();
-		}
-		return -1;
+		return versification.getLastChapterNumber(book);
 	}
 
 	@Override
-	public ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse) {
-		ArrayList<Reference> references = new ArrayList<Reference>();
+	public Versification getVersification() {
+		return versification;
+	}
 
+	@Override
+	public ArrayList<Reference> getReferencesInclusive(Reference firstVerse, Reference lastVerse) {
 		if (firstVerse.compareTo(lastVerse) > 0) {
-			return references;
+			return new ArrayList<Reference>();
 		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return referencesBetween(start, versification.firstIndexAfter(lastVerse));
+	}
 
-		SortedMap<Reference, String> s = theVerses.subMap(firstVerse, true, lastVerse, true);
+	@Override
+	public IntReferenceList getOrdinalsInclusive(Reference firstVerse, Reference lastVerse) {
+		IntReferenceList ordinals = new IntReferenceList();
 
-		Set<Map.Entry<Reference, String>> mySet = s.entrySet();
+		if (firstVerse.compareTo(lastVerse) > 0) {
+			return ordinals;
+		}
 
-		for (Map.Entry<Reference, String> element : mySet) {
-			Reference aReference = element.getKey();
-			references.add(aReference);
+		int end = versification.firstIndexAfter(lastVerse);
+		for (int i = versification.firstIndexFrom(firstVerse); i < end; i++) {
+			ordinals.add(versification.getOrdinal(i));
 		}
-		return references;
+		return ordinals;
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesExclusive(Reference firstVerse, Reference lastVerse) {
-		ArrayList<Reference> references = new ArrayList<Reference>();
-
 		if (firstVerse.compareTo(lastVerse) > 0) {
-			return references;
+			return new ArrayList<Reference>();
 		}
+		int start = versification.firstIndexFrom(firstVerse);
+		return referencesBetween(start, versification.firstIndexFrom(lastVerse));
+	}
 
-		SortedMap<Reference, String> s = theVerses.subMap(firstVerse, lastVerse);
-
-		Set<Map.Entry<Reference, String>> mySet = s.entrySet();
-
-		for (Map.Entry<Reference, String> element : mySet) {
-			Reference aReference = element.getKey();
-			references.add(aReference);
+	/*
+	 * The references of verses start up to end (see Versification), the same range versesBetween gives the verses of,
+	 * so the Dummy verse that ends the map is never one of them.
+	 */
+	private ArrayList<Reference> referencesBetween(int start, int end) {
+		ArrayList<Reference> references = new ArrayList<Reference>(Math.max(end - start, 0));
+		for (int i = start; i < end; i++) {
+			references.add(versification.getReference(i));
 		}
 		return references;
 	}
@@ -229,7 +283,7 @@ public class TreeMapBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForBook(BookOfBible book) {
 		if (book != null) {
-			return getReferencesExclusive(new Reference(book, 1, 1), new Reference(BookOfBible.nextBook(book), 1, 1));
+			return getReferencesExclusive(Reference.of(book, 1, 1), Reference.of(BookOfBible.nextBook(book), 1, 1));
 		}
 		return new ArrayList<Reference>();
 	}
@@ -237,7 +291,7 @@ public class TreeMapBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForChapter(BookOfBible book, int chapter) {
 		if (book != null) {
-			return getReferencesExclusive(new Reference(book, chapter, 1), new Reference(book, chapter + 1, 1));
+			return getReferencesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
 		}
 		return new ArrayList<Reference>();
 	}
@@ -245,19 +299,19 @@ public class TreeMapBible implements Bible {
 	@Override
 	public ArrayList<Reference> getReferencesForChapters(BookOfBible book, int chapter1, int chapter2) {
 		if (chapter1 <= chapter2 && book != null) {
-			return getReferencesExclusive(new Reference(book, chapter1, 1), new Reference(book, chapter2 + 1, 1));
+			return getReferencesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
 		}
 		return new ArrayList<Reference>();
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter, int verse1, int verse2) {
-		return getReferencesInclusive(new Reference(book, chapter, verse1), new Reference(book, chapter, verse2));
+		return getReferencesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
 	}
 
 	@Override
 	public ArrayList<Reference> getReferencesForPassage(BookOfBible book, int chapter1, int verse1, int chapter2, int verse2) {
-		return getReferencesInclusive(new Reference(book, chapter1, verse1), new Reference(book, chapter2, verse2));
+		return getReferencesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
 	}
 
 	@Override
@@ -268,15 +322,8 @@ public class TreeMapBible implements Bible {
 			return someVerses;
 		}
 
-		SortedMap<Reference, String> s = theVerses.subMap(firstVerse, true, lastVerse, true);
-
-		Set<Map.Entry<Reference, String>> mySet = s.entrySet();
-
-		for (Map.Entry<Reference, String> element : mySet) {
-			Verse aVerse = new Verse(element.getKey(), element.getValue());
-			someVerses.add(aVerse);
-		}
-		return someVerses;
+		int start = versification.firstIndexFrom(firstVerse);
+		return versesBetween(someVerses.getDescription(), start, versification.firstIndexAfter(lastVerse));
 	}
 
 	@Override
@@ -293,48 +340,39 @@ public class TreeMapBible implements Bible {
 		if (firstVerse.compareTo(lastVerse) > 0) {
 			return someVerses;
 		}
-		// Return the portion of the TreeMap that contains the verses between
-		// the first and the last, not including the last.
-		SortedMap<Reference, String> s = theVerses.subMap(firstVerse, lastVerse);
-
-		// Get the entries from the map so we can iterate through them.
-		Set<Map.Entry<Reference, String>> mySet = s.entrySet();
-
-		// Iterate through the set and put the verses in the VerseList.
-		for (Map.Entry<Reference, String> element : mySet) {
-			Verse aVerse = new Verse(element.getKey(), element.getValue());
-			someVerses.add(aVerse);
-		}
-		return someVerses;
+		// Return a view of the verses between the first and the last, not including the last.
+		// The map has one verse per reference, so this is the same range as theVerses.subMap(firstVerse, lastVerse).
+		int start = versification.firstIndexFrom(firstVerse);
+		return versesBetween(someVerses.getDescription(), start, versification.firstIndexFrom(lastVerse));
 	}
 
 	@Override
 	public VerseList getBook(BookOfBible book) {
 		if (book != null) {
 			BookOfBible next = BookOfBible.nextBook(book);
-			return getVersesExclusive(new Reference(book, 1, 1), new Reference(next, 1, 1));
+			return getVersesExclusive(Reference.of(book, 1, 1), Reference.of(next, 1, 1));
 		}
 		return new VerseList(this.getVersion(), "");
 	}
 
 	@Override
 	public VerseList getChapter(BookOfBible book, int chapter) {
-		return getVersesExclusive(new Reference(book, chapter, 1), new Reference(book, chapter + 1, 1));
+		return getVersesExclusive(Reference.of(book, chapter, 1), Reference.of(book, chapter + 1, 1));
 	}
 
 	@Override
 	public VerseList getChapters(BookOfBible book, int chapter1, int chapter2) {
-		return getVersesExclusive(new Reference(book, chapter1, 1), new Reference(book, chapter2 + 1, 1));
+		return getVersesExclusive(Reference.of(book, chapter1, 1), Reference.of(book, chapter2 + 1, 1));
 	}
 
 	@Override
 	public VerseList getPassage(BookOfBible book, int chapter, int verse1, int verse2) {
-		return getVersesInclusive(new Reference(book, chapter, verse1), new Reference(book, chapter, verse2));
+		return getVersesInclusive(Reference.of(book, chapter, verse1), Reference.of(book, chapter, verse2));
 	}
 
 	@Override
 	public VerseList getPassage(BookOfBible book, int chapter1, int verse1, int chapter2, int verse2) {
-		return getVersesInclusive(new Reference(book, chapter1, verse1), new Reference(book, chapter2, verse2));
+		return getVersesInclusive(Reference.of(book, chapter1, verse1), Reference.of(book, chapter2, verse2));
 	}
 
 }
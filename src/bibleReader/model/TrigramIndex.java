@@ -0,0 +1,162 @@
+package bibleReader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * An index of every three characters in a row (trigram) in the lowercased text of each verse, for finding the verses
+ * that contain a phrase without looking at all of them. Any verse whose lowercased text contains the lowercased phrase
+ * has to have every trigram of the phrase in it, so intersecting the lists of verses for those trigrams gives every
+ * verse that could match. Each of those is then checked in a FoldedText of the verses, which matches exactly when
+ * text.toLowerCase().contains(phrase.toLowerCase()), so the answer is always the same as without an index. A phrase
+ * shorter than three characters (once lowercased) doesn't have a trigram, so the whole FoldedText is searched.
+ *
+ * A trigram is kept as its three characters, 14 bits each, next to the index of the verse in one long. Characters past
+ * 0x3FFF share bits with smaller ones, which only means a few more verses get checked. The entries are sorted, and
+ * the verses of each trigram become a PostingsList of verse indexes (not ordinals).
+ *
+ * A TrigramIndex can't be changed once it is made, so it can be shared between threads.
+ *
+ * @author Trevor Palmatier
+ */
+public final class TrigramIndex {
+	private static final int			CHAR_BITS	= 14;
+	private static final int			INDEX_BITS	= 63 - 3 * CHAR_BITS;
+	private static final long			INDEX_MASK	= (1L << INDEX_BITS) - 1;
+
+	/**
+	 * The most verses an index can have.
+	 */
+	public static final int				MAX_VERSES	= 1 << INDEX_BITS;
+
+	private static final int[]			NONE		= new int[0];
+
+	private final FoldedText			folded;
+	// The distinct trigrams, sorted, and the verses each one is in.
+	private final long[]				trigrams;
+	private final PostingsList[]		postings;
+
+	/**
+	 * Index the given texts.
+	 *
+	 * @param texts the text of each verse. A verse's index is where its text is in the array.
+	 * @throws IllegalArgumentException if there are more than MAX_VERSES texts.
+	 */
+	public TrigramIndex(String[] texts) {
+		if (texts.length > MAX_VERSES) {
+			throw new IllegalArgumentException("A trigram index can have at most " + MAX_VERSES + " verses.");
+		}
+		String[] lowered = new String[texts.length];
+		long[] entries = new long[1024];
+		int count = 0;
+		for (int i = 0; i < texts.length; i++) {
+			lowered[i] = texts[i].toLowerCase();
+			long[] keys = keysOf(lowered[i]);
+			if (count + keys.length > entries.length) {
+				entries = Arrays.copyOf(entries, Math.max(entries.length * 2, count + keys.length));
+			}
+			for (long key : keys) {
+				entries[count++] = key << INDEX_BITS | i;
+			}
+		}
+		Arrays.sort(entries, 0, count);
+		folded = FoldedText.ofLowered(lowered);
+
+		long[] distinct = new long[16];
+		ArrayList<PostingsList> lists = new ArrayList<PostingsList>();
+		int start = 0;
+		while (start < count) {
+			long key = entries[start] >>> INDEX_BITS;
+			int end = start;
+			IntReferenceList indexes = new IntReferenceList();
+			while (end < count && entries[end] >>> INDEX_BITS == key) {
+				indexes.add((int) (entries[end] & INDEX_MASK));
+				end++;
+			}
+			if (lists.size() == distinct.length) {
+				distinct = Arrays.copyOf(distinct, distinct.length * 2);
+			}
+			distinct[lists.size()] = key;
+			lists.add(PostingsList.of(indexes));
+			start = end;
+		}
+		trigrams = Arrays.copyOf(distinct, lists.size());
+		postings = lists.toArray(new PostingsList[lists.size()]);
+	}
+
+	// The distinct trigrams of the (already lowercased) text, sorted.
+	private static long[] keysOf(String text) {
+		if (text.length() < 3) {
+			return new long[0];
+		}
+		long[] keys = new long[text.length() - 2];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = key(text, i);
+		}
+		Arrays.sort(keys);
+		int unique = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (unique == 0 || keys[i] != keys[unique - 1]) {
+				keys[unique++] = keys[i];
+			}
+		}
+		return Arrays.copyOf(keys, unique);
+	}
+
+	private static long key(String text, int start) {
+		long mask = (1L << CHAR_BITS) - 1;
+		return (text.charAt(start) & mask) << 2 * CHAR_BITS | (text.charAt(start + 1) & mask) << CHAR_BITS
+				| (text.charAt(start + 2) & mask);
+	}
+
+	/**
+	 * @return the number of verses that are indexed.
+	 */
+	public int getNumberOfVerses() {
+		return folded.size();
+	}
+
+	/**
+	 * @return the number of different trigrams in the text.
+	 */
+	public int getNumberOfTrigrams() {
+		return trigrams.length;
+	}
+
+	/**
+	 * Find the verses that contain the phrase, ignoring case, the same way text.toLowerCase().contains(phrase
+	 * .toLowerCase()) does.
+	 *
+	 * @param phrase the phrase. It is not null or empty.
+	 * @return the indexes of the verses that contain it, in order.
+	 */
+	public int[] indexesContaining(String phrase) {
+		String phraseLower = phrase.toLowerCase();
+		if (phraseLower.length() < 3) {
+			return folded.indexesContaining(phrase);
+		}
+		long[] keys = keysOf(phraseLower);
+		ArrayList<PostingsList> lists = new ArrayList<PostingsList>(keys.length);
+		for (long key : keys) {
+			int found = Arrays.binarySearch(trigrams, key);
+			if (found < 0) {
+				return NONE;
+			}
+			lists.add(postings[found]);
+		}
+		// The intersection is fastest with the shortest list first.
+		Collections.sort(lists, new Comparator<PostingsList>() {
+			@Override
+			public int compare(PostingsList p1, PostingsList p2) {
+				return Integer.compare(p1.size(), p2.size());
+			}
+		});
+		ArrayList<PostingsIterator> iterators = new ArrayList<PostingsIterator>(lists.size());
+		for (PostingsList list : lists) {
+			iterators.add(list.iterator());
+		}
+		return folded.indexesContaining(phrase, new IntersectionIterator(iterators));
+	}
+}
@@ -0,0 +1,149 @@
+package bibleReader.model;
+
+import java.util.Collection;
+
+/**
+ * A PostingsIterator over every ordinal that is in at least one of several other iterators, in order and without
+ * repeats. Nothing is merged ahead of time: the iterators are kept in a heap by the ordinal they are at, and only the
+ * ones that are behind are moved, so skipping through a union of a few hundred words (everything that starts with
+ * "a", say) only reads the parts of their lists that it needs.
+ *
+ * If the iterators are VersionedPostingsIterators, versions() is the OR of the masks of all of them that are at the
+ * current ordinal. A plain PostingsIterator counts as having every version.
+ *
+ * @author Trevor Palmatier
+ */
+public final class UnionIterator implements VersionedPostingsIterator {
+	private final PostingsIterator[]	all;
+	// A heap of the iterators that are past the current ordinal, smallest ordinal first.
+	private final PostingsIterator[]	heap;
+	private int							heapSize;
+	// The iterators that are at the current ordinal. They are taken out of the heap until they are moved.
+	private final PostingsIterator[]	atCurrent;
+	private int							atCount;
+	private boolean						started;
+	private int							current;
+	private long						versions;
+
+	/**
+	 * @param iterators the iterators to take the union of. None of them should have been moved yet, and this one
+	 *            moves them from now on.
+	 */
+	public UnionIterator(Collection<? extends PostingsIterator> iterators) {
+		all = iterators.toArray(new PostingsIterator[iterators.size()]);
+		heap = new PostingsIterator[all.length];
+		atCurrent = new PostingsIterator[all.length];
+		current = -1;
+	}
+
+	@Override
+	public int ordinal() {
+		return current;
+	}
+
+	@Override
+	public long versions() {
+		return versions;
+	}
+
+	@Override
+	public int next() {
+		if (current == NO_MORE_ORDINALS) {
+			return current;
+		}
+		if (!started) {
+			started = true;
+			for (PostingsIterator iterator : all) {
+				push(iterator, iterator.next());
+			}
+		} else {
+			for (int i = 0; i < atCount; i++) {
+				push(atCurrent[i], atCurrent[i].next());
+			}
+		}
+		return settle();
+	}
+
+	@Override
+	public int skipTo(int target) {
+		if (current >= target) {
+			return current;
+		}
+		if (!started) {
+			started = true;
+			for (PostingsIterator iterator : all) {
+				push(iterator, iterator.skipTo(target));
+			}
+		} else {
+			for (int i = 0; i < atCount; i++) {
+				push(atCurrent[i], atCurrent[i].skipTo(target));
+			}
+			while (heapSize > 0 && heap[0].ordinal() < target) {
+				PostingsIterator iterator = pop();
+				push(iterator, iterator.skipTo(target));
+			}
+		}
+		return settle();
+	}
+
+	// Take the iterators at the smallest ordinal out of the heap, and make that ordinal the current one.
+	private int settle() {
+		atCount = 0;
+		versions = 0;
+		if (heapSize == 0) {
+			current = NO_MORE_ORDINALS;
+			return current;
+		}
+		current = heap[0].ordinal();
+		while (heapSize > 0 && heap[0].ordinal() == current) {
+			PostingsIterator iterator = pop();
+			atCurrent[atCount++] = iterator;
+			versions |= iterator instanceof VersionedPostingsIterator ? ((VersionedPostingsIterator) iterator).versions()
+					: MultiVersionConcordance.ALL_VERSIONS;
+		}
+		return current;
+	}
+
+	// Put an iterator that is at the given ordinal back in the heap, unless it has run out.
+	private void push(PostingsIterator iterator, int ordinal) {
+		if (ordinal == NO_MORE_ORDINALS) {
+			return;
+		}
+		int i = heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent].ordinal() <= ordinal) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = iterator;
+	}
+
+	private PostingsIterator pop() {
+		PostingsIterator top = heap[0];
+		PostingsIterator last = heap[--heapSize];
+		heap[heapSize] = null;
+		if (heapSize > 0) {
+			int ordinal = last.ordinal();
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= heapSize) {
+					break;
+				}
+				if (child + 1 < heapSize && heap[child + 1].ordinal() < heap[child].ordinal()) {
+					child++;
+				}
+				if (heap[child].ordinal() >= ordinal) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+		}
+		return top;
+	}
+}
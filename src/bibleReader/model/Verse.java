@@ -6,8 +6,8 @@ package bibleReader.model;
  * @author Chuck Cusack, Implemented February 2, 2013
  */
 public class Verse implements Comparable<Verse> {
-	private Reference	reference;
-	private String		text;
+	private final Reference	reference;
+	private final String	text;
 
 	/**
 	 * Construct a verse given the reference and the text.
@@ -29,7 +29,7 @@ public class Verse implements Comparable<Verse> {
 	 * @param text The text of the verse
 	 */
 	public Verse(BookOfBible book, int chapter, int verse, String text) {
-		reference = new Reference(book, chapter, verse);
+		reference = Reference.of(book, chapter, verse);
 		this.text = text;
 	}
 
@@ -73,7 +73,8 @@ public class Verse implements Comparable<Verse> {
 
 	@Override
 	public int hashCode() {
-		return toString().hashCode();
+		// String caches its own hash code, so unlike toString() this doesn't allocate anything.
+		return 31 * reference.hashCode() + (text == null ? 0 : text.hashCode());
 	}
 
 	@Override
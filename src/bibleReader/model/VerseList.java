@@ -1,9 +1,11 @@
 package bibleReader.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A list of verses. This is just a subclass of ArrayList with a few useful
@@ -11,10 +13,19 @@ import java.util.List;
  * rather than a wrapper class so that all of the ArrayList methods are
  * available.
  * 
+ * The lists returned by the Bible classes for the whole Bible, books, chapters,
+ * and passages are views of the Bible's own storage (see VerseView), so they
+ * are cheap to get no matter how many verses they have. The first time one of
+ * them is changed it copies the verses into a list of its own, so changing
+ * it never changes the Bible. That goes for changes made through subList and
+ * iterator too.
+ * 
  * @author cusack, January 21, 2013.
  */
 public class VerseList implements Iterable<Verse> {
-	ArrayList<Verse> list;
+	List<Verse> list;
+	// True if list belongs to someone else (it is a view), so it must be copied before it is changed.
+	private boolean shared;
 	private String version;
 	private String description;
 
@@ -66,6 +77,35 @@ public class VerseList implements Iterable<Verse> {
 		this.description = vl.description;
 	}
 
+	/**
+	 * Create a list that uses the given list of verses instead of a copy of it.
+	 * This is how the Bible classes return views of their verses.
+	 * 
+	 * @param version
+	 *            The version of the Bible the verses are from.
+	 * @param description
+	 *            A description of the verses.
+	 * @param verses
+	 *            the verses. This list is used directly until the VerseList is
+	 *            changed, so it shouldn't be changed by anyone else.
+	 * @return a VerseList backed by verses.
+	 */
+	static VerseList view(String version, String description, List<Verse> verses) {
+		VerseList view = new VerseList(version, description);
+		view.list = verses;
+		view.shared = true;
+		return view;
+	}
+
+	// The list, copied first if it is a view, so that it can be changed.
+	private List<Verse> mutableList() {
+		if (shared) {
+			list = new ArrayList<Verse>(list);
+			shared = false;
+		}
+		return list;
+	}
+
 	public String getVersion() {
 		return version;
 	}
@@ -85,11 +125,11 @@ public class VerseList implements Iterable<Verse> {
 	// Delegate methods.
 
 	public void add(int index, Verse element) {
-		list.add(index, element);
+		mutableList().add(index, element);
 	}
 
 	public void clear() {
-		list.clear();
+		mutableList().clear();
 	}
 
 	public boolean contains(Object o) {
@@ -97,7 +137,13 @@ public class VerseList implements Iterable<Verse> {
 	}
 
 	public List<Verse> subList(int fromIndex, int toIndex) {
-		return list.subList(fromIndex, toIndex);
+		if (!shared) {
+			return list.subList(fromIndex, toIndex);
+		}
+		if (fromIndex < 0 || toIndex > list.size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex);
+		}
+		return new SubList(fromIndex, toIndex - fromIndex);
 	}
 
 	public Object[] toArray() {
@@ -117,13 +163,28 @@ public class VerseList implements Iterable<Verse> {
 	}
 
 	public boolean add(Verse e) {
-		return list.add(e);
+		return mutableList().add(e);
 	}
 
 	public int size() {
 		return list.size();
 	}
 
+	/**
+	 * Returns the Reference of the Verse at the given index. For the views
+	 * returned by the Bible classes, this doesn't create the Verse.
+	 * 
+	 * @param index
+	 *            the index of the verse.
+	 * @return the Reference of the Verse at that index.
+	 */
+	public Reference getReference(int index) {
+		if (list instanceof VerseView) {
+			return ((VerseView) list).getReference(index);
+		}
+		return list.get(index).getReference();
+	}
+
 	/**
 	 * Returns the index of the Verse with the given Reference, or -1 if there
 	 * is no Verse with the given Reference. This method assumes that the
@@ -156,7 +217,91 @@ public class VerseList implements Iterable<Verse> {
 
 	@Override
 	public Iterator<Verse> iterator() {
-		return list.iterator();
+		if (!shared) {
+			return list.iterator();
+		}
+		return new Iterator<Verse>() {
+			private int	next	= 0;
+			private int	last	= -1;
+
+			@Override
+			public boolean hasNext() {
+				return next < list.size();
+			}
+
+			@Override
+			public Verse next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next++;
+				return list.get(last);
+			}
+
+			@Override
+			public void remove() {
+				if (last < 0) {
+					throw new IllegalStateException();
+				}
+				mutableList().remove(last);
+				next = last;
+				last = -1;
+			}
+		};
+	}
+
+	/*
+	 * Part of a view. Reading it reads the view, and changing it changes the
+	 * VerseList, which copies the verses first like add and clear do.
+	 */
+	private class SubList extends AbstractList<Verse> {
+		private final int	from;
+		private int			size;
+
+		SubList(int from, int size) {
+			this.from = from;
+			this.size = size;
+		}
+
+		private void checkIndex(int index, int bound) {
+			if (index < 0 || index >= bound) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+
+		@Override
+		public Verse get(int index) {
+			checkIndex(index, size);
+			return list.get(from + index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Verse set(int index, Verse element) {
+			checkIndex(index, size);
+			return mutableList().set(from + index, element);
+		}
+
+		@Override
+		public void add(int index, Verse element) {
+			checkIndex(index, size + 1);
+			mutableList().add(from + index, element);
+			size++;
+			modCount++;
+		}
+
+		@Override
+		public Verse remove(int index) {
+			checkIndex(index, size);
+			Verse removed = mutableList().remove(from + index);
+			size--;
+			modCount++;
+			return removed;
+		}
 	}
 
 	@Override
@@ -0,0 +1,66 @@
+package bibleReader.model;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of the verses from index start up to (but not including) index end of a Bible (see
+ * Versification). Nothing is copied when a view is created, so getting a whole book or the whole Bible is cheap. A
+ * Verse object is only created when get is called (or the view is iterated over), and the size and references of the
+ * verses can be found without creating any.
+ *
+ * Trying to change a view (add, set, remove, clear) throws an UnsupportedOperationException.
+ *
+ * @author Trevor Palmatier
+ */
+abstract class VerseView extends AbstractList<Verse> implements RandomAccess {
+	private final Versification	versification;
+	private final int			start;
+	private final int			end;
+
+	/**
+	 * Create a view of the given range of verses.
+	 *
+	 * @param versification the versification of the Bible the verses are from.
+	 * @param start the index of the first verse.
+	 * @param end the index after the last verse. If it is not larger than start the view is empty.
+	 */
+	VerseView(Versification versification, int start, int end) {
+		this.versification = versification;
+		this.start = start;
+		this.end = Math.max(start, end);
+	}
+
+	/**
+	 * @param index the index of a verse in the Bible (not in this view).
+	 * @return the text of that verse.
+	 */
+	protected abstract String textAt(int index);
+
+	@Override
+	public int size() {
+		return end - start;
+	}
+
+	@Override
+	public Verse get(int index) {
+		return new Verse(getReference(index), textAt(start + checkIndex(index)));
+	}
+
+	/**
+	 * Get the reference of a verse without creating the Verse.
+	 *
+	 * @param index the index of the verse in this view.
+	 * @return the reference of the verse.
+	 */
+	public Reference getReference(int index) {
+		return versification.getReference(start + checkIndex(index));
+	}
+
+	private int checkIndex(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		return index;
+	}
+}
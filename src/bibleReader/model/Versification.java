@@ -0,0 +1,365 @@
+package bibleReader.model;
+
+import java.util.Arrays;
+
+/**
+ * The versification of one Bible: which books, chapters, and verses it has. It is built once from the references of
+ * the Bible's verses (in order) and then answers questions like "how many verses are in Psalm 119?", "what is the last
+ * chapter of Jude?", or "where does Romans 8 start?" with a few array reads.
+ *
+ * Each verse has an index: 0 for the first verse of the Bible, 1 for the next, and so on. The index of the first verse
+ * of a book or chapter is the number of verses that come before it, which is what the getFirstIndex methods return.
+ *
+ * @author Trevor Palmatier
+ */
+public class Versification {
+
+	private static final BookOfBible[]	BOOKS	= BookOfBible.values();
+
+	// ordinals[i] is the packed reference of verse i. They are in order, but a Bible read from a file may repeat one.
+	private final int[]					ordinals;
+
+	// bookStart[b] is the index of the first verse whose book is b or later, so book b is
+	// bookStart[b] up to (but not including) bookStart[b + 1].
+	private final int[]					bookStart;
+
+	// chapterStart[b][c] is the index of the first verse of book b with chapter c or later. The last entry is the end
+	// of the book. It is null for books that have no verses.
+	private final int[][]				chapterStart;
+
+	// The ordinals again, as a set, so the verses of several Bibles can be put together quickly.
+	private final ReferenceSet			references;
+
+	/**
+	 * Create the versification for the given ordinals.
+	 *
+	 * @param ordinals the packed references of the verses of a Bible, in order. Repeats are allowed (they each get
+	 *            their own index) but INVALID_ORDINAL is not.
+	 */
+	Versification(int[] ordinals) {
+		this.ordinals = ordinals;
+		bookStart = new int[BOOKS.length + 1];
+		chapterStart = new int[BOOKS.length][];
+		int index = 0;
+		for (int b = 0; b < BOOKS.length; b++) {
+			bookStart[b] = index;
+			int end = index;
+			while (end < ordinals.length && Reference.bookIndexOf(ordinals[end]) == b) {
+				end++;
+			}
+			if (end > index) {
+				int lastChapter = Reference.chapterOf(ordinals[end - 1]);
+				int[] starts = new int[lastChapter + 2];
+				int i = index;
+				for (int c = 0; c <= lastChapter; c++) {
+					starts[c] = i;
+					while (i < end && Reference.chapterOf(ordinals[i]) == c) {
+						i++;
+					}
+				}
+				starts[lastChapter + 1] = end;
+				chapterStart[b] = starts;
+			}
+			index = end;
+		}
+		bookStart[BOOKS.length] = index;
+		references = ReferenceSet.of(ordinals, ordinals.length);
+	}
+
+	/**
+	 * Create the versification for the given verses. Verses whose reference can't be packed into an ordinal, and
+	 * verses from the Dummy book, are left out, so the verses should already be sorted and cleaned up (as they are in
+	 * the Bible classes).
+	 *
+	 * @param verses the verses of a Bible, in order.
+	 * @return the versification of those verses.
+	 */
+	static Versification of(Iterable<Verse> verses) {
+		IntReferenceList ordinals = new IntReferenceList();
+		for (Verse verse : verses) {
+			Reference ref = verse.getReference();
+			if (ref.getBookOfBible() != BookOfBible.Dummy) {
+				ordinals.add(ref);
+			}
+		}
+		return new Versification(ordinals.toArray());
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Counts and bounds.
+
+	/**
+	 * @return the total number of verses.
+	 */
+	public int getNumberOfVerses() {
+		return ordinals.length;
+	}
+
+	/**
+	 * @return the references of all of the verses, as a set.
+	 */
+	public ReferenceSet getReferenceSet() {
+		return references;
+	}
+
+	/**
+	 * @param book the book.
+	 * @return the number of verses in the book, or 0 if the book is null or has no verses.
+	 */
+	public int getNumberOfVerses(BookOfBible book) {
+		if (book == null) {
+			return 0;
+		}
+		return bookStart[book.ordinal() + 1] - bookStart[book.ordinal()];
+	}
+
+	/**
+	 * @param book the book.
+	 * @param chapter the chapter.
+	 * @return the number of verses in the chapter, or 0 if it has none.
+	 */
+	public int getNumberOfVerses(BookOfBible book, int chapter) {
+		int[] starts = chapterStarts(book, chapter);
+		if (starts == null) {
+			return 0;
+		}
+		return starts[chapter + 1] - starts[chapter];
+	}
+
+	/**
+	 * @param book the book.
+	 * @return the number of chapters of the book that have at least one verse, or 0 if the book is null or has none.
+	 */
+	public int getNumberOfChapters(BookOfBible book) {
+		if (book == null || chapterStart[book.ordinal()] == null) {
+			return 0;
+		}
+		int[] starts = chapterStart[book.ordinal()];
+		int count = 0;
+		for (int c = 0; c < starts.length - 1; c++) {
+			if (starts[c] != starts[c + 1]) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param book the book.
+	 * @return the number of the last chapter of the book, or -1 if the book is null or has no verses.
+	 */
+	public int getLastChapterNumber(BookOfBible book) {
+		if (book == null || chapterStart[book.ordinal()] == null) {
+			return -1;
+		}
+		return chapterStart[book.ordinal()].length - 2;
+	}
+
+	/**
+	 * @param book the book.
+	 * @param chapter the chapter.
+	 * @return the number of the last verse of the chapter, or -1 if the chapter has no verses.
+	 */
+	public int getLastVerseNumber(BookOfBible book, int chapter) {
+		int[] starts = chapterStarts(book, chapter);
+		if (starts == null || starts[chapter] == starts[chapter + 1]) {
+			return -1;
+		}
+		return Reference.verseOf(ordinals[starts[chapter + 1] - 1]);
+	}
+
+	/**
+	 * @param book the book.
+	 * @return the index of the first verse of the book (the number of verses before it), or -1 if the book is null or
+	 *         has no verses.
+	 */
+	public int getFirstIndex(BookOfBible book) {
+		if (getNumberOfVerses(book) == 0) {
+			return -1;
+		}
+		return bookStart[book.ordinal()];
+	}
+
+	/**
+	 * @param book the book.
+	 * @param chapter the chapter.
+	 * @return the index of the first verse of the chapter (the number of verses before it), or -1 if the chapter has
+	 *         no verses.
+	 */
+	public int getFirstIndex(BookOfBible book, int chapter) {
+		if (getNumberOfVerses(book, chapter) == 0) {
+			return -1;
+		}
+		return chapterStart[book.ordinal()][chapter];
+	}
+
+	// The chapter table of the book if it has an entry for the chapter, or null if not.
+	private int[] chapterStarts(BookOfBible book, int chapter) {
+		if (book == null) {
+			return null;
+		}
+		int[] starts = chapterStart[book.ordinal()];
+		if (starts == null || chapter < 0 || chapter >= starts.length - 1) {
+			return null;
+		}
+		return starts;
+	}
+
+	// ---------------------------------------------------------------------------------------------
+	// Indexes.
+
+	/**
+	 * @param ref a reference.
+	 * @return true if and only if ref is one of the verses.
+	 */
+	public boolean isValid(Reference ref) {
+		return ref != null && indexOf(ref.getOrdinal()) != -1;
+	}
+
+	/**
+	 * @param ref a reference.
+	 * @return the index of the verse with the given reference, or -1 if there isn't one.
+	 */
+	public int indexOf(Reference ref) {
+		if (ref == null) {
+			return -1;
+		}
+		return indexOf(ref.getOrdinal());
+	}
+
+	/**
+	 * Return the index of the verse with the given ordinal, or -1 if there isn't one. If the ordinal is repeated, this
+	 * is the first one. Verse numbers within a chapter are almost always 1, 2, 3, ... so the first guess is nearly
+	 * always right. If a version leaves a verse out we fall back to a binary search of that one chapter.
+	 *
+	 * @param ordinal a packed reference.
+	 * @return the index of the verse, or -1.
+	 */
+	public int indexOf(int ordinal) {
+		if (ordinal < 0) {
+			return -1;
+		}
+		int index = lowerBound(ordinal);
+		if (index < ordinals.length && ordinals[index] == ordinal) {
+			return index;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param index the index of a verse.
+	 * @return the packed reference of the verse.
+	 */
+	public int getOrdinal(int index) {
+		return ordinals[index];
+	}
+
+	/**
+	 * @param index the index of a verse.
+	 * @return the (canonical) reference of the verse.
+	 */
+	public Reference getReference(int index) {
+		return Reference.fromOrdinal(ordinals[index]);
+	}
+
+	/**
+	 * @param ref a reference. It does not have to be one of the verses.
+	 * @return the index of the first verse at or after ref. This is getNumberOfVerses() if there isn't one.
+	 */
+	public int firstIndexFrom(Reference ref) {
+		return lowerBound(searchKey(ref));
+	}
+
+	/**
+	 * @param ref a reference. It does not have to be one of the verses.
+	 * @return the index of the first verse that comes after ref. This is getNumberOfVerses() if there isn't one.
+	 */
+	public int firstIndexAfter(Reference ref) {
+		int ordinal = ref.getOrdinal();
+		if (ordinal != Reference.INVALID_ORDINAL) {
+			return lowerBound(ordinal + 1);
+		}
+		return lowerBound(searchKey(ref));
+	}
+
+	/*
+	 * Return the index of the first verse whose ordinal is key or larger.
+	 */
+	private int lowerBound(int key) {
+		int b = Reference.bookIndexOf(key);
+		if (b >= BOOKS.length) {
+			return ordinals.length;
+		}
+		int[] starts = chapterStart[b];
+		if (starts == null) {
+			return bookStart[b];
+		}
+		int c = Reference.chapterOf(key);
+		if (c >= starts.length - 1) {
+			return bookStart[b + 1];
+		}
+		int start = starts[c];
+		int end = starts[c + 1];
+		if (start == end || key <= ordinals[start]) {
+			return start;
+		}
+		// Both are in the same chapter, so the difference is the difference in verse numbers.
+		int guess = start + key - ordinals[start];
+		if (guess < end && ordinals[guess] == key && ordinals[guess - 1] != key) {
+			return guess;
+		}
+		// Arrays.binarySearch doesn't promise which of several equal values it finds, so do it by hand.
+		int low = start;
+		int high = end;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (ordinals[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/*
+	 * Turn a reference into a key for lowerBound. For a reference r, every verse v has v >= r exactly when v's
+	 * ordinal >= key. References that are too big (or too small) to pack are clamped to the nearest ordinal that sorts
+	 * the same way.
+	 */
+	private static int searchKey(Reference ref) {
+		BookOfBible book = ref.getBookOfBible();
+		if (book == null) {
+			return 0;
+		}
+		int b = book.ordinal();
+		int chapter = ref.getChapter();
+		int verse = ref.getVerse();
+		if (chapter < 0) {
+			return b * Reference.BOOK_SPAN;
+		}
+		if (chapter > Reference.MAX_FIELD) {
+			return (b + 1) * Reference.BOOK_SPAN;
+		}
+		if (verse < 0) {
+			return Reference.toOrdinal(book, chapter, 0);
+		}
+		if (verse > Reference.MAX_FIELD) {
+			return Reference.toOrdinal(book, chapter, 0) + Reference.CHAPTER_SPAN;
+		}
+		return Reference.toOrdinal(book, chapter, verse);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (other instanceof Versification) {
+			return Arrays.equals(ordinals, ((Versification) other).ordinals);
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(ordinals);
+	}
+}
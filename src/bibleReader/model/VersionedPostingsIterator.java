@@ -0,0 +1,15 @@
+package bibleReader.model;
+
+/**
+ * A PostingsIterator over the verses of several versions at once, which can also say which of the versions the verse
+ * it is at came from (see MultiVersionConcordance).
+ *
+ * @author Trevor Palmatier
+ */
+public interface VersionedPostingsIterator extends PostingsIterator {
+	/**
+	 * @return the mask of the versions (bit v for version v) of the verse the iterator is at, or 0 before the first
+	 *         verse and after the last.
+	 */
+	public long versions();
+}
@@ -0,0 +1,184 @@
+package bibleReader.model;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * A PostingsList for several versions of the Bible at once. Each entry is the ordinal of a verse (see
+ * Reference.getOrdinal()) and a bitmask of the versions whose text of that verse has the word: bit v is set if version
+ * v (as numbered by MultiVersionConcordance) does. The ordinals are compressed the same way as in PostingsList, and
+ * each mask follows its ordinal as a variable length long, which is one byte for the first seven versions.
+ *
+ * @author Trevor Palmatier
+ */
+public final class VersionedPostingsList {
+	private static final int[]	NONE	= new int[0];
+
+	private final byte[]		data;
+	private final int			size;
+	// The same skip points as PostingsList has.
+	private final int[]			skipOrdinals;
+	private final int[]			skipOffsets;
+
+	private VersionedPostingsList(byte[] data, int size, int[] skipOrdinals, int[] skipOffsets) {
+		this.data = data;
+		this.size = size;
+		this.skipOrdinals = skipOrdinals;
+		this.skipOffsets = skipOffsets;
+	}
+
+	/**
+	 * Add one version's postings to a list.
+	 *
+	 * @param existing the list so far, or null if no version has the word yet.
+	 * @param added the postings of the version being added.
+	 * @param version the number of the version being added (0 to 63).
+	 * @return a new list with the entries of both. A verse in both gets the masks of both.
+	 */
+	static VersionedPostingsList merge(VersionedPostingsList existing, PostingsList added, int version) {
+		long bit = 1L << version;
+		int capacity = added.size() + (existing == null ? 0 : existing.size);
+		int[] ordinals = new int[capacity];
+		long[] masks = new long[capacity];
+		int count = 0;
+		Cursor old = existing == null ? null : existing.iterator();
+		int oldOrdinal = old == null ? PostingsIterator.NO_MORE_ORDINALS : old.next();
+		PostingsIterator adding = added.iterator();
+		int addOrdinal = adding.next();
+		while (oldOrdinal != PostingsIterator.NO_MORE_ORDINALS || addOrdinal != PostingsIterator.NO_MORE_ORDINALS) {
+			if (oldOrdinal < addOrdinal) {
+				ordinals[count] = oldOrdinal;
+				masks[count++] = old.versions();
+				oldOrdinal = old.next();
+			} else if (addOrdinal < oldOrdinal) {
+				ordinals[count] = addOrdinal;
+				masks[count++] = bit;
+				addOrdinal = adding.next();
+			} else {
+				ordinals[count] = oldOrdinal;
+				masks[count++] = old.versions() | bit;
+				oldOrdinal = old.next();
+				addOrdinal = adding.next();
+			}
+		}
+		return encode(ordinals, masks, count);
+	}
+
+	private static VersionedPostingsList encode(int[] ordinals, long[] masks, int count) {
+		int interval = PostingsList.SKIP_INTERVAL;
+		int blocks = count > interval ? (count + interval - 1) / interval : 0;
+		int[] skipOrdinals = blocks == 0 ? NONE : new int[blocks];
+		int[] skipOffsets = blocks == 0 ? NONE : new int[blocks];
+		ByteArrayOutputStream out = new ByteArrayOutputStream(2 * count + 8);
+		int previous = 0;
+		for (int i = 0; i < count; i++) {
+			if (blocks != 0 && i % interval == 0) {
+				skipOrdinals[i / interval] = previous;
+				skipOffsets[i / interval] = out.size();
+			}
+			PostingsList.writeVarInt(out, ordinals[i] - previous);
+			long mask = masks[i];
+			while ((mask & ~0x7FL) != 0) {
+				out.write((int) (mask & 0x7F) | 0x80);
+				mask >>>= 7;
+			}
+			out.write((int) mask);
+			previous = ordinals[i];
+		}
+		return new VersionedPostingsList(out.toByteArray(), count, skipOrdinals, skipOffsets);
+	}
+
+	/**
+	 * @return the number of verses that at least one version has the word in.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of bytes the compressed entries and the skip points take.
+	 */
+	public int getByteCount() {
+		return data.length + 4 * (skipOrdinals.length + skipOffsets.length);
+	}
+
+	/**
+	 * @return an iterator that starts before the first entry.
+	 */
+	public Cursor iterator() {
+		return new Cursor();
+	}
+
+	/**
+	 * A PostingsIterator that also has the versions mask of the entry it is at.
+	 */
+	public final class Cursor implements VersionedPostingsIterator {
+		private int		offset;
+		private int		index;
+		private int		current	= -1;
+		private long	versions;
+
+		private Cursor() {
+		}
+
+		/**
+		 * @return the mask of the versions that have the word in the verse the cursor is at (0 before the first entry
+		 *         and after the last).
+		 */
+		@Override
+		public long versions() {
+			return versions;
+		}
+
+		@Override
+		public int ordinal() {
+			return current;
+		}
+
+		@Override
+		public int next() {
+			if (index >= size) {
+				current = NO_MORE_ORDINALS;
+				versions = 0;
+				return current;
+			}
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data[offset++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			long mask = 0;
+			shift = 0;
+			do {
+				b = data[offset++];
+				mask |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			current = (index == 0 ? 0 : current) + delta;
+			versions = mask;
+			index++;
+			return current;
+		}
+
+		@Override
+		public int skipTo(int target) {
+			if (current >= target) {
+				return current;
+			}
+			int block = Arrays.binarySearch(skipOrdinals, target);
+			block = block >= 0 ? block - 1 : -block - 2;
+			if (block >= 0 && block * PostingsList.SKIP_INTERVAL > index) {
+				index = block * PostingsList.SKIP_INTERVAL;
+				offset = skipOffsets[block];
+				current = skipOrdinals[block];
+			}
+			while (current < target) {
+				next();
+			}
+			return current;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package bibleReader.model;
+
+import java.util.Arrays;
+
+/**
+ * The Tokenizer used by the concordance. It finds the same words Concordance.extractWords always has, but in one pass
+ * over the text, lowercasing as it goes, instead of lowercasing the whole verse, running two regular expressions over
+ * it, and splitting it. The rules are:
+ * <ul>
+ * <li>A word is a run of word characters. In ASCII mode those are a-z, A-Z, 0-9 and _ (what \w means in a regular
+ * expression). In Unicode mode they are any letter or digit, _, and combining marks that follow one of those.</li>
+ * <li>Commas are dropped, so "1,000" is the word "1000".</li>
+ * <li>'s (with either kind of apostrophe), HTML character references like &amp;#8217;, and ESV footnote markers like
+ * &lt;sup&gt;a&lt;/sup&gt; separate words and are not part of any.</li>
+ * <li>Everything else separates words.</li>
+ * </ul>
+ * A WordTokenizer doesn't have any state, so ASCII and UNICODE can be used by any number of threads.
+ *
+ * @author Trevor Palmatier
+ */
+public final class WordTokenizer implements Tokenizer {
+
+	/**
+	 * Words are made of ASCII letters, digits, and underscores. This is what Concordance.extractWords does.
+	 */
+	public static final WordTokenizer	ASCII	= new WordTokenizer(false);
+
+	/**
+	 * Words are made of letters and digits in any alphabet (and underscores). Use this for versions that aren't in
+	 * English, which ASCII would break up at every accented letter.
+	 */
+	public static final WordTokenizer	UNICODE	= new WordTokenizer(true);
+
+	private final boolean				unicode;
+
+	private WordTokenizer(boolean unicode) {
+		this.unicode = unicode;
+	}
+
+	/**
+	 * @return true if this tokenizer allows letters and digits from any alphabet in words.
+	 */
+	public boolean isUnicode() {
+		return unicode;
+	}
+
+	@Override
+	public void tokenize(String text, TokenHandler handler) {
+		char[] buffer = new char[Math.max(16, Math.min(text.length(), 64))];
+		int length = 0;
+		int start = 0;
+		int end = 0;
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			int skip = separatorLength(text, i);
+			if (skip > 0) {
+				i += skip;
+			} else if (c == ',') {
+				// Commas are removed, so they don't end a word.
+				i++;
+				continue;
+			} else if (!unicode && c < 0x80 ? isAsciiWordChar(c) : isWordChar(text, i, length > 0)) {
+				if (length == 0) {
+					start = i;
+				}
+				if (length + 2 > buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+				int codePoint = text.codePointAt(i);
+				i += Character.charCount(codePoint);
+				end = i;
+				if (codePoint == '\u0130') {
+					// String.toLowerCase makes this "i" and a combining dot, which ASCII mode doesn't count as part
+					// of a word.
+					buffer[length++] = 'i';
+					if (unicode) {
+						buffer[length++] = '\u0307';
+					} else {
+						handler.token(buffer, length, start, end);
+						length = 0;
+					}
+				} else {
+					length += Character.toChars(Character.toLowerCase(codePoint), buffer, length);
+				}
+				continue;
+			} else {
+				i++;
+			}
+			if (length > 0) {
+				handler.token(buffer, length, start, end);
+				length = 0;
+			}
+		}
+		if (length > 0) {
+			handler.token(buffer, length, start, end);
+		}
+	}
+
+	private static boolean isAsciiWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	/*
+	 * Is the character at i part of a word? In ASCII mode this is only true for non-ASCII characters that lowercase to
+	 * an ASCII letter (the Kelvin sign, and capital I with a dot).
+	 */
+	private boolean isWordChar(String text, int i, boolean inWord) {
+		int codePoint = text.codePointAt(i);
+		if (!unicode) {
+			int lower = Character.toLowerCase(codePoint);
+			return codePoint == '\u0130' || (lower < 0x80 && isAsciiWordChar((char) lower));
+		}
+		return Character.isLetterOrDigit(codePoint) || codePoint == '_'
+				|| (inWord && Character.getType(codePoint) == Character.NON_SPACING_MARK);
+	}
+
+	/*
+	 * If the text at i starts with something that is removed and separates words ('s, a character reference, or a
+	 * footnote marker), return its length. Otherwise return 0.
+	 */
+	private int separatorLength(String text, int i) {
+		char c = text.charAt(i);
+		if (c == '\'' || c == '\u2019' || c == '\u0092') {
+			// 0x92 is the right single quote in Windows-1252, and that is what it turns into if such a file is read
+			// as Latin-1.
+			if (i + 1 < text.length() && Character.toLowerCase(text.charAt(i + 1)) == 's') {
+				return 2;
+			}
+		} else if (c == '&') {
+			if (i + 1 < text.length() && text.charAt(i + 1) == '#') {
+				int j = skipWordChars(text, i + 2, false);
+				if (j < text.length() && text.charAt(j) == ';') {
+					return j + 1 - i;
+				}
+			}
+		} else if (c == '<') {
+			if (startsWithLowercased(text, i, "<sup>")) {
+				int j = skipWordChars(text, i + 5, true);
+				if (startsWithLowercased(text, j, "</sup>")) {
+					return j + 6 - i;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/*
+	 * Does the text at i, lowercased, start with the (lowercase) string?
+	 */
+	private static boolean startsWithLowercased(String text, int i, String string) {
+		if (i + string.length() > text.length()) {
+			return false;
+		}
+		for (int k = 0; k < string.length(); k++) {
+			if (Character.toLowerCase(text.charAt(i + k)) != string.charAt(k)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Return the index of the first character at or after i that isn't a word character (or a comma, if commas is
+	 * true).
+	 */
+	private int skipWordChars(String text, int i, boolean commas) {
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			if (!(commas && c == ',') && !(c < 0x80 ? isAsciiWordChar(c) : c != '\u0130' && isWordChar(text, i, true))) {
+				break;
+			}
+			i += Character.charCount(text.codePointAt(i));
+		}
+		return i;
+	}
+}
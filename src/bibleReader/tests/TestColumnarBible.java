@@ -0,0 +1,137 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleFactory;
+import bibleReader.model.BibleImplementation;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.ColumnarBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for ColumnarBible. Most of them check that it gives the same answers as TreeMapBible on a small Bible that has
+ * a missing verse, a missing chapter, and a few books.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestColumnarBible {
+	@Rule
+	public Timeout globalTimeout = new Timeout(1000);
+
+	private VerseList	verses;
+	private Bible		columnar;
+	private Bible		treeMap;
+
+	@Before
+	public void setUp() throws Exception {
+		verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 3; chapter++) {
+			for (int verse = 1; verse <= 5; verse++) {
+				verses.add(new Verse(BookOfBible.Ruth, chapter, verse, "Ruth " + chapter + " " + verse + " Naomi"));
+			}
+		}
+		// Ruth 4 is missing entirely. John 3 is missing verse 3.
+		for (int verse = 1; verse <= 6; verse++) {
+			if (verse != 3) {
+				verses.add(new Verse(BookOfBible.John, 3, verse, "John three " + verse + " God so loved"));
+			}
+		}
+		verses.add(new Verse(BookOfBible.John, 4, 1, "John four one"));
+		verses.add(new Verse(BookOfBible.Jude, 1, 25, "To the only God"));
+		columnar = BibleFactory.createBible(verses, BibleImplementation.COLUMNAR);
+		treeMap = new TreeMapBible(verses);
+	}
+
+	@Test
+	public void testBasics() {
+		assertEquals(treeMap.getNumberOfVerses(), columnar.getNumberOfVerses());
+		assertEquals("TST", columnar.getVersion());
+		assertEquals("A Test Bible", columnar.getTitle());
+		assertEquals(treeMap.getAllVerses(), columnar.getAllVerses());
+	}
+
+	@Test
+	public void testLookups() {
+		assertEquals(treeMap.getVerse(BookOfBible.John, 3, 4), columnar.getVerse(BookOfBible.John, 3, 4));
+		assertEquals("John three 6 God so loved", columnar.getVerseText(new Reference(BookOfBible.John, 3, 6)));
+		assertNull(columnar.getVerse(BookOfBible.John, 3, 3));
+		assertNull(columnar.getVerse(BookOfBible.Ruth, 4, 1));
+		assertNull(columnar.getVerseText(new Reference(BookOfBible.Dummy, 1, 1)));
+		assertTrue(columnar.isValid(new Reference(BookOfBible.Jude, 1, 25)));
+		assertFalse(columnar.isValid(new Reference(BookOfBible.Jude, 1, 24)));
+		assertFalse(columnar.isValid(new Reference(BookOfBible.Genesis, 1000, 1)));
+	}
+
+	@Test
+	public void testPassagesMatchTreeMapBible() {
+		assertEquals(treeMap.getBook(BookOfBible.Ruth), columnar.getBook(BookOfBible.Ruth));
+		assertEquals(treeMap.getChapter(BookOfBible.John, 3), columnar.getChapter(BookOfBible.John, 3));
+		assertEquals(treeMap.getChapters(BookOfBible.Ruth, 2, 4), columnar.getChapters(BookOfBible.Ruth, 2, 4));
+		assertEquals(treeMap.getPassage(BookOfBible.John, 3, 2, 5), columnar.getPassage(BookOfBible.John, 3, 2, 5));
+		assertEquals(treeMap.getPassage(BookOfBible.Ruth, 2, 3, 3, 2),
+				columnar.getPassage(BookOfBible.Ruth, 2, 3, 3, 2));
+		assertEquals(treeMap.getPassage(BookOfBible.Ruth, 3, 2, 2, 3),
+				columnar.getPassage(BookOfBible.Ruth, 3, 2, 2, 3));
+		assertEquals(treeMap.getReferencesForPassage(BookOfBible.John, 3, 0, 300),
+				columnar.getReferencesForPassage(BookOfBible.John, 3, 0, 300));
+		assertEquals(treeMap.getReferencesInclusive(new Reference(BookOfBible.Ruth, 3, 4),
+				new Reference(BookOfBible.Jude, 1, 1)),
+				columnar.getReferencesInclusive(new Reference(BookOfBible.Ruth, 3, 4),
+						new Reference(BookOfBible.Jude, 1, 1)));
+		assertEquals(treeMap.getReferencesExclusive(new Reference(BookOfBible.Ruth, 1, 5),
+				new Reference(BookOfBible.Ruth, 500, 1)),
+				columnar.getReferencesExclusive(new Reference(BookOfBible.Ruth, 1, 5),
+						new Reference(BookOfBible.Ruth, 500, 1)));
+		assertEquals(0, columnar.getBook(BookOfBible.Genesis).size());
+		assertEquals(0, columnar.getReferencesForBook(null).size());
+	}
+
+	@Test
+	public void testLastNumbers() {
+		assertEquals(5, columnar.getLastVerseNumber(BookOfBible.Ruth, 3));
+		assertEquals(6, columnar.getLastVerseNumber(BookOfBible.John, 3));
+		assertEquals(-1, columnar.getLastVerseNumber(BookOfBible.Ruth, 4));
+		assertEquals(3, columnar.getLastChapterNumber(BookOfBible.Ruth));
+		assertEquals(4, columnar.getLastChapterNumber(BookOfBible.John));
+		assertEquals(-1, columnar.getLastChapterNumber(BookOfBible.Genesis));
+		assertEquals(-1, columnar.getLastChapterNumber(null));
+	}
+
+	@Test
+	public void testSearch() {
+		assertEquals(treeMap.getReferencesContaining("naomi"), columnar.getReferencesContaining("naomi"));
+		assertEquals(treeMap.getVersesContaining("GOD SO"), columnar.getVersesContaining("GOD SO"));
+		assertEquals(0, columnar.getReferencesContaining("").size());
+		assertEquals(0, columnar.getReferencesContaining(null).size());
+	}
+
+	@Test
+	public void testUnsortedAndRepeatedVerses() {
+		VerseList messy = new VerseList("TST", "Messy");
+		messy.add(new Verse(BookOfBible.John, 1, 2, "second"));
+		messy.add(new Verse(BookOfBible.Genesis, 1, 1, "first"));
+		messy.add(new Verse(BookOfBible.John, 1, 2, "second again"));
+		Bible bible = new ColumnarBible(messy);
+		assertEquals(2, bible.getNumberOfVerses());
+		assertEquals(new Reference(BookOfBible.Genesis, 1, 1), bible.getAllVerses().get(0).getReference());
+		assertEquals("second again", bible.getVerseText(new Reference(BookOfBible.John, 1, 2)));
+	}
+}
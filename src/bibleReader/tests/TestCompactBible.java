@@ -0,0 +1,99 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleFactory;
+import bibleReader.model.BibleImplementation;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.CompactBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for CompactBible, mostly its searches, which are done on bytes instead of Strings. Each test checks that it
+ * gets the same answers as TreeMapBible.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestCompactBible {
+	@Rule
+	public Timeout		globalTimeout	= new Timeout(1000);
+
+	private VerseList	latin1;
+	private VerseList	unicode;
+
+	@Before
+	public void setUp() throws Exception {
+		// Every character of these fits in Latin-1.
+		latin1 = new VerseList("TST", "Latin-1");
+		latin1.add(new Verse(BookOfBible.Genesis, 1, 1, "In the beginning God created the heaven and the earth."));
+		latin1.add(new Verse(BookOfBible.Genesis, 1, 2, "And the earth was without form, and void; AND DARKNESS."));
+		latin1.add(new Verse(BookOfBible.Genesis, 1, 3, "Et Dieu dit: Que la lumi\u00e8re soit! Et la LUMI\u00c8RE fut."));
+		latin1.add(new Verse(BookOfBible.Genesis, 1, 4, "and"));
+
+		// These need UTF-8.
+		unicode = new VerseList("TST", "Unicode");
+		unicode.add(new Verse(BookOfBible.John, 1, 1, "In the beginning was the Word \u2019and the Word\u2019 was with God"));
+		unicode.add(new Verse(BookOfBible.John, 1, 2, "\u1f10\u03bd \u1f00\u03c1\u03c7\u1fc7 \u1f26\u03bd \u1f41 \u03bb\u03cc\u03b3\u03bf\u03c2"));
+		unicode.add(new Verse(BookOfBible.John, 1, 3, "It was 300 \u212a and \u0130stanbul"));
+		unicode.add(new Verse(BookOfBible.John, 1, 4, "It was 300 K"));
+	}
+
+	private void assertSameSearch(VerseList verses, String phrase) {
+		Bible treeMap = new TreeMapBible(verses);
+		Bible compact = BibleFactory.createBible(verses, BibleImplementation.COMPACT);
+		assertEquals(phrase, treeMap.getReferencesContaining(phrase), compact.getReferencesContaining(phrase));
+		assertEquals(phrase, treeMap.getVersesContaining(phrase), compact.getVersesContaining(phrase));
+	}
+
+	@Test
+	public void testTextRoundTrips() {
+		for (VerseList verses : new VerseList[] { latin1, unicode }) {
+			Bible compact = new CompactBible(verses);
+			assertEquals(new TreeMapBible(verses).getAllVerses(), compact.getAllVerses());
+		}
+		Bible compact = new CompactBible(unicode);
+		assertEquals("It was 300 K", compact.getVerseText(new Reference(BookOfBible.John, 1, 4)));
+	}
+
+	@Test
+	public void testAsciiSearchIgnoresCase() {
+		for (String phrase : new String[] { "and", "AND", "the earth", "In the", "darkness.", "et dieu", "x", ".",
+				"and the earth was without form, and void; and darkness." }) {
+			assertSameSearch(latin1, phrase);
+		}
+		for (String phrase : new String[] { "and the word", "god", "was", "o" }) {
+			assertSameSearch(unicode, phrase);
+		}
+	}
+
+	@Test
+	public void testNonAsciiSearch() {
+		assertSameSearch(latin1, "lumi\u00e8re");
+		assertSameSearch(latin1, "LUMI\u00c8RE");
+		assertSameSearch(unicode, "\u2019and");
+		assertSameSearch(unicode, "\u03bb\u03cc\u03b3\u03bf\u03c2");
+	}
+
+	@Test
+	public void testCharactersThatLowercaseToAscii() {
+		// The Kelvin sign lowercases to "k", and a capital I with a dot lowercases to "i" and a combining dot.
+		assertSameSearch(unicode, "300 k");
+		assertSameSearch(unicode, "i");
+		assertSameSearch(unicode, "and i");
+	}
+}
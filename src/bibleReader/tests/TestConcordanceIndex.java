@@ -0,0 +1,175 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import bibleReader.BibleIO;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+import bibleReader.model.WordTokenizer;
+
+/**
+ * Tests for saving a Concordance to an index file and loading it again.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestConcordanceIndex {
+	@Rule
+	public Timeout			globalTimeout	= new Timeout(5000);
+
+	@Rule
+	public TemporaryFolder	folder			= new TemporaryFolder();
+
+	private VerseList		verses;
+	private Bible			bible;
+
+	@Before
+	public void setUp() throws Exception {
+		verses = new VerseList("TST", "A Test Bible");
+		String[] sentences = { "In the beginning was the Word", "and the light shineth in darkness",
+				"The Word was made flesh", "and God said, Let there be light: and there was light" };
+		int count = 0;
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.Genesis, BookOfBible.Psalms, BookOfBible.John }) {
+			for (int chapter = 1; chapter <= 10; chapter++) {
+				for (int verse = 1; verse <= 20; verse++) {
+					verses.add(new Verse(book, chapter, verse, sentences[count++ % sentences.length] + " " + count));
+				}
+			}
+		}
+		bible = new TreeMapBible(verses);
+	}
+
+	private void assertSameConcordance(Concordance expected, Concordance actual) {
+		assertEquals(expected.getWords(), actual.getWords());
+		for (String word : expected.getWords()) {
+			assertEquals(word, expected.getOrdinalsContaining(word), actual.getOrdinalsContaining(word));
+		}
+		assertEquals(expected.hasPositions(), actual.hasPositions());
+		if (expected.hasPositions()) {
+			for (String phrase : new String[] { "the word", "let there be light", "in the beginning", "was light" }) {
+				assertEquals(phrase, expected.getOrdinalsContainingPhrase(phrase),
+						actual.getOrdinalsContainingPhrase(phrase));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		for (boolean positions : new boolean[] { false, true }) {
+			Concordance concordance = new Concordance(bible, positions);
+			File file = folder.newFile("test" + positions + ".idx");
+			concordance.write(file, 1234L);
+			Concordance read = Concordance.read(file, 1234L);
+			assertSameConcordance(concordance, read);
+			ArrayList<String> words = new ArrayList<String>(Arrays.asList("light", "darkness"));
+			assertEquals(concordance.getOrdinalsContainingAll(words), read.getOrdinalsContainingAll(words));
+		}
+	}
+
+	@Test
+	public void testWrongFingerprint() throws IOException {
+		File file = folder.newFile("test.idx");
+		new Concordance(bible, true).write(file, 1234L);
+		assertNull(Concordance.read(file, 1235L));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAnIndexFile() throws IOException {
+		File file = folder.newFile("test.idx");
+		BibleIO.writeText(file, "This is not an index.");
+		Concordance.read(file, 0L);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		File file = folder.newFile("test.idx");
+		new Concordance(bible, true).write(file, 1234L);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() / 2);
+		}
+		Concordance.read(file, 1234L);
+	}
+
+	@Test
+	public void testTokenizerAndPositionsAreChecked() throws IOException {
+		File file = folder.newFile("test.idx");
+		new Concordance(bible, true, null, WordTokenizer.UNICODE).write(file, 1234L);
+		assertNull(Concordance.read(file, 1234L, WordTokenizer.ASCII, true));
+		assertNull(Concordance.read(file, 1234L, WordTokenizer.UNICODE, false));
+		assertTrue(Concordance.read(file, 1234L, WordTokenizer.UNICODE, true).hasPositions());
+		assertEquals(WordTokenizer.UNICODE, Concordance.read(file, 1234L).getTokenizer());
+	}
+
+	// Write a concordance of one verse, change the byte at offset, and read it back.
+	private void readDamaged(boolean positions, int offset, int value) throws IOException {
+		VerseList one = new VerseList("TST", "A Test Bible");
+		one.add(new Verse(BookOfBible.Genesis, 1, 1, "light"));
+		File file = folder.newFile("damaged.idx");
+		new Concordance(new TreeMapBible(one), positions).write(file, 1234L);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(offset);
+			raf.write(value);
+		}
+		Concordance.read(file, 1234L);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedPostings() throws IOException {
+		// The postings bytes start at byte 42, with the ordinal of Genesis 1:1 in two bytes and then its frequency. With
+		// the high bit of its second byte set, the ordinal runs into the frequency.
+		readDamaged(false, 43, 0x82);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedPositions() throws IOException {
+		// The positions bytes start at byte 64 with the ordinal, which then doesn't match the postings.
+		readDamaged(true, 64, 0x82);
+	}
+
+	@Test
+	public void testReadConcordanceBuildsThenReuses() throws IOException {
+		File bibleFile = new File(folder.getRoot(), "test.atv");
+		File indexFile = new File(folder.getRoot(), "test.atv.idx");
+		BibleIO.writeVersesATV(bibleFile, "TST: A Test Bible", verses);
+		assertFalse(indexFile.exists());
+
+		Concordance built = BibleIO.readConcordance(bibleFile, bible);
+		assertTrue(indexFile.exists());
+		assertSameConcordance(new Concordance(bible, true), built);
+		assertSameConcordance(built, Concordance.read(indexFile, BibleIO.fingerprint(bibleFile)));
+
+		// Change the Bible file. The old index must not be used.
+		VerseList changed = new VerseList("TST", "A Test Bible");
+		changed.add(new Verse(BookOfBible.Ruth, 1, 1, "Now it came to pass in the days when the judges ruled"));
+		BibleIO.writeVersesATV(bibleFile, "TST: A Test Bible", changed);
+		Bible changedBible = new TreeMapBible(changed);
+		Concordance rebuilt = BibleIO.readConcordance(bibleFile, changedBible);
+		assertEquals(0, rebuilt.getOrdinalsContaining("light").size());
+		assertEquals(1, rebuilt.getOrdinalsContaining("judges").size());
+		assertSameConcordance(rebuilt, Concordance.read(indexFile, BibleIO.fingerprint(bibleFile)));
+	}
+}
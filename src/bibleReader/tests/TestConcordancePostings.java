@@ -0,0 +1,117 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for the postings of Concordance: the answers of getReferencesContainingAll are checked against a slow but
+ * obviously correct search of every verse.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestConcordancePostings {
+	@Rule
+	public Timeout				globalTimeout	= new Timeout(5000);
+
+	private static final String[]	WORDS		= { "the", "and", "of", "lord", "god", "light", "rare", "darkness" };
+
+	private Bible				bible;
+	private Concordance			concordance;
+
+	@Before
+	public void setUp() throws Exception {
+		// Words near the front of WORDS are used much more often than the ones at the end.
+		Random random = new Random(2020);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.Genesis, BookOfBible.Psalms, BookOfBible.John }) {
+			for (int chapter = 1; chapter <= 30; chapter++) {
+				for (int verse = 1; verse <= 30; verse++) {
+					StringBuilder text = new StringBuilder();
+					for (int w = 0; w < 8; w++) {
+						int index = Math.min(WORDS.length - 1, (int) Math.abs(random.nextGaussian() * 2.5));
+						text.append(WORDS[index]).append(' ');
+					}
+					verses.add(new Verse(book, chapter, verse, text.toString().trim()));
+				}
+			}
+		}
+		bible = new TreeMapBible(verses);
+		concordance = new Concordance(bible);
+	}
+
+	private ArrayList<Reference> slowSearch(ArrayList<String> words) {
+		ArrayList<Reference> results = new ArrayList<Reference>();
+		for (Verse verse : bible.getAllVerses()) {
+			ArrayList<String> verseWords = Concordance.extractWords(verse.getText());
+			boolean all = true;
+			for (String word : words) {
+				all = all && verseWords.contains(word.toLowerCase());
+			}
+			if (all) {
+				results.add(verse.getReference());
+			}
+		}
+		return results;
+	}
+
+	@Test
+	public void testSingleWords() {
+		for (String word : WORDS) {
+			assertEquals(word, slowSearch(new ArrayList<String>(Arrays.asList(word))),
+					concordance.getReferencesContaining(word));
+		}
+		assertEquals(0, concordance.getReferencesContaining("missing").size());
+	}
+
+	@Test
+	public void testRandomWordSets() {
+		Random random = new Random(42);
+		for (int trial = 0; trial < 200; trial++) {
+			ArrayList<String> words = new ArrayList<String>();
+			int count = 1 + random.nextInt(4);
+			for (int i = 0; i < count; i++) {
+				String word = WORDS[random.nextInt(WORDS.length)];
+				words.add(random.nextBoolean() ? word : word.toUpperCase());
+			}
+			assertEquals(words.toString(), slowSearch(words), concordance.getReferencesContainingAll(words));
+			assertEquals(words.toString(), slowSearch(words), concordance.getOrdinalsContainingAll(words).toReferences());
+		}
+	}
+
+	@Test
+	public void testMissingAndEmpty() {
+		assertEquals(0, concordance.getReferencesContainingAll(new ArrayList<String>(Arrays.asList("the", "missing")))
+				.size());
+		assertEquals(0, concordance.getReferencesContainingAll(new ArrayList<String>()).size());
+	}
+
+	@Test
+	public void testResultsAreCopies() {
+		ArrayList<String> words = new ArrayList<String>(Arrays.asList("rare"));
+		int size = concordance.getReferencesContainingAll(words).size();
+		concordance.getReferencesContainingAll(words).clear();
+		assertEquals(size, concordance.getReferencesContainingAll(words).size());
+	}
+}
@@ -0,0 +1,124 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.ColumnarBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for searching the lowercased text of the Bibles that don't have an index (FoldedText), which are checked
+ * against lowercasing each verse and using contains.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestFoldedText {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	// Characters that take one, two, and three bytes, ones that change length or turn into ASCII when they are
+	// lowercased, the two halves of a surrogate pair (which also show up on their own), and the largest char.
+	private static final String		LETTERS			= "aAb \u00FF\u00DF\u0130\u212A\u07FF\u0800\uD835\uDC00\uFFFF";
+
+	private static String randomText(Random random, int length) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			text.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testSameAsContains() {
+		Random random = new Random(18);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 10; chapter++) {
+			for (int verse = 1; verse <= 20; verse++) {
+				verses.add(new Verse(BookOfBible.Jude, chapter, verse, randomText(random, random.nextInt(25))));
+			}
+		}
+		// A verse number too big to pack into an ordinal, which is left out.
+		VerseList unpackable = new VerseList("TST", "A Test Bible");
+		for (Verse verse : verses) {
+			unpackable.add(verse);
+		}
+		unpackable.add(20, new Verse(BookOfBible.Jude, 1, 300, randomText(random, 20)));
+		Bible[] bibles = { new ArrayListBible(verses), new TreeMapBible(verses), new TreeMapBible(unpackable),
+				new ColumnarBible(unpackable) };
+		for (int trial = 0; trial < 200; trial++) {
+			String phrase = randomText(random, 1 + random.nextInt(4));
+			String phraseLower = phrase.toLowerCase();
+			for (Bible bible : bibles) {
+				ArrayList<Reference> expected = new ArrayList<Reference>();
+				for (Verse verse : verses) {
+					if (verse.getText().toLowerCase().contains(phraseLower)) {
+						expected.add(verse.getReference());
+					}
+				}
+				assertEquals(phrase, expected, bible.getReferencesContaining(phrase));
+				assertEquals(phrase, expected.size(), bible.getVersesContaining(phrase).size());
+			}
+		}
+	}
+
+	@Test
+	public void testCharacters() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		String[] texts = { "Stra\u00DFe", "STRASSE", "\u212Aing", "\u0130srael", "\uD835\uDC00", "\u00FF", "\u07FF" };
+		for (int i = 0; i < texts.length; i++) {
+			verses.add(new Verse(BookOfBible.Jude, 1, i + 1, texts[i]));
+		}
+		for (Bible bible : new Bible[] { new ArrayListBible(verses), new TreeMapBible(verses),
+				new ColumnarBible(verses) }) {
+			// A sharp s stays one character, so it isn't "ss".
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 1)), bible.getReferencesContaining("\u00DF"));
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 2)), bible.getReferencesContaining("sse"));
+			// The Kelvin sign lowercases to a plain k, and capital I with a dot to an i and a combining dot.
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 3)), bible.getReferencesContaining("KING"));
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 4)),
+					bible.getReferencesContaining("i\u0307s"));
+			assertEquals(0, bible.getReferencesContaining("isr").size());
+			// Half of a surrogate pair is found on its own.
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 5)), bible.getReferencesContaining("\uDC00"));
+			// These share their last byte, but not their first.
+			assertEquals(Arrays.asList(new Reference(BookOfBible.Jude, 1, 6)), bible.getReferencesContaining("\u00FF"));
+			assertEquals(0, bible.getReferencesContaining("\u00BF").size());
+			assertEquals(0, bible.getReferencesContaining("STRASSE, and more").size());
+		}
+	}
+
+	@Test
+	public void testVerseEnds() {
+		VerseList verses = new VerseList("KJV", "A Test Bible");
+		verses.add(new Verse(BookOfBible.John, 11, 35, "Jesus wept."));
+		verses.add(new Verse(BookOfBible.John, 11, 36, "Then said the Jews, Behold how he loved him!"));
+		verses.add(new Verse(BookOfBible.John, 11, 37, ""));
+		for (Bible bible : new Bible[] { new ArrayListBible(verses), new TreeMapBible(verses),
+				new ColumnarBible(verses) }) {
+			assertEquals(0, bible.getReferencesContaining("wept.then").size());
+			assertEquals(0, bible.getReferencesContaining("wept. then").size());
+			assertEquals(2, bible.getReferencesContaining("E").size());
+			assertEquals(1, bible.getReferencesContaining("HIM!").size());
+			assertEquals(2, bible.getReferencesContaining("j").size());
+		}
+	}
+}
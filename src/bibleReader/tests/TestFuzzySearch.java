@@ -0,0 +1,195 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.Reference;
+import bibleReader.model.TermDictionary;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+import bibleReader.model.WordTokenizer;
+
+/**
+ * Tests for finding words that are close to a mistyped one, and for the suggestions made from them.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestFuzzySearch {
+	@Rule
+	public Timeout	globalTimeout	= new Timeout(5000);
+
+	private static int distance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				if (i == 0 || j == 0) {
+					d[i][j] = i + j;
+				} else {
+					int change = d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+					d[i][j] = Math.min(change, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+
+	private static String randomWord(Random random, int maxLength) {
+		StringBuilder word = new StringBuilder();
+		int length = 1 + random.nextInt(maxLength);
+		for (int i = 0; i < length; i++) {
+			word.append((char) ('a' + random.nextInt(6)));
+		}
+		return word.toString();
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random random = new Random(8);
+		TreeSet<String> words = new TreeSet<String>();
+		for (int i = 0; i < 1500; i++) {
+			words.add(randomWord(random, 7));
+		}
+		words.add("");
+		TermDictionary dictionary = TermDictionary.of(words);
+		for (int trial = 0; trial < 80; trial++) {
+			String term = random.nextInt(10) == 0 ? "" : randomWord(random, 8);
+			for (int edits = 0; edits <= TermDictionary.MAX_EDITS; edits++) {
+				ArrayList<String> expected = new ArrayList<String>();
+				for (String word : words) {
+					if (distance(word, term) <= edits) {
+						expected.add(word);
+					}
+				}
+				assertEquals(term + " " + edits, expected, dictionary.getTermsWithin(term, edits));
+			}
+		}
+	}
+
+	@Test
+	public void testEdits() {
+		TermDictionary dictionary = TermDictionary.of(Arrays.asList("", "a", "ab", "l", "light", "lights", "night",
+				"ilght", "lightning", "slight", "flight"));
+		assertEquals(Arrays.asList("light"), dictionary.getTermsWithin("light", 0));
+		// Putting in, taking out, and changing a letter are one edit each.
+		assertEquals(Arrays.asList("flight", "light", "lights", "night", "slight"),
+				dictionary.getTermsWithin("light", 1));
+		// Swapping two letters is two edits, and "lightning" is four letters longer.
+		assertEquals(Arrays.asList("flight", "ilght", "light", "lights", "night", "slight"),
+				dictionary.getTermsWithin("light", 2));
+		// The empty word is as many edits from a word as the word is long.
+		assertEquals(Arrays.asList("", "a", "l"), dictionary.getTermsWithin("", 1));
+		assertEquals(Arrays.asList("", "a", "ab", "l"), dictionary.getTermsWithin("", 2));
+		assertEquals(Arrays.asList("a", "ab"), dictionary.getTermsWithin("ab", 1));
+		assertEquals(0, dictionary.getTermsWithin("xyz", 2).size());
+		assertEquals(0, TermDictionary.EMPTY.getTermsWithin("", 2).size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooManyEdits() {
+		TermDictionary.EMPTY.getTermsWithin("word", TermDictionary.MAX_EDITS + 1);
+	}
+
+	@Test
+	public void testLargeVocabulary() {
+		// More words than several versions have together, and spread out more than English words are.
+		Random random = new Random(10);
+		TreeSet<String> words = new TreeSet<String>();
+		while (words.size() < 60000) {
+			StringBuilder word = new StringBuilder();
+			int length = 3 + random.nextInt(9);
+			for (int i = 0; i < length; i++) {
+				word.append((char) ('a' + random.nextInt(26)));
+			}
+			words.add(word.toString());
+		}
+		TermDictionary dictionary = TermDictionary.of(words);
+		String[] all = words.toArray(new String[words.size()]);
+		for (int trial = 0; trial < 200; trial++) {
+			String word = all[random.nextInt(all.length)];
+			String typo = word.substring(0, 1) + word.substring(2);
+			ArrayList<String> matches = dictionary.getTermsWithin(typo, 2);
+			assertTrue(typo, matches.contains(word));
+		}
+	}
+
+	@Test
+	public void testModelSuggestions() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Genesis, 1, 1, "In the beginning God created the heaven and the earth."));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 2, "And God said, Let there be light: and there was light."));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 3, "And God saw the light, that it was good."));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 4, "The night is far spent, the day is at hand."));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 5, "A lightly thing, and a sight to see."));
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(new TreeMapBible(verses));
+
+		// "ligt" is one edit from "light" and two from "night" and "sight". Only the closest are suggested.
+		assertEquals(Arrays.asList("light"), model.getSuggestions("Ligt", 5));
+		// "fight" is one edit from light, night and sight; light is in the most verses.
+		assertEquals(Arrays.asList("light", "night", "sight"), model.getSuggestions("fight", 5));
+		assertEquals(Arrays.asList("light"), model.getSuggestions("fight", 1));
+		assertEquals(0, model.getSuggestions("xyzzyq", 5).size());
+
+		ArrayList<Reference> expected = new ArrayList<Reference>();
+		expected.add(new Reference(BookOfBible.Genesis, 1, 2));
+		expected.add(new Reference(BookOfBible.Genesis, 1, 3));
+		expected.add(new Reference(BookOfBible.Genesis, 1, 4));
+		expected.add(new Reference(BookOfBible.Genesis, 1, 5));
+		assertEquals(expected, model.getReferencesContainingSimilarWord("fight", 1));
+		assertEquals(0, model.getReferencesContainingWord("begining").size());
+		assertEquals(0, model.getReferencesContainingSimilarWord("begining", 0).size());
+		assertEquals(Arrays.asList(new Reference(BookOfBible.Genesis, 1, 1)),
+				model.getReferencesContainingSimilarWord("begining", 1));
+
+		assertEquals("In the beginning god", model.getSuggestedSearch("In the begining Gd"));
+		assertNull(model.getSuggestedSearch("the light"));
+	}
+
+	@Test
+	public void testSuggestedSearchKeepsPunctuation() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Genesis, 2, 24, "and shall cleave unto his wife"));
+		verses.add(new Verse(BookOfBible.Genesis, 2, 25, "And they were both naked, the man and his wife"));
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(new TreeMapBible(verses));
+
+		assertEquals("\"cleave unto his wife\"", model.getSuggestedSearch("\"cleave unto his wfe\""));
+		assertEquals("(naked OR wife) AND NOT cleave,", model.getSuggestedSearch("(nakd OR wfe) AND NOT cleav,"));
+		assertEquals("man NEAR/3 wife", model.getSuggestedSearch("man NEAR/3 wfe"));
+		assertEquals("wif* man", model.getSuggestedSearch("wif* mn"));
+	}
+
+	@Test
+	public void testSuggestedSearchWithOtherLetters() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Malachi, 4, 5, "Voici, je vous enverrai \u00c9lie, le proph\u00e8te"));
+		Bible bible = new TreeMapBible(verses);
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(bible, new Concordance(bible, true, null, WordTokenizer.UNICODE));
+
+		// Words with accented letters are looked up and corrected whole.
+		assertNull(model.getSuggestedSearch("\u00c9lie proph\u00e8te"));
+		assertEquals("\u00e9lie, le proph\u00e8te", model.getSuggestedSearch("\u00e9lie, le proph\u00e8e"));
+	}
+}
@@ -0,0 +1,192 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.ImmutableBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for ImmutableBible. Most of these have many threads reading from one ImmutableBible at the same time and
+ * check that every one of them gets the same answers that a TreeMapBible gives to a single thread.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestImmutableBible {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(20000);
+
+	private static final int		THREADS			= 8;
+	private static final int		QUERIES			= 2000;
+	private static final BookOfBible[]	BOOKS		= { BookOfBible.Genesis, BookOfBible.Ruth, BookOfBible.Psalms,
+			BookOfBible.John, BookOfBible.Jude };
+	private static final String[]	WORDS			= { "light", "LIGHT", "word", "the", "was", "and the", "xyz" };
+
+	private VerseList				verses;
+	private Bible					expected;
+	private ExecutorService			pool;
+
+	@Before
+	public void setUp() throws Exception {
+		verses = new VerseList("TST", "A Test Bible");
+		String[] sentences = { "In the beginning was the Word", "and the light shineth in darkness",
+				"The Word was made flesh", "and God said, Let there be light: and there was light" };
+		int count = 0;
+		for (BookOfBible book : BOOKS) {
+			for (int chapter = 1; chapter <= 20; chapter++) {
+				for (int verse = 1; verse <= 25; verse++) {
+					verses.add(new Verse(book, chapter, verse, sentences[count++ % sentences.length] + " " + count));
+				}
+			}
+		}
+		expected = new TreeMapBible(verses);
+		pool = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdownNow();
+	}
+
+	/*
+	 * Ask the same random queries of both Bibles and return a description of the first difference, or null if there
+	 * aren't any.
+	 */
+	private String compareQueries(Bible bible, long seed) {
+		Random random = new Random(seed);
+		for (int q = 0; q < QUERIES; q++) {
+			BookOfBible book = BOOKS[random.nextInt(BOOKS.length)];
+			int chapter = 1 + random.nextInt(22);
+			int verse = 1 + random.nextInt(27);
+			Object want;
+			Object got;
+			switch (random.nextInt(7)) {
+			case 0:
+				want = expected.getVerse(book, chapter, verse);
+				got = bible.getVerse(book, chapter, verse);
+				break;
+			case 1:
+				want = expected.getChapter(book, chapter).copyVerses();
+				got = bible.getChapter(book, chapter).copyVerses();
+				break;
+			case 2:
+				want = expected.getReferencesForPassage(book, chapter, verse, verse + 5);
+				got = bible.getReferencesForPassage(book, chapter, verse, verse + 5);
+				break;
+			case 3:
+				String word = WORDS[random.nextInt(WORDS.length)];
+				want = expected.getReferencesContaining(word);
+				got = bible.getReferencesContaining(word);
+				break;
+			case 4:
+				want = expected.getLastVerseNumber(book, chapter);
+				got = bible.getLastVerseNumber(book, chapter);
+				break;
+			case 5:
+				Reference ref = new Reference(book, chapter, verse);
+				want = expected.isValid(ref) + " " + expected.getVerseText(ref);
+				got = bible.isValid(ref) + " " + bible.getVerseText(ref);
+				break;
+			default:
+				// Change the result. This must not change what anyone else sees.
+				VerseList bookVerses = bible.getBook(book);
+				want = expected.getBook(book).size();
+				got = bookVerses.size();
+				bookVerses.clear();
+				bookVerses.add(new Verse(BookOfBible.Dummy, 1, 1, "changed"));
+				break;
+			}
+			if (want == null ? got != null : !want.equals(got)) {
+				return "query " + q + " with seed " + seed + ": expected " + want + " but got " + got;
+			}
+		}
+		return null;
+	}
+
+	private void hammer(final Bible bible) throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int t = 0; t < THREADS; t++) {
+			final long seed = t;
+			results.add(pool.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					start.await();
+					return compareQueries(bible, seed);
+				}
+			}));
+		}
+		start.countDown();
+		for (Future<String> result : results) {
+			assertEquals(null, result.get(15, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void testSameAnswersAsTreeMapBible() {
+		assertEquals(null, compareQueries(new ImmutableBible(verses), 42));
+		assertEquals(expected.getAllVerses(), new ImmutableBible(verses).getAllVerses());
+	}
+
+	@Test
+	public void testManyReaders() throws Exception {
+		hammer(new ImmutableBible(verses));
+	}
+
+	@Test
+	public void testPublishedToAnotherThread() throws Exception {
+		// Create the Bible on one thread and read it on the others, the way it would be used with a thread pool.
+		Future<ImmutableBible> created = pool.submit(new Callable<ImmutableBible>() {
+			@Override
+			public ImmutableBible call() {
+				return new ImmutableBible(verses);
+			}
+		});
+		hammer(created.get());
+	}
+
+	@Test
+	public void testChangingTheSourceDoesNotChangeTheBible() {
+		Bible bible = new ImmutableBible(verses);
+		int size = bible.getNumberOfVerses();
+		verses.clear();
+		verses.add(new Verse(BookOfBible.Genesis, 1, 1, "changed"));
+		assertEquals(size, bible.getNumberOfVerses());
+		assertTrue(bible.getVerseText(new Reference(BookOfBible.Genesis, 1, 1)).startsWith("In the beginning"));
+	}
+
+	@Test
+	public void testCopyOf() {
+		ImmutableBible bible = ImmutableBible.copyOf(expected);
+		assertEquals(expected.getAllVerses(), bible.getAllVerses());
+		assertSame(bible, ImmutableBible.copyOf(bible));
+	}
+}
@@ -0,0 +1,115 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for the packed reference ordinals and the IntReferenceList class.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestIntReferenceList {
+	@Rule
+	public Timeout globalTimeout = new Timeout(1000);
+
+	@Test
+	public void testOrdinalRoundTrip() {
+		Reference ref = new Reference(BookOfBible.Psalms, 119, 176);
+		assertEquals(ref, Reference.fromOrdinal(ref.getOrdinal()));
+		assertEquals(BookOfBible.Psalms, Reference.bookOf(ref.getOrdinal()));
+		assertEquals(119, Reference.chapterOf(ref.getOrdinal()));
+		assertEquals(176, Reference.verseOf(ref.getOrdinal()));
+	}
+
+	@Test
+	public void testOrdinalOrderMatchesCompareTo() {
+		Reference[] refs = { new Reference(BookOfBible.Genesis, 1, 1), new Reference(BookOfBible.Genesis, 1, 31),
+				new Reference(BookOfBible.Genesis, 2, 1), new Reference(BookOfBible.Psalms, 150, 6),
+				new Reference(BookOfBible.Revelation, 22, 21), new Reference(BookOfBible.Dummy, 1, 1) };
+		for (int i = 0; i < refs.length; i++) {
+			for (int j = 0; j < refs.length; j++) {
+				assertEquals(Integer.signum(refs[i].compareTo(refs[j])),
+						Integer.signum(Integer.compare(refs[i].getOrdinal(), refs[j].getOrdinal())));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidOrdinals() {
+		assertEquals(Reference.INVALID_ORDINAL, new Reference(null, 1, 1).getOrdinal());
+		assertEquals(Reference.INVALID_ORDINAL, Reference.toOrdinal(BookOfBible.John, 300, 1));
+		assertNull(Reference.fromOrdinal(Reference.INVALID_ORDINAL));
+	}
+
+	@Test
+	public void testUnionAndIntersection() {
+		IntReferenceList first = new IntReferenceList();
+		IntReferenceList second = new IntReferenceList();
+		for (int i = 1; i <= 10; i++) {
+			first.add(Reference.toOrdinal(BookOfBible.John, 3, i));
+		}
+		for (int i = 5; i <= 15; i++) {
+			second.add(Reference.toOrdinal(BookOfBible.John, 3, i));
+		}
+		IntReferenceList union = IntReferenceList.union(first, second);
+		IntReferenceList intersection = IntReferenceList.intersection(first, second);
+		assertEquals(15, union.size());
+		assertEquals(6, intersection.size());
+		assertEquals(new Reference(BookOfBible.John, 3, 5), intersection.getReference(0));
+		assertEquals(new Reference(BookOfBible.John, 3, 15), union.getReference(14));
+		assertTrue(union.contains(Reference.toOrdinal(BookOfBible.John, 3, 12)));
+		assertFalse(intersection.contains(Reference.toOrdinal(BookOfBible.John, 3, 12)));
+	}
+
+	@Test
+	public void testSortAndRemoveDuplicates() {
+		IntReferenceList list = new IntReferenceList(1);
+		list.add(new Reference(BookOfBible.Ruth, 2, 1));
+		list.add(new Reference(BookOfBible.Genesis, 1, 1));
+		list.add(new Reference(BookOfBible.Ruth, 2, 1));
+		list.sortAndRemoveDuplicates();
+		assertEquals(2, list.size());
+		assertEquals(new Reference(BookOfBible.Genesis, 1, 1), list.getReference(0));
+	}
+
+	@Test
+	public void testBibleOrdinalsMatchReferences() {
+		VerseList verses = new VerseList("KJV", "Test");
+		verses.add(new Verse(BookOfBible.Ruth, 1, 1, "Now it came to pass in the days when the judges ruled"));
+		verses.add(new Verse(BookOfBible.Ruth, 1, 2, "And the name of the man was Elimelech"));
+		verses.add(new Verse(BookOfBible.Ruth, 1, 3, "And Elimelech Naomi's husband died"));
+		verses.add(new Verse(BookOfBible.John, 3, 16, "For God so loved the world"));
+		Bible[] bibles = { new ArrayListBible(verses), new TreeMapBible(verses) };
+		for (Bible bible : bibles) {
+			ArrayList<Reference> expected = bible.getReferencesContaining("elimelech");
+			assertEquals(expected, bible.getOrdinalsContaining("elimelech").toReferences());
+			expected = bible.getReferencesInclusive(new Reference(BookOfBible.Ruth, 1, 2),
+					new Reference(BookOfBible.John, 3, 16));
+			assertEquals(expected, bible.getOrdinalsInclusive(new Reference(BookOfBible.Ruth, 1, 2),
+					new Reference(BookOfBible.John, 3, 16)).toReferences());
+		}
+	}
+}
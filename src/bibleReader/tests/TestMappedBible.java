@@ -0,0 +1,155 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import bibleReader.BibleIO;
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.MappedBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for MappedBible: a Bible written to a file and mapped back in should give the same answers as the Bible it
+ * came from.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestMappedBible {
+	@Rule
+	public Timeout			globalTimeout	= new Timeout(2000);
+
+	@Rule
+	public TemporaryFolder	folder			= new TemporaryFolder();
+
+	private VerseList		verses;
+	private Bible			treeMap;
+	private Bible			mapped;
+
+	@Before
+	public void setUp() throws Exception {
+		verses = new VerseList("TST", "A T\u00e9st B\u00efble");
+		for (int chapter = 1; chapter <= 3; chapter++) {
+			for (int verse = 1; verse <= 5; verse++) {
+				verses.add(new Verse(BookOfBible.Ruth, chapter, verse, "Ruth " + chapter + ":" + verse + " Naomi"));
+			}
+		}
+		verses.add(new Verse(BookOfBible.John, 3, 16, "For God so loved the world \u2014 \u03b1\u03b3\u03b1\u03c0\u03b7"));
+		verses.add(new Verse(BookOfBible.Jude, 1, 25, "To the only God"));
+		treeMap = new TreeMapBible(verses);
+
+		File file = folder.newFile("test.mbv");
+		MappedBible.write(new ArrayListBible(verses), file);
+		mapped = new MappedBible(file);
+	}
+
+	@Test
+	public void testBasics() {
+		assertEquals("TST", mapped.getVersion());
+		assertEquals("A T\u00e9st B\u00efble", mapped.getTitle());
+		assertEquals(treeMap.getNumberOfVerses(), mapped.getNumberOfVerses());
+		assertEquals(treeMap.getAllVerses(), mapped.getAllVerses());
+	}
+
+	@Test
+	public void testLookupsAndPassages() {
+		assertEquals(treeMap.getVerse(BookOfBible.John, 3, 16), mapped.getVerse(BookOfBible.John, 3, 16));
+		assertEquals("To the only God", mapped.getVerseText(new Reference(BookOfBible.Jude, 1, 25)));
+		assertNull(mapped.getVerse(BookOfBible.Ruth, 4, 1));
+		assertEquals(treeMap.getBook(BookOfBible.Ruth), mapped.getBook(BookOfBible.Ruth));
+		assertEquals(treeMap.getPassage(BookOfBible.Ruth, 1, 4, 2, 2), mapped.getPassage(BookOfBible.Ruth, 1, 4, 2, 2));
+		assertEquals(3, mapped.getLastChapterNumber(BookOfBible.Ruth));
+		assertEquals(treeMap.getReferencesContaining("god"), mapped.getReferencesContaining("god"));
+	}
+
+	@Test
+	public void testBibleIO() throws IOException {
+		File file = folder.newFile("io.mbv");
+		BibleIO.writeBibleMBV(file, treeMap);
+		Bible reread = BibleIO.readMappedBible(file);
+		assertEquals(treeMap.getAllVerses(), reread.getAllVerses());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAMappedBible() throws IOException {
+		File file = folder.newFile("bad.mbv");
+		FileOutputStream out = new FileOutputStream(file);
+		out.write("KJV: Holy Bible".getBytes());
+		out.close();
+		new MappedBible(file);
+	}
+
+	// Write the Bible, change the int at the given place (counting from where the number of verses is), and open it.
+	private void openWithIntChanged(int from, int value) throws IOException {
+		File file = folder.newFile("changed.mbv");
+		MappedBible.write(treeMap, file);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		int countAt = 8 + 2 + "TST".getBytes(StandardCharsets.UTF_8).length + 2
+				+ "A T\u00e9st B\u00efble".getBytes(StandardCharsets.UTF_8).length;
+		ByteBuffer.wrap(bytes).putInt(countAt + from, value);
+		Files.write(file.toPath(), bytes);
+		new MappedBible(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTooManyVerses() throws IOException {
+		// Too many to allocate, if it were believed.
+		openWithIntChanged(0, Integer.MAX_VALUE - 16);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNegativeNumberOfVerses() throws IOException {
+		openWithIntChanged(0, -1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testOffsetPastTheText() throws IOException {
+		// The third offset, after the number of verses and the ordinals.
+		openWithIntChanged(4 + 4 * treeMap.getNumberOfVerses() + 4 * 2, 1000);
+	}
+
+	@Test(expected = IOException.class)
+	public void testOffsetsOutOfOrder() throws IOException {
+		openWithIntChanged(4 + 4 * treeMap.getNumberOfVerses() + 4 * 2, 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNegativeOffset() throws IOException {
+		openWithIntChanged(4 + 4 * treeMap.getNumberOfVerses(), -4);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		File file = folder.newFile("short.mbv");
+		MappedBible.write(treeMap, file);
+		File truncated = folder.newFile("truncated.mbv");
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		FileOutputStream out = new FileOutputStream(truncated);
+		out.write(bytes, 0, bytes.length - 10);
+		out.close();
+		new MappedBible(truncated);
+	}
+}
@@ -0,0 +1,192 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.MultiVersionConcordance;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for MultiVersionConcordance. Most searches are checked against searching each version's own Concordance and
+ * combining the results, which is what it replaces, and a few small versions check the cases that matter most: words
+ * that are only in different versions of a verse, and the last version's bit.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestMultiVersionConcordance {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	private static final String[]	WORDS			= { "the", "lord", "and", "light", "darkness", "word", "rare",
+			"missing" };
+	private static final int		VERSIONS		= 4;
+
+	private Concordance[]			concordances;
+	private Bible[]					bibles;
+	private MultiVersionConcordance	all;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(4);
+		concordances = new Concordance[VERSIONS];
+		bibles = new Bible[VERSIONS];
+		all = new MultiVersionConcordance();
+		for (int v = 0; v < VERSIONS; v++) {
+			VerseList verses = new VerseList("V" + v, "Version " + v);
+			for (BookOfBible book : new BookOfBible[] { BookOfBible.Genesis, BookOfBible.Ruth, BookOfBible.John }) {
+				for (int chapter = 1; chapter <= 12; chapter++) {
+					for (int verse = 1; verse <= 25; verse++) {
+						// Each version leaves out some verses, and uses the words a little differently.
+						if (random.nextInt(10) == 0) {
+							continue;
+						}
+						StringBuilder text = new StringBuilder();
+						for (int w = 0; w < 6; w++) {
+							int index = Math.min(WORDS.length - 2, (int) Math.abs(random.nextGaussian() * (2 + v)));
+							text.append(WORDS[index]).append(' ');
+						}
+						verses.add(new Verse(book, chapter, verse, text.toString().trim()));
+					}
+				}
+			}
+			bibles[v] = new TreeMapBible(verses);
+			concordances[v] = new Concordance(bibles[v]);
+			assertEquals(v, all.addVersion(concordances[v]));
+		}
+	}
+
+	private IntReferenceList separately(ArrayList<String> words, long mask) {
+		IntReferenceList results = new IntReferenceList();
+		for (int v = 0; v < VERSIONS; v++) {
+			if ((mask & (1L << v)) != 0) {
+				results = IntReferenceList.union(results, concordances[v].getOrdinalsContainingAll(words));
+			}
+		}
+		return results;
+	}
+
+	@Test
+	public void testSingleWords() {
+		for (String word : WORDS) {
+			for (long mask = 1; mask < (1 << VERSIONS); mask++) {
+				ArrayList<String> words = new ArrayList<String>();
+				words.add(word);
+				assertEquals(word + " " + mask, separately(words, mask), all.getOrdinalsContaining(word, mask));
+			}
+		}
+	}
+
+	@Test
+	public void testRandomWordSets() {
+		Random random = new Random(9);
+		for (int trial = 0; trial < 100; trial++) {
+			ArrayList<String> words = new ArrayList<String>();
+			int count = 1 + random.nextInt(3);
+			for (int i = 0; i < count; i++) {
+				words.add(WORDS[random.nextInt(WORDS.length)]);
+			}
+			long mask = 1 + random.nextInt((1 << VERSIONS) - 1);
+			assertEquals(words + " " + mask, separately(words, mask), all.getOrdinalsContainingAll(words, mask));
+			assertEquals(words.toString(), separately(words, (1 << VERSIONS) - 1),
+					all.getOrdinalsContainingAll(words, MultiVersionConcordance.ALL_VERSIONS));
+		}
+	}
+
+	private static IntReferenceList ordinals(int... verses) {
+		IntReferenceList ordinals = new IntReferenceList();
+		for (int verse : verses) {
+			ordinals.add(Reference.toOrdinal(BookOfBible.Genesis, 1, verse));
+		}
+		return ordinals;
+	}
+
+	private static Concordance concordanceOf(String... texts) {
+		VerseList verses = new VerseList("V", "A Version");
+		for (int i = 0; i < texts.length; i++) {
+			if (texts[i] != null) {
+				verses.add(new Verse(BookOfBible.Genesis, 1, i + 1, texts[i]));
+			}
+		}
+		return new Concordance(new TreeMapBible(verses));
+	}
+
+	@Test
+	public void testWordsInDifferentVersionsOfAVerse() {
+		MultiVersionConcordance two = new MultiVersionConcordance();
+		two.addVersion(concordanceOf("In the beginning God created the heaven", "And God said, Let there be light"));
+		two.addVersion(concordanceOf("In the beginning was the Word", null, "And there was light"));
+
+		assertEquals(ordinals(1), two.getOrdinalsContainingAll(Arrays.asList("beginning", "GOD"), -1L));
+		// Genesis 1:1 has "god" in one version and "word" in the other, but not both in either of them.
+		assertEquals(ordinals(), two.getOrdinalsContainingAll(Arrays.asList("god", "word"), -1L));
+		assertEquals(ordinals(2, 3), two.getOrdinalsContainingAll(Arrays.asList("there", "light", "There"), -1L));
+		assertEquals(ordinals(2, 3), two.getOrdinalsContaining("light", -1L));
+		assertEquals(ordinals(2), two.getOrdinalsContaining("light", 0b01L));
+		assertEquals(ordinals(3), two.getOrdinalsContaining("light", 0b10L));
+		assertEquals(ordinals(), two.getOrdinalsContaining("light", 0L));
+		assertEquals(ordinals(), two.getOrdinalsContainingAll(Arrays.asList("beginning", "god"), 0b10L));
+		assertEquals(ordinals(), two.getOrdinalsContainingAll(Arrays.asList("light", "missing"), -1L));
+		assertEquals(ordinals(), two.getOrdinalsContainingAll(new ArrayList<String>(), -1L));
+		assertEquals(null, two.getPostings("missing"));
+	}
+
+	@Test
+	public void testLastVersion() {
+		// The last version's bit is the sign bit of the mask.
+		MultiVersionConcordance full = new MultiVersionConcordance();
+		Concordance empty = concordanceOf();
+		for (int v = 0; v < MultiVersionConcordance.MAX_VERSIONS - 1; v++) {
+			full.addVersion(empty);
+		}
+		assertEquals(MultiVersionConcordance.MAX_VERSIONS - 1, full.addVersion(concordanceOf(null, "the last one")));
+		assertEquals(MultiVersionConcordance.MAX_VERSIONS, full.getNumberOfVersions());
+		assertEquals(ordinals(2), full.getOrdinalsContaining("last", 1L << 63));
+		assertEquals(ordinals(2), full.getOrdinalsContainingAll(Arrays.asList("the", "last"),
+				MultiVersionConcordance.ALL_VERSIONS));
+		assertEquals(ordinals(), full.getOrdinalsContainingAll(Arrays.asList("the", "last"), Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testModelVersionMasks() {
+		BibleReaderModel model = new BibleReaderModel();
+		for (Bible bible : bibles) {
+			model.addBible(bible);
+		}
+		assertEquals(0b101L, model.getVersionMask("V0", "V2", "nope"));
+		ArrayList<String> words = new ArrayList<String>();
+		words.add("light");
+		words.add("darkness");
+		assertEquals(separately(words, 0b101L), model.getOrdinalsContainingAllWords("light darkness", 0b101L));
+		assertEquals(separately(words, 0b1111L), model.getOrdinalsContainingAllWords("light darkness"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTooManyVersions() {
+		MultiVersionConcordance full = new MultiVersionConcordance();
+		for (int v = 0; v <= MultiVersionConcordance.MAX_VERSIONS; v++) {
+			full.addVersion(concordances[v % VERSIONS]);
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests that a Concordance built in parallel is the same as one built on one thread.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestParallelConcordance {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(10000);
+
+	private static final String[]	WORDS			= { "the", "lord", "and", "said", "unto", "him", "wife's", "light",
+			"darkness", "in", "beginning", "word" };
+
+	private Bible					bible;
+	private ForkJoinPool			pool;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(99);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (BookOfBible book : BookOfBible.values()) {
+			if (book == BookOfBible.Dummy) {
+				continue;
+			}
+			// Books of very different sizes, like the real thing.
+			int chapters = 1 + random.nextInt(book.ordinal() % 7 == 0 ? 40 : 5);
+			for (int chapter = 1; chapter <= chapters; chapter++) {
+				for (int verse = 1; verse <= 20; verse++) {
+					StringBuilder text = new StringBuilder();
+					for (int w = 0; w < 12; w++) {
+						text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(6) == 0 ? ", " : " ");
+					}
+					verses.add(new Verse(book, chapter, verse, text.toString().trim()));
+				}
+			}
+		}
+		bible = new TreeMapBible(verses);
+		pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		pool.shutdownNow();
+	}
+
+	private void assertSameConcordance(Concordance expected, Concordance actual) {
+		assertEquals(expected.getWords(), actual.getWords());
+		for (String word : expected.getWords()) {
+			assertEquals(word, expected.getOrdinalsContaining(word), actual.getOrdinalsContaining(word));
+		}
+	}
+
+	@Test
+	public void testSameAsSequential() {
+		assertSameConcordance(new Concordance(bible), new Concordance(bible, false, pool));
+	}
+
+	@Test
+	public void testSamePositions() {
+		Concordance sequential = new Concordance(bible, true);
+		Concordance parallel = new Concordance(bible, true, pool);
+		assertSameConcordance(sequential, parallel);
+		for (String phrase : new String[] { "the lord", "said unto him", "in the beginning", "wife s", "light" }) {
+			assertEquals(phrase, sequential.getOrdinalsContainingPhrase(phrase),
+					parallel.getOrdinalsContainingPhrase(phrase));
+		}
+		ArrayList<String> words = new ArrayList<String>(Arrays.asList("lord", "darkness", "word"));
+		assertEquals(sequential.getOrdinalsContainingAll(words), parallel.getOrdinalsContainingAll(words));
+	}
+
+	@Test
+	public void testEmptyBible() {
+		Bible empty = new TreeMapBible(new VerseList("TST", "Empty"));
+		assertEquals(0, new Concordance(empty, true, pool).getWords().size());
+	}
+}
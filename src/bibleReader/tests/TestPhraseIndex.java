@@ -0,0 +1,182 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+import bibleReader.model.WordTokenizer;
+
+/**
+ * Tests for the positions in Concordance. Every phrase is checked against the regular expression that
+ * BibleReaderModel matches other phrases with, run on the text without the 's that the tokenizer leaves out of words
+ * (and, for the ASCII tokenizer, with the other letters turned into punctuation).
+ *
+ * @author Trevor Palmatier
+ */
+public class TestPhraseIndex {
+	@Rule
+	public Timeout				globalTimeout	= new Timeout(5000);
+
+	private static final String[]	WORDS		= { "the", "lord", "and", "said", "unto", "him", "s", "wife" };
+	private static final String[]	SEPARATORS	= { " ", " ", " ", ", ", "  ", "'", ": ", "-" };
+
+	private Bible				bible;
+	private Concordance			concordance;
+	private Concordance			unicode;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(2021);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 20; chapter++) {
+			for (int verse = 1; verse <= 30; verse++) {
+				StringBuilder text = new StringBuilder();
+				for (int w = 0; w < 10; w++) {
+					String word = WORDS[random.nextInt(WORDS.length)];
+					text.append(random.nextInt(5) == 0 ? word.toUpperCase() : word);
+					text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+				}
+				verses.add(new Verse(BookOfBible.Genesis, chapter, verse, text.toString().trim()));
+			}
+		}
+		verses.add(new Verse(BookOfBible.Exodus, 1, 1, "And when Jesus was baptized, immediately he went up"));
+		verses.add(new Verse(BookOfBible.Exodus, 1, 2, "\u00e9the lord na\u00efve lord"));
+		verses.add(new Verse(BookOfBible.Exodus, 1, 3, "the \u0130the lord"));
+		bible = new TreeMapBible(verses);
+		concordance = new Concordance(bible, true);
+		unicode = new Concordance(bible, true, null, WordTokenizer.UNICODE);
+	}
+
+	private ArrayList<Reference> regexSearch(String phrase, boolean ascii) {
+		Pattern pattern = Pattern.compile("\\b" + phrase.toLowerCase() + "\\b");
+		ArrayList<Reference> results = new ArrayList<Reference>();
+		for (Verse verse : bible.getAllVerses()) {
+			String text = verse.getText().toLowerCase().replace("'s", "'");
+			if (pattern.matcher(ascii ? text.replaceAll("[^\\x00-\\x7F]", "-") : text).find()) {
+				results.add(verse.getReference());
+			}
+		}
+		return results;
+	}
+
+	private void assertSameAsRegex(String phrase) {
+		assertEquals(phrase, regexSearch(phrase, true), concordance.getOrdinalsContainingPhrase(phrase).toReferences());
+		assertEquals(phrase, regexSearch(phrase, false), unicode.getOrdinalsContainingPhrase(phrase).toReferences());
+	}
+
+	@Test
+	public void testRandomPhrases() {
+		Random random = new Random(7);
+		for (int trial = 0; trial < 300; trial++) {
+			StringBuilder phrase = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+			int count = random.nextInt(4);
+			for (int i = 0; i < count; i++) {
+				phrase.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+			}
+			assertSameAsRegex(random.nextBoolean() ? phrase.toString() : phrase.toString().toUpperCase());
+		}
+	}
+
+	@Test
+	public void testPunctuationBreaksAPhrase() {
+		assertSameAsRegex("was baptized");
+		assertSameAsRegex("baptized immediately");
+		assertEquals(0, concordance.getOrdinalsContainingPhrase("baptized immediately").size());
+		assertSameAsRegex("wife s");
+		assertSameAsRegex("s");
+	}
+
+	@Test
+	public void testNonAsciiLetters() {
+		assertSameAsRegex("the lord");
+		assertSameAsRegex("na");
+		assertSameAsRegex("ve lord");
+		assertSameAsRegex("the");
+		assertEquals(1, unicode.getOrdinalsContainingPhrase("na\u00efve lord").size());
+	}
+
+	@Test
+	public void testSameWordsAsTheWordSearch() {
+		// The ASCII tokenizer splits words at other letters, for phrases and for single words alike.
+		Reference exodus = new Reference(BookOfBible.Exodus, 1, 2);
+		assertTrue(concordance.getReferencesContaining("ve").contains(exodus));
+		assertEquals(exodus, concordance.getOrdinalsContainingPhrase("ve lord").toReferences().get(0));
+		assertEquals(exodus, concordance.getOrdinalsContainingPhrase("na\u00efve lord").toReferences().get(0));
+		assertEquals(1, concordance.getOrdinalsContainingPhrase("na\u00efve lord").size());
+		assertEquals(0, concordance.getOrdinalsContainingPhrase("nave lord").size());
+
+		// Commas are left out of words, so a number with a comma is the same word (and phrase) as one without.
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Judges, 15, 16, "with the jawbone of an ass have I slain 1,000 men"));
+		verses.add(new Verse(BookOfBible.Judges, 15, 17, "his wife's sister"));
+		Concordance numbers = new Concordance(new TreeMapBible(verses), true);
+		assertEquals(numbers.getReferencesContaining("1000"), numbers.getOrdinalsContainingPhrase("1000 men")
+				.toReferences());
+		assertEquals(1, numbers.getOrdinalsContainingPhrase("slain 1000").size());
+		assertEquals(1, numbers.getOrdinalsContainingPhrase("his wife").size());
+		assertEquals(0, numbers.getOrdinalsContainingPhrase("wife s").size());
+		assertEquals(0, numbers.getOrdinalsContainingPhrase("wife sister").size());
+	}
+
+	@Test
+	public void testIndexablePhrases() {
+		assertTrue(Concordance.isIndexablePhrase("the lord"));
+		assertTrue(Concordance.isIndexablePhrase("Unto HIM"));
+		assertFalse(Concordance.isIndexablePhrase("wife's"));
+		assertFalse(Concordance.isIndexablePhrase("said, unto"));
+		assertFalse(Concordance.isIndexablePhrase("the  lord"));
+		assertFalse(Concordance.isIndexablePhrase(" the"));
+		assertFalse(Concordance.isIndexablePhrase(""));
+		assertFalse(new Concordance(bible).hasPositions());
+		assertTrue(concordance.hasPositions());
+	}
+
+	@Test
+	public void testRepeatedReference() {
+		// ArrayListBible keeps both verses, and the concordance counts them as one.
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Ruth, 1, 1, "Now the LORD be with you"));
+		verses.add(new Verse(BookOfBible.Ruth, 1, 1, "when the lord judged"));
+		verses.add(new Verse(BookOfBible.Ruth, 1, 2, "the lord"));
+		Concordance repeated = new Concordance(new ArrayListBible(verses), true);
+		IntReferenceList both = new IntReferenceList();
+		both.add(new Reference(BookOfBible.Ruth, 1, 1).getOrdinal());
+		both.add(new Reference(BookOfBible.Ruth, 1, 2).getOrdinal());
+		assertEquals(both, repeated.getOrdinalsContainingPhrase("the lord"));
+		assertEquals(1, repeated.getOrdinalsContainingPhrase("be with you").size());
+		assertEquals(1, repeated.getOrdinalsContainingPhrase("the lord judged").size());
+		// The words of the second verse come after the words of the first, not on top of them.
+		assertEquals(0, repeated.getOrdinalsContainingPhrase("now the lord judged").size());
+		assertEquals(0, repeated.getOrdinalsContainingPhrase("you when").size());
+		assertEquals(2, repeated.getNumberOfVerses());
+	}
+
+	@Test
+	public void testMissingWord() {
+		assertEquals(0, concordance.getOrdinalsContainingPhrase("the missing lord").size());
+	}
+}
@@ -0,0 +1,112 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.PostingsList;
+
+/**
+ * Tests for PostingsList: the ordinals have to come back out the same as they went in, and skipTo has to land on the
+ * same ordinal a search of the uncompressed list would.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestPostingsList {
+	@Rule
+	public Timeout	globalTimeout	= new Timeout(5000);
+
+	// Sorted, distinct ordinals with gaps of up to maxGap, some of them large enough to need several bytes.
+	private static IntReferenceList randomOrdinals(Random random, int count, int maxGap) {
+		IntReferenceList list = new IntReferenceList();
+		int ordinal = random.nextInt(1000);
+		for (int i = 0; i < count; i++) {
+			ordinal += 1 + (random.nextInt(10) == 0 ? random.nextInt(1 << 20) : random.nextInt(maxGap));
+			list.add(ordinal);
+		}
+		return list;
+	}
+
+	// The first entry of the list that is at least target, the slow way.
+	private static int firstAtLeast(IntReferenceList list, int target) {
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i) >= target) {
+				return list.get(i);
+			}
+		}
+		return PostingsIterator.NO_MORE_ORDINALS;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(1);
+		for (int count : new int[] { 0, 1, 63, 64, 65, 128, 1000 }) {
+			IntReferenceList ordinals = randomOrdinals(random, count, 300);
+			PostingsList postings = PostingsList.of(ordinals);
+			assertEquals(count, postings.size());
+			assertEquals(ordinals, postings.toIntReferenceList());
+		}
+	}
+
+	@Test
+	public void testSkipTo() {
+		Random random = new Random(2);
+		IntReferenceList ordinals = randomOrdinals(random, 5000, 50);
+		PostingsList postings = PostingsList.of(ordinals);
+		int last = ordinals.get(ordinals.size() - 1);
+		for (int trial = 0; trial < 200; trial++) {
+			PostingsIterator iterator = postings.iterator();
+			assertEquals(-1, iterator.ordinal());
+			int target = 0;
+			while (target <= last) {
+				target += random.nextInt(random.nextBoolean() ? 100 : 100000);
+				int expected = firstAtLeast(ordinals, target);
+				assertEquals(expected, iterator.skipTo(target));
+				assertEquals(expected, iterator.ordinal());
+				if (expected != PostingsIterator.NO_MORE_ORDINALS && random.nextBoolean()) {
+					// Mixing in next has to keep things in step.
+					assertEquals(firstAtLeast(ordinals, expected + 1), iterator.next());
+					target = iterator.ordinal();
+				}
+			}
+			assertEquals(PostingsIterator.NO_MORE_ORDINALS, iterator.next());
+		}
+	}
+
+	@Test
+	public void testSkipToNeverGoesBack() {
+		IntReferenceList ordinals = randomOrdinals(new Random(3), 500, 20);
+		PostingsIterator iterator = PostingsList.of(ordinals).iterator();
+		int middle = ordinals.get(250);
+		assertEquals(middle, iterator.skipTo(middle));
+		assertEquals(middle, iterator.skipTo(ordinals.get(10)));
+		assertEquals(ordinals.get(251), iterator.next());
+	}
+
+	@Test
+	public void testSmallerThanInts() {
+		IntReferenceList ordinals = randomOrdinals(new Random(4), 10000, 100);
+		assertTrue(PostingsList.of(ordinals).getByteCount() < 4 * ordinals.size() / 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsortedOrdinals() {
+		IntReferenceList ordinals = new IntReferenceList();
+		ordinals.add(10);
+		ordinals.add(5);
+		PostingsList.of(ordinals);
+	}
+}
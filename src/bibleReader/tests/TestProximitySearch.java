@@ -0,0 +1,258 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.Query;
+import bibleReader.model.QueryParser;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for NEAR searches, which are checked against finding the words in each verse's text.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestProximitySearch {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	@Rule
+	public TemporaryFolder			folder			= new TemporaryFolder();
+
+	private static final String[]	WORDS			= { "faith", "works", "without", "is", "dead", "by" };
+
+	private VerseList				verses;
+	private Concordance				concordance;
+
+	@Before
+	public void setUp() throws Exception {
+		// Short verses with lots of punctuation, some of them empty, so windows often reach into the next verse.
+		Random random = new Random(15);
+		verses = new VerseList("TST", "A Test Bible");
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.James, BookOfBible.Peter1 }) {
+			for (int chapter = 1; chapter <= 5; chapter++) {
+				for (int verse = 1; verse <= 20; verse++) {
+					StringBuilder text = new StringBuilder();
+					int length = random.nextInt(7);
+					for (int i = 0; i < length; i++) {
+						text.append(WORDS[random.nextInt(WORDS.length)]);
+						text.append(random.nextInt(4) == 0 ? "; " : " ");
+					}
+					verses.add(new Verse(book, chapter, verse, text.toString().trim()));
+				}
+			}
+		}
+		concordance = new Concordance(new TreeMapBible(verses), true);
+	}
+
+	// The verses that match, found by numbering the words of every verse of a book in order and trying every pair of
+	// tokens that are close enough.
+	private IntReferenceList expected(Query.Near near) {
+		ArrayList<String> tokens = new ArrayList<String>();
+		ArrayList<Integer> verseOf = new ArrayList<Integer>();
+		ArrayList<BookOfBible> bookOf = new ArrayList<BookOfBible>();
+		for (int v = 0; v < verses.size(); v++) {
+			for (String word : Concordance.extractWords(verses.get(v).getText())) {
+				tokens.add(word);
+				verseOf.add(v);
+				bookOf.add(verses.get(v).getReference().getBookOfBible());
+			}
+		}
+		boolean[] matched = new boolean[verses.size()];
+		for (int i = 0; i < tokens.size(); i++) {
+			for (int j = Math.max(0, i - near.getDistance()); j <= i + near.getDistance() && j < tokens.size(); j++) {
+				boolean sameVerse = verseOf.get(i).equals(verseOf.get(j));
+				if (i != j && bookOf.get(i) == bookOf.get(j) && (sameVerse || near.isAcrossVerses())
+						&& tokens.get(i).equals(near.getWord1()) && tokens.get(j).equals(near.getWord2())
+						&& (!near.isOrdered() || j > i)) {
+					matched[verseOf.get(i)] = true;
+					matched[verseOf.get(j)] = true;
+				}
+			}
+		}
+		IntReferenceList expected = new IntReferenceList();
+		for (int v = 0; v < verses.size(); v++) {
+			if (matched[v]) {
+				expected.add(verses.get(v).getReference().getOrdinal());
+			}
+		}
+		return expected;
+	}
+
+	@Test
+	public void testSameAsMatchingText() throws IOException {
+		File file = folder.newFile("test.idx");
+		concordance.write(file, 7L);
+		Concordance read = Concordance.read(file, 7L);
+		Random random = new Random(2);
+		for (int trial = 0; trial < 80; trial++) {
+			Query.Near near = new Query.Near(WORDS[random.nextInt(WORDS.length)], WORDS[random.nextInt(WORDS.length)],
+					1 + random.nextInt(6), random.nextBoolean(), random.nextBoolean());
+			IntReferenceList expected = expected(near);
+			assertEquals(near.toString(), expected, near.getOrdinals(concordance));
+			assertEquals(near.toString(), expected, near.getOrdinals(read));
+			assertEquals(near.toString(), expected, QueryParser.parse(near.toString()).getOrdinals(concordance));
+		}
+	}
+
+	private static IntReferenceList near(Concordance concordance, String word1, String word2, int distance,
+			boolean ordered, boolean acrossVerses) {
+		return new Query.Near(word1, word2, distance, ordered, acrossVerses).getOrdinals(concordance);
+	}
+
+	private static IntReferenceList ordinals(Reference... references) {
+		IntReferenceList ordinals = new IntReferenceList();
+		for (Reference reference : references) {
+			ordinals.add(reference.getOrdinal());
+		}
+		return ordinals;
+	}
+
+	@Test
+	public void testEdges() {
+		Reference james1 = new Reference(BookOfBible.James, 5, 19);
+		Reference james2 = new Reference(BookOfBible.James, 5, 20);
+		Reference james3 = new Reference(BookOfBible.James, 5, 21);
+		Reference peter = new Reference(BookOfBible.Peter1, 1, 1);
+		VerseList small = new VerseList("TST", "A Test Bible");
+		small.add(new Verse(james1, "faith, without dead works; is dead"));
+		small.add(new Verse(james2, ""));
+		small.add(new Verse(james3, "works by faith"));
+		small.add(new Verse(peter, "works"));
+		Concordance c = new Concordance(new TreeMapBible(small), true);
+
+		// "faith" and "works" are three words apart in James 5:19, whatever the punctuation is.
+		assertEquals(ordinals(james1), near(c, "faith", "works", 3, true, false));
+		assertEquals(ordinals(james3), near(c, "faith", "works", 2, false, false));
+		assertEquals(ordinals(), near(c, "faith", "works", 2, true, false));
+		// "dead" is in James 5:19 twice, three words apart.
+		assertEquals(ordinals(), near(c, "dead", "dead", 2, false, false));
+		assertEquals(ordinals(james1), near(c, "dead", "dead", 3, false, false));
+		assertEquals(ordinals(), near(c, "by", "by", 10, false, true));
+		// The empty verse between James 5:19 and 5:21 doesn't have any words, so it is never a match.
+		assertEquals(ordinals(james1, james3), near(c, "dead", "works", 1, true, true));
+		// The last word of James is right before the first word of 1 Peter, but they are in different books.
+		assertEquals(ordinals(), near(c, "faith", "works", 1, true, true));
+		assertEquals(ordinals(james1), near(c, "faith", "works", 3, true, true));
+	}
+
+	// The first ordinal of expected from target on.
+	private static int firstFrom(IntReferenceList expected, int target) {
+		for (int i = 0; i < expected.size(); i++) {
+			if (expected.get(i) >= target) {
+				return expected.get(i);
+			}
+		}
+		return PostingsIterator.NO_MORE_ORDINALS;
+	}
+
+	@Test
+	public void testSkipTo() {
+		for (boolean acrossVerses : new boolean[] { false, true }) {
+			for (String[] pair : new String[][] { { "faith", "works" }, { "dead", "dead" }, { "is", "by" } }) {
+				Query.Near near = new Query.Near(pair[0], pair[1], 2, false, acrossVerses);
+				IntReferenceList expected = expected(near);
+				// Skip from the start to each verse, and then go on with next.
+				for (int v = 0; v < verses.size(); v += 3) {
+					int target = verses.get(v).getReference().getOrdinal();
+					PostingsIterator iterator = concordance.getPostingsNear(pair[0], pair[1], 2, false, acrossVerses);
+					int found = iterator.skipTo(target);
+					assertEquals(near + " " + target, firstFrom(expected, target), found);
+					if (found != PostingsIterator.NO_MORE_ORDINALS) {
+						assertEquals(near + " " + target, firstFrom(expected, found + 1), iterator.next());
+					}
+				}
+				// Skip ahead over and over with the same iterator, to targets before the verse it is at as well.
+				PostingsIterator iterator = concordance.getPostingsNear(pair[0], pair[1], 2, false, acrossVerses);
+				int current = -1;
+				for (int v = 0; v < verses.size(); v += 7) {
+					int target = verses.get(v).getReference().getOrdinal();
+					current = Math.max(current, firstFrom(expected, target));
+					assertEquals(near + " " + target, current, iterator.skipTo(target));
+				}
+			}
+		}
+		// The first word of the next verse is near the last one of the verse before it, which is skipped.
+		VerseList james = new VerseList("KJV", "A Test Bible");
+		james.add(new Verse(BookOfBible.James, 2, 26, "For as the body without the spirit is dead, so faith"));
+		james.add(new Verse(BookOfBible.James, 2, 27, "without works is dead also."));
+		Concordance small = new Concordance(new TreeMapBible(james), true);
+		assertEquals(Reference.toOrdinal(BookOfBible.James, 2, 27),
+				small.getPostingsNear("faith", "works", 2, true, true)
+						.skipTo(Reference.toOrdinal(BookOfBible.James, 2, 27)));
+		assertEquals(PostingsIterator.NO_MORE_ORDINALS, small.getPostingsNear("faith", "works", 2, true, false)
+				.skipTo(Reference.toOrdinal(BookOfBible.James, 2, 27)));
+	}
+
+	@Test
+	public void testParse() {
+		assertEquals("(faith NEAR/5 works)", QueryParser.parse("Faith NEAR/5 works").toString());
+		assertEquals("((faith XONEAR/3 works) AND NOT dead)",
+				QueryParser.parse("faith XONEAR/3 works NOT dead").toString());
+		assertEquals("(faith AND near/5 AND works)", QueryParser.parse("faith near/5 works").toString());
+		for (String bad : new String[] { "faith NEAR/5", "NEAR/5 works", "faith NEAR/0 works", "faith NEAR/5000 works",
+				"faith NEAR/5 \"is dead\"", "fai* NEAR/5 works", "faith NEAR/2 works NEAR/2 dead" }) {
+			try {
+				QueryParser.parse(bad);
+				fail(bad + " should not parse.");
+			} catch (IllegalArgumentException e) {
+				// It isn't a valid search.
+			}
+		}
+	}
+
+	@Test
+	public void testModel() {
+		VerseList kjv = new VerseList("KJV", "A Test Bible");
+		kjv.add(new Verse(BookOfBible.James, 2, 17, "Even so faith, if it hath not works, is dead, being alone."));
+		kjv.add(new Verse(BookOfBible.James, 2, 18, "Yea, a man may say, Thou hast faith, and I have works: shew "
+				+ "me thy faith without thy works, and I will shew thee my faith by my works."));
+		kjv.add(new Verse(BookOfBible.James, 2, 26, "For as the body without the spirit is dead, so faith"));
+		kjv.add(new Verse(BookOfBible.James, 2, 27, "without works is dead also."));
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(new TreeMapBible(kjv));
+
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 18)),
+				model.getReferencesMatchingQuery("faith NEAR/3 works"));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 17), new Reference(BookOfBible.James, 2, 18)),
+				model.getReferencesMatchingQuery("faith ONEAR/5 works"));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 18)),
+				model.getReferencesMatchingQuery("works ONEAR/5 faith"));
+		// "faith" ends 2:26 and "works" starts 2:27 (after "without").
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 17), new Reference(BookOfBible.James, 2, 18),
+				new Reference(BookOfBible.James, 2, 26), new Reference(BookOfBible.James, 2, 27)),
+				model.getReferencesMatchingQuery("faith XONEAR/5 works"));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 18)),
+				model.getReferencesMatchingQuery("faith NEAR/10 faith"));
+		// The phrases still need a single space between the words.
+		assertEquals(Arrays.asList(new Reference(BookOfBible.James, 2, 27)),
+				model.getReferencesMatchingQuery("\"without works\""));
+		assertEquals(0, model.getReferencesMatchingQuery("\"faith if\"").size());
+	}
+}
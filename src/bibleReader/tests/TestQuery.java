@@ -0,0 +1,277 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.DifferenceIterator;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.IntersectionIterator;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.Query;
+import bibleReader.model.QueryParser;
+import bibleReader.model.Reference;
+import bibleReader.model.ReferenceSet;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for QueryParser, the iterators a Query is made of, and running queries against a concordance, which is
+ * checked against matching each verse's text.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestQuery {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	private static final String[]	WORDS			= { "love", "of", "money", "faith", "works", "hope", "the", "lord" };
+
+	@Test
+	public void testParse() {
+		String[][] cases = { { "love", "love" }, { "Faith works", "(faith AND works)" },
+				{ "faith AND works", "(faith AND works)" }, { "faith OR hope love", "(faith OR (hope AND love))" },
+				{ "(faith OR hope) love", "((faith OR hope) AND love)" },
+				{ "love NOT \"love of money\"", "(love AND NOT \"love of money\")" },
+				{ "NOT NOT love", "NOT NOT love" }, { "  \"The  LORD,\"  ", "\"the lord\"" },
+				{ "LORD's bless?d light?", "(lord AND bless?d AND light)" }, { "\"love.\"", "love" },
+				{ "love and not money", "(love AND and AND not AND money)" }, { "love . OR hope", "(love OR hope)" } };
+		for (String[] c : cases) {
+			Query query = QueryParser.parse(c[0]);
+			assertEquals(c[0], c[1], query.toString());
+			assertEquals(c[0], c[1], QueryParser.parse(query.toString()).toString());
+		}
+		for (String bad : new String[] { "", "  ", "AND love", "love OR", "(love", "love)", "\"love", "NOT",
+				"love (OR hope)", "\"wife's house\"", "()", null }) {
+			try {
+				QueryParser.parse(bad);
+				fail(bad + " should not parse.");
+			} catch (IllegalArgumentException e) {
+				// It isn't a valid search.
+			}
+		}
+	}
+
+	private static TreeSet<Integer> randomOrdinals(Random random) {
+		TreeSet<Integer> ordinals = new TreeSet<Integer>();
+		int count = random.nextInt(300);
+		for (int i = 0; i < count; i++) {
+			ordinals.add(random.nextInt(2000));
+		}
+		return ordinals;
+	}
+
+	private static PostingsIterator iterator(TreeSet<Integer> ordinals) {
+		IntReferenceList list = new IntReferenceList();
+		for (int ordinal : ordinals) {
+			list.add(ordinal);
+		}
+		return ReferenceSet.of(list).iterator();
+	}
+
+	// Walk the iterator with a mix of next and skipTo, checking it against the expected ordinals.
+	private static void assertSame(TreeSet<Integer> expected, PostingsIterator iterator, Random random) {
+		int ordinal = -1;
+		while (ordinal != PostingsIterator.NO_MORE_ORDINALS) {
+			Integer wanted;
+			if (random.nextBoolean()) {
+				int target = ordinal + 1 + random.nextInt(50);
+				wanted = expected.ceiling(target);
+				ordinal = iterator.skipTo(target);
+			} else {
+				wanted = expected.higher(ordinal);
+				ordinal = iterator.next();
+			}
+			assertEquals(wanted == null ? PostingsIterator.NO_MORE_ORDINALS : (int) wanted, ordinal);
+			assertEquals(ordinal, iterator.ordinal());
+		}
+		assertEquals(PostingsIterator.NO_MORE_ORDINALS, iterator.next());
+	}
+
+	@Test
+	public void testIteratorsAtTheEnds() {
+		TreeSet<Integer> some = new TreeSet<Integer>(Arrays.asList(1, 64, 65, 300));
+		Random random = new Random(1);
+		assertSame(new TreeSet<Integer>(), new IntersectionIterator(new ArrayList<PostingsIterator>()), random);
+		assertSame(some, new IntersectionIterator(Arrays.asList(iterator(some))), random);
+		assertSame(some, new DifferenceIterator(iterator(some), iterator(new TreeSet<Integer>())), random);
+		assertSame(new TreeSet<Integer>(), new DifferenceIterator(iterator(some), iterator(some)), random);
+		// Everything after the last ordinal to leave out is kept.
+		assertSame(new TreeSet<Integer>(Arrays.asList(65, 300)),
+				new DifferenceIterator(iterator(some), iterator(new TreeSet<Integer>(Arrays.asList(0, 1, 64)))),
+				random);
+	}
+
+	private static IntReferenceList genesis(int... verses) {
+		IntReferenceList ordinals = new IntReferenceList();
+		for (int verse : verses) {
+			ordinals.add(Reference.toOrdinal(BookOfBible.Genesis, 1, verse));
+		}
+		return ordinals;
+	}
+
+	@Test
+	public void testQueries() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		String[] texts = { "love", "money", "", "love of money", "love, of money" };
+		for (int i = 0; i < texts.length; i++) {
+			verses.add(new Verse(BookOfBible.Genesis, 1, i + 1, texts[i]));
+		}
+		Concordance concordance = new Concordance(new TreeMapBible(verses), true);
+		// NOT on its own is every verse without the word, even the empty one.
+		assertEquals(genesis(2, 3), QueryParser.parse("NOT love").getOrdinals(concordance));
+		assertEquals(genesis(1, 4, 5), QueryParser.parse("NOT NOT love").getOrdinals(concordance));
+		assertEquals(genesis(1, 2, 3, 4, 5), QueryParser.parse("NOT missing").getOrdinals(concordance));
+		assertEquals(genesis(1, 4, 5), QueryParser.parse("love OR missing").getOrdinals(concordance));
+		assertEquals(genesis(), QueryParser.parse("love missing").getOrdinals(concordance));
+		// The comma in Genesis 1:5 means the words aren't the phrase.
+		assertEquals(genesis(4), QueryParser.parse("\"love of money\"").getOrdinals(concordance));
+		assertEquals(genesis(), QueryParser.parse("\"love missing\"").getOrdinals(concordance));
+		// AND (and NOT) come before OR unless there are parentheses.
+		assertEquals(genesis(1, 2, 4, 5), QueryParser.parse("money OR love NOT of").getOrdinals(concordance));
+		assertEquals(genesis(1, 2), QueryParser.parse("(money OR love) NOT of").getOrdinals(concordance));
+	}
+
+	@Test
+	public void testIterators() {
+		Random random = new Random(11);
+		for (int trial = 0; trial < 80; trial++) {
+			ArrayList<PostingsIterator> iterators = new ArrayList<PostingsIterator>();
+			TreeSet<Integer> all = null;
+			int count = random.nextInt(4);
+			for (int i = 0; i < count; i++) {
+				TreeSet<Integer> ordinals = randomOrdinals(random);
+				iterators.add(iterator(ordinals));
+				if (all == null) {
+					all = ordinals;
+				} else {
+					all.retainAll(ordinals);
+				}
+			}
+			assertSame(all == null ? new TreeSet<Integer>() : all, new IntersectionIterator(iterators), random);
+
+			TreeSet<Integer> include = randomOrdinals(random);
+			TreeSet<Integer> exclude = randomOrdinals(random);
+			PostingsIterator difference = new DifferenceIterator(iterator(include), iterator(exclude));
+			include.removeAll(exclude);
+			assertSame(include, difference, random);
+		}
+	}
+
+	private static Query randomQuery(Random random, int depth) {
+		int kind = depth == 0 ? random.nextInt(2) : random.nextInt(5);
+		switch (kind) {
+		case 0:
+			return new Query.Term(WORDS[random.nextInt(WORDS.length)]);
+		case 1:
+			if (random.nextBoolean()) {
+				return new Query.Term(WORDS[random.nextInt(WORDS.length)]);
+			}
+			return new Query.Phrase(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+		case 2:
+			return new Query.Not(randomQuery(random, depth - 1));
+		case 3:
+			return new Query.And(randomQuery(random, depth - 1), randomQuery(random, depth - 1));
+		default:
+			return new Query.Or(randomQuery(random, depth - 1), randomQuery(random, depth - 1));
+		}
+	}
+
+	// Does the text match the query? Found without the concordance.
+	private static boolean matches(Query query, String text) {
+		if (query instanceof Query.Term) {
+			return Concordance.extractWords(text).contains(((Query.Term) query).getWord());
+		}
+		if (query instanceof Query.Phrase) {
+			String phrase = ((Query.Phrase) query).getPhrase();
+			return Pattern.compile("\\b" + phrase + "\\b").matcher(text.toLowerCase()).find();
+		}
+		if (query instanceof Query.Not) {
+			return !matches(((Query.Not) query).getPart(), text);
+		}
+		boolean and = query instanceof Query.And;
+		for (Query part : and ? ((Query.And) query).getParts() : ((Query.Or) query).getParts()) {
+			if (matches(part, text) != and) {
+				return !and;
+			}
+		}
+		return and;
+	}
+
+	@Test
+	public void testSameAsMatchingText() {
+		Random random = new Random(4);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 20; chapter++) {
+			for (int verse = 1; verse <= 20; verse++) {
+				StringBuilder text = new StringBuilder();
+				int length = 1 + random.nextInt(8);
+				for (int i = 0; i < length; i++) {
+					text.append(WORDS[random.nextInt(WORDS.length)]);
+					text.append(random.nextInt(5) == 0 ? ", " : " ");
+				}
+				verses.add(new Verse(BookOfBible.Romans, chapter, verse, text.toString().trim()));
+			}
+		}
+		Concordance concordance = new Concordance(new TreeMapBible(verses), true);
+		for (int trial = 0; trial < 120; trial++) {
+			Query query = randomQuery(random, 3);
+			IntReferenceList expected = new IntReferenceList();
+			for (Verse verse : verses) {
+				if (matches(query, verse.getText())) {
+					expected.add(verse.getReference().getOrdinal());
+				}
+			}
+			assertEquals(query.toString(), expected, query.getOrdinals(concordance));
+			assertEquals(query.toString(), expected, QueryParser.parse(query.toString()).getOrdinals(concordance));
+		}
+	}
+
+	@Test
+	public void testModel() {
+		VerseList kjv = new VerseList("KJV", "A Test Bible");
+		kjv.add(new Verse(BookOfBible.Timothy1, 6, 10, "For the love of money is the root of all evil."));
+		kjv.add(new Verse(BookOfBible.John, 3, 16, "For God so loved the world, that he gave his only begotten Son."));
+		kjv.add(new Verse(BookOfBible.John1, 4, 8, "He that loveth not knoweth not God; for God is love."));
+		kjv.add(new Verse(BookOfBible.Corinthians1, 13, 13, "And now abideth faith, hope, charity."));
+		VerseList other = new VerseList("OTH", "Another Test Bible");
+		other.add(new Verse(BookOfBible.Timothy1, 6, 10, "For the love of money is a root of all kinds of evils."));
+		other.add(new Verse(BookOfBible.Corinthians1, 13, 13, "So now faith, hope, and love abide."));
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(new TreeMapBible(kjv));
+		model.addBible(new TreeMapBible(other));
+
+		// 1 Corinthians 13:13 has love in only one version, which is enough.
+		assertEquals(
+				Arrays.asList(new Reference(BookOfBible.Corinthians1, 13, 13), new Reference(BookOfBible.John1, 4, 8)),
+				model.getReferencesMatchingQuery("love NOT \"love of money\""));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.John, 3, 16)),
+				model.getReferencesMatchingQuery("God NOT (love OR loveth)"));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.Corinthians1, 13, 13)),
+				model.getReferencesMatchingQuery("faith hope NOT charity"));
+		assertEquals(new HashSet<Reference>(model.getReferencesContainingAllWords("God for")),
+				new HashSet<Reference>(model.getReferencesMatchingQuery("God AND for")));
+		assertEquals(Arrays.asList(new Reference(BookOfBible.Timothy1, 6, 10)),
+				model.getReferencesMatchingQuery("\"root of all\" lov*"));
+	}
+}
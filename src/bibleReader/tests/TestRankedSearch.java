@@ -0,0 +1,304 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.BM25;
+import bibleReader.model.Bible;
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.PostingsList;
+import bibleReader.model.Reference;
+import bibleReader.model.TopK;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for ranking searches with BM25: the frequencies and lengths the concordance keeps, TopK, a few scores worked
+ * out by hand, and the ranked searches, which are checked against scoring every verse the slow way.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestRankedSearch {
+	@Rule
+	public Timeout				globalTimeout	= new Timeout(5000);
+
+	@Rule
+	public TemporaryFolder		folder			= new TemporaryFolder();
+
+	private static final String[]	WORDS			= { "the", "and", "lord", "god", "light", "love", "said", "unto",
+			"heaven", "earth", "spirit", "water", "grace", "truth" };
+
+	private VerseList			verses;
+	private Bible				bible;
+	private Concordance			concordance;
+
+	@Before
+	public void setUp() throws Exception {
+		// Common words are picked more often than rare ones, and verses have between 1 and 30 words.
+		Random random = new Random(14);
+		verses = new VerseList("TST", "A Test Bible");
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.Genesis, BookOfBible.John }) {
+			for (int chapter = 1; chapter <= 10; chapter++) {
+				for (int verse = 1; verse <= 30; verse++) {
+					StringBuilder text = new StringBuilder();
+					int length = 1 + random.nextInt(30);
+					for (int i = 0; i < length; i++) {
+						text.append(WORDS[Math.min(random.nextInt(WORDS.length), random.nextInt(WORDS.length))]);
+						text.append(i % 7 == 6 ? ". " : " ");
+					}
+					verses.add(new Verse(book, chapter, verse, text.toString().trim()));
+				}
+			}
+		}
+		bible = new TreeMapBible(verses);
+		concordance = new Concordance(bible);
+	}
+
+	// The score of every verse that contains all (or any) of the words, best first, found by counting the words.
+	private ArrayList<double[]> bruteForce(Concordance concordance, String[] words, boolean requireAll) {
+		HashSet<String> query = new HashSet<String>(Arrays.asList(words));
+		ArrayList<double[]> results = new ArrayList<double[]>();
+		double average = concordance.getAverageVerseLength();
+		for (Verse verse : verses) {
+			ArrayList<String> text = Concordance.extractWords(verse.getText());
+			double score = 0;
+			int matched = 0;
+			for (String word : query) {
+				int frequency = Collections.frequency(text, word);
+				if (frequency > 0) {
+					matched++;
+					double idf = BM25.idf(verses.size(), concordance.getDocumentFrequency(word));
+					score += BM25.score(idf, frequency, text.size() / average);
+				}
+			}
+			if (requireAll ? matched == query.size() : matched > 0) {
+				results.add(new double[] { score, verse.getReference().getOrdinal() });
+			}
+		}
+		Collections.sort(results, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] o1, double[] o2) {
+				return o1[0] != o2[0] ? Double.compare(o2[0], o1[0]) : Double.compare(o1[1], o2[1]);
+			}
+		});
+		return results;
+	}
+
+	@Test
+	public void testTopK() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 100; trial++) {
+			int k = random.nextInt(20);
+			TopK top = new TopK(k);
+			ArrayList<double[]> all = new ArrayList<double[]>();
+			int count = random.nextInt(200);
+			for (int i = 0; i < count; i++) {
+				// Only a few different scores, so there are lots of ties.
+				int ordinal = random.nextInt(100000);
+				double score = random.nextInt(10);
+				all.add(new double[] { score, ordinal });
+				top.offer(ordinal, score);
+			}
+			Collections.sort(all, new Comparator<double[]>() {
+				@Override
+				public int compare(double[] o1, double[] o2) {
+					return o1[0] != o2[0] ? Double.compare(o2[0], o1[0]) : Double.compare(o1[1], o2[1]);
+				}
+			});
+			assertEquals(Math.min(k, count), top.size());
+			int[] ordinals = top.getOrdinals();
+			double[] scores = top.getScores();
+			for (int i = 0; i < top.size(); i++) {
+				assertEquals((int) all.get(i)[1], ordinals[i]);
+				assertEquals(all.get(i)[0], scores[i], 0);
+			}
+		}
+		assertFalse(new TopK(0).offer(1, 1.0));
+	}
+
+	@Test
+	public void testTopKTies() {
+		// With the same score, the first ordinal wins, whenever it was offered.
+		TopK top = new TopK(2);
+		assertTrue(top.offer(5, 1.0));
+		assertTrue(top.offer(3, 1.0));
+		assertTrue(top.offer(4, 1.0));
+		assertFalse(top.offer(6, 1.0));
+		assertTrue(top.offer(9, 2.0));
+		assertArrayEquals(new int[] { 9, 3 }, top.getOrdinals());
+		assertEquals(1.0, top.threshold(), 0);
+		assertEquals(Double.POSITIVE_INFINITY, new TopK(0).threshold(), 0);
+		assertEquals(Double.NEGATIVE_INFINITY, new TopK(3).threshold(), 0);
+	}
+
+	private static Concordance concordanceOf(String... texts) {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int i = 0; i < texts.length; i++) {
+			verses.add(new Verse(BookOfBible.Genesis, 1, i + 1, texts[i]));
+		}
+		return new Concordance(new TreeMapBible(verses));
+	}
+
+	@Test
+	public void testShortVersesScoreHigher() {
+		Concordance small = concordanceOf("light", "light, light and darkness", "darkness");
+		// The average verse has 2 words, and "light" is in two of the three verses.
+		double idf = BM25.idf(3, 2);
+		assertEquals(Math.log(1.6), idf, 1e-12);
+		TopK top = small.getTopOrdinals(Arrays.asList("light"), 10, false);
+		// The verse with "light" once and nothing else beats the one with it twice in four words.
+		assertArrayEquals(new int[] { 0x000101, 0x000102 }, top.getOrdinals());
+		assertArrayEquals(new double[] { BM25.score(idf, 1, 0.5), BM25.score(idf, 2, 2.0) },
+				top.getScores(), 1e-12);
+		assertTrue(top.getScores()[0] <= idf * (BM25.K1 + 1));
+		// A word given twice only counts once, and a word that isn't there adds nothing.
+		assertArrayEquals(top.getScores(),
+				small.getTopOrdinals(Arrays.asList("light", "LIGHT", "missing"), 10, false).getScores(), 0);
+		assertEquals(0, small.getTopOrdinals(Arrays.asList("light", "missing"), 10, true).size());
+		assertArrayEquals(new int[] { 0x000102 },
+				small.getTopOrdinals(Arrays.asList("light", "darkness"), 10, true).getOrdinals());
+		assertEquals(0, small.getTopOrdinals(Arrays.asList("light"), 0, false).size());
+	}
+
+	@Test
+	public void testFrequenciesAndLengths() throws IOException {
+		File file = folder.newFile("test.idx");
+		concordance.write(file, 20L);
+		Concordance read = Concordance.read(file, 20L);
+		assertEquals(verses.size(), concordance.getNumberOfVerses());
+		assertEquals(verses.size(), read.getNumberOfVerses());
+		assertEquals(concordance.getAverageVerseLength(), read.getAverageVerseLength(), 0);
+		for (Concordance c : new Concordance[] { concordance, read }) {
+			for (Verse verse : verses) {
+				int ordinal = verse.getReference().getOrdinal();
+				ArrayList<String> text = Concordance.extractWords(verse.getText());
+				assertEquals(text.size(), c.getVerseLength(ordinal));
+			}
+			for (String word : WORDS) {
+				PostingsList postings = c.getPostings(word);
+				assertTrue(postings.hasFrequencies());
+				assertEquals(postings.size(), c.getDocumentFrequency(word));
+				PostingsList.Cursor cursor = postings.iterator();
+				int max = 0;
+				for (int ordinal = cursor.next(); ordinal != PostingsIterator.NO_MORE_ORDINALS; ordinal = cursor
+						.next()) {
+					String text = bible.getVerse(Reference.fromOrdinal(ordinal)).getText();
+					assertEquals(Collections.frequency(Concordance.extractWords(text), word), cursor.frequency());
+					max = Math.max(max, cursor.frequency());
+				}
+				assertEquals(max, postings.getMaxFrequency());
+			}
+		}
+		assertEquals(0, concordance.getVerseLength(Reference.toOrdinal(BookOfBible.Exodus, 1, 1)));
+		assertEquals(0, concordance.getDocumentFrequency("missing"));
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 30; trial++) {
+			String[] words = new String[1 + random.nextInt(4)];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = WORDS[random.nextInt(WORDS.length)];
+			}
+			boolean requireAll = random.nextBoolean();
+			int k = new int[] { 1, 3, 10, 50, 1000 }[random.nextInt(5)];
+			ArrayList<double[]> expected = bruteForce(concordance, words, requireAll);
+			TopK top = concordance.getTopOrdinals(Arrays.asList(words), k, requireAll);
+			String message = Arrays.toString(words) + " " + k + " " + requireAll;
+			assertEquals(message, Math.min(k, expected.size()), top.size());
+
+			// Scores that are the same can come out a little different depending on the order they are added up in,
+			// so the scores are compared, and each ordinal is checked to have the score it says.
+			HashMap<Integer, Double> scoreOf = new HashMap<Integer, Double>();
+			for (double[] result : expected) {
+				scoreOf.put((int) result[1], result[0]);
+			}
+			int[] ordinals = top.getOrdinals();
+			double[] scores = top.getScores();
+			for (int i = 0; i < top.size(); i++) {
+				assertEquals(message, expected.get(i)[0], scores[i], 1e-9);
+				assertEquals(message, scoreOf.get(ordinals[i]), scores[i], 1e-9);
+			}
+		}
+		assertEquals(0, concordance.getTopOrdinals(Arrays.asList("light", "missing"), 10, true).size());
+		assertArrayEquals(concordance.getTopOrdinals(Arrays.asList("light"), 10, false).getOrdinals(),
+				concordance.getTopOrdinals(Arrays.asList("light", "missing"), 10, false).getOrdinals());
+	}
+
+	@Test
+	public void testModel() {
+		VerseList kjv = new VerseList("KJV", "A Test Bible");
+		kjv.add(new Verse(BookOfBible.Genesis, 1, 1, "In the beginning God created the heaven and the earth."));
+		kjv.add(new Verse(BookOfBible.Genesis, 1, 2, "And the earth was without form, and void."));
+		kjv.add(new Verse(BookOfBible.Genesis, 1, 3, "And God said, Let there be light: and there was light."));
+		kjv.add(new Verse(BookOfBible.John, 1, 5, "And the light shineth in darkness; and the darkness "
+				+ "comprehended it not, for it was night and there was no moon and no star."));
+		VerseList other = new VerseList("OTH", "Another Test Bible");
+		other.add(new Verse(BookOfBible.Genesis, 1, 1, "First, God made the heavens and the earth."));
+		other.add(new Verse(BookOfBible.John, 1, 5, "The light, the light, the light shines."));
+		Bible first = new TreeMapBible(kjv);
+		Bible second = new TreeMapBible(other);
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(first);
+		model.addBible(second);
+
+		// John 1:5 is best in the second version, Genesis 1:3 in the first, and Genesis 1:2 doesn't have the word.
+		ArrayList<Reference> expected = new ArrayList<Reference>();
+		expected.add(new Reference(BookOfBible.John, 1, 5));
+		expected.add(new Reference(BookOfBible.Genesis, 1, 3));
+		assertEquals(expected, model.getTopReferencesContainingAllWords("Light!", 10));
+		assertEquals(expected.subList(0, 1), model.getTopReferencesContainingAllWords("light", 1));
+		assertEquals(new HashSet<Reference>(model.getReferencesContainingAllWords("the earth")),
+				new HashSet<Reference>(model.getTopReferencesContainingAllWords("the earth", 10)));
+		assertEquals(0, model.getTopReferencesContainingAllWords("light", 0).size());
+		assertEquals(0, model.getTopReferencesContainingAllWords(null, 5).size());
+	}
+
+	@Test
+	public void testModelUsesTheBestVersion() {
+		VerseList kjv = new VerseList("KJV", "A Test Bible");
+		VerseList other = new VerseList("OTH", "Another Test Bible");
+		String[][] texts = { { "light", "light" }, { "light", "light" }, { "light light", "light dark" } };
+		for (int verse = 1; verse <= texts.length; verse++) {
+			kjv.add(new Verse(BookOfBible.Genesis, 1, verse, texts[verse - 1][0]));
+			other.add(new Verse(BookOfBible.Genesis, 1, verse, texts[verse - 1][1]));
+		}
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(new TreeMapBible(kjv));
+		model.addBible(new TreeMapBible(other));
+		// Genesis 1:3 has the best score in the first version. Adding up the scores of both versions would put
+		// Genesis 1:1 and 1:2 first instead.
+		assertArrayEquals(new int[] { 0x000103, 0x000101, 0x000102 },
+				model.getTopOrdinalsContainingAllWords("light", 5));
+		assertArrayEquals(new int[] { 0x000103 }, model.getTopOrdinalsContainingAllWords("light", 1));
+	}
+}
@@ -0,0 +1,110 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Reference;
+import bibleReader.model.Verse;
+
+/**
+ * Tests for the canonical References returned by Reference.of and for the hash codes of Reference and Verse.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestReferenceCanonical {
+	@Rule
+	public Timeout globalTimeout = new Timeout(2000);
+
+	@Test
+	public void testOfReturnsSameInstance() {
+		Reference ref = Reference.of(BookOfBible.John, 3, 16);
+		assertSame(ref, Reference.of(BookOfBible.John, 3, 16));
+		assertSame(ref, Reference.fromOrdinal(ref.getOrdinal()));
+		assertNotSame(ref, Reference.of(BookOfBible.John, 3, 17));
+	}
+
+	@Test
+	public void testCanonicalEqualsConstructed() {
+		Reference canonical = Reference.of(BookOfBible.Psalms, 119, 176);
+		Reference constructed = new Reference(BookOfBible.Psalms, 119, 176);
+		assertEquals(canonical, constructed);
+		assertEquals(constructed, canonical);
+		assertEquals(canonical.hashCode(), constructed.hashCode());
+		assertEquals(0, canonical.compareTo(constructed));
+	}
+
+	@Test
+	public void testOutOfRangeReferencesStillWork() {
+		Reference big = Reference.of(BookOfBible.Genesis, 1000, 1);
+		assertEquals(new Reference(BookOfBible.Genesis, 1000, 1), big);
+		assertEquals(Reference.INVALID_ORDINAL, big.getOrdinal());
+		assertFalse(big.equals(Reference.of(BookOfBible.Genesis, 1, 1)));
+	}
+
+	@Test
+	public void testHashCodesAreDistinct() {
+		HashSet<Integer> hashes = new HashSet<Integer>();
+		int count = 0;
+		for (BookOfBible book : BookOfBible.values()) {
+			for (int chapter = 1; chapter <= 30; chapter++) {
+				for (int verse = 1; verse <= 30; verse++) {
+					hashes.add(Reference.of(book, chapter, verse).hashCode());
+					count++;
+				}
+			}
+		}
+		assertEquals(count, hashes.size());
+	}
+
+	@Test
+	public void testVerseHashCodeMatchesEquals() {
+		Verse first = new Verse(BookOfBible.Ruth, 1, 1, "Now it came to pass");
+		Verse second = new Verse(new Reference(BookOfBible.Ruth, 1, 1), "Now it came to pass");
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertSame(first.getReference(), Reference.of(BookOfBible.Ruth, 1, 1));
+	}
+
+	@Test
+	public void testConcurrentInterning() throws InterruptedException {
+		final Reference[][] seen = new Reference[8][];
+		Thread[] threads = new Thread[seen.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int index = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Reference[] refs = new Reference[200];
+					for (int verse = 1; verse <= refs.length; verse++) {
+						refs[verse - 1] = Reference.of(BookOfBible.Jude, 200, verse);
+					}
+					seen[index] = refs;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int t = 1; t < seen.length; t++) {
+			for (int i = 0; i < seen[0].length; i++) {
+				assertSame(seen[0][i], seen[t][i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.Reference;
+import bibleReader.model.ReferenceSet;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for ReferenceSet: the verses at the ends of the words of a chapter, chapters that end up empty, and the set
+ * operations checked against doing the same thing with a TreeSet of ordinals.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestReferenceSet {
+	@Rule
+	public Timeout	globalTimeout	= new Timeout(5000);
+
+	// Random ordinals, bunched into a few chapters so the sets share chunks and some words are full.
+	private static TreeSet<Integer> randomOrdinals(Random random, int count) {
+		TreeSet<Integer> ordinals = new TreeSet<Integer>();
+		for (int i = 0; i < count; i++) {
+			BookOfBible book = BookOfBible.values()[random.nextInt(3) * 20];
+			ordinals.add(Reference.toOrdinal(book, 1 + random.nextInt(4), random.nextInt(256)));
+		}
+		return ordinals;
+	}
+
+	private static ReferenceSet toSet(TreeSet<Integer> ordinals) {
+		IntReferenceList list = new IntReferenceList();
+		for (int ordinal : ordinals) {
+			list.add(ordinal);
+		}
+		return ReferenceSet.of(list);
+	}
+
+	private static void assertSame(TreeSet<Integer> expected, ReferenceSet actual) {
+		assertEquals(expected.size(), actual.size());
+		IntReferenceList list = actual.toIntReferenceList();
+		int i = 0;
+		for (int ordinal : expected) {
+			assertEquals(ordinal, list.get(i++));
+			assertTrue(actual.contains(ordinal));
+		}
+		assertEquals(toSet(expected), actual);
+	}
+
+	@Test
+	public void testOf() {
+		IntReferenceList unsorted = new IntReferenceList();
+		int[] ordinals = { 0x010203, 0x000101, 0x010203, 0x0001FF, 0x000100, 0x000140 };
+		for (int ordinal : ordinals) {
+			unsorted.add(ordinal);
+		}
+		ReferenceSet set = ReferenceSet.of(unsorted);
+		assertEquals(5, set.size());
+		assertEquals("[" + Reference.fromOrdinal(0x000100) + ", " + Reference.fromOrdinal(0x000101) + ", "
+				+ Reference.fromOrdinal(0x000140) + ", " + Reference.fromOrdinal(0x0001FF) + ", "
+				+ Reference.fromOrdinal(0x010203) + "]", set.toReferences().toString());
+		assertFalse(set.contains(0x000102));
+		assertFalse(set.contains(Reference.INVALID_ORDINAL));
+		assertTrue(ReferenceSet.EMPTY.isEmpty());
+		assertEquals(ReferenceSet.EMPTY, ReferenceSet.of(new IntReferenceList()));
+	}
+
+	private static ReferenceSet setOf(int... ordinals) {
+		return ReferenceSet.of(new IntReferenceList(ordinals.clone(), ordinals.length));
+	}
+
+	@Test
+	public void testWordAndChapterEdges() {
+		// Verses 0, 63, 64, 127, 128, 191, 192, and 255 are at the ends of the four words of a chapter.
+		int genesis1 = Reference.toOrdinal(BookOfBible.Genesis, 1, 0);
+		int genesis2 = Reference.toOrdinal(BookOfBible.Genesis, 2, 0);
+		int[] edges = { genesis1, genesis1 + 63, genesis1 + 64, genesis1 + 127, genesis1 + 128, genesis1 + 191,
+				genesis1 + 192, genesis1 + 255, genesis2 };
+		ReferenceSet set = setOf(edges);
+		assertEquals(edges.length, set.size());
+		PostingsIterator iterator = set.iterator();
+		for (int ordinal : edges) {
+			assertEquals(ordinal, iterator.next());
+		}
+		assertEquals(PostingsIterator.NO_MORE_ORDINALS, iterator.next());
+		iterator = set.iterator();
+		assertEquals(genesis1 + 64, iterator.skipTo(genesis1 + 64));
+		assertEquals(genesis1 + 127, iterator.skipTo(genesis1 + 65));
+		assertEquals(genesis2, iterator.skipTo(genesis1 + 256));
+		assertEquals(genesis2, iterator.skipTo(genesis1));
+
+		assertEquals(setOf(genesis1 + 63, genesis1 + 64), set.restrictTo(genesis1 + 1, genesis1 + 126));
+		assertEquals(setOf(genesis1 + 255, genesis2), set.restrictTo(genesis1 + 193, genesis2));
+		assertEquals(ReferenceSet.EMPTY, set.restrictTo(genesis1 + 193, genesis1 + 254));
+		assertEquals(set, set.restrictTo(genesis1, genesis2));
+	}
+
+	@Test
+	public void testEmptyChaptersAreDropped() {
+		int genesis1 = Reference.toOrdinal(BookOfBible.Genesis, 1, 1);
+		int exodus1 = Reference.toOrdinal(BookOfBible.Exodus, 1, 1);
+		ReferenceSet both = setOf(genesis1, exodus1);
+		ReferenceSet exodus = setOf(exodus1);
+		// Genesis 1 is left with no verses, so these are the same as the set that never had it.
+		assertEquals(exodus, ReferenceSet.difference(both, setOf(genesis1)));
+		assertEquals(exodus.hashCode(), ReferenceSet.difference(both, setOf(genesis1)).hashCode());
+		assertEquals(exodus, ReferenceSet.intersection(both, setOf(genesis1 + 1, exodus1)));
+		assertEquals(ReferenceSet.EMPTY, ReferenceSet.difference(both, both));
+		assertEquals(both, ReferenceSet.union(setOf(genesis1), exodus));
+		assertEquals(both, ReferenceSet.union(both, ReferenceSet.EMPTY));
+		assertEquals(ReferenceSet.EMPTY, ReferenceSet.intersection(ReferenceSet.EMPTY, both));
+	}
+
+	@Test
+	public void testInvalidOrdinals() {
+		ArrayList<Reference> references = new ArrayList<Reference>();
+		references.add(new Reference(BookOfBible.Ruth, 1, 1));
+		references.add(new Reference(BookOfBible.Ruth, 1, 1000));
+		assertEquals(setOf(Reference.toOrdinal(BookOfBible.Ruth, 1, 1)), ReferenceSet.of(references));
+		try {
+			setOf(5, Reference.INVALID_ORDINAL);
+			fail("A negative ordinal should not be put in a set.");
+		} catch (IllegalArgumentException e) {
+			// It isn't an ordinal.
+		}
+	}
+
+	@Test
+	public void testSetOperations() {
+		Random random = new Random(13);
+		for (int trial = 0; trial < 60; trial++) {
+			TreeSet<Integer> a = randomOrdinals(random, random.nextInt(300));
+			TreeSet<Integer> b = randomOrdinals(random, random.nextInt(300));
+			ReferenceSet setA = toSet(a);
+			ReferenceSet setB = toSet(b);
+			assertSame(a, setA);
+
+			TreeSet<Integer> expected = new TreeSet<Integer>(a);
+			expected.addAll(b);
+			assertSame(expected, ReferenceSet.union(setA, setB));
+			expected = new TreeSet<Integer>(a);
+			expected.retainAll(b);
+			assertSame(expected, ReferenceSet.intersection(setA, setB));
+			expected = new TreeSet<Integer>(a);
+			expected.removeAll(b);
+			assertSame(expected, ReferenceSet.difference(setA, setB));
+		}
+	}
+
+	@Test
+	public void testRestrictTo() {
+		Random random = new Random(6);
+		for (int trial = 0; trial < 150; trial++) {
+			TreeSet<Integer> a = randomOrdinals(random, random.nextInt(400));
+			int first = random.nextInt(0x290000);
+			int last = first + random.nextInt(0x800);
+			assertSame(new TreeSet<Integer>(a.subSet(first, true, last, true)), toSet(a).restrictTo(first, last));
+		}
+		ReferenceSet set = ReferenceSet.of(new IntReferenceList(new int[] { 5, 64, 300 }, 3));
+		assertEquals(ReferenceSet.EMPTY, set.restrictTo(6, 63));
+		assertEquals(ReferenceSet.EMPTY, set.restrictTo(10, 5));
+		assertEquals(3, set.restrictTo(-10, Integer.MAX_VALUE).size());
+	}
+
+	@Test
+	public void testIterator() {
+		Random random = new Random(7);
+		TreeSet<Integer> a = randomOrdinals(random, 500);
+		ReferenceSet set = toSet(a);
+		PostingsIterator iterator = set.iterator();
+		assertEquals(-1, iterator.ordinal());
+		for (int trial = 0; trial < 300; trial++) {
+			int target = iterator.ordinal() + random.nextInt(600);
+			Integer expected = a.ceiling(target);
+			int actual = random.nextBoolean() ? iterator.skipTo(target) : iterator.next();
+			if (actual != PostingsIterator.NO_MORE_ORDINALS && actual < target) {
+				// next was called, so it has to be the one after where it was.
+				continue;
+			}
+			assertEquals(expected == null ? PostingsIterator.NO_MORE_ORDINALS : (int) expected, actual);
+			if (actual == PostingsIterator.NO_MORE_ORDINALS) {
+				assertEquals(PostingsIterator.NO_MORE_ORDINALS, iterator.next());
+				return;
+			}
+		}
+	}
+
+	@Test
+	public void testModelBookAndChapterReferences() {
+		Random random = new Random(3);
+		BibleReaderModel model = new BibleReaderModel();
+		ArrayList<Bible> bibles = new ArrayList<Bible>();
+		for (int v = 0; v < 5; v++) {
+			VerseList verses = new VerseList("V" + v, "Version " + v);
+			for (BookOfBible book : new BookOfBible[] { BookOfBible.Psalms, BookOfBible.Proverbs, BookOfBible.Jude }) {
+				for (int chapter = 1; chapter <= 20; chapter++) {
+					for (int verse = 1; verse <= 30; verse++) {
+						if (random.nextInt(4) != 0) {
+							verses.add(new Verse(book, chapter, verse, "verse " + verse));
+						}
+					}
+				}
+			}
+			Bible bible = new TreeMapBible(verses);
+			bibles.add(bible);
+			model.addBible(bible);
+		}
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.Psalms, BookOfBible.Jude, BookOfBible.Genesis }) {
+			TreeSet<Reference> expected = new TreeSet<Reference>();
+			for (Bible bible : bibles) {
+				expected.addAll(bible.getReferencesForBook(book));
+			}
+			assertEquals(new ArrayList<Reference>(expected), model.getBookReferences(book));
+			for (int chapter = 0; chapter <= 21; chapter++) {
+				expected = new TreeSet<Reference>();
+				for (Bible bible : bibles) {
+					expected.addAll(bible.getReferencesForChapters(book, chapter, chapter + 2));
+				}
+				assertEquals(new ArrayList<Reference>(expected), model.getChapterReferences(book, chapter, chapter + 2));
+			}
+		}
+		assertEquals(0, model.getBookReferences(null).size());
+	}
+}
@@ -0,0 +1,188 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Reference;
+import bibleReader.model.SuffixArray;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for SuffixArray: overlapping occurrences, the ends of verses, and characters that change length when they are
+ * lowercased, and searches that are checked against finding every occurrence with indexOf.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestSuffixArray {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	// Few letters, so strings repeat a lot.
+	private static final String		LETTERS			= "aabAB n";
+
+	private Bible					bible;
+	private SuffixArray				suffixArray;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(17);
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (BookOfBible book : new BookOfBible[] { BookOfBible.Matthew, BookOfBible.Mark }) {
+			for (int chapter = 1; chapter <= 3; chapter++) {
+				for (int verse = 1; verse <= 15; verse++) {
+					verses.add(new Verse(book, chapter, verse, randomText(random, random.nextInt(30))));
+				}
+			}
+		}
+		bible = new TreeMapBible(verses);
+		suffixArray = new SuffixArray(bible);
+	}
+
+	private static String randomText(Random random, int length) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			text.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+		return text.toString();
+	}
+
+	// Every occurrence, found by trying every place in every verse.
+	private ArrayList<SuffixArray.Occurrence> bruteForce(String substring) {
+		ArrayList<SuffixArray.Occurrence> occurrences = new ArrayList<SuffixArray.Occurrence>();
+		String lowered = substring.toLowerCase();
+		for (Verse verse : bible.getAllVerses()) {
+			String text = verse.getText().toLowerCase();
+			for (int i = text.indexOf(lowered); i >= 0; i = text.indexOf(lowered, i + 1)) {
+				occurrences.add(new SuffixArray.Occurrence(verse.getReference(), i));
+			}
+		}
+		return occurrences;
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 200; trial++) {
+			String substring = randomText(random, 1 + random.nextInt(5));
+			ArrayList<SuffixArray.Occurrence> expected = bruteForce(substring);
+			assertEquals(substring, expected.size(), suffixArray.count(substring));
+			ArrayList<SuffixArray.Occurrence> occurrences = suffixArray.occurrences(substring);
+			assertEquals(substring, expected, occurrences);
+
+			// The verses with an occurrence are the ones the Bible finds.
+			LinkedHashSet<Reference> verses = new LinkedHashSet<Reference>();
+			for (SuffixArray.Occurrence occurrence : occurrences) {
+				verses.add(occurrence.getReference());
+			}
+			assertEquals(substring, bible.getReferencesContaining(substring), new ArrayList<Reference>(verses));
+		}
+		assertEquals(0, suffixArray.count(null));
+		assertEquals(0, suffixArray.count(""));
+		assertEquals(0, suffixArray.occurrences("").size());
+		assertEquals(0, suffixArray.count("ab c"));
+	}
+
+	@Test
+	public void testLongestCommonPrefix() {
+		// The longest string that occurs twice, found by trying every length and place.
+		ArrayList<String> texts = new ArrayList<String>();
+		for (Verse verse : bible.getAllVerses()) {
+			texts.add(verse.getText().toLowerCase());
+		}
+		int longest = 0;
+		for (String text : texts) {
+			for (int i = 0; i < text.length(); i++) {
+				for (int end = i + longest + 1; end <= text.length(); end++) {
+					if (bruteForce(text.substring(i, end)).size() < 2) {
+						break;
+					}
+					longest = end - i;
+				}
+			}
+		}
+		String repeat = suffixArray.getLongestRepeat();
+		assertEquals(longest, repeat.length());
+		assertTrue(suffixArray.count(repeat) >= 2);
+		int most = 0;
+		for (int rank = 0; rank < suffixArray.size() - 1; rank++) {
+			most = Math.max(most, suffixArray.getLongestCommonPrefix(rank));
+		}
+		assertEquals(longest, most);
+	}
+
+	private static SuffixArray suffixArrayOf(String... texts) {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int i = 0; i < texts.length; i++) {
+			verses.add(new Verse(BookOfBible.Luke, 1, i + 1, texts[i]));
+		}
+		return new SuffixArray(new TreeMapBible(verses));
+	}
+
+	@Test
+	public void testEdges() {
+		// Occurrences can overlap.
+		SuffixArray repeats = suffixArrayOf("aaaa", "", "xAAy");
+		assertEquals(4, repeats.count("aa"));
+		ArrayList<SuffixArray.Occurrence> expected = new ArrayList<SuffixArray.Occurrence>();
+		for (int offset = 0; offset < 3; offset++) {
+			expected.add(new SuffixArray.Occurrence(new Reference(BookOfBible.Luke, 1, 1), offset));
+		}
+		expected.add(new SuffixArray.Occurrence(new Reference(BookOfBible.Luke, 1, 3), 1));
+		assertEquals(expected, repeats.occurrences("AA"));
+		assertEquals("aaa", repeats.getLongestRepeat());
+		assertEquals(0, repeats.count("aaaaa"));
+
+		// A repeat stops at the end of a verse, even when the next verses start the same way.
+		assertEquals("abc", suffixArrayOf("abc", "abc", "abd").getLongestRepeat());
+		assertEquals("", suffixArrayOf("abc").getLongestRepeat());
+		assertEquals("", suffixArrayOf().getLongestRepeat());
+		assertEquals(0, suffixArrayOf().count("a"));
+
+		// Capital I with a dot is two characters once it is lowercased, so the offsets after it move over by one.
+		SuffixArray dotted = suffixArrayOf("\u0130 am", "Am \uFFFF");
+		assertEquals(new SuffixArray.Occurrence(new Reference(BookOfBible.Luke, 1, 1), 3),
+				dotted.occurrences("am").get(0));
+		assertEquals(1, dotted.count("\u0307 AM"));
+		// The largest char is still bigger than every other one.
+		assertEquals(1, dotted.count("m \uFFFF"));
+		assertEquals(0, dotted.count("\uFFFF\uFFFF"));
+	}
+
+	@Test
+	public void testOccurrences() {
+		VerseList verses = new VerseList("KJV", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Matthew, 8, 20, "The foxes have holes, and the birds of the air have nests;"
+				+ " but the Son of man hath not where to lay his head."));
+		verses.add(new Verse(BookOfBible.Mark, 2, 10, "But that ye may know that the Son of man hath power"));
+		verses.add(new Verse(BookOfBible.Mark, 2, 11, "I say unto thee, Arise"));
+		SuffixArray kjv = new SuffixArray(new TreeMapBible(verses));
+		assertEquals("KJV", kjv.getVersion());
+		assertEquals(2, kjv.count("SON OF MAN"));
+		ArrayList<SuffixArray.Occurrence> expected = new ArrayList<SuffixArray.Occurrence>();
+		expected.add(new SuffixArray.Occurrence(new Reference(BookOfBible.Matthew, 8, 20), 67));
+		expected.add(new SuffixArray.Occurrence(new Reference(BookOfBible.Mark, 2, 10), 30));
+		assertEquals(expected, kjv.occurrences("son of man"));
+		// "power" ends one verse and "I say" starts the next, but an occurrence can't run from one into the other.
+		assertEquals(0, kjv.count("poweri"));
+		assertEquals(10, kjv.count("th"));
+	}
+}
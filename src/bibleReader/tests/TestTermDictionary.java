@@ -0,0 +1,230 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Bible;
+import bibleReader.model.BibleReaderModel;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.Concordance;
+import bibleReader.model.IntReferenceList;
+import bibleReader.model.PostingsIterator;
+import bibleReader.model.ReferenceSet;
+import bibleReader.model.TermDictionary;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.UnionIterator;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for TermDictionary and for prefix and wildcard searches in Concordance and the model.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestTermDictionary {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	private static final String[]	STEMS			= { "bless", "blessed", "blesseth", "blessing", "blessings", "blest",
+			"love", "loved", "lovely", "lover", "loveth", "loving", "lord", "lords", "light", "lightning", "a", "an",
+			"and" };
+
+	private TreeSet<String>			words;
+	private TermDictionary			dictionary;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(12);
+		words = new TreeSet<String>(Arrays.asList(STEMS));
+		for (int i = 0; i < 800; i++) {
+			StringBuilder word = new StringBuilder(STEMS[random.nextInt(STEMS.length)]);
+			int extra = random.nextInt(4);
+			for (int j = 0; j < extra; j++) {
+				word.append((char) ('a' + random.nextInt(5)));
+			}
+			words.add(word.toString());
+		}
+		dictionary = TermDictionary.of(words);
+	}
+
+	// What getTermsMatching should return, found the slow way.
+	private ArrayList<String> matching(String pattern) {
+		Pattern regex = Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+		ArrayList<String> matches = new ArrayList<String>();
+		for (String word : words) {
+			if (regex.matcher(word).matches()) {
+				matches.add(word);
+			}
+		}
+		return matches;
+	}
+
+	@Test
+	public void testGetAndIndexOf() {
+		assertEquals(words.size(), dictionary.size());
+		int index = 0;
+		for (String word : words) {
+			assertEquals(word, dictionary.get(index));
+			assertEquals(index, dictionary.indexOf(word));
+			index++;
+		}
+		ArrayList<String> sorted = new ArrayList<String>(words);
+		for (String missing : new String[] { "", "aa", "blessz", "zebra", "lorda", "m" }) {
+			if (!words.contains(missing)) {
+				assertEquals(missing, Collections.binarySearch(sorted, missing), dictionary.indexOf(missing));
+			}
+		}
+		assertEquals(0, TermDictionary.EMPTY.size());
+		assertEquals(-1, TermDictionary.EMPTY.indexOf("word"));
+	}
+
+	@Test
+	public void testBlockEdges() {
+		// Two full blocks and one more word, each word sharing all of the one before it.
+		ArrayList<String> chain = new ArrayList<String>();
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 2 * TermDictionary.BLOCK_SIZE + 1; i++) {
+			word.append('a');
+			chain.add(word.toString());
+		}
+		TermDictionary dictionary = TermDictionary.of(chain);
+		for (int i = 0; i < chain.size(); i++) {
+			assertEquals(chain.get(i), dictionary.get(i));
+			assertEquals(i, dictionary.indexOf(chain.get(i)));
+			// "a0" comes after "a" and before "aa".
+			assertEquals(-(i + 1) - 1, dictionary.indexOf(chain.get(i) + "0"));
+		}
+		assertEquals(-1, dictionary.indexOf(""));
+		assertEquals(-chain.size() - 1, dictionary.indexOf("b"));
+		int last = TermDictionary.BLOCK_SIZE - 1;
+		assertEquals(chain.subList(last, chain.size()), dictionary.getTermsWithPrefix(chain.get(last)));
+		assertEquals(chain.subList(chain.size() - 1, chain.size()),
+				dictionary.getTermsWithPrefix(chain.get(chain.size() - 1)));
+		assertEquals(chain.subList(last + 1, last + 2), dictionary.getTermsMatching(chain.get(last) + "?"));
+		assertEquals(0, dictionary.getTermsWithPrefix("b").size());
+	}
+
+	@Test
+	public void testOtherLetters() {
+		// Letters past 'z' sort after every word in plain letters.
+		TermDictionary dictionary = TermDictionary.of(Arrays.asList("\u00e9lie", "elie", "zion", "\u00e9z\u00e9chiel"));
+		assertEquals(Arrays.asList("elie", "zion", "\u00e9lie", "\u00e9z\u00e9chiel"),
+				dictionary.getTermsWithPrefix(""));
+		assertEquals(Arrays.asList("\u00e9lie", "\u00e9z\u00e9chiel"), dictionary.getTermsWithPrefix("\u00e9"));
+		assertEquals(Arrays.asList("elie", "\u00e9lie"), dictionary.getTermsMatching("?lie"));
+		assertEquals(Arrays.asList("elie", "\u00e9lie"), dictionary.getTermsWithin("elie", 1));
+	}
+
+	@Test
+	public void testBadArguments() {
+		TermDictionary dictionary = TermDictionary.of(Arrays.asList("one", "two", "one"));
+		assertEquals(2, dictionary.size());
+		for (int index : new int[] { -1, 2 }) {
+			try {
+				dictionary.get(index);
+				fail("There is no word " + index + ".");
+			} catch (IndexOutOfBoundsException e) {
+				// There are only two words.
+			}
+		}
+		char[] tooLong = new char[Character.MAX_VALUE + 1];
+		Arrays.fill(tooLong, 'a');
+		try {
+			TermDictionary.of(Arrays.asList(new String(tooLong)));
+			fail("The word is too long to store.");
+		} catch (IllegalArgumentException e) {
+			// Its length doesn't fit in a char.
+		}
+	}
+
+	@Test
+	public void testPrefixesAndWildcards() {
+		String[] patterns = { "bless*", "bless?d", "lo*", "lov??", "*eth", "l*t*", "a", "a*", "?", "*", "zz*",
+				"bl?ss*ng", "light", "lights", "**ing", "" };
+		for (String pattern : patterns) {
+			assertEquals(pattern, matching(pattern), dictionary.getTermsMatching(pattern));
+		}
+		assertEquals(matching("lord*"), dictionary.getTermsWithPrefix("lord"));
+		assertTrue(TermDictionary.isWildcard("bless?d"));
+		assertFalse(TermDictionary.isWildcard("blessed"));
+	}
+
+	@Test
+	public void testUnionIterator() {
+		Random random = new Random(5);
+		ArrayList<PostingsIterator> iterators = new ArrayList<PostingsIterator>();
+		TreeSet<Integer> all = new TreeSet<Integer>();
+		for (int i = 0; i < 20; i++) {
+			IntReferenceList list = new IntReferenceList();
+			for (int j = 0; j < 100; j++) {
+				list.add(random.nextInt(5000));
+			}
+			list.sortAndRemoveDuplicates();
+			for (int ordinal : list.toArray()) {
+				all.add(ordinal);
+			}
+			iterators.add(ReferenceSet.of(list).iterator());
+		}
+		UnionIterator union = new UnionIterator(iterators);
+		int target = 0;
+		while (true) {
+			target += random.nextInt(60);
+			Integer expected = all.ceiling(target);
+			int actual = union.skipTo(target);
+			assertEquals(expected == null ? PostingsIterator.NO_MORE_ORDINALS : (int) expected, actual);
+			if (expected == null) {
+				break;
+			}
+			expected = all.higher(actual);
+			assertEquals(expected == null ? PostingsIterator.NO_MORE_ORDINALS : (int) expected, union.next());
+			target = union.ordinal();
+		}
+	}
+
+	@Test
+	public void testWildcardSearches() {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		verses.add(new Verse(BookOfBible.Genesis, 1, 1, "Blessed be the LORD"));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 2, "and he blesseth them"));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 3, "a blessing of light"));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 4, "the lovely light"));
+		verses.add(new Verse(BookOfBible.Genesis, 1, 5, "Who loved the light?"));
+		Bible bible = new TreeMapBible(verses);
+		Concordance concordance = new Concordance(bible);
+		assertEquals(new IntReferenceList(new int[] { 0x000101, 0x000102, 0x000103 }, 3),
+				concordance.getOrdinalsMatching("BLESS*"));
+		assertEquals(new IntReferenceList(new int[] { 0x000101 }, 1), concordance.getOrdinalsMatching("bless?d"));
+		assertEquals(0, concordance.getOrdinalsMatching("curse*").size());
+
+		BibleReaderModel model = new BibleReaderModel();
+		model.addBible(bible);
+		assertEquals(new IntReferenceList(new int[] { 0x000103, 0x000104, 0x000105 }, 3),
+				model.getOrdinalsContainingAllWords("light"));
+		assertEquals(new IntReferenceList(new int[] { 0x000104, 0x000105 }, 2),
+				model.getOrdinalsContainingAllWords("lov* light"));
+		assertEquals(new IntReferenceList(new int[] { 0x000103 }, 1), model.getOrdinalsContainingAllWords("bl*s* light"));
+		// A question mark at the end of a word is just punctuation.
+		assertEquals(new IntReferenceList(new int[] { 0x000105 }, 1),
+				model.getOrdinalsContainingAllWords("who loved the light?"));
+	}
+}
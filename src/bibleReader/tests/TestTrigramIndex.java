@@ -0,0 +1,133 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.TrigramIndex;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for TrigramIndex and the Bibles that use one, which are checked against the same Bibles searching every verse.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestTrigramIndex {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	// Some characters change length or turn into ASCII when they are lowercased (capital I with a dot, the Kelvin
+	// sign), and some are past what the index keeps of a character (the last one shares its bits with an a).
+	private static final String		LETTERS			= "abcAB \u0130\u212A,.'\u00E9\u4E00\u8061";
+
+	private VerseList				verses;
+
+	@Before
+	public void setUp() throws Exception {
+		Random random = new Random(16);
+		verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 10; chapter++) {
+			for (int verse = 1; verse <= 30; verse++) {
+				verses.add(new Verse(BookOfBible.Ruth, chapter, verse, randomText(random, random.nextInt(40))));
+			}
+		}
+		// The same reference twice. ArrayListBible keeps both and TreeMapBible keeps the last.
+		verses.add(new Verse(BookOfBible.Ruth, 1, 1, "Whither thou goest, I will go"));
+	}
+
+	private static String randomText(Random random, int length) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			text.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testSameAsScanning() {
+		Bible[][] pairs = { { new ArrayListBible(verses), new ArrayListBible(verses, true) },
+				{ new TreeMapBible(verses), new TreeMapBible(verses, true) } };
+		assertFalse(((ArrayListBible) pairs[0][0]).hasTrigramIndex());
+		assertTrue(((ArrayListBible) pairs[0][1]).hasTrigramIndex());
+		assertTrue(((TreeMapBible) pairs[1][1]).hasTrigramIndex());
+		Random random = new Random(9);
+		for (int trial = 0; trial < 150; trial++) {
+			String phrase;
+			if (random.nextBoolean()) {
+				// A piece of a verse, so it is usually found.
+				String text = verses.get(random.nextInt(verses.size())).getText();
+				int start = text.isEmpty() ? 0 : random.nextInt(text.length());
+				phrase = text.substring(start, Math.min(text.length(), start + random.nextInt(6)));
+			} else {
+				phrase = randomText(random, random.nextInt(6));
+			}
+			for (Bible[] pair : pairs) {
+				assertEquals(phrase, pair[0].getVersesContaining(phrase), pair[1].getVersesContaining(phrase));
+				assertEquals(phrase, pair[0].getReferencesContaining(phrase), pair[1].getReferencesContaining(phrase));
+				assertEquals(phrase, pair[0].getOrdinalsContaining(phrase), pair[1].getOrdinalsContaining(phrase));
+			}
+		}
+		for (Bible[] pair : pairs) {
+			assertEquals(2, pair[1].getReferencesContaining("THOU GOEST").size() + pair[1].getOrdinalsContaining(
+					"will go").size());
+			assertEquals(0, pair[1].getVersesContaining(null).size());
+			assertEquals(0, pair[1].getReferencesContaining("").size());
+		}
+
+		// A verse number too big to pack into an ordinal is left out, with or without an index.
+		verses.add(new Verse(BookOfBible.Ruth, 1, 300, "Whither thou lodgest, I will lodge"));
+		TreeMapBible big = new TreeMapBible(verses, true);
+		assertTrue(big.hasTrigramIndex());
+		assertEquals(0, big.getReferencesContaining("lodge").size());
+	}
+
+	@Test
+	public void testIndex() {
+		String[] texts = { "In the beginning", "IN THE BEGINNING", "", "th", "the\u0130e", "\u212Aing" };
+		TrigramIndex index = new TrigramIndex(texts);
+		assertEquals(6, index.getNumberOfVerses());
+		assertTrue(Arrays.equals(new int[] { 0, 1 }, index.indexesContaining("beginning")));
+		assertTrue(Arrays.equals(new int[] { 0, 1, 3, 4 }, index.indexesContaining("Th")));
+		assertTrue(Arrays.equals(new int[] { 5 }, index.indexesContaining("KING")));
+		// Capital I with a dot lowercases to an i and a combining dot.
+		assertTrue(Arrays.equals(new int[] { 4 }, index.indexesContaining("hei")));
+		assertTrue(Arrays.equals(new int[0], index.indexesContaining("beginnings")));
+	}
+
+	@Test
+	public void testVersesWithEveryTrigramButNotThePhrase() {
+		String[] texts = { "xxab", "cxx", "abcab", "\u8061bc", "abc", "aaaa", "aa" };
+		TrigramIndex index = new TrigramIndex(texts);
+		// Verses 0 and 1 would have "abc" if they were one text, but a phrase can't go from one verse into the next.
+		// Verse 2 has every trigram of "abcabc" (abc, bca, and cab), and verse 3 has the same trigram as "abc"
+		// because the index only keeps the low bits of the first character.
+		assertTrue(Arrays.equals(new int[] { 2, 4 }, index.indexesContaining("abc")));
+		assertTrue(Arrays.equals(new int[0], index.indexesContaining("abcabc")));
+		assertTrue(Arrays.equals(new int[] { 3 }, index.indexesContaining("\u8061BC")));
+		// A phrase can have the same trigram more than once.
+		assertTrue(Arrays.equals(new int[] { 5 }, index.indexesContaining("aaaa")));
+		assertTrue(Arrays.equals(new int[0], index.indexesContaining("aaaaa")));
+		// Phrases too short to have a trigram search every verse.
+		assertTrue(Arrays.equals(new int[] { 0, 2, 4, 5, 6 }, index.indexesContaining("A")));
+		assertTrue(Arrays.equals(new int[] { 0, 1 }, index.indexesContaining("xx")));
+	}
+}
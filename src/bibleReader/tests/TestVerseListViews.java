@@ -0,0 +1,156 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.ColumnarBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+
+/**
+ * Tests for the VerseLists that the Bible classes return as views of their own verses.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestVerseListViews {
+	@Rule
+	public Timeout globalTimeout = new Timeout(1000);
+
+	private VerseList	verses;
+	private Bible[]		bibles;
+
+	@Before
+	public void setUp() throws Exception {
+		verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 3; chapter++) {
+			for (int verse = 1; verse <= 4; verse++) {
+				verses.add(new Verse(BookOfBible.Ruth, chapter, verse, "Ruth " + chapter + ":" + verse));
+			}
+		}
+		verses.add(new Verse(BookOfBible.Jude, 1, 1, "Jude 1:1"));
+		bibles = new Bible[] { new ArrayListBible(verses), new TreeMapBible(verses), new ColumnarBible(verses) };
+	}
+
+	@Test
+	public void testViewsHaveTheRightVerses() {
+		for (Bible bible : bibles) {
+			VerseList chapter = bible.getChapter(BookOfBible.Ruth, 2);
+			assertEquals(4, chapter.size());
+			assertEquals(new Verse(BookOfBible.Ruth, 2, 3, "Ruth 2:3"), chapter.get(2));
+			ArrayList<Verse> copy = chapter.copyVerses();
+			assertEquals(verses.subList(4, 8), copy);
+			assertEquals(verses.copyVerses(), bible.getAllVerses().copyVerses());
+		}
+	}
+
+	@Test
+	public void testGetReference() {
+		for (Bible bible : bibles) {
+			VerseList book = bible.getBook(BookOfBible.Ruth);
+			assertEquals(12, book.size());
+			for (int i = 0; i < book.size(); i++) {
+				assertEquals(book.get(i).getReference(), book.getReference(i));
+			}
+			assertEquals(new Reference(BookOfBible.Ruth, 3, 4), book.getReference(11));
+		}
+	}
+
+	@Test
+	public void testTreeMapRangesThatReachTheDummyVerse() {
+		// The verses and the references of a range agree, and neither has the Dummy verse at the end of the map.
+		Bible bible = bibles[1];
+		Reference first = new Reference(BookOfBible.Ruth, 3, 4);
+		Reference last = new Reference(BookOfBible.Dummy, 26, 0);
+		VerseList inclusive = bible.getVersesInclusive(first, last);
+		ArrayList<Reference> references = bible.getReferencesInclusive(first, last);
+		assertEquals(2, inclusive.size());
+		assertEquals(2, references.size());
+		assertEquals(2, bible.getOrdinalsInclusive(first, last).size());
+		for (int i = 0; i < inclusive.size(); i++) {
+			assertEquals(inclusive.getReference(i), references.get(i));
+		}
+		assertEquals(2, bible.getVersesExclusive(first, last).size());
+		assertEquals(2, bible.getReferencesExclusive(first, last).size());
+	}
+
+	@Test
+	public void testChangingAViewDoesNotChangeTheBible() {
+		for (Bible bible : bibles) {
+			VerseList passage = bible.getPassage(BookOfBible.Ruth, 1, 2, 2, 1);
+			assertEquals(4, passage.size());
+			passage.add(new Verse(BookOfBible.Genesis, 1, 1, "added"));
+			assertEquals(5, passage.size());
+			assertEquals(4, bible.getPassage(BookOfBible.Ruth, 1, 2, 2, 1).size());
+
+			VerseList all = bible.getAllVerses();
+			all.clear();
+			assertEquals(0, all.size());
+			assertEquals(13, bible.getAllVerses().size());
+			assertEquals(13, bible.getNumberOfVerses());
+		}
+	}
+
+	@Test
+	public void testChangingASubListOfAView() {
+		for (Bible bible : bibles) {
+			VerseList chapter = bible.getChapter(BookOfBible.Ruth, 2);
+			List<Verse> middle = chapter.subList(1, 3);
+			assertEquals(new Reference(BookOfBible.Ruth, 2, 2), middle.get(0).getReference());
+			middle.set(0, new Verse(BookOfBible.Genesis, 1, 1, "set"));
+			middle.remove(1);
+			assertEquals(1, middle.size());
+			assertEquals(3, chapter.size());
+			assertEquals("set", chapter.get(1).getText());
+			assertEquals(new Reference(BookOfBible.Ruth, 2, 4), chapter.getReference(2));
+
+			VerseList book = bible.getBook(BookOfBible.Ruth);
+			book.subList(0, 8).clear();
+			assertEquals(4, book.size());
+			assertEquals(new Reference(BookOfBible.Ruth, 3, 1), book.getReference(0));
+
+			assertEquals(4, bible.getChapter(BookOfBible.Ruth, 2).size());
+			assertEquals(12, bible.getBook(BookOfBible.Ruth).size());
+			assertEquals(new Reference(BookOfBible.Ruth, 2, 2), bible.getChapter(BookOfBible.Ruth, 2).getReference(1));
+		}
+	}
+
+	@Test
+	public void testRemovingWithAnIteratorOfAView() {
+		for (Bible bible : bibles) {
+			VerseList all = bible.getAllVerses();
+			Iterator<Verse> verses = all.iterator();
+			while (verses.hasNext()) {
+				if (verses.next().getReference().getChapter() != 1) {
+					verses.remove();
+				}
+			}
+			assertEquals(5, all.size());
+			assertEquals(new Reference(BookOfBible.Jude, 1, 1), all.getReference(4));
+			assertEquals(13, bible.getAllVerses().size());
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutsideTheView() {
+		bibles[2].getChapter(BookOfBible.Ruth, 1).get(4);
+	}
+}
@@ -0,0 +1,140 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.ArrayListBible;
+import bibleReader.model.Bible;
+import bibleReader.model.BookOfBible;
+import bibleReader.model.ColumnarBible;
+import bibleReader.model.Reference;
+import bibleReader.model.TreeMapBible;
+import bibleReader.model.Verse;
+import bibleReader.model.VerseList;
+import bibleReader.model.Versification;
+
+/**
+ * Tests for the Versification class, using each of the Bible implementations to build it.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestVersification {
+	@Rule
+	public Timeout globalTimeout = new Timeout(1000);
+
+	private Bible[] bibles;
+
+	@Before
+	public void setUp() throws Exception {
+		VerseList verses = new VerseList("TST", "A Test Bible");
+		for (int chapter = 1; chapter <= 4; chapter++) {
+			for (int verse = 1; verse <= 10 + chapter; verse++) {
+				// Chapter 3 has no verse 7 and chapter 2 is missing entirely.
+				if (chapter != 2 && !(chapter == 3 && verse == 7)) {
+					verses.add(new Verse(BookOfBible.Ruth, chapter, verse, "text"));
+				}
+			}
+		}
+		verses.add(new Verse(BookOfBible.Jude, 1, 1, "text"));
+		bibles = new Bible[] { new ArrayListBible(verses), new TreeMapBible(verses), new ColumnarBible(verses) };
+	}
+
+	@Test
+	public void testCounts() {
+		for (Bible bible : bibles) {
+			Versification v = bible.getVersification();
+			assertEquals(bible.getNumberOfVerses(), v.getNumberOfVerses());
+			assertEquals(11 + 12 + 14, v.getNumberOfVerses(BookOfBible.Ruth));
+			assertEquals(12, v.getNumberOfVerses(BookOfBible.Ruth, 3));
+			assertEquals(0, v.getNumberOfVerses(BookOfBible.Ruth, 2));
+			assertEquals(0, v.getNumberOfVerses(BookOfBible.Genesis));
+			assertEquals(3, v.getNumberOfChapters(BookOfBible.Ruth));
+			assertEquals(1, v.getNumberOfChapters(BookOfBible.Jude));
+		}
+	}
+
+	@Test
+	public void testLastNumbers() {
+		for (Bible bible : bibles) {
+			assertEquals(4, bible.getLastChapterNumber(BookOfBible.Ruth));
+			assertEquals(13, bible.getLastVerseNumber(BookOfBible.Ruth, 3));
+			assertEquals(14, bible.getLastVerseNumber(BookOfBible.Ruth, 4));
+			assertEquals(-1, bible.getLastVerseNumber(BookOfBible.Ruth, 2));
+			assertEquals(-1, bible.getLastVerseNumber(BookOfBible.Ruth, 5));
+			assertEquals(-1, bible.getLastChapterNumber(BookOfBible.Genesis));
+			assertEquals(-1, bible.getLastChapterNumber(null));
+		}
+	}
+
+	@Test
+	public void testIndexes() {
+		for (Bible bible : bibles) {
+			Versification v = bible.getVersification();
+			assertEquals(0, v.getFirstIndex(BookOfBible.Ruth));
+			assertEquals(11, v.getFirstIndex(BookOfBible.Ruth, 3));
+			assertEquals(11 + 6, v.indexOf(new Reference(BookOfBible.Ruth, 3, 8)));
+			assertEquals(new Reference(BookOfBible.Ruth, 3, 8), v.getReference(11 + 6));
+			assertEquals(v.getNumberOfVerses() - 1, v.getFirstIndex(BookOfBible.Jude));
+			assertEquals(-1, v.getFirstIndex(BookOfBible.Ruth, 2));
+			assertEquals(-1, v.indexOf(new Reference(BookOfBible.Ruth, 3, 7)));
+			assertEquals(11 + 6, v.firstIndexFrom(new Reference(BookOfBible.Ruth, 3, 7)));
+			assertEquals(11 + 6, v.firstIndexAfter(new Reference(BookOfBible.Ruth, 3, 7)));
+			assertEquals(11, v.firstIndexFrom(new Reference(BookOfBible.Ruth, 2, 1)));
+			assertEquals(v.getNumberOfVerses(), v.firstIndexAfter(new Reference(BookOfBible.Jude, 1, 1)));
+		}
+	}
+
+	@Test
+	public void testIsValid() {
+		for (Bible bible : bibles) {
+			assertTrue(bible.isValid(new Reference(BookOfBible.Ruth, 3, 8)));
+			assertFalse(bible.isValid(new Reference(BookOfBible.Ruth, 3, 7)));
+			assertFalse(bible.isValid(new Reference(BookOfBible.Dummy, 1, 1)));
+			assertFalse(bible.isValid(new Reference(BookOfBible.Ruth, -1, 1)));
+			assertFalse(bible.isValid(null));
+		}
+	}
+
+	@Test
+	public void testRepeatedReferences() {
+		VerseList verses = new VerseList("TST", "Repeats");
+		verses.add(new Verse(BookOfBible.Psalms, 3, 1, "title"));
+		verses.add(new Verse(BookOfBible.Psalms, 3, 1, "verse one"));
+		verses.add(new Verse(BookOfBible.Psalms, 3, 2, "verse two"));
+		Versification v = new ArrayListBible(verses).getVersification();
+		assertEquals(3, v.getNumberOfVerses());
+		assertEquals(0, v.indexOf(new Reference(BookOfBible.Psalms, 3, 1)));
+		assertEquals(2, v.indexOf(new Reference(BookOfBible.Psalms, 3, 2)));
+		assertEquals(2, v.getLastVerseNumber(BookOfBible.Psalms, 3));
+	}
+
+	@Test
+	public void testUnpackableReferences() {
+		// Verse 300 can't be packed into an ordinal, so every implementation leaves it out everywhere.
+		VerseList verses = new VerseList("TST", "Too Big");
+		verses.add(new Verse(BookOfBible.Psalms, 119, 176, "I have gone astray like a lost sheep"));
+		verses.add(new Verse(BookOfBible.Psalms, 119, 300, "A lost verse"));
+		for (Bible bible : new Bible[] { new ArrayListBible(verses), new TreeMapBible(verses),
+				new ColumnarBible(verses) }) {
+			Reference big = new Reference(BookOfBible.Psalms, 119, 300);
+			assertFalse(bible.isValid(big));
+			assertEquals(null, bible.getVerse(big));
+			assertEquals(null, bible.getVerseText(big));
+			assertEquals(1, bible.getNumberOfVerses());
+			assertEquals(1, bible.getAllVerses().size());
+			assertEquals(1, bible.getReferencesContaining("lost").size());
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package bibleReader.tests;
+
+// If you organize imports, the following import might be removed and you will
+// not be able to find certain methods. If you can't find something, copy the
+// commented import statement below, paste a copy, and remove the comments.
+// Keep this commented one in case you organize imports multiple times.
+//
+// import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import bibleReader.model.Concordance;
+import bibleReader.model.Tokenizer;
+import bibleReader.model.WordTokenizer;
+
+/**
+ * Tests for WordTokenizer. In ASCII mode it has to find exactly the words the old regular expression version of
+ * Concordance.extractWords found, which is copied here to check against.
+ *
+ * @author Trevor Palmatier
+ */
+public class TestWordTokenizer {
+	@Rule
+	public Timeout					globalTimeout	= new Timeout(5000);
+
+	private static final String[]	PIECES			= { "the", "LORD", "God", "s", "S", "'", " ", "  ", ",", ".", ";",
+			"1", "000", "_", "<sup>", "</sup>", "<SUP>", "a", "&#", "8217", "&", "#", "<", "\u00e9", "\u0130",
+			"\u212a", "-", "\n", ":", "sup>" };
+
+	// The way extractWords used to work (with only the ASCII apostrophe).
+	private static ArrayList<String> regexExtractWords(String text) {
+		text = text.toLowerCase();
+		text = text.replaceAll("(<sup>[,\\w]*?</sup>|'s|&#\\w*;)", " ");
+		text = text.replaceAll(",", "");
+		String[] words = text.split("\\W+");
+		ArrayList<String> toRet = new ArrayList<String>(Arrays.asList(words));
+		toRet.remove("");
+		return toRet;
+	}
+
+	private static ArrayList<String> tokens(WordTokenizer tokenizer, String text) {
+		final ArrayList<String> tokens = new ArrayList<String>();
+		tokenizer.tokenize(text, new Tokenizer.TokenHandler() {
+			@Override
+			public void token(char[] buffer, int length, int start, int end) {
+				tokens.add(new String(buffer, 0, length));
+			}
+		});
+		return tokens;
+	}
+
+	@Test
+	public void testSameAsRegularExpressions() {
+		String[] texts = { "", "   ", "In the beginning God created the heaven and the earth.",
+				"And God's Spirit moved, 1,000 times", "the LORD'S house<sup>a</sup>s and <sup>b,c</sup>",
+				"&#8217;s &#x; &#; <sup></sup> <sup>x y</sup>", "'s's 's'", "__init__", ",,,", "the\u212a \u0130s" };
+		for (String text : texts) {
+			assertEquals(text, regexExtractWords(text), Concordance.extractWords(text));
+		}
+	}
+
+	@Test
+	public void testRandomTexts() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 3000; trial++) {
+			StringBuilder text = new StringBuilder();
+			int count = random.nextInt(15);
+			for (int i = 0; i < count; i++) {
+				text.append(PIECES[random.nextInt(PIECES.length)]);
+			}
+			assertEquals(text.toString(), regexExtractWords(text.toString()), Concordance.extractWords(text.toString()));
+		}
+	}
+
+	@Test
+	public void testCurlyApostrophe() {
+		assertEquals(Arrays.asList("the", "lord", "house"), Concordance.extractWords("the LORD\u2019s house"));
+	}
+
+	@Test
+	public void testUnicodeMode() {
+		assertEquals(Arrays.asList("et", "dieu", "dit", "que", "la", "lumi\u00e8re", "soit"),
+				tokens(WordTokenizer.UNICODE, "Et Dieu dit: Que la LUMI\u00c8RE soit!"));
+		assertEquals(Arrays.asList("\u1f10\u03bd", "\u1f00\u03c1\u03c7\u1fc7"),
+				tokens(WordTokenizer.UNICODE, "\u1f18\u039d \u1f00\u03c1\u03c7\u1fc7,"));
+		// The same text in ASCII mode falls apart at the accents.
+		assertEquals(Arrays.asList("lumi", "re"), tokens(WordTokenizer.ASCII, "LUMI\u00c8RE"));
+		// The other rules still apply.
+		assertEquals(Arrays.asList("dieu", "1000"), tokens(WordTokenizer.UNICODE, "Dieu's 1,000"));
+	}
+
+	@Test
+	public void testOffsets() {
+		final String text = "The LORD's  house, 1,000<sup>a</sup> cubits";
+		final ArrayList<String> spans = new ArrayList<String>();
+		WordTokenizer.ASCII.tokenize(text, new Tokenizer.TokenHandler() {
+			@Override
+			public void token(char[] buffer, int length, int start, int end) {
+				spans.add(text.substring(start, end));
+			}
+		});
+		assertEquals(Arrays.asList("The", "LORD", "house", "1,000", "cubits"), spans);
+	}
+}